@@ -477,12 +477,13 @@ oneStatement returns [BindableStatement ret]
 finally{ contextStack.pop(); }
     
 explain_node returns [BindableStatement ret]
-    :   EXPLAIN (w=WITH)? (r=REGIONS)? q=oneStatement
+    :   EXPLAIN (a=NAME {a.getText().equalsIgnoreCase("analyze")}?)? (w=WITH)? (r=REGIONS)? q=oneStatement
      {
-        if ((w==null && r!=null) || (w!=null && r==null)) {
-            throw new RuntimeException("Valid usage: EXPLAIN {query} OR EXPLAIN WITH REGIONS {query}");
+        if ((w==null && r!=null) || (w!=null && r==null) || (a!=null && w!=null)) {
+            throw new RuntimeException("Valid usage: EXPLAIN {query} OR EXPLAIN WITH REGIONS {query} OR EXPLAIN ANALYZE {query}");
         }
-        ret = (w==null && r==null) ? factory.explain(q, ExplainType.DEFAULT)
+        ret = a!=null ? factory.explain(q, ExplainType.ANALYZE)
+         : (w==null && r==null) ? factory.explain(q, ExplainType.DEFAULT)
          : factory.explain(q, ExplainType.WITH_REGIONS);
      }
     ;
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.List;
 import net.jcip.annotations.Immutable;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.join.HashJoinBloomFilter;
 import org.apache.phoenix.schema.tuple.Tuple;
 
 /**
@@ -34,4 +35,11 @@ public interface HashCache extends Closeable {
   public int getClientVersion();
 
   public List<Tuple> get(ImmutableBytesPtr hashKey) throws IOException;
+
+  /**
+   * Returns the Bloom filter of the hash keys sent with the cache, or null if there is none.
+   */
+  public default HashJoinBloomFilter getBloomFilter() {
+    return null;
+  }
 }
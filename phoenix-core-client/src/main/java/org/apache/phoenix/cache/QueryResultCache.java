@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.execute.DelegateQueryPlan;
+import org.apache.phoenix.execute.HashJoinPlan;
+import org.apache.phoenix.execute.SortMergeJoinPlan;
+import org.apache.phoenix.execute.UnionPlan;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.iterate.DelegateResultIterator;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.parse.SelectStatement;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.TableRef;
+import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
+import org.apache.phoenix.schema.tuple.ResultTuple;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.apache.phoenix.util.SizedUtil;
+
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
+import org.apache.phoenix.thirdparty.com.google.common.cache.CacheBuilder;
+import org.apache.phoenix.thirdparty.com.google.common.cache.Weigher;
+import org.apache.phoenix.thirdparty.com.google.common.math.LongMath;
+
+/**
+ * Client side cache of the small, final result sets of queries over tables whose metadata may be
+ * cached, i.e. which have an UPDATE_CACHE_FREQUENCY other than ALWAYS. Entries live no longer than
+ * the smallest UPDATE_CACHE_FREQUENCY of the tables they read from, the same staleness those tables
+ * already accept for their metadata. Entries are keyed by the statement, its bind values and the
+ * version of every table it reads, so a DDL change picked up by the client metadata cache or a
+ * write committed through these query services simply results in a new key, leaving the stale entry
+ * to age out.
+ */
+public class QueryResultCache {
+  private final boolean enabled;
+  private final int maxRows;
+  private final Cache<Key, Entry> cache;
+  /**
+   * Number of times each physical table has been written to through these query services
+   */
+  private final ConcurrentMap<String, Long> writeGenerations = new ConcurrentHashMap<>();
+
+  public QueryResultCache(ReadOnlyProps props) {
+    this.enabled = props.getBoolean(QueryServices.QUERY_RESULT_CACHE_ENABLED_ATTRIB,
+      QueryServicesOptions.DEFAULT_QUERY_RESULT_CACHE_ENABLED);
+    this.maxRows = props.getInt(QueryServices.QUERY_RESULT_CACHE_MAX_ROWS_ATTRIB,
+      QueryServicesOptions.DEFAULT_QUERY_RESULT_CACHE_MAX_ROWS);
+    long maxSize = props.getLongBytes(QueryServices.QUERY_RESULT_CACHE_MAX_SIZE_ATTRIB,
+      QueryServicesOptions.DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE);
+    this.cache =
+      CacheBuilder.newBuilder().maximumWeight(maxSize).weigher(new Weigher<Key, Entry>() {
+        @Override
+        public int weigh(Key key, Entry entry) {
+          return entry.estimatedSize;
+        }
+      }).build();
+  }
+
+  /**
+   * Returns the key to cache the results of the compiled query under, or null if they may not be
+   * cached, for example because the query reads the current time, a sequence or a table whose
+   * metadata is always refreshed.
+   */
+  public Key getKey(PhoenixStatement statement, SelectStatement select, QueryPlan plan)
+    throws SQLException {
+    if (!enabled) {
+      return null;
+    }
+    if (plan.getSourceRefs().isEmpty() || !isDeterministic(plan)) {
+      return null;
+    }
+    PhoenixConnection connection = statement.getConnection();
+    List<Object> components = new ArrayList<>();
+    components.add(connection.getTenantId() == null ? null : connection.getTenantId().getString());
+    components.add(connection.getSCN());
+    components.add(statement.getMaxRows());
+    components.add(select.toString());
+    for (Object parameter : statement.getParameters()) {
+      components
+        .add(parameter instanceof byte[] ? new ImmutableBytesPtr((byte[]) parameter) : parameter);
+    }
+    long timeToLiveMs = Long.MAX_VALUE;
+    for (TableRef tableRef : plan.getSourceRefs()) {
+      PTable table = tableRef.getTable();
+      if (table.getUpdateCacheFrequency() <= 0 || table.isTransactional()) {
+        return null;
+      }
+      timeToLiveMs = Math.min(timeToLiveMs, table.getUpdateCacheFrequency());
+      String physicalName = table.getPhysicalName().getString();
+      components.add(physicalName);
+      components.add(table.getTimeStamp());
+      components.add(table.getSequenceNumber());
+      components.add(writeGenerations.get(physicalName));
+    }
+    return new Key(components, timeToLiveMs);
+  }
+
+  /**
+   * Returns whether the plan and every plan it is composed of, such as the inner plans of joins,
+   * the legs of a union or the plans of subqueries, neither read the current time nor a sequence.
+   */
+  private static boolean isDeterministic(QueryPlan plan) {
+    if (!isDeterministic(plan.getContext())) {
+      return false;
+    }
+    List<QueryPlan> subPlans = new ArrayList<>();
+    if (plan instanceof DelegateQueryPlan) {
+      subPlans.add(((DelegateQueryPlan) plan).getDelegate());
+    }
+    if (plan instanceof HashJoinPlan) {
+      for (HashJoinPlan.SubPlan subPlan : ((HashJoinPlan) plan).getSubPlans()) {
+        subPlans.add(subPlan.getInnerPlan());
+      }
+    } else if (plan instanceof SortMergeJoinPlan) {
+      subPlans.add(((SortMergeJoinPlan) plan).getLhsPlan());
+      subPlans.add(((SortMergeJoinPlan) plan).getRhsPlan());
+    } else if (plan instanceof UnionPlan) {
+      subPlans.addAll(((UnionPlan) plan).getSubPlans());
+    }
+    for (QueryPlan subPlan : subPlans) {
+      if (!isDeterministic(subPlan)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDeterministic(StatementContext context) {
+    if (context.isCurrentTimeUsed() || context.getSequenceManager().getSequenceCount() > 0) {
+      return false;
+    }
+    for (StatementContext subContext : context.getSubStatementContexts()) {
+      if (!isDeterministic(subContext)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the cached rows for the key, or null if there are none or they have expired.
+   */
+  public List<Tuple> get(Key key) {
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      return null;
+    }
+    if (EnvironmentEdgeManager.currentTimeMillis() >= entry.expirationTime) {
+      cache.invalidate(key);
+      return null;
+    }
+    return entry.rows;
+  }
+
+  /**
+   * Wraps the iterator over the results of the query so that they get cached under the key once
+   * fully read, unless there turn out to be more than the maximum number of rows to cache.
+   */
+  public ResultIterator newCachingIterator(Key key, ResultIterator iterator) {
+    // The time to live is Long.MAX_VALUE for tables with an UPDATE_CACHE_FREQUENCY of NEVER
+    long expirationTime =
+      LongMath.saturatedAdd(EnvironmentEdgeManager.currentTimeMillis(), key.timeToLiveMs);
+    return new DelegateResultIterator(iterator) {
+      private List<Tuple> rows = new ArrayList<>();
+      private int estimatedSize = SizedUtil.OBJECT_SIZE;
+
+      @Override
+      public Tuple next() throws SQLException {
+        Tuple tuple = super.next();
+        if (rows != null) {
+          if (tuple == null) {
+            cache.put(key, new Entry(rows, expirationTime, estimatedSize));
+            rows = null;
+          } else {
+            Tuple copy = rows.size() < maxRows ? copyTuple(tuple) : null;
+            if (copy == null) {
+              rows = null;
+            } else {
+              rows.add(copy);
+              for (int i = 0; i < copy.size(); i++) {
+                estimatedSize += ((KeyValue) copy.getValue(i)).heapSize();
+              }
+            }
+          }
+        }
+        return tuple;
+      }
+    };
+  }
+
+  /**
+   * Makes sure no cached results reflect the table as it was before a write to it, or to the data
+   * table its indexes are maintained from.
+   */
+  public void invalidate(PTable table) {
+    invalidate(table.getPhysicalName().getString());
+    for (PTable index : table.getIndexes()) {
+      invalidate(index.getPhysicalName().getString());
+    }
+  }
+
+  public void invalidate(String physicalTableName) {
+    writeGenerations.merge(physicalTableName, 1L, Long::sum);
+  }
+
+  /**
+   * Copies the tuple into one that does not share buffers with the scan it was read from. Only
+   * tuples fully described by their cells can be copied, so null is returned for any other.
+   */
+  private static Tuple copyTuple(Tuple tuple) {
+    Class<?> tupleClass = tuple.getClass();
+    if (
+      tuple.size() == 0 || (tupleClass != ResultTuple.class
+        && tupleClass != MultiKeyValueTuple.class && tupleClass != SingleKeyValueTuple.class)
+    ) {
+      return null;
+    }
+    Cell[] cells = new Cell[tuple.size()];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = KeyValueUtil.copyToNewKeyValue(tuple.getValue(i));
+    }
+    return new ResultTuple(Result.create(cells));
+  }
+
+  /**
+   * Identifies the results of a compiled query against specific versions of the tables it reads.
+   */
+  public static class Key {
+    private final List<Object> components;
+    private final long timeToLiveMs;
+
+    private Key(List<Object> components, long timeToLiveMs) {
+      this.components = components;
+      this.timeToLiveMs = timeToLiveMs;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && components.equals(((Key) obj).components);
+    }
+
+    @Override
+    public int hashCode() {
+      return components.hashCode();
+    }
+  }
+
+  private static class Entry {
+    private final List<Tuple> rows;
+    private final long expirationTime;
+    private final int estimatedSize;
+
+    private Entry(List<Tuple> rows, long expirationTime, int estimatedSize) {
+      this.rows = rows;
+      this.expirationTime = expirationTime;
+      this.estimatedSize = estimatedSize;
+    }
+  }
+}
@@ -51,6 +51,8 @@ import org.apache.phoenix.execute.SortMergeJoinPlan;
 import org.apache.phoenix.execute.TupleProjectionPlan;
 import org.apache.phoenix.execute.TupleProjector;
 import org.apache.phoenix.execute.UnionPlan;
+import org.apache.phoenix.expression.CoerceExpression;
+import org.apache.phoenix.expression.Determinism;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.LiteralExpression;
 import org.apache.phoenix.expression.RowValueConstructorExpression;
@@ -82,6 +84,7 @@ import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.AmbiguousColumnException;
 import org.apache.phoenix.schema.ColumnNotFoundException;
+import org.apache.phoenix.schema.MetaDataEntityNotFoundException;
 import org.apache.phoenix.schema.PDatum;
 import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.schema.PTableType;
@@ -120,6 +123,7 @@ public class QueryCompiler {
   private final boolean optimizeSubquery;
   private final Map<TableRef, QueryPlan> dataPlans;
   private final boolean costBased;
+  private final boolean useHashJoinBloomFilter;
   private final StatementContext parentContext;
 
   public QueryCompiler(PhoenixStatement statement, SelectStatement select, ColumnResolver resolver,
@@ -183,6 +187,9 @@ public class QueryCompiler {
     ConnectionQueryServices services = statement.getConnection().getQueryServices();
     this.costBased = services.getProps().getBoolean(QueryServices.COST_BASED_OPTIMIZER_ENABLED,
       QueryServicesOptions.DEFAULT_COST_BASED_OPTIMIZER_ENABLED);
+    this.useHashJoinBloomFilter =
+      services.getProps().getBoolean(QueryServices.HASH_JOIN_BLOOM_FILTER_ENABLED_ATTRIB,
+        QueryServicesOptions.DEFAULT_HASH_JOIN_BLOOM_FILTER_ENABLED);
     scan.setLoadColumnFamiliesOnDemand(true);
     if (select.getHint().hasHint(Hint.NO_CACHE)) {
       scan.setCacheBlocks(false);
@@ -461,6 +468,10 @@ public class QueryCompiler {
             joinExpressions[i], hashExpressions);
           Expression keyRangeLhsExpression = keyRangeExpressions.getFirst();
           Expression keyRangeRhsExpression = keyRangeExpressions.getSecond();
+          Expression bloomFilterLhsExpression =
+            keyRangeLhsExpression == null && !table.isSubselect()
+              ? getBloomFilterLhsExpression(joinSpec, tableRef, joinExpressions[i])
+              : null;
           joinTypes[i] = joinSpec.getType();
           if (i < count - 1) {
             fieldPositions[i + 1] = fieldPositions[i] + (tables[i] == null
@@ -469,7 +480,7 @@ public class QueryCompiler {
           }
           hashPlans[i] = new HashSubPlan(i, subPlans[i], optimized ? null : hashExpressions,
             joinSpec.isSingleValueOnly(), usePersistentCache, keyRangeLhsExpression,
-            keyRangeRhsExpression);
+            keyRangeRhsExpression, bloomFilterLhsExpression);
         }
         TupleProjector.serializeProjectorIntoScan(context.getScan(), tupleProjector,
           wildcardIncludesDynamicCols);
@@ -688,6 +699,44 @@ public class QueryCompiler {
     return type == JoinType.Semi && complete;
   }
 
+  /**
+   * Compiles the probe side key of a single condition inner or semi join against the scanned table
+   * rather than the projected table the join expressions are bound to, so that a Bloom filter of
+   * the build side keys can be evaluated by the scan filter. Returns null if the key cannot be
+   * evaluated on the scanned rows, e.g. because it references another joined table.
+   */
+  private Expression getBloomFilterLhsExpression(JoinSpec joinSpec, TableRef tableRef,
+    List<Expression> joinExpressions) throws SQLException {
+    if (
+      !useHashJoinBloomFilter || noChildParentJoinOptimization
+        || (joinSpec.getType() != JoinType.Inner && joinSpec.getType() != JoinType.Semi)
+        || joinSpec.getOnConditions().size() != 1 || joinExpressions.size() != 1
+    ) {
+      return null;
+    }
+    StatementContext tableContext = new StatementContext(statement,
+      FromCompiler.getResolver(tableRef), bindManager, new Scan(), new SequenceManager(statement));
+    tableContext.setCurrentTable(tableRef);
+    Expression lhs;
+    try {
+      lhs = joinSpec.getOnConditions().get(0).getLHS().accept(new ExpressionCompiler(tableContext));
+    } catch (MetaDataEntityNotFoundException | AmbiguousColumnException e) {
+      return null;
+    }
+    if (lhs.isStateless() || lhs.getDeterminism() != Determinism.ALWAYS) {
+      return null;
+    }
+    Expression joinExpression = joinExpressions.get(0);
+    if (
+      lhs.getDataType() != joinExpression.getDataType()
+        || lhs.getSortOrder() != joinExpression.getSortOrder()
+    ) {
+      lhs = CoerceExpression.create(lhs, joinExpression.getDataType(),
+        joinExpression.getSortOrder(), lhs.getMaxLength());
+    }
+    return lhs;
+  }
+
   protected QueryPlan compileSubquery(SelectStatement subquery, boolean pushDownMaxRows)
     throws SQLException {
     return compileSubquery(subquery, pushDownMaxRows, null);
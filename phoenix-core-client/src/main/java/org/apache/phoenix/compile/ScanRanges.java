@@ -87,6 +87,19 @@ public class ScanRanges {
   public static ScanRanges create(RowKeySchema schema, List<List<KeyRange>> ranges, int[] slotSpan,
     Integer nBuckets, boolean useSkipScan, int rowTimestampColIndex,
     Optional<byte[]> scanMinOffset) {
+    return create(schema, ranges, slotSpan, nBuckets, useSkipScan, rowTimestampColIndex,
+      scanMinOffset, -1);
+  }
+
+  /**
+   * @param maxPointKeys maximum number of point keys to expand multiple IN lists on different row
+   *                     key columns into, beyond which the skip scan keeps the slots factored and
+   *                     enumerates their combinations as it navigates. Not enforced if not
+   *                     positive.
+   */
+  public static ScanRanges create(RowKeySchema schema, List<List<KeyRange>> ranges, int[] slotSpan,
+    Integer nBuckets, boolean useSkipScan, int rowTimestampColIndex, Optional<byte[]> scanMinOffset,
+    int maxPointKeys) {
     int offset = nBuckets == null ? 0 : SaltingUtil.NUM_SALTING_BYTES;
     int nSlots = ranges.size();
 
@@ -99,7 +112,8 @@ public class ScanRanges {
       return NOTHING;
     }
     TimeRange rowTimestampRange = getRowTimestampColumnRange(ranges, schema, rowTimestampColIndex);
-    boolean isPointLookup = isPointLookup(schema, ranges, slotSpan, useSkipScan);
+    boolean isPointLookup = isPointLookup(schema, ranges, slotSpan, useSkipScan)
+      && !exceedsMaxPointKeys(ranges, offset, maxPointKeys);
     if (isPointLookup) {
       // Do this before transforming the ranges into list of key ranges with single slot
       // Once the list is transformed into singleton list, IS_NULL_RANGE is no longer retained.
@@ -640,6 +654,24 @@ public class ScanRanges {
     return true;
   }
 
+  private static boolean exceedsMaxPointKeys(List<List<KeyRange>> ranges, int offset,
+    int maxPointKeys) {
+    if (maxPointKeys <= 0) {
+      return false;
+    }
+    // A single multi-key slot expands into no more keys than were given
+    int multiKeySlots = 0;
+    long count = 1;
+    for (int i = offset; i < ranges.size(); i++) {
+      int size = ranges.get(i).size();
+      if (size > 1) {
+        multiKeySlots++;
+        count = Math.min(count * size, Long.MAX_VALUE / Integer.MAX_VALUE);
+      }
+    }
+    return multiKeySlots > 1 && count > maxPointKeys;
+  }
+
   private static boolean isPointLookupWithTrailingNulls(List<List<KeyRange>> ranges) {
     int lastIndex = ranges.size() - 1;
     List<KeyRange> lastRange = ranges.get(lastIndex);
@@ -18,6 +18,7 @@
 package org.apache.phoenix.compile;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
@@ -203,6 +204,26 @@ public class SequenceManager {
     return maxNumToAllocate;
   }
 
+  /**
+   * Returns the keys of the referenced sequences, ordered by the index used to look up their values
+   * in a tuple, if all of them are referenced through NEXT VALUE FOR of a single value, or null
+   * otherwise. These are the sequences whose values can be allocated on the server.
+   */
+  public List<SequenceKey> getNextValueSequenceKeys() throws SQLException {
+    SequenceKey[] keys = new SequenceKey[sequenceMap.size()];
+    for (Map.Entry<SequenceKey, SequenceValueExpression> entry : sequenceMap.entrySet()) {
+      SequenceValueExpression expression = entry.getValue();
+      if (
+        !isNextSequence.get(expression.getIndex())
+          || SequenceUtil.isBulkAllocation(determineNumToAllocate(expression))
+      ) {
+        return null;
+      }
+      keys[expression.getIndex()] = entry.getKey();
+    }
+    return Arrays.asList(keys);
+  }
+
   public void validateSequences(Sequence.ValueOp action) throws SQLException {
     if (action == Sequence.ValueOp.NOOP) {
       return;
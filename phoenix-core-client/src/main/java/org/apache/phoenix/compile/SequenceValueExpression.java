@@ -17,10 +17,14 @@
  */
 package org.apache.phoenix.compile;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.expression.BaseTerminalExpression;
 import org.apache.phoenix.expression.Determinism;
 import org.apache.phoenix.expression.Expression;
@@ -33,11 +37,16 @@ import org.apache.phoenix.schema.types.PLong;
 import org.apache.phoenix.util.SchemaUtil;
 
 public class SequenceValueExpression extends BaseTerminalExpression {
-  private final SequenceKey key;
-  final Op op;
-  private final int index;
+  // Only the op and index are serialized, for server side UPSERT SELECT which gets the values of
+  // the sequences from the tuple
+  private SequenceKey key;
+  Op op;
+  private int index;
   private final Set<Expression> numToAllocateExpressions = new HashSet<>();
 
+  public SequenceValueExpression() {
+  }
+
   public SequenceValueExpression(SequenceKey key, Op op, int index, Expression numToAllocateExp) {
     this.key = key;
     this.op = op;
@@ -94,10 +103,23 @@ public class SequenceValueExpression extends BaseTerminalExpression {
     return true;
   }
 
+  @Override
+  public void readFields(DataInput input) throws IOException {
+    op = Op.values()[WritableUtils.readVInt(input)];
+    index = WritableUtils.readVInt(input);
+  }
+
+  @Override
+  public void write(DataOutput output) throws IOException {
+    WritableUtils.writeVInt(output, op.ordinal());
+    WritableUtils.writeVInt(output, index);
+  }
+
   @Override
   public String toString() {
-    String sequenceQualifiedName =
-      SchemaUtil.getTableName(key.getSchemaName(), key.getSequenceName());
+    String sequenceQualifiedName = key == null
+      ? "#" + index
+      : SchemaUtil.getTableName(key.getSchemaName(), key.getSequenceName());
     if (op == Op.CURRENT_VALUE) {
       return op.getName() + " VALUE " + "FOR " + sequenceQualifiedName;
     } else {
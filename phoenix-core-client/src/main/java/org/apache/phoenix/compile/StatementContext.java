@@ -79,6 +79,7 @@ public class StatementContext {
   private Map<Long, Boolean> retryingPersistentCache;
 
   private long currentTime = QueryConstants.UNSET_TIMESTAMP;
+  private boolean isCurrentTimeUsed;
   private ScanRanges scanRanges = ScanRanges.EVERYTHING;
   private final SequenceManager sequences;
 
@@ -107,10 +108,28 @@ public class StatementContext {
   }
 
   public StatementContext(StatementContext context) {
+    this(context, context.sequences);
+  }
+
+  /**
+   * Copies the given context, using the given sequence manager instead of its own.
+   */
+  public StatementContext(StatementContext context, SequenceManager sequences) {
+    this(context, sequences, context.scan);
+  }
+
+  /**
+   * Copies the given context, using the given scan instead of its own.
+   */
+  public StatementContext(StatementContext context, Scan scan) {
+    this(context, context.sequences, scan);
+  }
+
+  private StatementContext(StatementContext context, SequenceManager sequences, Scan scan) {
     this.resolver = context.resolver;
     this.connection = context.connection;
     this.binds = context.binds;
-    this.scan = context.scan;
+    this.scan = scan;
     this.expressions = context.expressions;
     this.aggregates = context.aggregates;
     this.numberFormat = context.numberFormat;
@@ -119,8 +138,9 @@ public class StatementContext {
     this.dataColumns = context.dataColumns;
     this.retryingPersistentCache = context.retryingPersistentCache;
     this.currentTime = context.currentTime;
+    this.isCurrentTimeUsed = context.isCurrentTimeUsed;
     this.scanRanges = context.scanRanges;
-    this.sequences = context.sequences;
+    this.sequences = sequences;
     this.currentTable = context.currentTable;
     this.whereConditionColumns = context.whereConditionColumns;
     this.subqueryResults = context.subqueryResults;
@@ -318,6 +338,7 @@ public class StatementContext {
   }
 
   public long getCurrentTime() throws SQLException {
+    isCurrentTimeUsed = true;
     long ts = this.getCurrentTable().getTimeStamp();
     // if the table is transactional then it is only resolved once per query, so we can't use the
     // table timestamp
@@ -345,6 +366,14 @@ public class StatementContext {
     return currentTime;
   }
 
+  /**
+   * Returns whether the statement depends on the current time, as it would for CURRENT_DATE(),
+   * which makes its results change over time even though the data does not.
+   */
+  public boolean isCurrentTimeUsed() {
+    return isCurrentTimeUsed;
+  }
+
   public long getCurrentTimeWithDisplacement() throws SQLException {
     if (connection.isApplyTimeZoneDisplacement()) {
       return DateUtil.applyInputDisplacement(new java.sql.Date(getCurrentTime()),
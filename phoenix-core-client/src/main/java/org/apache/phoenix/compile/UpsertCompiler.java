@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.HRegionLocation;
@@ -101,6 +102,7 @@ import org.apache.phoenix.schema.PTableImpl;
 import org.apache.phoenix.schema.PTableKey;
 import org.apache.phoenix.schema.PTableType;
 import org.apache.phoenix.schema.ReadOnlyTableException;
+import org.apache.phoenix.schema.SequenceKey;
 import org.apache.phoenix.schema.SortOrder;
 import org.apache.phoenix.schema.TableRef;
 import org.apache.phoenix.schema.TypeMismatchException;
@@ -407,6 +409,9 @@ public class UpsertCompiler {
     boolean allowServerMutations =
       services.getProps().getBoolean(QueryServices.ENABLE_SERVER_SIDE_UPSERT_MUTATIONS,
         QueryServicesOptions.DEFAULT_ENABLE_SERVER_SIDE_UPSERT_MUTATIONS);
+    boolean serverUpsertSelectSequencesEnabled =
+      services.getProps().getBoolean(QueryServices.ENABLE_SERVER_UPSERT_SELECT_SEQUENCES,
+        QueryServicesOptions.DEFAULT_ENABLE_SERVER_UPSERT_SELECT_SEQUENCES);
     UpsertingParallelIteratorFactory parallelIteratorFactoryToBe = null;
     boolean useServerTimestampToBe = false;
 
@@ -607,19 +612,23 @@ public class UpsertCompiler {
        * merge) 3) autoCommit is on 4) the table is not immutable with indexes, as the client is the
        * one that figures out the additional puts for index tables. 5) no limit clause, as the limit
        * clause requires client-side post processing 6) no sequences, as sequences imply that the
-       * order of upsert must match the order of selection. TODO: change this and only force client
-       * side if there's a ORDER BY on the sequence value 7) no order by, upsert order should same
-       * as select order. Otherwise, run the query to pull the data from the server and populate the
-       * MutationState (upto a limit).
+       * order of upsert must match the order of selection, unless server side sequence allocation
+       * is enabled and the connection is not at a point in time 7) no order by, upsert order should
+       * same as select order. Otherwise, run the query to pull the data from the server and
+       * populate the MutationState (upto a limit).
        */
+      boolean serverSideSequences =
+        serverUpsertSelectSequencesEnabled && connection.getSCN() == null;
       if (
         !(select.isAggregate() || select.isDistinct() || select.getLimit() != null
-          || select.hasSequence() || select.haveOrderBy())
+          || (select.hasSequence() && !serverSideSequences) || select.haveOrderBy())
       ) {
         // We can pipeline the upsert select instead of spooling everything to disk first,
         // if we don't have any post processing that's required.
-        parallelIteratorFactoryToBe =
-          new UpsertingParallelIteratorFactory(connection, tableRefToBe, useServerTimestampToBe);
+        if (!select.hasSequence()) {
+          parallelIteratorFactoryToBe =
+            new UpsertingParallelIteratorFactory(connection, tableRefToBe, useServerTimestampToBe);
+        }
         // If we're in the else, then it's not an aggregate, distinct, limited, or sequence using
         // query,
         // so we might be able to run it entirely on the server side.
@@ -798,6 +807,23 @@ public class UpsertCompiler {
         ) {
           runOnServer = false;
         }
+        // Region scans can only allocate NEXT VALUE FOR of a single value
+        SequenceManager sequenceManager = queryPlan.getContext().getSequenceManager();
+        List<SequenceKey> sequenceKeys = sequenceManager.getSequenceCount() == 0
+          ? null
+          : sequenceManager.getNextValueSequenceKeys();
+        if (sequenceManager.getSequenceCount() > 0 && sequenceKeys == null) {
+          runOnServer = false;
+        }
+        // Region scans only allocate values of sequences of the tenant of the table upserted into
+        if (sequenceKeys != null) {
+          String tenantId = table.getTenantId() == null ? null : table.getTenantId().getString();
+          for (SequenceKey sequenceKey : sequenceKeys) {
+            if (!Objects.equals(tenantId, sequenceKey.getTenantId())) {
+              runOnServer = false;
+            }
+          }
+        }
         ////////////////////////////////////////////////////////////////////
         // UPSERT SELECT run server-side
         /////////////////////////////////////////////////////////////////////
@@ -845,8 +871,19 @@ public class UpsertCompiler {
             UngroupedAggregateRegionObserverHelper.serialize(projectedTable));
           scan.setAttribute(BaseScannerRegionObserverConstants.UPSERT_SELECT_EXPRS,
             UngroupedAggregateRegionObserverHelper.serialize(projectedExpressions));
+          StatementContext aggContext = context;
+          if (sequenceKeys != null) {
+            long blockSize = services.getProps().getLong(
+              QueryServices.SERVER_UPSERT_SELECT_SEQUENCE_BLOCK_SIZE_ATTRIB,
+              QueryServicesOptions.DEFAULT_SERVER_UPSERT_SELECT_SEQUENCE_BLOCK_SIZE);
+            scan.setAttribute(BaseScannerRegionObserverConstants.UPSERT_SELECT_SEQUENCES,
+              UngroupedAggregateRegionObserverHelper.serialize(services.getSequenceSaltBuckets(),
+                blockSize, sequenceKeys));
+            // The region scans allocate the values, none are needed for the rows they return
+            aggContext = new StatementContext(context, new SequenceManager(statement));
+          }
           // Ignore order by - it has no impact
-          final QueryPlan aggPlan = new AggregatePlan(context, select,
+          final QueryPlan aggPlan = new AggregatePlan(aggContext, select,
             statementContext.getCurrentTable(), aggProjector, null, null, OrderBy.EMPTY_ORDER_BY,
             null, GroupBy.EMPTY_GROUP_BY, null, originalQueryPlan);
           return new ServerUpsertSelectMutationPlan(queryPlan, tableRef, originalQueryPlan, context,
@@ -1253,6 +1290,10 @@ public class UpsertCompiler {
         new ExplainPlanAttributesBuilder(explainPlanAttributes);
       newBuilder.setAbstractExplainPlan("UPSERT ROWS");
       planSteps.add("UPSERT ROWS");
+      int sequenceCount = queryPlan.getContext().getSequenceManager().getSequenceCount();
+      if (sequenceCount > 0) {
+        planSteps.add("SERVER RESERVE " + sequenceCount + " SEQUENCES");
+      }
       planSteps.addAll(queryPlanSteps);
       return new ExplainPlan(planSteps, newBuilder.build());
     }
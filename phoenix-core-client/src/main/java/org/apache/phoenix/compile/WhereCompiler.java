@@ -90,6 +90,7 @@ import org.apache.phoenix.filter.RowKeyComparisonFilter;
 import org.apache.phoenix.filter.RowLevelFilter;
 import org.apache.phoenix.filter.SingleCFCQKeyValueComparisonFilter;
 import org.apache.phoenix.filter.SingleCQKeyValueComparisonFilter;
+import org.apache.phoenix.filter.SkipScanFilter;
 import org.apache.phoenix.parse.ColumnParseNode;
 import org.apache.phoenix.parse.ComparisonParseNode;
 import org.apache.phoenix.parse.FilterableStatement;
@@ -100,6 +101,8 @@ import org.apache.phoenix.parse.SelectStatement;
 import org.apache.phoenix.parse.StatelessTraverseAllParseNodeVisitor;
 import org.apache.phoenix.parse.SubqueryParseNode;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.AmbiguousColumnException;
 import org.apache.phoenix.schema.ColumnNotFoundException;
 import org.apache.phoenix.schema.ColumnRef;
@@ -613,7 +616,15 @@ public class WhereCompiler {
 
     ScanRanges scanRanges = context.getScanRanges();
     if (scanRanges.useSkipScanFilter()) {
-      ScanUtil.andFilterAtBeginning(scan, scanRanges.getSkipScanFilter());
+      SkipScanFilter skipScanFilter = scanRanges.getSkipScanFilter();
+      if (
+        context.getConnection().getQueryServices().getProps().getBoolean(
+          QueryServices.SKIP_SCAN_COMPACT_SERIALIZATION_ENABLED_ATTRIB,
+          QueryServicesOptions.DEFAULT_SKIP_SCAN_COMPACT_SERIALIZATION_ENABLED)
+      ) {
+        skipScanFilter = skipScanFilter.withCompactSerialization();
+      }
+      ScanUtil.andFilterAtBeginning(scan, skipScanFilter);
     }
   }
 
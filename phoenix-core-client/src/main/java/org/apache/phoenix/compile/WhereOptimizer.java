@@ -408,10 +408,10 @@ public class WhereOptimizer {
     }
     // If we have fully qualified point keys with multi-column spans (i.e. RVC),
     // we can still use our skip scan. The ScanRanges.create() call will explode
-    // out the keys.
+    // out the keys, unless doing so would produce more than maxInListSkipScanSize keys.
     slotSpanArray = Arrays.copyOf(slotSpanArray, cnf.size());
     ScanRanges scanRanges = ScanRanges.create(schema, cnf, slotSpanArray, nBuckets, useSkipScan,
-      table.getRowTimestampColPos(), minOffset);
+      table.getRowTimestampColPos(), minOffset, maxInListSkipScanSize);
     context.setScanRanges(scanRanges);
     if (whereClause == null) {
       return null;
@@ -71,6 +71,7 @@ public class BaseScannerRegionObserverConstants {
   public static final String SINGLE_ROW_DELETE = "_SingleRowDelete";
   public static final String UPSERT_SELECT_TABLE = "_UpsertSelectTable";
   public static final String UPSERT_SELECT_EXPRS = "_UpsertSelectExprs";
+  public static final String UPSERT_SELECT_SEQUENCES = "_UpsertSelectSequences";
   public static final String DELETE_CQ = "_DeleteCQ";
   public static final String DELETE_CF = "_DeleteCF";
   public static final String UPSERT_STATUS_CQ = "_UpsertStatusCQ";
@@ -197,6 +198,17 @@ public class BaseScannerRegionObserverConstants {
    */
   public static final String CUSTOM_ANNOTATIONS = "_Annot";
 
+  /**
+   * Attribute requesting the region server to cache the partial aggregate results of the scan,
+   * keyed by the scan itself, and to serve them again until the region is written to.
+   */
+  public static final String CACHE_AGGREGATE_RESULT = "_CacheAggregateResult";
+  /**
+   * Attribute holding the maximum number of projected rows the region server may pack into a single
+   * columnar batch cell. See {@link org.apache.phoenix.schema.tuple.ColumnarBatch}.
+   */
+  public static final String COLUMNAR_BATCH_MAX_ROWS = "_ColumnarBatchMaxRows";
+
   /** Exposed for testing */
   public static final String SCANNER_OPENED_TRACE_INFO = "Scanner opened on server";
 
@@ -27,6 +27,7 @@ import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.ExpressionType;
 import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.schema.PTableImpl;
+import org.apache.phoenix.schema.SequenceKey;
 
 public class UngroupedAggregateRegionObserverHelper {
   public static byte[] serialize(PTable projectedTable) {
@@ -55,4 +56,28 @@ public class UngroupedAggregateRegionObserverHelper {
       }
     }
   }
+
+  /**
+   * Serializes the sequences a server side UPSERT SELECT allocates values of, in the order of the
+   * index their values are looked up with. The server resolves SYSTEM.SEQUENCE itself.
+   * @param nSaltBuckets number of salt buckets of SYSTEM.SEQUENCE
+   * @param blockSize    number of values to reserve at a time
+   */
+  public static byte[] serialize(int nSaltBuckets, long blockSize,
+    List<SequenceKey> sequenceKeys) {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(stream)) {
+      WritableUtils.writeVInt(output, nSaltBuckets);
+      WritableUtils.writeVLong(output, blockSize);
+      WritableUtils.writeVInt(output, sequenceKeys.size());
+      for (SequenceKey key : sequenceKeys) {
+        WritableUtils.writeString(output, key.getTenantId());
+        WritableUtils.writeString(output, key.getSchemaName());
+        WritableUtils.writeString(output, key.getSequenceName());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return stream.toByteArray();
+  }
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessorclient.metrics;
+
+import org.apache.hadoop.hbase.metrics.BaseSource;
+
+/**
+ * Interface for metrics about the region server cache of partial aggregate results
+ */
+public interface MetricsAggregateResultCacheSource extends BaseSource {
+  // Metrics2 and JMX constants
+  String METRICS_NAME = "AggregateResultCache";
+  String METRICS_CONTEXT = "phoenix";
+  String METRICS_DESCRIPTION = "Metrics about the cache of partial aggregate results";
+  String METRICS_JMX_CONTEXT = "RegionServer,sub=" + METRICS_NAME;
+
+  String AGGREGATE_RESULT_CACHE_HITS = "numAggregateResultCacheHits";
+  String AGGREGATE_RESULT_CACHE_HITS_DESC =
+    "Number of aggregate scans served from the cache of partial aggregate results";
+
+  String AGGREGATE_RESULT_CACHE_MISSES = "numAggregateResultCacheMisses";
+  String AGGREGATE_RESULT_CACHE_MISSES_DESC =
+    "Number of aggregate scans requesting the cache for which no valid entry was found";
+
+  /**
+   * Report a cache hit for an aggregate scan over the given table.
+   * @param tableName physical name of the table
+   */
+  void incrementAggregateResultCacheHitCount(String tableName);
+
+  /**
+   * Report a cache miss for an aggregate scan over the given table.
+   * @param tableName physical name of the table
+   */
+  void incrementAggregateResultCacheMissCount(String tableName);
+}
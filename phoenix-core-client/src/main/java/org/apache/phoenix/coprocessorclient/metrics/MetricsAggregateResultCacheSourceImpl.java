@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessorclient.metrics;
+
+import org.apache.hadoop.hbase.metrics.BaseSourceImpl;
+import org.apache.hadoop.metrics2.lib.MutableFastCounter;
+
+/**
+ * Implementation for tracking the cache of partial aggregate results, both in total and per table.
+ */
+public class MetricsAggregateResultCacheSourceImpl extends BaseSourceImpl
+  implements MetricsAggregateResultCacheSource {
+
+  private final MutableFastCounter cacheHitCounter;
+  private final MutableFastCounter cacheMissCounter;
+
+  public MetricsAggregateResultCacheSourceImpl() {
+    this(METRICS_NAME, METRICS_DESCRIPTION, METRICS_CONTEXT, METRICS_JMX_CONTEXT);
+  }
+
+  public MetricsAggregateResultCacheSourceImpl(String metricsName, String metricsDescription,
+    String metricsContext, String metricsJmxContext) {
+    super(metricsName, metricsDescription, metricsContext, metricsJmxContext);
+    cacheHitCounter = getMetricsRegistry().newCounter(AGGREGATE_RESULT_CACHE_HITS,
+      AGGREGATE_RESULT_CACHE_HITS_DESC, 0L);
+    cacheMissCounter = getMetricsRegistry().newCounter(AGGREGATE_RESULT_CACHE_MISSES,
+      AGGREGATE_RESULT_CACHE_MISSES_DESC, 0L);
+  }
+
+  @Override
+  public void incrementAggregateResultCacheHitCount(String tableName) {
+    incrementTableSpecificCounter(AGGREGATE_RESULT_CACHE_HITS, tableName);
+    cacheHitCounter.incr();
+  }
+
+  @Override
+  public void incrementAggregateResultCacheMissCount(String tableName) {
+    incrementTableSpecificCounter(AGGREGATE_RESULT_CACHE_MISSES, tableName);
+    cacheMissCounter.incr();
+  }
+
+  private void incrementTableSpecificCounter(String baseCounterName, String tableName) {
+    getMetricsRegistry().getCounter(baseCounterName + "." + tableName, 0).incr();
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessorclient.metrics;
+
+import org.apache.hadoop.hbase.metrics.BaseSource;
+
+/**
+ * Interface for metrics about the Bloom filters of hash join keys applied by probe side scans
+ */
+public interface MetricsHashJoinBloomFilterSource extends BaseSource {
+  // Metrics2 and JMX constants
+  String METRICS_NAME = "HashJoinBloomFilter";
+  String METRICS_CONTEXT = "phoenix";
+  String METRICS_DESCRIPTION = "Metrics about the Bloom filters of hash join keys";
+  String METRICS_JMX_CONTEXT = "RegionServer,sub=" + METRICS_NAME;
+
+  String BLOOM_FILTER_PASSED_ROWS = "numHashJoinBloomFilterPassedRows";
+  String BLOOM_FILTER_PASSED_ROWS_DESC =
+    "Number of probe side rows passed by the Bloom filter of the hash join keys";
+
+  String BLOOM_FILTER_REJECTED_ROWS = "numHashJoinBloomFilterRejectedRows";
+  String BLOOM_FILTER_REJECTED_ROWS_DESC =
+    "Number of probe side rows rejected by the Bloom filter of the hash join keys";
+
+  /**
+   * Report the rows passed and rejected by the Bloom filter of a probe side scan.
+   * @param tableName physical name of the probe side table
+   * @param passed    number of rows passed
+   * @param rejected  number of rows rejected
+   */
+  void incrementBloomFilterRowCounts(String tableName, long passed, long rejected);
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessorclient.metrics;
+
+import org.apache.hadoop.hbase.metrics.BaseSourceImpl;
+import org.apache.hadoop.metrics2.lib.MutableFastCounter;
+
+/**
+ * Implementation for tracking the rows passed and rejected by hash join Bloom filters, both in
+ * total and per table.
+ */
+public class MetricsHashJoinBloomFilterSourceImpl extends BaseSourceImpl
+  implements MetricsHashJoinBloomFilterSource {
+
+  private final MutableFastCounter passedRowsCounter;
+  private final MutableFastCounter rejectedRowsCounter;
+
+  public MetricsHashJoinBloomFilterSourceImpl() {
+    this(METRICS_NAME, METRICS_DESCRIPTION, METRICS_CONTEXT, METRICS_JMX_CONTEXT);
+  }
+
+  public MetricsHashJoinBloomFilterSourceImpl(String metricsName, String metricsDescription,
+    String metricsContext, String metricsJmxContext) {
+    super(metricsName, metricsDescription, metricsContext, metricsJmxContext);
+    passedRowsCounter = getMetricsRegistry().newCounter(BLOOM_FILTER_PASSED_ROWS,
+      BLOOM_FILTER_PASSED_ROWS_DESC, 0L);
+    rejectedRowsCounter = getMetricsRegistry().newCounter(BLOOM_FILTER_REJECTED_ROWS,
+      BLOOM_FILTER_REJECTED_ROWS_DESC, 0L);
+  }
+
+  @Override
+  public void incrementBloomFilterRowCounts(String tableName, long passed, long rejected) {
+    passedRowsCounter.incr(passed);
+    rejectedRowsCounter.incr(rejected);
+    getMetricsRegistry().getCounter(BLOOM_FILTER_PASSED_ROWS + "." + tableName, 0).incr(passed);
+    getMetricsRegistry().getCounter(BLOOM_FILTER_REJECTED_ROWS + "." + tableName, 0)
+      .incr(rejected);
+  }
+}
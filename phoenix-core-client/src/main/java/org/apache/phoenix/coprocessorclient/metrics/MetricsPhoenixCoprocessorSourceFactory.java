@@ -26,6 +26,8 @@ public class MetricsPhoenixCoprocessorSourceFactory {
     new MetricsPhoenixCoprocessorSourceFactory();
   private static volatile MetricsMetadataCachingSource metadataCachingSource;
   private static volatile MetricsPhoenixMasterSource phoenixMasterSource;
+  private static volatile MetricsAggregateResultCacheSource aggregateResultCacheSource;
+  private static volatile MetricsHashJoinBloomFilterSource hashJoinBloomFilterSource;
 
   public static MetricsPhoenixCoprocessorSourceFactory getInstance() {
     return INSTANCE;
@@ -52,4 +54,26 @@ public class MetricsPhoenixCoprocessorSourceFactory {
     }
     return INSTANCE.phoenixMasterSource;
   }
+
+  public MetricsAggregateResultCacheSource getAggregateResultCacheSource() {
+    if (INSTANCE.aggregateResultCacheSource == null) {
+      synchronized (MetricsAggregateResultCacheSource.class) {
+        if (INSTANCE.aggregateResultCacheSource == null) {
+          INSTANCE.aggregateResultCacheSource = new MetricsAggregateResultCacheSourceImpl();
+        }
+      }
+    }
+    return INSTANCE.aggregateResultCacheSource;
+  }
+
+  public MetricsHashJoinBloomFilterSource getHashJoinBloomFilterSource() {
+    if (INSTANCE.hashJoinBloomFilterSource == null) {
+      synchronized (MetricsHashJoinBloomFilterSource.class) {
+        if (INSTANCE.hashJoinBloomFilterSource == null) {
+          INSTANCE.hashJoinBloomFilterSource = new MetricsHashJoinBloomFilterSourceImpl();
+        }
+      }
+    }
+    return INSTANCE.hashJoinBloomFilterSource;
+  }
 }
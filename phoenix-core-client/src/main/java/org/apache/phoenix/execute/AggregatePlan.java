@@ -300,6 +300,10 @@ public class AggregatePlan extends BaseQueryPlan {
           PInteger.INSTANCE.toBytes(limit + (offset == null ? 0 : offset)));
       }
     }
+    if (statement.getHint().hasHint(HintNode.Hint.CACHE_AGGREGATE_RESULT)) {
+      scan.setAttribute(BaseScannerRegionObserverConstants.CACHE_AGGREGATE_RESULT,
+        QueryConstants.TRUE);
+    }
     BaseResultIterators iterators = isSerial
       ? new SerialIterators(this, null, null, wrapParallelIteratorFactory(), scanGrouper, scan,
         caches, dataPlan)
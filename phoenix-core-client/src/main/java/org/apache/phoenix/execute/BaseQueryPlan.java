@@ -222,6 +222,11 @@ public abstract class BaseQueryPlan implements QueryPlan {
   }
 
   public final ResultIterator iterator(final Map<ImmutableBytesPtr, ServerCache> caches,
+    ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
+    return QueryProfile.profile(this, getIterator(caches, scanGrouper, scan));
+  }
+
+  private ResultIterator getIterator(final Map<ImmutableBytesPtr, ServerCache> caches,
     ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
     if (scan == null) {
       scan = context.getScan();
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
@@ -71,6 +72,7 @@ import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.CostUtil;
 import org.apache.phoenix.util.ExpressionUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.TupleUtil;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
@@ -81,6 +83,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
   private final ServerAggregators serverAggregators;
   private final ClientAggregators clientAggregators;
   private final boolean useHashAgg;
+  private final int parallelHashAggPartitions;
   private OrderBy actualOutputOrderBy;
 
   public ClientAggregatePlan(StatementContext context, FilterableStatement statement,
@@ -100,7 +103,20 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
 
     // Extract hash aggregate hint, if any.
     HintNode hints = statement.getHint();
-    useHashAgg = hints != null && hints.hasHint(HintNode.Hint.HASH_AGGREGATE);
+    boolean hashAggHint = hints != null && hints.hasHint(HintNode.Hint.HASH_AGGREGATE);
+    // Partition the hash aggregation across the query thread pool when enabled, which also
+    // makes it preferable to sorting the rows on the client.
+    ReadOnlyProps props = context.getConnection().getQueryServices().getProps();
+    int partitions = 1;
+    if (
+      props.getBoolean(QueryServices.PARALLEL_CLIENT_AGGREGATE_ENABLED_ATTRIB,
+        QueryServicesOptions.DEFAULT_PARALLEL_CLIENT_AGGREGATE_ENABLED)
+    ) {
+      partitions = Math.min(Runtime.getRuntime().availableProcessors(), props.getInt(
+        QueryServices.THREAD_POOL_SIZE_ATTRIB, QueryServicesOptions.DEFAULT_THREAD_POOL_SIZE));
+    }
+    this.parallelHashAggPartitions = partitions > 1 ? partitions : 0;
+    useHashAgg = hashAggHint || parallelHashAggPartitions > 0;
     this.actualOutputOrderBy = convertActualOutputOrderBy(orderBy, groupBy, context);
   }
 
@@ -172,7 +188,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
         if (useHashAgg) {
           // Pass in orderBy to apply any sort that has been optimized away
           aggResultIterator = new ClientHashAggregatingResultIterator(context, iterator,
-            serverAggregators, keyExpressions, orderBy);
+            serverAggregators, newPartitionAggregators(), keyExpressions, orderBy);
         } else {
           iterator = new OrderedResultIterator(iterator, keyExpressionOrderBy, spoolingEnabled,
             thresholdBytes, null, null, projector.getEstimatedRowByteSize());
@@ -215,7 +231,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
       resultScanner = new SequenceResultIterator(resultScanner, context.getSequenceManager());
     }
 
-    return resultScanner;
+    return QueryProfile.profile(this, resultScanner);
   }
 
   @Override
@@ -238,10 +254,12 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
       newBuilder.setClientAggregate(
         "CLIENT AGGREGATE INTO ORDERED DISTINCT ROWS BY " + groupBy.getExpressions().toString());
     } else if (useHashAgg) {
-      planSteps
-        .add("CLIENT HASH AGGREGATE INTO DISTINCT ROWS BY " + groupBy.getExpressions().toString());
-      newBuilder.setClientAggregate(
-        "CLIENT HASH AGGREGATE INTO DISTINCT ROWS BY " + groupBy.getExpressions().toString());
+      String hashAggregate = (parallelHashAggPartitions > 0
+        ? "CLIENT " + parallelHashAggPartitions + "-WAY PARALLEL HASH AGGREGATE"
+        : "CLIENT HASH AGGREGATE") + " INTO DISTINCT ROWS BY "
+        + groupBy.getExpressions().toString();
+      planSteps.add(hashAggregate);
+      newBuilder.setClientAggregate(hashAggregate);
       if (orderBy == OrderBy.FWD_ROW_KEY_ORDER_BY || orderBy == OrderBy.REV_ROW_KEY_ORDER_BY) {
         planSteps.add("CLIENT SORTED BY " + groupBy.getKeyExpressions().toString());
         newBuilder.setClientSortedBy(groupBy.getKeyExpressions().toString());
@@ -363,6 +381,24 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
     }
   }
 
+  /**
+   * Creates an independent copy of the server aggregators for each partition of a parallel hash
+   * aggregation, since aggregators may not be shared across threads.
+   */
+  private List<ServerAggregators> newPartitionAggregators() {
+    if (parallelHashAggPartitions == 0) {
+      return Collections.emptyList();
+    }
+    byte[] serializedAggregators = context.getScan().getAttribute(AGGREGATORS);
+    Configuration config = context.getConnection().getQueryServices().getConfiguration();
+    List<ServerAggregators> partitionAggregators =
+      Lists.newArrayListWithExpectedSize(parallelHashAggPartitions);
+    for (int i = 0; i < parallelHashAggPartitions; i++) {
+      partitionAggregators.add(ServerAggregators.deserialize(serializedAggregators, config, null));
+    }
+    return partitionAggregators;
+  }
+
   private OrderBy convertActualOutputOrderBy(OrderBy orderBy, GroupBy groupBy,
     StatementContext statementContext) {
     if (!orderBy.isEmpty()) {
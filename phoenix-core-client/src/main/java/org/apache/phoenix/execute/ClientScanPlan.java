@@ -111,7 +111,7 @@ public class ClientScanPlan extends ClientProcessingPlan {
       iterator = new SequenceResultIterator(iterator, context.getSequenceManager());
     }
 
-    return iterator;
+    return QueryProfile.profile(this, iterator);
   }
 
   @Override
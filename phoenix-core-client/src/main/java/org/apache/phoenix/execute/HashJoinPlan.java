@@ -52,6 +52,7 @@ import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.execute.visitor.AvgRowWidthVisitor;
 import org.apache.phoenix.execute.visitor.QueryPlanVisitor;
 import org.apache.phoenix.execute.visitor.RowCountVisitor;
+import org.apache.phoenix.expression.BloomFilterExpression;
 import org.apache.phoenix.expression.Determinism;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.InListExpression;
@@ -62,6 +63,7 @@ import org.apache.phoenix.iterate.*;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.join.HashCacheClient;
+import org.apache.phoenix.join.HashJoinBloomFilter;
 import org.apache.phoenix.join.HashJoinInfo;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
 import org.apache.phoenix.optimize.Cost;
@@ -106,6 +108,9 @@ public class HashJoinPlan extends DelegateQueryPlan {
   private HashCacheClient hashClient;
   private AtomicLong firstJobEndTime;
   private List<Expression> keyRangeExpressions;
+  private List<Expression> bloomFilterExpressions;
+  private final int bloomFilterMaxKeys;
+  private final float bloomFilterFpp;
   private Long estimatedRows;
   private Long estimatedBytes;
   private Long estimateInfoTs;
@@ -156,6 +161,12 @@ public class HashJoinPlan extends DelegateQueryPlan {
     this.serverCacheLimit =
       services.getProps().getLongBytes(QueryServices.MAX_SERVER_CACHE_SIZE_ATTRIB,
         QueryServicesOptions.DEFAULT_MAX_SERVER_CACHE_SIZE);
+    this.bloomFilterMaxKeys =
+      services.getProps().getInt(QueryServices.HASH_JOIN_BLOOM_FILTER_MAX_KEYS_ATTRIB,
+        QueryServicesOptions.DEFAULT_HASH_JOIN_BLOOM_FILTER_MAX_KEYS);
+    this.bloomFilterFpp =
+      services.getProps().getFloat(QueryServices.HASH_JOIN_BLOOM_FILTER_FPP_ATTRIB,
+        QueryServicesOptions.DEFAULT_HASH_JOIN_BLOOM_FILTER_FPP);
     for (SubPlan subPlan : subPlans) {
       this.getContext().addSubStatementContext(subPlan.getInnerPlan().getContext());
     }
@@ -183,6 +194,7 @@ public class HashJoinPlan extends DelegateQueryPlan {
         : new HashCacheClient(delegate.getContext().getConnection());
       firstJobEndTime = new AtomicLong(0);
       keyRangeExpressions = new CopyOnWriteArrayList<Expression>();
+      bloomFilterExpressions = new CopyOnWriteArrayList<Expression>();
     }
 
     for (int i = 0; i < count; i++) {
@@ -191,7 +203,10 @@ public class HashJoinPlan extends DelegateQueryPlan {
 
         @Override
         public ServerCache call() throws Exception {
+          long startTime = System.nanoTime();
           ServerCache cache = subPlans[index].execute(HashJoinPlan.this);
+          QueryProfile.recordServerCache(subPlans[index].getInnerPlan(), cache,
+            System.nanoTime() - startTime);
           return cache;
         }
 
@@ -237,7 +252,9 @@ public class HashJoinPlan extends DelegateQueryPlan {
 
     Expression postFilter = null;
     boolean hasKeyRangeExpressions = keyRangeExpressions != null && !keyRangeExpressions.isEmpty();
-    if (recompileWhereClause || hasKeyRangeExpressions) {
+    boolean hasBloomFilterExpressions =
+      bloomFilterExpressions != null && !bloomFilterExpressions.isEmpty();
+    if (recompileWhereClause || hasKeyRangeExpressions || hasBloomFilterExpressions) {
       StatementContext context = delegate.getContext();
       // Since we are going to compile the WHERE conditions all over again, we will clear
       // the old filter, otherwise there would be conflicts and would cause PHOENIX-4692.
@@ -252,9 +269,16 @@ public class HashJoinPlan extends DelegateQueryPlan {
         postFilter = WhereCompiler.compile(delegate.getContext(), delegate.getStatement(),
           viewWhere, null, Optional.<byte[]> absent());
       }
-      if (hasKeyRangeExpressions) {
+      if (hasKeyRangeExpressions || hasBloomFilterExpressions) {
+        List<Expression> dynamicFilters = Lists.newArrayList();
+        if (hasKeyRangeExpressions) {
+          dynamicFilters.addAll(keyRangeExpressions);
+        }
+        if (hasBloomFilterExpressions) {
+          dynamicFilters.addAll(bloomFilterExpressions);
+        }
         WhereCompiler.compile(delegate.getContext(), delegate.getStatement(), viewWhere,
-          keyRangeExpressions, null, Optional.<byte[]> absent());
+          dynamicFilters, null, Optional.<byte[]> absent());
       }
     }
 
@@ -268,6 +292,7 @@ public class HashJoinPlan extends DelegateQueryPlan {
     if (statement.getInnerSelectStatement() != null && postFilter != null) {
       iterator = new FilterResultIterator(iterator, postFilter);
     }
+    iterator = QueryProfile.profile(this, iterator);
 
     if (hasSubPlansWithPersistentCache) {
       return peekForPersistentCache(iterator, scanGrouper, scan);
@@ -532,11 +557,24 @@ public class HashJoinPlan extends DelegateQueryPlan {
     private final boolean usePersistentCache;
     private final Expression keyRangeLhsExpression;
     private final Expression keyRangeRhsExpression;
+    private final Expression bloomFilterLhsExpression;
     private final MessageDigest digest;
 
     public HashSubPlan(int index, QueryPlan subPlan, List<Expression> hashExpressions,
       boolean singleValueOnly, boolean usePersistentCache, Expression keyRangeLhsExpression,
       Expression keyRangeRhsExpression) {
+      this(index, subPlan, hashExpressions, singleValueOnly, usePersistentCache,
+        keyRangeLhsExpression, keyRangeRhsExpression, null);
+    }
+
+    /**
+     * @param bloomFilterLhsExpression the probe side join key compiled against the scanned table,
+     *                                 or null if no Bloom filter of the build side join keys is to
+     *                                 be pushed into the probe side scan
+     */
+    public HashSubPlan(int index, QueryPlan subPlan, List<Expression> hashExpressions,
+      boolean singleValueOnly, boolean usePersistentCache, Expression keyRangeLhsExpression,
+      Expression keyRangeRhsExpression, Expression bloomFilterLhsExpression) {
       this.index = index;
       this.plan = subPlan;
       this.hashExpressions = hashExpressions;
@@ -544,6 +582,7 @@ public class HashJoinPlan extends DelegateQueryPlan {
       this.usePersistentCache = usePersistentCache;
       this.keyRangeLhsExpression = keyRangeLhsExpression;
       this.keyRangeRhsExpression = keyRangeRhsExpression;
+      this.bloomFilterLhsExpression = bloomFilterLhsExpression;
       try {
         this.digest = MessageDigest.getInstance("SHA-256");
       } catch (NoSuchAlgorithmException e) {
@@ -582,9 +621,18 @@ public class HashJoinPlan extends DelegateQueryPlan {
           LOGGER.debug("Using cache ID " + Hex.encodeHexString(cacheId) + " for " + queryString);
           if (cache == null) {
             LOGGER.debug("Making RPC to add cache " + Hex.encodeHexString(cacheId));
+            HashJoinBloomFilter.Builder bloomFilterBuilder = bloomFilterLhsExpression == null
+              ? null
+              : new HashJoinBloomFilter.Builder(parent.bloomFilterMaxKeys, parent.bloomFilterFpp);
             cache = parent.hashClient.addHashCache(ranges, cacheId, iterator,
               plan.getEstimatedSize(), hashExpressions, singleValueOnly, usePersistentCache,
-              parent.delegate.getTableRef().getTable(), keyRangeRhsExpression, keyRangeRhsValues);
+              parent.delegate.getTableRef().getTable(), keyRangeRhsExpression, keyRangeRhsValues,
+              bloomFilterBuilder);
+            // The filter is sent with the cache, so the scan only references it by cache id
+            if (bloomFilterBuilder != null && !bloomFilterBuilder.isOverflow()) {
+              parent.bloomFilterExpressions
+                .add(new BloomFilterExpression(bloomFilterLhsExpression, cacheId));
+            }
             long endTime = EnvironmentEdgeManager.currentTimeMillis();
             boolean isSet = parent.firstJobEndTime.compareAndSet(0, endTime);
             if (
@@ -648,6 +696,10 @@ public class HashJoinPlan extends DelegateQueryPlan {
 
     @Override
     public List<String> getPostSteps(HashJoinPlan parent) throws SQLException {
+      if (bloomFilterLhsExpression != null) {
+        return Collections.<String> singletonList(
+          "    DYNAMIC SERVER FILTER BY BLOOM FILTER ON " + bloomFilterLhsExpression.toString());
+      }
       if (keyRangeLhsExpression == null) return Collections.<String> emptyList();
 
       String step = "    DYNAMIC SERVER FILTER BY " + keyRangeLhsExpression.toString() + " IN ("
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.compile.ExplainPlan;
+import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBuilder;
+import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.compile.ScanRanges;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.exception.PhoenixIOException;
+import org.apache.phoenix.execute.visitor.QueryPlanVisitor;
+import org.apache.phoenix.expression.OrderByExpression;
+import org.apache.phoenix.filter.SkipScanFilter;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.iterate.MaterializedResultIterator;
+import org.apache.phoenix.iterate.ParallelScanGrouper;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.ScanUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Query plan for an ORDER BY ... LIMIT query over wide rows. The key plan computes the top rows
+ * while carrying only the ORDER BY expressions and the row key, after which a copy of the delegate
+ * plan fetches the projected columns of just the surviving rows with a point lookup and orders
+ * them again. Both scans read the latest data as seen by the region servers. A row that is changed
+ * in between, such that it no longer matches the query or its ORDER BY values differ from the ones
+ * the key plan ordered it by, fails the re-verification of the looked up rows, and the query then
+ * falls back to a single scan of the delegate plan.
+ */
+public class LateMaterializationPlan extends DelegateQueryPlan {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LateMaterializationPlan.class);
+
+  private final ScanPlan scanPlan;
+  private final QueryPlan keyPlan;
+  private final Filter filter;
+
+  public LateMaterializationPlan(ScanPlan delegate, QueryPlan keyPlan) {
+    super(delegate);
+    this.scanPlan = delegate;
+    this.keyPlan = keyPlan;
+    this.filter = removeSkipScanFilter(delegate.getContext().getScan().getFilter());
+  }
+
+  /**
+   * The skip scan filter compiled from the WHERE clause is superseded by the one for the point
+   * lookup, which the scan ranges expect to be the only one at the beginning of the filter list.
+   */
+  private static Filter removeSkipScanFilter(Filter filter) {
+    if (filter instanceof SkipScanFilter) {
+      return null;
+    }
+    if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      List<Filter> filters = new ArrayList<>(filterList.getFilters().size());
+      for (Filter f : filterList.getFilters()) {
+        if (!(f instanceof SkipScanFilter)) {
+          filters.add(f);
+        }
+      }
+      return filters.isEmpty() ? null : new FilterList(filterList.getOperator(), filters);
+    }
+    return filter;
+  }
+
+  public QueryPlan getKeyPlan() {
+    return keyPlan;
+  }
+
+  @Override
+  public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
+    // No read timestamp is pinned from the client clock, which may be skewed against the region
+    // servers. Instead the looked up rows are verified against the ones the key plan ordered.
+    Map<ImmutableBytesPtr, List<ImmutableBytesPtr>> keyValues = new HashMap<>();
+    List<KeyRange> keys = new ArrayList<>();
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    ResultIterator iterator = keyPlan.iterator(scanGrouper);
+    try {
+      for (Tuple tuple = iterator.next(); tuple != null; tuple = iterator.next()) {
+        tuple.getKey(ptr);
+        byte[] key = ByteUtil.copyKeyBytesIfNecessary(ptr);
+        keys.add(KeyRange.getKeyRange(key));
+        keyValues.put(new ImmutableBytesPtr(key), evaluate(keyPlan.getOrderBy(), tuple, ptr));
+      }
+    } finally {
+      iterator.close();
+    }
+    if (keys.isEmpty()) {
+      return ResultIterator.EMPTY_ITERATOR;
+    }
+    // The compiled plan is left untouched so that it can be executed again
+    Scan lookupScan = newScan(scan == null ? delegate.getContext().getScan() : scan);
+    lookupScan.setFilter(filter);
+    StatementContext context = new StatementContext(delegate.getContext(), lookupScan);
+    ScanRanges scanRanges = ScanRanges.createPointLookup(keys);
+    context.setScanRanges(scanRanges);
+    if (scanRanges.useSkipScanFilter()) {
+      ScanUtil.andFilterAtBeginning(lookupScan, scanRanges.getSkipScanFilter());
+    }
+    List<Tuple> results = new ArrayList<>(keys.size());
+    iterator = scanPlan.withContext(context).iterator(scanGrouper, lookupScan);
+    try {
+      for (Tuple tuple = iterator.next(); tuple != null; tuple = iterator.next()) {
+        tuple.getKey(ptr);
+        List<ImmutableBytesPtr> values = keyValues.remove(new ImmutableBytesPtr(ptr));
+        if (values == null || !values.equals(evaluate(delegate.getOrderBy(), tuple, ptr))) {
+          return fallback(scanGrouper, scan);
+        }
+        results.add(tuple);
+      }
+    } finally {
+      iterator.close();
+    }
+    // A row the key plan returned was deleted or no longer matches the query
+    if (!keyValues.isEmpty()) {
+      return fallback(scanGrouper, scan);
+    }
+    return new MaterializedResultIterator(results);
+  }
+
+  private ResultIterator fallback(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
+    LOGGER.debug("Rows changed between the scans of late materialization, falling back to a "
+      + "single scan of {}", delegate.getTableRef().getTable().getName());
+    return delegate.iterator(scanGrouper, scan);
+  }
+
+  private static List<ImmutableBytesPtr> evaluate(OrderBy orderBy, Tuple tuple,
+    ImmutableBytesWritable ptr) {
+    List<OrderByExpression> expressions = orderBy.getOrderByExpressions();
+    List<ImmutableBytesPtr> values = new ArrayList<>(expressions.size());
+    for (OrderByExpression expression : expressions) {
+      values.add(expression.getExpression().evaluate(tuple, ptr)
+        ? new ImmutableBytesPtr(ByteUtil.copyKeyBytesIfNecessary(ptr))
+        : new ImmutableBytesPtr(ByteUtil.EMPTY_BYTE_ARRAY));
+    }
+    return values;
+  }
+
+  private static Scan newScan(Scan scan) throws SQLException {
+    try {
+      return new Scan(scan);
+    } catch (IOException e) {
+      throw new PhoenixIOException(e);
+    }
+  }
+
+  @Override
+  public ExplainPlan getExplainPlan() throws SQLException {
+    ExplainPlan explainPlan = keyPlan.getExplainPlan();
+    List<String> planSteps = new ArrayList<>(explainPlan.getPlanSteps());
+    String step = "CLIENT LATE MATERIALIZATION BY POINT LOOKUP ON " + delegate.getLimit()
+      + " ROW KEYS OVER " + delegate.getTableRef().getTable().getName().getString();
+    planSteps.add(step);
+    ExplainPlanAttributesBuilder newBuilder =
+      new ExplainPlanAttributesBuilder(explainPlan.getPlanStepsAsAttributes());
+    newBuilder.setAbstractExplainPlan(step);
+    return new ExplainPlan(planSteps, newBuilder.build());
+  }
+
+  @Override
+  public <T> T accept(QueryPlanVisitor<T> visitor) {
+    return visitor.visit(this);
+  }
+}
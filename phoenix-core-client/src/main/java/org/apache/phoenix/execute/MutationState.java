@@ -70,6 +70,7 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.htrace.Span;
 import org.apache.htrace.TraceScope;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverConstants;
@@ -1724,6 +1725,11 @@ public class MutationState implements SQLCloseable {
             GLOBAL_MUTATION_INDEX_COMMIT_FAILURE_COUNT.update(numFailedPhase3Mutations);
           }
         } finally {
+          // Even a failed batch may have been partly applied. Global indexes are maintained on
+          // the server from these mutations, so results cached from them are invalidated as well.
+          QueryResultCache resultCache = connection.getQueryServices().getQueryResultCache();
+          resultCache.invalidate(htableNameStr);
+          resultCache.invalidate(table);
           mutationCommitTime = EnvironmentEdgeManager.currentTimeMillis() - startTime;
           GLOBAL_MUTATION_COMMIT_TIME.update(mutationCommitTime);
           MutationMetric failureMutationMetrics = MutationMetric.EMPTY_METRIC;
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.iterate.ProfilingResultIterator;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+
+/**
+ * Collects the runtime statistics of each operator of a query run by EXPLAIN ANALYZE. Plans look up
+ * the profile through the statement of their context and wrap the iterators they return in a
+ * {@link ProfilingResultIterator}, which makes the statistics inclusive of the operators below.
+ */
+public class QueryProfile {
+  private final Map<QueryPlan, OperatorStats> stats =
+    Collections.synchronizedMap(new IdentityHashMap<>());
+  private final long startTime = System.nanoTime();
+
+  /**
+   * Wraps the iterator returned by the plan so that its rows and time get recorded, if the plan is
+   * being profiled.
+   */
+  public static ResultIterator profile(QueryPlan plan, ResultIterator iterator) {
+    QueryProfile profile = getQueryProfile(plan);
+    if (profile == null) {
+      return iterator;
+    }
+    return new ProfilingResultIterator(iterator, profile.getOrCreateStats(plan));
+  }
+
+  /**
+   * Records the time taken to build the server cache of a hash join sub plan (or to run a sub
+   * query) and the size of the cache, if the plan is being profiled.
+   * @param cache the server cache built, or null if none was
+   */
+  public static void recordServerCache(QueryPlan plan, ServerCache cache, long elapsedNanos) {
+    QueryProfile profile = getQueryProfile(plan);
+    if (profile == null) {
+      return;
+    }
+    OperatorStats operatorStats = profile.getOrCreateStats(plan);
+    operatorStats.serverCacheBuildTime.addAndGet(elapsedNanos);
+    if (cache != null) {
+      operatorStats.serverCacheBytes.addAndGet(cache.getSize());
+    }
+  }
+
+  private static QueryProfile getQueryProfile(QueryPlan plan) {
+    StatementContext context = plan.getContext();
+    PhoenixStatement statement = context == null ? null : context.getStatement();
+    return statement == null ? null : statement.getQueryProfile();
+  }
+
+  /** Returns the statistics of the plan, or null if it produced no iterator */
+  public OperatorStats getStats(QueryPlan plan) {
+    return stats.get(plan);
+  }
+
+  private OperatorStats getOrCreateStats(QueryPlan plan) {
+    synchronized (stats) {
+      return stats.computeIfAbsent(plan, p -> new OperatorStats(startTime));
+    }
+  }
+
+  /**
+   * Runtime statistics of a single operator, summed over all iterators it returned.
+   */
+  public static class OperatorStats {
+    private final long queryStartTime;
+    private final AtomicLong iterators = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong time = new AtomicLong();
+    private final AtomicLong firstRowTime = new AtomicLong(-1);
+    private final AtomicLong serverCacheBuildTime = new AtomicLong();
+    private final AtomicLong serverCacheBytes = new AtomicLong();
+
+    private OperatorStats(long queryStartTime) {
+      this.queryStartTime = queryStartTime;
+    }
+
+    public void iteratorOpened() {
+      iterators.incrementAndGet();
+    }
+
+    /**
+     * Records a call to next() that took elapsedNanos and returned a row or, at the end of the
+     * results, null.
+     */
+    public void recordNext(boolean hasRow, long elapsedNanos, long endTime) {
+      time.addAndGet(elapsedNanos);
+      if (hasRow) {
+        rows.incrementAndGet();
+        firstRowTime.compareAndSet(-1, endTime - queryStartTime);
+      }
+    }
+
+    public long getIterators() {
+      return iterators.get();
+    }
+
+    public long getRows() {
+      return rows.get();
+    }
+
+    public long getTimeMs() {
+      return TimeUnit.NANOSECONDS.toMillis(time.get());
+    }
+
+    /** Returns the time from the start of the query to the first row returned, or -1 if none was */
+    public long getFirstRowTimeMs() {
+      long firstRow = firstRowTime.get();
+      return firstRow < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstRow);
+    }
+
+    public long getServerCacheBuildTimeMs() {
+      return TimeUnit.NANOSECONDS.toMillis(serverCacheBuildTime.get());
+    }
+
+    public long getServerCacheBytes() {
+      return serverCacheBytes.get();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder();
+      buf.append("rows=").append(getRows()).append(", time=").append(getTimeMs()).append(" ms");
+      if (getFirstRowTimeMs() >= 0) {
+        buf.append(", first row=").append(getFirstRowTimeMs()).append(" ms");
+      }
+      if (getIterators() > 1) {
+        buf.append(", iterators=").append(getIterators());
+      }
+      if (serverCacheBuildTime.get() > 0) {
+        buf.append(", cache build time=").append(getServerCacheBuildTimeMs()).append(" ms");
+        buf.append(", cache bytes=").append(getServerCacheBytes());
+      }
+      return buf.toString();
+    }
+  }
+}
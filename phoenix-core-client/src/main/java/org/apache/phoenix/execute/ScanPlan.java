@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
@@ -74,6 +75,7 @@ import org.apache.phoenix.schema.stats.StatisticsUtil;
 import org.apache.phoenix.util.CostUtil;
 import org.apache.phoenix.util.ExpressionUtil;
 import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.ScanUtil;
 import org.apache.phoenix.util.SchemaUtil;
 import org.slf4j.Logger;
@@ -132,6 +134,15 @@ public class ScanPlan extends BaseQueryPlan {
     this.rowOffset = rowOffset;
   }
 
+  /**
+   * Returns a copy of this plan that runs over the given context, which must have been copied from
+   * the context of this plan, with a result iterator factory chosen for its scan ranges.
+   */
+  ScanPlan withContext(StatementContext context) throws SQLException {
+    return new ScanPlan(context, statement, tableRef, projection, limit, offset, orderBy, null,
+      allowPageFilter, dataPlan, rowOffset);
+  }
+
   // Static because called from tests
   public static void serializeScanRegionObserverIntoScan(Scan scan, int limit,
     List<OrderByExpression> orderByExpressions, int estimatedRowSize) {
@@ -278,6 +289,17 @@ public class ScanPlan extends BaseQueryPlan {
     Map<ImmutableBytesPtr, ServerCache> caches) throws SQLException {
     // Set any scan attributes before creating the scanner, as it will be too late afterwards
     scan.setAttribute(BaseScannerRegionObserverConstants.NON_AGGREGATE_QUERY, QueryConstants.TRUE);
+    ReadOnlyProps props = context.getConnection().getQueryServices().getProps();
+    if (
+      props.getBoolean(QueryServices.COLUMNAR_BATCH_ENABLED_ATTRIB,
+        QueryServicesOptions.DEFAULT_COLUMNAR_BATCH_ENABLED)
+        || statement.getHint().hasHint(HintNode.Hint.COLUMNAR_BATCH)
+    ) {
+      // Only honored by the region server for scans projecting into a single value cell
+      scan.setAttribute(BaseScannerRegionObserverConstants.COLUMNAR_BATCH_MAX_ROWS,
+        Bytes.toBytes(props.getInt(QueryServices.COLUMNAR_BATCH_MAX_ROWS_ATTRIB,
+          QueryServicesOptions.DEFAULT_COLUMNAR_BATCH_MAX_ROWS)));
+    }
     ResultIterator scanner;
     TableRef tableRef = this.getTableRef();
     PTable table = tableRef.getTable();
@@ -175,9 +175,10 @@ public class SortMergeJoinPlan implements QueryPlan {
 
   @Override
   public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
-    return joinType == JoinType.Semi || joinType == JoinType.Anti
-      ? new SemiAntiJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper))
-      : new BasicJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper));
+    return QueryProfile.profile(this,
+      joinType == JoinType.Semi || joinType == JoinType.Anti
+        ? new SemiAntiJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper))
+        : new BasicJoinIterator(lhsPlan.iterator(scanGrouper), rhsPlan.iterator(scanGrouper)));
   }
 
   @Override
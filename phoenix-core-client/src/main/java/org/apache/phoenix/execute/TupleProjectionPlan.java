@@ -179,7 +179,7 @@ public class TupleProjectionPlan extends DelegateQueryPlan {
       iterator = new FilterResultIterator(iterator, postFilter);
     }
 
-    return iterator;
+    return QueryProfile.profile(this, iterator);
   }
 
   @Override
@@ -228,7 +228,7 @@ public class UnionPlan implements QueryPlan {
         scanner = new LimitingResultIterator(scanner, limit);
       }
     }
-    return scanner;
+    return QueryProfile.profile(this, scanner);
   }
 
   @Override
@@ -53,7 +53,8 @@ public class UnnestArrayPlan extends DelegateQueryPlan {
 
   @Override
   public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan) throws SQLException {
-    return new UnnestArrayResultIterator(delegate.iterator(scanGrouper, scan));
+    return QueryProfile.profile(this,
+      new UnnestArrayResultIterator(delegate.iterator(scanGrouper, scan)));
   }
 
   @Override
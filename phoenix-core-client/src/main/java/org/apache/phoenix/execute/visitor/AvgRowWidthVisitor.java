@@ -26,6 +26,7 @@ import org.apache.phoenix.execute.ClientAggregatePlan;
 import org.apache.phoenix.execute.ClientScanPlan;
 import org.apache.phoenix.execute.CursorFetchPlan;
 import org.apache.phoenix.execute.HashJoinPlan;
+import org.apache.phoenix.execute.LateMaterializationPlan;
 import org.apache.phoenix.execute.LiteralResultIterationPlan;
 import org.apache.phoenix.execute.ScanPlan;
 import org.apache.phoenix.execute.SortMergeJoinPlan;
@@ -158,6 +159,11 @@ public class AvgRowWidthVisitor implements QueryPlanVisitor<Double> {
     return plan.getDelegate().accept(this);
   }
 
+  @Override
+  public Double visit(LateMaterializationPlan plan) {
+    return plan.getDelegate().accept(this);
+  }
+
   @Override
   public Double visit(ListJarsQueryPlan plan) {
     return (double) plan.getEstimatedSize();
@@ -25,6 +25,7 @@ import org.apache.phoenix.execute.ClientAggregatePlan;
 import org.apache.phoenix.execute.ClientScanPlan;
 import org.apache.phoenix.execute.CursorFetchPlan;
 import org.apache.phoenix.execute.HashJoinPlan;
+import org.apache.phoenix.execute.LateMaterializationPlan;
 import org.apache.phoenix.execute.LiteralResultIterationPlan;
 import org.apache.phoenix.execute.ScanPlan;
 import org.apache.phoenix.execute.SortMergeJoinPlan;
@@ -97,6 +98,11 @@ public class ByteCountVisitor implements QueryPlanVisitor<Double> {
     return getByteCountFromRowCountAndRowWidth(plan);
   }
 
+  @Override
+  public Double visit(LateMaterializationPlan plan) {
+    return getByteCountFromRowCountAndRowWidth(plan);
+  }
+
   @Override
   public Double visit(ListJarsQueryPlan plan) {
     return getByteCountFromRowCountAndRowWidth(plan);
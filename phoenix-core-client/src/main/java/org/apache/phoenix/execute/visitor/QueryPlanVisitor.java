@@ -50,6 +50,8 @@ public interface QueryPlanVisitor<E> {
 
   E visit(CursorFetchPlan plan);
 
+  E visit(LateMaterializationPlan plan);
+
   E visit(ListJarsQueryPlan plan);
 
   E visit(TraceQueryPlan plan);
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.execute.visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.phoenix.compile.ListJarsQueryPlan;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.compile.TraceQueryPlan;
+import org.apache.phoenix.execute.AggregatePlan;
+import org.apache.phoenix.execute.ClientAggregatePlan;
+import org.apache.phoenix.execute.ClientScanPlan;
+import org.apache.phoenix.execute.CursorFetchPlan;
+import org.apache.phoenix.execute.HashJoinPlan;
+import org.apache.phoenix.execute.HashJoinPlan.SubPlan;
+import org.apache.phoenix.execute.LateMaterializationPlan;
+import org.apache.phoenix.execute.LiteralResultIterationPlan;
+import org.apache.phoenix.execute.QueryProfile;
+import org.apache.phoenix.execute.QueryProfile.OperatorStats;
+import org.apache.phoenix.execute.ScanPlan;
+import org.apache.phoenix.execute.SortMergeJoinPlan;
+import org.apache.phoenix.execute.TupleProjectionPlan;
+import org.apache.phoenix.execute.UnionPlan;
+import org.apache.phoenix.execute.UnnestArrayPlan;
+import org.apache.phoenix.monitoring.MetricType;
+import org.apache.phoenix.monitoring.ReadMetricQueue;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.TableRef;
+
+/**
+ * Implementation of QueryPlanVisitor used to render the {@link QueryProfile} of a query run by
+ * EXPLAIN ANALYZE as one line per operator, indented below its parent. Operators scanning a table
+ * are followed by the read metrics returned by the region servers for the tables they scanned.
+ */
+public class QueryProfileVisitor implements QueryPlanVisitor<List<String>> {
+  private static final String INDENT = "    ";
+
+  private final QueryProfile profile;
+  private final Set<ReadMetricQueue> visitedReadMetrics =
+    Collections.newSetFromMap(new IdentityHashMap<>());
+
+  public QueryProfileVisitor(QueryProfile profile) {
+    this.profile = profile;
+  }
+
+  @Override
+  public List<String> defaultReturn(QueryPlan plan) {
+    return getSteps(plan);
+  }
+
+  @Override
+  public List<String> visit(AggregatePlan plan) {
+    return getScanSteps(plan);
+  }
+
+  @Override
+  public List<String> visit(ScanPlan plan) {
+    return getScanSteps(plan);
+  }
+
+  @Override
+  public List<String> visit(ClientAggregatePlan plan) {
+    return getSteps(plan, plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(ClientScanPlan plan) {
+    return getSteps(plan, plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(LiteralResultIterationPlan plan) {
+    return getSteps(plan);
+  }
+
+  @Override
+  public List<String> visit(TupleProjectionPlan plan) {
+    return getSteps(plan, plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(HashJoinPlan plan) {
+    SubPlan[] subPlans = plan.getSubPlans();
+    QueryPlan[] children = new QueryPlan[subPlans.length + 1];
+    children[0] = plan.getDelegate();
+    for (int i = 0; i < subPlans.length; i++) {
+      children[i + 1] = subPlans[i].getInnerPlan();
+    }
+    return getSteps(plan, children);
+  }
+
+  @Override
+  public List<String> visit(SortMergeJoinPlan plan) {
+    return getSteps(plan, plan.getLhsPlan(), plan.getRhsPlan());
+  }
+
+  @Override
+  public List<String> visit(UnionPlan plan) {
+    return getSteps(plan, plan.getSubPlans().toArray(new QueryPlan[0]));
+  }
+
+  @Override
+  public List<String> visit(UnnestArrayPlan plan) {
+    return getSteps(plan, plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(CursorFetchPlan plan) {
+    return getSteps(plan, plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(LateMaterializationPlan plan) {
+    return getSteps(plan, plan.getKeyPlan(), plan.getDelegate());
+  }
+
+  @Override
+  public List<String> visit(ListJarsQueryPlan plan) {
+    return getSteps(plan);
+  }
+
+  @Override
+  public List<String> visit(TraceQueryPlan plan) {
+    return getSteps(plan);
+  }
+
+  /**
+   * Renders the statistics of the plan, if it was profiled, followed by the steps of its children.
+   */
+  protected List<String> getSteps(QueryPlan plan, QueryPlan... children) {
+    List<String> steps = new ArrayList<>();
+    OperatorStats stats = profile.getStats(plan);
+    String indent = "";
+    if (stats != null) {
+      steps.add(getOperatorName(plan) + ": " + stats);
+      indent = INDENT;
+    }
+    for (QueryPlan child : children) {
+      for (String step : child.accept(this)) {
+        steps.add(indent + step);
+      }
+    }
+    return steps;
+  }
+
+  private List<String> getScanSteps(QueryPlan plan) {
+    List<String> steps = getSteps(plan);
+    StatementContext context = plan.getContext();
+    ReadMetricQueue readMetrics = context.getReadMetricsQueue();
+    // Sub plans sharing the metrics of their parent only report them once
+    if (!visitedReadMetrics.add(readMetrics)) {
+      return steps;
+    }
+    String indent = steps.isEmpty() ? "" : INDENT;
+    Map<String, Map<MetricType, Long>> tableMetrics = new TreeMap<>(readMetrics.aggregate());
+    for (Map.Entry<String, Map<MetricType, Long>> entry : tableMetrics.entrySet()) {
+      StringBuilder buf = new StringBuilder(indent).append("READ METRICS ").append(entry.getKey());
+      appendMetrics(buf, entry.getValue());
+      steps.add(buf.toString());
+    }
+    return steps;
+  }
+
+  private static void appendMetrics(StringBuilder buf, Map<MetricType, Long> metrics) {
+    Map<MetricType, Long> sortedMetrics = new EnumMap<>(MetricType.class);
+    sortedMetrics.putAll(metrics);
+    String separator = ": ";
+    for (Map.Entry<MetricType, Long> metric : sortedMetrics.entrySet()) {
+      if (metric.getValue() != 0) {
+        buf.append(separator).append(metric.getKey().name()).append('=').append(metric.getValue());
+        separator = ", ";
+      }
+    }
+  }
+
+  private static String getOperatorName(QueryPlan plan) {
+    String name = plan.getClass().getSimpleName();
+    TableRef tableRef = plan.getTableRef();
+    PTable table = tableRef == null ? null : tableRef.getTable();
+    if (table != null && table.getName() != null) {
+      name += " " + table.getName().getString();
+    }
+    return name;
+  }
+
+  /**
+   * Renders the operators of the plan, followed by the query wide metrics and the slowest scans.
+   */
+  public List<String> getProfile(QueryPlan plan) {
+    List<String> steps = new ArrayList<>(plan.accept(this));
+    StatementContext context = plan.getContext();
+    if (context == null) {
+      return steps;
+    }
+    StringBuilder buf = new StringBuilder("QUERY METRICS");
+    appendMetrics(buf, context.getOverallQueryMetrics().publish());
+    steps.add(buf.toString());
+    int rank = 1;
+    for (List<?> scans : context.getTopNSlowestScanMetrics()) {
+      steps.add("SLOWEST SCAN " + rank++ + ": " + Arrays.toString(scans.toArray()));
+    }
+    return steps;
+  }
+}
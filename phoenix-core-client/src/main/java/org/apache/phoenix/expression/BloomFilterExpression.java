@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.expression;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.join.HashJoinBloomFilter;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.util.ByteUtil;
+
+/**
+ * Boolean expression that evaluates to true if the value of its child might be one of the join
+ * keys of a hash join build side, and to false if it definitely is not. Used in the scan filter of
+ * the probe side when the join key is not a row key column, so that rows without a match are
+ * dropped before they are projected and probed against the hash cache.
+ * <p>
+ * The Bloom filter itself is sent with the hash cache, and only the id of the hash cache is
+ * serialized with this expression. The region server binds the expression to the filter of the
+ * hash cache when it opens the scan, see {@link #bind(HashJoinBloomFilter)}. Until then, every row
+ * passes.
+ */
+public class BloomFilterExpression extends BaseSingleExpression {
+  private byte[] cacheId;
+  private HashJoinBloomFilter bloomFilter;
+  private long passedCount;
+  private long rejectedCount;
+
+  public BloomFilterExpression() {
+  }
+
+  public BloomFilterExpression(Expression child, byte[] cacheId) {
+    super(child);
+    this.cacheId = cacheId;
+  }
+
+  public BloomFilterExpression(List<Expression> children, byte[] cacheId) {
+    super(children);
+    this.cacheId = cacheId;
+  }
+
+  public BloomFilterExpression clone(List<Expression> children) {
+    BloomFilterExpression clone = new BloomFilterExpression(children, cacheId);
+    clone.bloomFilter = bloomFilter;
+    return clone;
+  }
+
+  /**
+   * Returns the id of the hash cache holding the Bloom filter.
+   */
+  public byte[] getCacheId() {
+    return cacheId;
+  }
+
+  /**
+   * Binds this expression to the Bloom filter of its hash cache.
+   */
+  public void bind(HashJoinBloomFilter bloomFilter) {
+    this.bloomFilter = bloomFilter;
+  }
+
+  /**
+   * Returns the number of rows that might have a match.
+   */
+  public long getPassedCount() {
+    return passedCount;
+  }
+
+  /**
+   * Returns the number of rows rejected because they definitely have no match.
+   */
+  public long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  @Override
+  public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
+    if (bloomFilter == null) {
+      ptr.set(PDataType.TRUE_BYTES);
+      return true;
+    }
+    if (!getChild().evaluate(tuple, ptr)) {
+      if (!tuple.isImmutable()) {
+        return false;
+      }
+      // The join key is null, which is what the hash cache is keyed by for null keys as well
+      ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+    }
+    if (bloomFilter.mightContain(ptr)) {
+      passedCount++;
+      ptr.set(PDataType.TRUE_BYTES);
+    } else {
+      rejectedCount++;
+      ptr.set(PDataType.FALSE_BYTES);
+    }
+    return true;
+  }
+
+  @Override
+  public PDataType getDataType() {
+    return PBoolean.INSTANCE;
+  }
+
+  @Override
+  public boolean requiresFinalEvaluation() {
+    // A row without the join key column still has to be checked against the null key
+    return true;
+  }
+
+  @Override
+  public void readFields(DataInput input) throws IOException {
+    super.readFields(input);
+    cacheId = Bytes.readByteArray(input);
+  }
+
+  @Override
+  public void write(DataOutput output) throws IOException {
+    super.write(output);
+    Bytes.writeByteArray(output, cacheId);
+  }
+
+  @Override
+  public String toString() {
+    return "BLOOM_FILTER(" + getChild() + ")";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) {
+      return false;
+    }
+    BloomFilterExpression that = (BloomFilterExpression) o;
+    return Arrays.equals(cacheId, that.cacheId);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * super.hashCode() + Arrays.hashCode(cacheId);
+  }
+}
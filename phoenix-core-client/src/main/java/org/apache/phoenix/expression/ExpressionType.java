@@ -211,7 +211,9 @@ public enum ExpressionType {
   RawRowSizeFunction(RawRowSizeFunction.class),
   RegexpLikeFunction(RegexpLikeFunction.class),
   ByteBasedRegexpLikeFunction(ByteBasedRegexpLikeFunction.class),
-  StringBasedRegexpLikeFunction(StringBasedRegexpLikeFunction.class);
+  StringBasedRegexpLikeFunction(StringBasedRegexpLikeFunction.class),
+  BloomFilterExpression(BloomFilterExpression.class),
+  SequenceValueExpression(org.apache.phoenix.compile.SequenceValueExpression.class);
 
   ExpressionType(Class<? extends Expression> clazz) {
     this.clazz = clazz;
@@ -30,6 +30,7 @@ import org.apache.phoenix.schema.KeyValueSchema.KeyValueSchemaBuilder;
 import org.apache.phoenix.schema.PColumn;
 import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.schema.ValueBitSet;
+import org.apache.phoenix.schema.tuple.ColumnarBatchTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.ByteUtil;
 import org.apache.phoenix.util.SchemaUtil;
@@ -41,6 +42,8 @@ public class ProjectedColumnExpression extends ColumnExpression implements Clone
   private String displayName;
   private final Collection<PColumn> columns;
   private PColumn column;
+  // Last schema of a ColumnarBatch found to be the same as ours, to skip comparing it on every row
+  private KeyValueSchema matchedBatchSchema;
 
   public ProjectedColumnExpression() {
     this.columns = Collections.emptyList();
@@ -113,6 +116,16 @@ public class ProjectedColumnExpression extends ColumnExpression implements Clone
   public boolean evaluate(Tuple tuple, ImmutableBytesWritable ptr) {
     try {
       KeyValueSchema schema = getSchema();
+      if (
+        tuple instanceof ColumnarBatchTuple
+          && isSameSchema(((ColumnarBatchTuple) tuple).getBatch().getSchema(), schema)
+      ) {
+        // Read the position straight out of the batch instead of rebuilding the projected value
+        if (!((ColumnarBatchTuple) tuple).getProjectedValue(position, ptr)) {
+          ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+        }
+        return true;
+      }
       TupleProjector.decodeProjectedValue(tuple, ptr);
       bitSet.clear();
       bitSet.or(ptr);
@@ -130,12 +143,28 @@ public class ProjectedColumnExpression extends ColumnExpression implements Clone
     return true;
   }
 
+  private boolean isSameSchema(KeyValueSchema batchSchema, KeyValueSchema schema) {
+    if (batchSchema == matchedBatchSchema) {
+      return true;
+    }
+    // ValueSchema.equals does not compare the number of positions of each field
+    if (
+      batchSchema == schema
+        || (batchSchema.getFieldCount() == schema.getFieldCount() && batchSchema.equals(schema))
+    ) {
+      matchedBatchSchema = batchSchema;
+      return true;
+    }
+    return false;
+  }
+
   @Override
   public void readFields(DataInput input) throws IOException {
     super.readFields(input);
     schema = new KeyValueSchema();
     schema.readFields(input);
     bitSet = ValueBitSet.newInstance(schema);
+    matchedBatchSchema = null;
     position = input.readInt();
     displayName = input.readUTF();
   }
@@ -35,6 +35,7 @@ import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Writables;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.query.KeyRange;
 import org.apache.phoenix.query.KeyRange.Bound;
 import org.apache.phoenix.schema.RowKeySchema;
@@ -79,6 +80,9 @@ public class SkipScanFilter extends FilterBase implements Writable {
   private boolean isDone;
   private int offset;
   private boolean isMultiKeyPointLookup;
+  // Whether slots of single keys are prefix compressed when serialized, which servers that
+  // predate the compact format cannot read
+  private boolean compactSerialization;
   private Map<ImmutableBytesWritable, Cell> nextCellHintMap =
     new HashMap<ImmutableBytesWritable, Cell>();
 
@@ -93,12 +97,14 @@ public class SkipScanFilter extends FilterBase implements Writable {
   public SkipScanFilter(SkipScanFilter filter, boolean includeMultipleVersions) {
     this(filter.slots, filter.slotSpan, filter.schema, includeMultipleVersions,
       filter.isMultiKeyPointLookup);
+    this.compactSerialization = filter.compactSerialization;
   }
 
   public SkipScanFilter(SkipScanFilter filter, boolean includeMultipleVersions,
     boolean isMultiKeyPointLookup) {
     this(filter.slots, filter.slotSpan, filter.schema, includeMultipleVersions,
       isMultiKeyPointLookup);
+    this.compactSerialization = filter.compactSerialization;
   }
 
   public SkipScanFilter(List<List<KeyRange>> slots, RowKeySchema schema) {
@@ -132,6 +138,21 @@ public class SkipScanFilter extends FilterBase implements Writable {
     return isMultiKeyPointLookup;
   }
 
+  /**
+   * Returns a copy of this filter that serializes slots of single keys prefix compressed. The
+   * compact format is rejected by servers that predate it, so it should only be used once all
+   * region servers have been upgraded.
+   */
+  public SkipScanFilter withCompactSerialization() {
+    SkipScanFilter filter = new SkipScanFilter(this, includeMultipleVersions);
+    filter.compactSerialization = true;
+    return filter;
+  }
+
+  public boolean isCompactSerialization() {
+    return compactSerialization;
+  }
+
   public List<KeyRange> getPointLookupKeyRanges() {
     return isMultiKeyPointLookup ? slots.get(0) : Collections.emptyList();
   }
@@ -228,7 +249,9 @@ public class SkipScanFilter extends FilterBase implements Writable {
   public SkipScanFilter intersect(byte[] lowerInclusiveKey, byte[] upperExclusiveKey) {
     List<List<KeyRange>> newSlots = Lists.newArrayListWithCapacity(slots.size());
     if (intersect(lowerInclusiveKey, upperExclusiveKey, newSlots)) {
-      return new SkipScanFilter(newSlots, slotSpan, schema, isMultiKeyPointLookup);
+      SkipScanFilter filter = new SkipScanFilter(newSlots, slotSpan, schema, isMultiKeyPointLookup);
+      filter.compactSerialization = compactSerialization;
+      return filter;
     }
     return null;
   }
@@ -658,12 +681,28 @@ public class SkipScanFilter extends FilterBase implements Writable {
 
   private static final int KEY_RANGE_LENGTH_BITS = 21;
   private static final int SLOT_SPAN_BITS = 32 - KEY_RANGE_LENGTH_BITS;
+  /*
+   * The compact format is marked by writing Integer.MIN_VALUE in place of the slot count, followed
+   * by a format version. Older readers negate the slot count and fail to allocate a negative sized
+   * array, so they reject the filter rather than misreading it.
+   */
+  private static final int COMPACT_FORMAT_MARKER = Integer.MIN_VALUE;
+  private static final byte COMPACT_FORMAT_VERSION = 1;
 
   @Override
   public void readFields(DataInput in) throws IOException {
     RowKeySchema schema = new RowKeySchema();
     schema.readFields(in);
     int andLen = in.readInt();
+    boolean compact = false;
+    if (andLen == COMPACT_FORMAT_MARKER) {
+      byte version = in.readByte();
+      if (version > COMPACT_FORMAT_VERSION) {
+        throw new IOException("Unsupported SkipScanFilter format version " + version);
+      }
+      compact = true;
+      andLen = in.readInt();
+    }
     boolean includeMultipleVersions = false;
     if (andLen < 0) {
       andLen = -andLen;
@@ -686,14 +725,19 @@ public class SkipScanFilter extends FilterBase implements Writable {
       }
       List<KeyRange> orClause = Lists.newArrayListWithExpectedSize(orLen);
       slots.add(orClause);
-      for (int j = 0; j < orLen; j++) {
-        KeyRange range = KeyRange.read(in);
-        orClause.add(range);
+      if (compact && in.readBoolean()) {
+        readSingleKeys(in, orLen, orClause);
+      } else {
+        for (int j = 0; j < orLen; j++) {
+          KeyRange range = KeyRange.read(in);
+          orClause.add(range);
+        }
       }
     }
     try {
       boolean isPointLookup = in.readBoolean();
       this.init(slots, slotSpan, schema, includeMultipleVersions, isPointLookup);
+      this.compactSerialization = compact;
     } catch (IOException e) {
       // Reached the end of the stream before reading the boolean field. The client can be
       // an older client
@@ -706,19 +750,70 @@ public class SkipScanFilter extends FilterBase implements Writable {
     assert (slots.size() == slotSpan.length);
     schema.write(out);
     int nSlots = slots.size();
+    if (compactSerialization) {
+      out.writeInt(COMPACT_FORMAT_MARKER);
+      out.writeByte(COMPACT_FORMAT_VERSION);
+    }
     out.writeInt(this.includeMultipleVersions ? -nSlots : nSlots);
     for (int i = 0; i < nSlots; i++) {
       List<KeyRange> orLen = slots.get(i);
       int span = slotSpan[i];
       int orLenWithSlotSpan = -(((span << KEY_RANGE_LENGTH_BITS) | orLen.size()) + 1);
       out.writeInt(orLenWithSlotSpan);
-      for (KeyRange range : orLen) {
-        range.write(out);
+      boolean prefixCompressed = compactSerialization && isPrefixCompressible(orLen);
+      if (compactSerialization) {
+        out.writeBoolean(prefixCompressed);
+      }
+      if (prefixCompressed) {
+        writeSingleKeys(out, orLen);
+      } else {
+        for (KeyRange range : orLen) {
+          range.write(out);
+        }
       }
     }
     out.writeBoolean(isMultiKeyPointLookup);
   }
 
+  private static boolean isPrefixCompressible(List<KeyRange> ranges) {
+    if (ranges.size() < 2) {
+      return false;
+    }
+    for (KeyRange range : ranges) {
+      if (!range.isSingleKey() || range.getLowerRange().length == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeSingleKeys(DataOutput out, List<KeyRange> ranges) throws IOException {
+    byte[] previousKey = ByteUtil.EMPTY_BYTE_ARRAY;
+    for (KeyRange range : ranges) {
+      byte[] key = range.getLowerRange();
+      int prefixLength =
+        Bytes.findCommonPrefix(previousKey, key, previousKey.length, key.length, 0, 0);
+      WritableUtils.writeVInt(out, prefixLength);
+      WritableUtils.writeVInt(out, key.length - prefixLength);
+      out.write(key, prefixLength, key.length - prefixLength);
+      previousKey = key;
+    }
+  }
+
+  private static void readSingleKeys(DataInput in, int count, List<KeyRange> ranges)
+    throws IOException {
+    byte[] previousKey = ByteUtil.EMPTY_BYTE_ARRAY;
+    for (int i = 0; i < count; i++) {
+      int prefixLength = WritableUtils.readVInt(in);
+      int suffixLength = WritableUtils.readVInt(in);
+      byte[] key = new byte[prefixLength + suffixLength];
+      System.arraycopy(previousKey, 0, key, 0, prefixLength);
+      in.readFully(key, prefixLength, suffixLength);
+      ranges.add(KeyRange.getKeyRange(key));
+      previousKey = key;
+    }
+  }
+
   @Override
   public byte[] toByteArray() throws IOException {
     return Writables.getBytes(this);
@@ -156,6 +156,8 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
   private Long estimatedSize;
   private Long estimateInfoTimestamp;
   private boolean hasGuidePosts;
+  // Column family whose guideposts drive the parallelization and estimates
+  private byte[] guidePostsColumnFamily;
   private Scan scan;
   private final boolean useStatsForParallelization;
   protected Map<ImmutableBytesPtr, ServerCache> caches;
@@ -708,6 +710,7 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
     if (cf == null) {
       cf = defaultCF;
     }
+    guidePostsColumnFamily = cf;
     GuidePostsKey key = new GuidePostsKey(physicalTableName, cf);
     return context.getConnection().getQueryServices().getTableStats(key);
   }
@@ -1030,7 +1033,15 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
     byte[] splitPostfix =
       Arrays.copyOfRange(sampleProcessedSaltByte, 1, sampleProcessedSaltByte.length);
     boolean isSalted = table.getBucketNum() != null;
-    GuidePostsInfo gps = getGuidePosts();
+    // The region server looks up the keys of a multi-key point lookup one by one (see
+    // PagingRegionScanner), so splitting a small lookup at guideposts only adds scans and RPCs.
+    // Group its keys by region instead. A larger lookup is still split, as the serial lookups of
+    // a region scan would take longer than the parallel scans over its guideposts.
+    boolean groupPointLookupByRegion = !isLocalIndex && scanRanges.isPointLookup()
+      && scanRanges.getPointLookupCount() <= context.getConnection().getQueryServices().getProps()
+        .getInt(QueryServices.POINT_LOOKUP_MAX_KEYS_PER_REGION_SCAN_ATTRIB,
+          QueryServicesOptions.DEFAULT_POINT_LOOKUP_MAX_KEYS_PER_REGION_SCAN);
+    GuidePostsInfo gps = groupPointLookupByRegion ? GuidePostsInfo.NO_GUIDEPOST : getGuidePosts();
     // case when stats wasn't collected
     hasGuidePosts = gps != GuidePostsInfo.NO_GUIDEPOST;
     // Case when stats collection did run but there possibly wasn't enough data. In such a
@@ -1345,7 +1356,7 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
 
   private void generateEstimates(ScanRanges scanRanges, PTable table, GuidePostsInfo gps,
     boolean emptyGuidePost, List<List<Scan>> parallelScans, GuidePostEstimate estimates,
-    long fallbackTs, boolean gpsAvailableForAllRegions) {
+    long fallbackTs, boolean gpsAvailableForAllRegions) throws SQLException {
     Long pageLimit = getUnfilteredPageLimit(scan);
     if (scanRanges.isPointLookup() || pageLimit != null) {
       // If run in parallel, the limit is pushed to each parallel scan so must be accounted
@@ -1359,7 +1370,8 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
       } else {
         this.estimatedRows = pageLimit * parallelFactor;
       }
-      this.estimatedSize = this.estimatedRows * SchemaUtil.estimateRowSize(table);
+      this.estimatedSize =
+        this.estimatedRows * SchemaUtil.estimateRowSize(table, getProjectedColumnFamilies());
       // Indication to client that the statistics estimates were not
       // calculated based on statistics but instead are based on row
       // limits from the query.
@@ -1368,11 +1380,11 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
       // In case of an empty guide post, we estimate the number of rows scanned by
       // using the estimated row size
       this.estimatedRows = gps.getByteCounts()[0] / SchemaUtil.estimateRowSize(table);
-      this.estimatedSize = gps.getByteCounts()[0];
+      this.estimatedSize = getProjectedBytesEstimate(gps.getByteCounts()[0], gps);
       this.estimateInfoTimestamp = gps.getGuidePostTimestamps()[0];
     } else if (hasGuidePosts) {
       this.estimatedRows = estimates.rowsEstimate;
-      this.estimatedSize = estimates.bytesEstimate;
+      this.estimatedSize = getProjectedBytesEstimate(estimates.bytesEstimate, gps);
       this.estimateInfoTimestamp =
         computeMinTimestamp(gpsAvailableForAllRegions, estimates, fallbackTs);
     } else {
@@ -1382,6 +1394,67 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
     }
   }
 
+  /**
+   * Returns the column families read by the scan, or null if it reads all of them.
+   */
+  private Set<byte[]> getProjectedColumnFamilies() {
+    return scan.getFamilyMap().isEmpty() ? null : scan.getFamilyMap().keySet();
+  }
+
+  /**
+   * Guideposts are collected per column family, so the bytes estimated from the guideposts of one
+   * family do not account for the other families the query reads, nor for the ones it skips. Scale
+   * the estimate by the size of the projected families relative to that family, both taken from
+   * their guideposts over the whole table. The estimate is kept as is when stats are missing for
+   * any of the projected families.
+   */
+  private long getProjectedBytesEstimate(long bytesEstimate, GuidePostsInfo gps)
+    throws SQLException {
+    PTable table = getTable();
+    if (
+      guidePostsColumnFamily == null || table.getColumnFamilies().size() < 2
+        || table.getIndexType() == IndexType.LOCAL
+    ) {
+      return bytesEstimate;
+    }
+    Set<byte[]> families = getProjectedColumnFamilies();
+    if (families == null) {
+      families = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+      families.add(SchemaUtil.getEmptyColumnFamily(table));
+      for (PColumnFamily family : table.getColumnFamilies()) {
+        families.add(family.getName().getBytes());
+      }
+    }
+    if (families.size() == 1 && families.contains(guidePostsColumnFamily)) {
+      return bytesEstimate;
+    }
+    long guidePostsFamilyBytes = getTotalByteCount(gps);
+    if (guidePostsFamilyBytes <= 0) {
+      return bytesEstimate;
+    }
+    long projectedBytes = 0;
+    for (byte[] family : families) {
+      GuidePostsInfo familyGps = gps;
+      if (Bytes.compareTo(family, guidePostsColumnFamily) != 0) {
+        familyGps = context.getConnection().getQueryServices()
+          .getTableStats(new GuidePostsKey(physicalTableName, family));
+      }
+      if (familyGps == GuidePostsInfo.NO_GUIDEPOST) {
+        return bytesEstimate;
+      }
+      projectedBytes += getTotalByteCount(familyGps);
+    }
+    return (long) (bytesEstimate * ((double) projectedBytes / guidePostsFamilyBytes));
+  }
+
+  private static long getTotalByteCount(GuidePostsInfo gps) {
+    long byteCount = 0;
+    for (long guidePostByteCount : gps.getByteCounts()) {
+      byteCount += guidePostByteCount;
+    }
+    return byteCount;
+  }
+
   /**
    * Return row count limit of PageFilter if exists and there is no where clause filter.
    */
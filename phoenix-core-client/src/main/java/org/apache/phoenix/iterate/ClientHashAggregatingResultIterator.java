@@ -17,55 +17,150 @@
  */
 package org.apache.phoenix.iterate;
 
+import static org.apache.phoenix.monitoring.TaskExecutionMetricsHolder.NO_OP_INSTANCE;
 import static org.apache.phoenix.query.QueryConstants.AGG_TIMESTAMP;
 import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN;
 import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN_FAMILY;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBuilder;
 import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
 import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.aggregator.Aggregator;
 import org.apache.phoenix.expression.aggregator.Aggregators;
+import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
 import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.PhoenixKeyValueUtil;
 import org.apache.phoenix.util.SizedUtil;
 import org.apache.phoenix.util.TupleUtil;
 
+import org.apache.phoenix.thirdparty.com.google.common.collect.Iterators;
+
 /**
  * This class implements client-side hash aggregation in memory. Issue
  * https://issues.apache.org/jira/browse/PHOENIX-4751.
+ * <p>
+ * When given more than one set of aggregators, the rows are hash partitioned on their group key and
+ * each partition is aggregated into its own hash table on the query thread pool, with its own set
+ * of aggregators since those are not thread safe. Rows are handed to the partitions in batches by
+ * the thread calling {@link #next()}, which also runs any batch the pool has not started yet when
+ * it needs to wait, so that the aggregation never depends on a free pool thread. The partitions are
+ * concatenated, or sorted separately and merged when the keys need to be ordered.
  */
 public class ClientHashAggregatingResultIterator implements AggregatingResultIterator {
 
   private static final int HASH_AGG_INIT_SIZE = 64 * 1024;
   private static final int CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE = 64 * 1024;
   private static final byte[] UNITIALIZED_KEY_BUFFER = new byte[0];
+  private static final int PARTITION_BATCH_SIZE = 1024;
   private final ResultIterator resultIterator;
   private final Aggregators aggregators;
   private final List<Expression> groupByExpressions;
   private final OrderBy orderBy;
-  private final MemoryChunk memoryChunk;
-  private HashMap<ImmutableBytesWritable, Aggregator[]> hash;
-  private List<ImmutableBytesWritable> keyList;
-  private Iterator<ImmutableBytesWritable> keyIterator;
+  private final Partition[] partitions;
+  private final ExecutorService executor;
+  private Iterator<Map.Entry<ImmutableBytesWritable, Aggregator[]>> entryIterator;
+
+  /**
+   * Hash table of the groups of one partition along with the aggregators used to fill it.
+   */
+  private static class Partition {
+    private final Aggregators aggregators;
+    private final MemoryChunk memoryChunk;
+    private final int aggSize;
+    private HashMap<ImmutableBytesWritable, Aggregator[]> hash;
+    private long keySize;
+    private List<ImmutableBytesWritable> batchKeys;
+    private List<Tuple> batchTuples;
+
+    private Partition(StatementContext context, Aggregators aggregators, int initialSize) {
+      this.aggregators = aggregators;
+      this.aggSize = aggregators.getEstimatedByteSize();
+      this.hash = new HashMap<ImmutableBytesWritable, Aggregator[]>(initialSize, 0.75f);
+      this.memoryChunk = context.getConnection().getQueryServices().getMemoryManager()
+        .allocate(CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE);
+    }
+
+    private void aggregate(ImmutableBytesWritable key, Tuple result) {
+      Aggregator[] rowAggregators = hash.get(key);
+      if (rowAggregators == null) {
+        keySize += key.getLength();
+        long hashSize =
+          SizedUtil.sizeOfMap(hash.size() + 1, SizedUtil.IMMUTABLE_BYTES_WRITABLE_SIZE, aggSize)
+            + keySize;
+        if (hashSize > memoryChunk.getSize() + CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE) {
+          // This will throw InsufficientMemoryException if necessary
+          memoryChunk.resize(hashSize + CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE);
+        }
+
+        rowAggregators = aggregators.newAggregators();
+        hash.put(key, rowAggregators);
+      }
+
+      aggregators.aggregate(rowAggregators, result);
+    }
+
+    private synchronized void aggregate(List<ImmutableBytesWritable> keys, List<Tuple> results) {
+      for (int i = 0; i < keys.size(); i++) {
+        aggregate(keys.get(i), results.get(i));
+      }
+    }
+
+    private synchronized List<Map.Entry<ImmutableBytesWritable, Aggregator[]>>
+      sortEntries(Comparator<ImmutableBytesWritable> comp) {
+      // This will throw InsufficientMemoryException if necessary
+      memoryChunk.resize(memoryChunk.getSize() + SizedUtil.sizeOfArrayList(hash.size()));
+      List<Map.Entry<ImmutableBytesWritable, Aggregator[]>> entries =
+        new ArrayList<Map.Entry<ImmutableBytesWritable, Aggregator[]>>(hash.entrySet());
+      Collections.sort(entries, (e1, e2) -> comp.compare(e1.getKey(), e2.getKey()));
+      return entries;
+    }
+
+    private void close() {
+      hash = null;
+      memoryChunk.close();
+    }
+  }
 
   public ClientHashAggregatingResultIterator(StatementContext context,
     ResultIterator resultIterator, Aggregators aggregators, List<Expression> groupByExpressions,
     OrderBy orderBy) {
+    this(context, resultIterator, aggregators, Collections.<Aggregators> emptyList(),
+      groupByExpressions, orderBy);
+  }
+
+  /**
+   * @param partitionAggregators an independent copy of the aggregators for each partition to
+   *                             aggregate in parallel, or an empty list to aggregate on the calling
+   *                             thread
+   */
+  public ClientHashAggregatingResultIterator(StatementContext context,
+    ResultIterator resultIterator, Aggregators aggregators,
+    List<? extends Aggregators> partitionAggregators, List<Expression> groupByExpressions,
+    OrderBy orderBy) {
 
     Objects.requireNonNull(resultIterator);
     Objects.requireNonNull(aggregators);
@@ -74,14 +169,23 @@ public class ClientHashAggregatingResultIterator implements AggregatingResultIte
     this.aggregators = aggregators;
     this.groupByExpressions = groupByExpressions;
     this.orderBy = orderBy;
-    memoryChunk = context.getConnection().getQueryServices().getMemoryManager()
-      .allocate(CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE);
+    if (partitionAggregators.size() > 1) {
+      this.partitions = new Partition[partitionAggregators.size()];
+      for (int i = 0; i < partitions.length; i++) {
+        partitions[i] = new Partition(context, partitionAggregators.get(i),
+          HASH_AGG_INIT_SIZE / partitions.length);
+      }
+      this.executor = context.getConnection().getQueryServices().getExecutor();
+    } else {
+      this.partitions = new Partition[] { new Partition(context, aggregators, HASH_AGG_INIT_SIZE) };
+      this.executor = null;
+    }
   }
 
   @Override
   public Tuple next() throws SQLException {
-    if (keyIterator == null) {
-      hash = populateHash();
+    if (entryIterator == null) {
+      populateHash();
       /********
        * Perform a post-aggregation sort only when required. There are 3 possible scenarios: (1) The
        * query DOES NOT have an ORDER BY -- in this case, we DO NOT perform a sort, and the results
@@ -96,20 +200,24 @@ public class ClientHashAggregatingResultIterator implements AggregatingResultIte
        * is not optimized away.
        ********/
       if (orderBy == OrderBy.FWD_ROW_KEY_ORDER_BY || orderBy == OrderBy.REV_ROW_KEY_ORDER_BY) {
-        keyList = sortKeys();
-        keyIterator = keyList.iterator();
+        entryIterator = sortEntries();
       } else {
-        keyIterator = hash.keySet().iterator();
+        List<Iterator<Map.Entry<ImmutableBytesWritable, Aggregator[]>>> iterators =
+          new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+          iterators.add(partition.hash.entrySet().iterator());
+        }
+        entryIterator = Iterators.concat(iterators.iterator());
       }
     }
 
-    if (!keyIterator.hasNext()) {
+    if (!entryIterator.hasNext()) {
       return null;
     }
 
-    ImmutableBytesWritable key = keyIterator.next();
-    Aggregator[] rowAggregators = hash.get(key);
-    byte[] value = aggregators.toBytes(rowAggregators);
+    Map.Entry<ImmutableBytesWritable, Aggregator[]> entry = entryIterator.next();
+    ImmutableBytesWritable key = entry.getKey();
+    byte[] value = aggregators.toBytes(entry.getValue());
     Tuple tuple = wrapKeyValueAsResult(PhoenixKeyValueUtil.newKeyValue(key, SINGLE_COLUMN_FAMILY,
       SINGLE_COLUMN, AGG_TIMESTAMP, value, 0, value.length));
     return tuple;
@@ -117,11 +225,11 @@ public class ClientHashAggregatingResultIterator implements AggregatingResultIte
 
   @Override
   public void close() throws SQLException {
-    keyIterator = null;
-    keyList = null;
-    hash = null;
+    entryIterator = null;
     try {
-      memoryChunk.close();
+      for (Partition partition : partitions) {
+        partition.close();
+      }
     } finally {
       resultIterator.close();
     }
@@ -149,7 +257,8 @@ public class ClientHashAggregatingResultIterator implements AggregatingResultIte
   @Override
   public String toString() {
     return "ClientHashAggregatingResultIterator [resultIterator=" + resultIterator
-      + ", aggregators=" + aggregators + ", groupByExpressions=" + groupByExpressions + "]";
+      + ", aggregators=" + aggregators + ", groupByExpressions=" + groupByExpressions
+      + ", partitions=" + partitions.length + "]";
   }
 
   // Copied from ClientGroupedAggregatingResultIterator
@@ -169,47 +278,137 @@ public class ClientHashAggregatingResultIterator implements AggregatingResultIte
     return new MultiKeyValueTuple(Collections.<Cell> singletonList(keyValue));
   }
 
-  private HashMap<ImmutableBytesWritable, Aggregator[]> populateHash() throws SQLException {
+  private void populateHash() throws SQLException {
+    if (partitions.length == 1) {
+      Partition partition = partitions[0];
+      for (Tuple result = resultIterator.next(); result != null; result = resultIterator.next()) {
+        ImmutableBytesWritable key = new ImmutableBytesWritable(UNITIALIZED_KEY_BUFFER);
+        partition.aggregate(getGroupingKey(result, key), result);
+      }
+      return;
+    }
+    Deque<FutureTask<Void>> tasks = new ArrayDeque<>();
+    try {
+      for (Tuple result = resultIterator.next(); result != null; result = resultIterator.next()) {
+        ImmutableBytesWritable key = new ImmutableBytesWritable(UNITIALIZED_KEY_BUFFER);
+        key = getGroupingKey(result, key);
+        Partition partition = partitions[getPartition(key)];
+        if (partition.batchKeys == null) {
+          partition.batchKeys = new ArrayList<>(PARTITION_BATCH_SIZE);
+          partition.batchTuples = new ArrayList<>(PARTITION_BATCH_SIZE);
+        }
+        partition.batchKeys.add(key);
+        partition.batchTuples.add(result);
+        if (partition.batchKeys.size() == PARTITION_BATCH_SIZE) {
+          submitBatch(partition, tasks);
+          // Bound the number of rows held in batches waiting to be aggregated
+          while (tasks.size() > 2 * partitions.length) {
+            runAndWait(tasks.poll());
+          }
+        }
+      }
+      for (Partition partition : partitions) {
+        if (partition.batchKeys != null) {
+          submitBatch(partition, tasks);
+        }
+      }
+      while (!tasks.isEmpty()) {
+        runAndWait(tasks.poll());
+      }
+    } finally {
+      for (FutureTask<Void> task : tasks) {
+        task.cancel(false);
+      }
+    }
+  }
 
-    hash = new HashMap<ImmutableBytesWritable, Aggregator[]>(HASH_AGG_INIT_SIZE, 0.75f);
-    final int aggSize = aggregators.getEstimatedByteSize();
-    long keySize = 0;
+  private int getPartition(ImmutableBytesWritable key) {
+    // Rehash so that the partitions do not all share the low bits used by their hash tables
+    int h = key.hashCode() * 0x9E3779B9;
+    return ((h ^ (h >>> 16)) & Integer.MAX_VALUE) % partitions.length;
+  }
 
-    for (Tuple result = resultIterator.next(); result != null; result = resultIterator.next()) {
-      ImmutableBytesWritable key = new ImmutableBytesWritable(UNITIALIZED_KEY_BUFFER);
-      key = getGroupingKey(result, key);
-      Aggregator[] rowAggregators = hash.get(key);
-      if (rowAggregators == null) {
-        keySize += key.getLength();
-        long hashSize =
-          SizedUtil.sizeOfMap(hash.size() + 1, SizedUtil.IMMUTABLE_BYTES_WRITABLE_SIZE, aggSize)
-            + keySize;
-        if (hashSize > memoryChunk.getSize() + CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE) {
-          // This will throw InsufficientMemoryException if necessary
-          memoryChunk.resize(hashSize + CLIENT_HASH_AGG_MEMORY_CHUNK_SIZE);
+  private void submitBatch(Partition partition, Deque<FutureTask<Void>> tasks) {
+    final List<ImmutableBytesWritable> keys = partition.batchKeys;
+    final List<Tuple> results = partition.batchTuples;
+    partition.batchKeys = null;
+    partition.batchTuples = null;
+    FutureTask<Void> task = new FutureTask<>(() -> {
+      partition.aggregate(keys, results);
+      return null;
+    });
+    tasks.add(task);
+    submit(task);
+  }
+
+  private void submit(FutureTask<?> task) {
+    try {
+      executor.submit(new JobCallable<Void>() {
+        @Override
+        public Void call() {
+          task.run();
+          return null;
         }
 
-        rowAggregators = aggregators.newAggregators();
-        hash.put(key, rowAggregators);
-      }
+        @Override
+        public Object getJobId() {
+          return ClientHashAggregatingResultIterator.this;
+        }
 
-      aggregators.aggregate(rowAggregators, result);
+        @Override
+        public TaskExecutionMetricsHolder getTaskExecutionMetric() {
+          return NO_OP_INSTANCE;
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Left for the calling thread to run
     }
-
-    return hash;
   }
 
-  private List<ImmutableBytesWritable> sortKeys() {
-    // This will throw InsufficientMemoryException if necessary
-    memoryChunk.resize(memoryChunk.getSize() + SizedUtil.sizeOfArrayList(hash.size()));
+  private static <T> T runAndWait(FutureTask<T> task) throws SQLException {
+    // Runs the task here unless a pool thread has already picked it up
+    task.run();
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION).setRootCause(e)
+        .build().buildException();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new SQLException(cause);
+    }
+  }
 
-    keyList = new ArrayList<ImmutableBytesWritable>(hash.size());
-    keyList.addAll(hash.keySet());
+  private Iterator<Map.Entry<ImmutableBytesWritable, Aggregator[]>> sortEntries()
+    throws SQLException {
     Comparator<ImmutableBytesWritable> comp = new ImmutableBytesWritable.Comparator();
     if (orderBy == OrderBy.REV_ROW_KEY_ORDER_BY) {
       comp = Collections.reverseOrder(comp);
     }
-    Collections.sort(keyList, comp);
-    return keyList;
+    final Comparator<ImmutableBytesWritable> keyComp = comp;
+    if (partitions.length == 1) {
+      return partitions[0].sortEntries(keyComp).iterator();
+    }
+    List<FutureTask<List<Map.Entry<ImmutableBytesWritable, Aggregator[]>>>> tasks =
+      new ArrayList<>(partitions.length);
+    for (Partition partition : partitions) {
+      FutureTask<List<Map.Entry<ImmutableBytesWritable, Aggregator[]>>> task =
+        new FutureTask<>(() -> partition.sortEntries(keyComp));
+      tasks.add(task);
+      submit(task);
+    }
+    List<Iterator<Map.Entry<ImmutableBytesWritable, Aggregator[]>>> iterators =
+      new ArrayList<>(partitions.length);
+    for (FutureTask<List<Map.Entry<ImmutableBytesWritable, Aggregator[]>>> task : tasks) {
+      iterators.add(runAndWait(task).iterator());
+    }
+    return Iterators.mergeSorted(iterators, (e1, e2) -> keyComp.compare(e1.getKey(), e2.getKey()));
   }
 }
@@ -21,24 +21,34 @@ import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_NUM_PARAL
 
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
 import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.execute.BaseQueryPlan;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
 import org.apache.phoenix.monitoring.ScanMetricsHolder;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.StaleRegionBoundaryCacheException;
 import org.apache.phoenix.trace.util.Tracing;
 import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.LogUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.ScanUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +65,10 @@ public class ParallelIterators extends BaseResultIterators {
   private static final String NAME = "PARALLEL";
   private final ParallelIteratorFactory iteratorFactory;
   private final boolean initFirstScanOnly;
+  private final int maxStolenScans;
+  // Running scans whose remaining key range can be split off by an idle client thread
+  private final Queue<StealableScanIterator> stealableScans = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numStolenScans = new AtomicInteger();
 
   public ParallelIterators(QueryPlan plan, Integer perScanLimit,
     ParallelIteratorFactory iteratorFactory, ParallelScanGrouper scanGrouper, Scan scan,
@@ -63,6 +77,12 @@ public class ParallelIterators extends BaseResultIterators {
     super(plan, perScanLimit, null, scanGrouper, scan, caches, dataPlan);
     this.iteratorFactory = iteratorFactory;
     this.initFirstScanOnly = initFirstScanOnly;
+    ReadOnlyProps props = context.getConnection().getQueryServices().getProps();
+    this.maxStolenScans = props.getBoolean(QueryServices.SCAN_WORK_STEALING_ENABLED_ATTRIB,
+      QueryServicesOptions.DEFAULT_SCAN_WORK_STEALING_ENABLED)
+        ? props.getInt(QueryServices.SCAN_WORK_STEALING_MAX_SPLITS_ATTRIB,
+          QueryServicesOptions.DEFAULT_SCAN_WORK_STEALING_MAX_SPLITS)
+        : 0;
   }
 
   public ParallelIterators(QueryPlan plan, Integer perScanLimit,
@@ -114,6 +134,11 @@ public class ParallelIterators extends BaseResultIterators {
     GLOBAL_NUM_PARALLEL_SCANS.update(numScans);
     final long renewLeaseThreshold =
       context.getConnection().getQueryServices().getRenewLeaseThresholdMilliSeconds();
+    // The rows of a scan split off while it runs are returned in the same order, which needs
+    // them to be returned by row key rather than aggregated or ordered on the server
+    final boolean isStealable = maxStolenScans > 0 && !initFirstScanOnly && !isReverse
+      && plan.isRowKeyOrdered() && !plan.useRoundRobinIterator()
+      && !context.getScanRanges().isPointLookup() && context.getAggregationManager().isEmpty();
     for (final ScanLocator scanLocation : scanLocations) {
       final Scan scan = scanLocation.getScan();
       PhoenixConnection connection = context.getConnection();
@@ -126,21 +151,30 @@ public class ParallelIterators extends BaseResultIterators {
         context.getConnection().getTableResultIteratorFactory().newIterator(mutationState, tableRef,
           scan, scanMetricsHolder, renewLeaseThreshold, plan, scanGrouper, caches, maxQueryEndTime);
       context.getConnection().addIteratorForLeaseRenewal(tableResultItr);
+      final ResultIterator scanner;
+      if (isStealable && ScanUtil.isNonAggregateScan(scan) && !ScanUtil.isLocalIndex(scan)) {
+        StealableScanIterator stealableScan =
+          new StealableScanIterator(scan, tableResultItr, null, maxQueryEndTime);
+        stealableScans.add(stealableScan);
+        scanner = stealableScan;
+      } else {
+        scanner = tableResultItr;
+      }
       Future<PeekingResultIterator> future =
         executor.submit(Tracing.wrap(new JobCallable<PeekingResultIterator>() {
 
           @Override
           public PeekingResultIterator call() throws Exception {
             long startTime = EnvironmentEdgeManager.currentTimeMillis();
-            PeekingResultIterator iterator = iteratorFactory.newIterator(context, tableResultItr,
-              scan, physicalTableName, ParallelIterators.this.plan);
+            PeekingResultIterator iterator = iteratorFactory.newIterator(context, scanner, scan,
+              physicalTableName, ParallelIterators.this.plan);
             if (initFirstScanOnly) {
               if (
                 (!isReverse && scanLocation.isFirstScan())
                   || (isReverse && scanLocation.isLastScan())
               ) {
-                // Fill the scanner's cache. This helps reduce latency since we are parallelizing
-                // the I/O needed.
+                // Fill the scanner's cache. This helps reduce latency since we are
+                // parallelizing the I/O needed.
                 iterator.peek();
               }
             } else {
@@ -154,6 +188,8 @@ public class ParallelIterators extends BaseResultIterators {
             }
 
             allIterators.add(iterator);
+            stealWork(executor, physicalTableName, renewLeaseThreshold, scanGrouper,
+              maxQueryEndTime);
             return iterator;
           }
 
@@ -179,6 +215,115 @@ public class ParallelIterators extends BaseResultIterators {
     }
   }
 
+  /**
+   * Called by a client thread that is done with its task. Unless other tasks wait for a thread,
+   * the remaining key range of the scan that has been waiting the longest on the region server is
+   * split in half, and the upper half is handed to an idle thread to start scanning it.
+   */
+  private void stealWork(ExecutorService executor, String physicalTableName,
+    long renewLeaseThreshold, ParallelScanGrouper scanGrouper, long maxQueryEndTime) {
+    if (
+      stealableScans.isEmpty() || !(executor instanceof ThreadPoolExecutor)
+        || !((ThreadPoolExecutor) executor).getQueue().isEmpty()
+        || numStolenScans.get() >= maxStolenScans
+    ) {
+      return;
+    }
+    StealableScanIterator victim = null;
+    long oldestWaitingSince = Long.MAX_VALUE;
+    for (Iterator<StealableScanIterator> iterator = stealableScans.iterator(); iterator
+      .hasNext();) {
+      StealableScanIterator stealableScan = iterator.next();
+      if (stealableScan.isDone()) {
+        iterator.remove();
+        continue;
+      }
+      long waitingSince = stealableScan.getWaitingSince();
+      if (waitingSince > 0 && waitingSince < oldestWaitingSince) {
+        victim = stealableScan;
+        oldestWaitingSince = waitingSince;
+      }
+    }
+    if (victim == null || numStolenScans.incrementAndGet() > maxStolenScans) {
+      return;
+    }
+    try {
+      if (
+        !victim.steal((tailScan, next) -> newTail(tailScan, next, executor, physicalTableName,
+          renewLeaseThreshold, scanGrouper, maxQueryEndTime))
+      ) {
+        numStolenScans.decrementAndGet();
+      }
+    } catch (Exception e) {
+      // The scan simply keeps its whole range
+      numStolenScans.decrementAndGet();
+      LOGGER.warn("Failed to split off the remaining key range of {}", victim, e);
+    }
+  }
+
+  /**
+   * Creates the iterator over a tail split off a running scan, and submits a task that prefetches
+   * its first rows.
+   */
+  private StealableScanIterator newTail(final Scan tailScan, StealableScanIterator next,
+    final ExecutorService executor, final String physicalTableName,
+    final long renewLeaseThreshold, final ParallelScanGrouper scanGrouper,
+    final long maxQueryEndTime) throws SQLException {
+    PhoenixConnection connection = context.getConnection();
+    ReadMetricQueue readMetrics = context.getReadMetricsQueue();
+    ScanMetricsHolder scanMetricsHolder = ScanMetricsHolder.getInstance(readMetrics,
+      physicalTableName, tailScan, connection.getLogLevel(),
+      connection.isScanMetricsByRegionEnabled());
+    final TaskExecutionMetricsHolder taskMetrics =
+      new TaskExecutionMetricsHolder(readMetrics, physicalTableName);
+    TableResultIterator tableResultItr =
+      connection.getTableResultIteratorFactory().newIterator(mutationState, tableRef, tailScan,
+        scanMetricsHolder, renewLeaseThreshold, plan, scanGrouper, caches, maxQueryEndTime);
+    connection.addIteratorForLeaseRenewal(tableResultItr);
+    final StealableScanIterator tail =
+      new StealableScanIterator(tailScan, tableResultItr, next, maxQueryEndTime);
+    Future<Void> prefetchTask;
+    try {
+      prefetchTask = executor.submit(Tracing.wrap(new JobCallable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            tail.prefetch();
+          } catch (StaleRegionBoundaryCacheException e) {
+            if (!(plan instanceof BaseQueryPlan)) {
+              throw e;
+            }
+            // The regions moved since the query was planned, so plan the scan over the tail again
+            context.getConnection().getQueryServices()
+              .clearTableRegionCache(TableName.valueOf(physicalTableName));
+            tail.prefetch(((BaseQueryPlan) plan).iterator(caches, scanGrouper, tailScan));
+          }
+          stealWork(executor, physicalTableName, renewLeaseThreshold, scanGrouper,
+            maxQueryEndTime);
+          return null;
+        }
+
+        @Override
+        public Object getJobId() {
+          return ParallelIterators.this;
+        }
+
+        @Override
+        public TaskExecutionMetricsHolder getTaskExecutionMetric() {
+          return taskMetrics;
+        }
+      }, "Parallel scanner for table: " + physicalTableName));
+    } catch (RuntimeException e) {
+      tableResultItr.close();
+      throw e;
+    }
+    tail.setPrefetchTask(prefetchTask);
+    stealableScans.add(tail);
+    context.getOverallQueryMetrics().updateNumParallelScans(1);
+    GLOBAL_NUM_PARALLEL_SCANS.update(1);
+    return tail;
+  }
+
   @Override
   protected String getName() {
     return NAME;
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.sql.SQLException;
+import org.apache.phoenix.execute.QueryProfile.OperatorStats;
+import org.apache.phoenix.schema.tuple.Tuple;
+
+/**
+ * Records the rows returned by and the time spent in the iterator of an operator profiled by
+ * EXPLAIN ANALYZE.
+ */
+public class ProfilingResultIterator extends DelegateResultIterator {
+  private final OperatorStats stats;
+
+  public ProfilingResultIterator(ResultIterator delegate, OperatorStats stats) {
+    super(delegate);
+    this.stats = stats;
+    stats.iteratorOpened();
+  }
+
+  @Override
+  public Tuple next() throws SQLException {
+    long startTime = System.nanoTime();
+    Tuple tuple = super.next();
+    long endTime = System.nanoTime();
+    stats.recordNext(tuple != null, endTime - startTime, endTime);
+    return tuple;
+  }
+
+  @Override
+  public String toString() {
+    return "ProfilingResultIterator [delegate=" + getDelegate() + "]";
+  }
+}
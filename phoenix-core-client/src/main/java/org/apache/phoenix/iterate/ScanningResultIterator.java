@@ -34,10 +34,14 @@ import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBui
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.execute.TupleProjector;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.monitoring.GlobalClientMetrics;
 import org.apache.phoenix.monitoring.ScanMetricsHolder;
 import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.tuple.ColumnarBatch;
+import org.apache.phoenix.schema.tuple.ColumnarBatchTuple;
 import org.apache.phoenix.schema.tuple.ResultTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.ClientUtil;
@@ -51,6 +55,7 @@ public class ScanningResultIterator implements ResultIterator {
 
   private static final Logger LOG = LoggerFactory.getLogger(ScanningResultIterator.class);
   private final ResultScanner scanner;
+  private final Scan scan;
   private final ScanMetricsHolder scanMetricsHolder;
   boolean scanMetricsUpdated;
   boolean scanMetricsEnabled;
@@ -62,6 +67,10 @@ public class ScanningResultIterator implements ResultIterator {
 
   private long dummyRowCounter = 0;
 
+  private KeyValueSchema columnarBatchSchema;
+  private ColumnarBatch columnarBatch;
+  private int columnarBatchRow;
+
   private final ScanningResultPostDummyResultCaller scanningResultPostDummyResultCaller;
   private final ScanningResultPostValidResultCaller scanningResultPostValidResultCaller;
 
@@ -69,6 +78,7 @@ public class ScanningResultIterator implements ResultIterator {
     ScanMetricsHolder scanMetricsHolder, StatementContext context, boolean isMapReduceContext,
     long maxQueryEndTime) {
     this.scanner = scanner;
+    this.scan = scan;
     this.scanMetricsHolder = scanMetricsHolder;
     this.context = context;
     scanMetricsUpdated = false;
@@ -119,6 +129,10 @@ public class ScanningResultIterator implements ResultIterator {
 
   @Override
   public Tuple next() throws SQLException {
+    if (columnarBatch != null && columnarBatchRow < columnarBatch.getRowCount()) {
+      return new ColumnarBatchTuple(columnarBatch, columnarBatchRow++);
+    }
+    columnarBatch = null;
     try {
       Result result = scanner.next();
       while (result != null && (result.isEmpty() || isDummy(result))) {
@@ -153,6 +167,14 @@ public class ScanningResultIterator implements ResultIterator {
       // TODO: use ResultTuple.setResult(result)?
       // Need to create a new one if holding on to it (i.e. OrderedResultIterator)
       processAfterRetrievingValidResult();
+      if (result.size() == 1 && ColumnarBatch.isColumnarBatch(result.rawCells()[0])) {
+        if (columnarBatchSchema == null) {
+          columnarBatchSchema = TupleProjector.deserializeProjectorFromScan(scan).getSchema();
+        }
+        columnarBatch = ColumnarBatch.decode(columnarBatchSchema, result.rawCells()[0]);
+        columnarBatchRow = 1;
+        return new ColumnarBatchTuple(columnarBatch, 0);
+      }
       return new ResultTuple(result);
     } catch (IOException e) {
       throw ClientUtil.parseServerException(e);
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverConstants.SCAN_ACTUAL_START_ROW;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBuilder;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.ClientUtil;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.ScanUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the rows of a parallel scan whose remaining key range can be split off while the
+ * scan runs, so that an idle client thread can start scanning the upper half of it. Progress is
+ * tracked by the last row key returned. Once the scan reaches the key its range was cut at, it is
+ * closed and the rows are returned from the iterator of the split off tail, which may have been
+ * split again in the meantime. The rows are returned in the same order as from the original scan,
+ * for ordered and unordered consumers alike.
+ */
+class StealableScanIterator implements ResultIterator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StealableScanIterator.class);
+
+  /**
+   * Creates the iterator over the tail split off a scan and hands it to a client thread that
+   * prefetches its first rows.
+   */
+  interface TailFactory {
+    /**
+     * @param scan the scan over the tail
+     * @param next the iterator over the rest of the range after the tail, or null
+     */
+    StealableScanIterator newTail(Scan scan, StealableScanIterator next) throws SQLException;
+  }
+
+  private final Scan scan;
+  private final long maxQueryEndTime;
+  private final ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+  private ResultIterator head;
+  // Start time of the call to the scan that the iterator is waiting on, 0 if none
+  private volatile long waitingSince;
+  private volatile Future<?> prefetchTask;
+  private Tuple prefetched;
+  private boolean hasPrefetched;
+  // The iterator the rows are returned from once the scan reached its stop row
+  private StealableScanIterator tailIterator;
+
+  // Guarded by this
+  private byte[] stopRow;
+  private StealableScanIterator tail;
+  private Tuple lastTuple;
+  private boolean headDone;
+  private boolean closed;
+
+  StealableScanIterator(Scan scan, ResultIterator head, StealableScanIterator tail,
+    long maxQueryEndTime) {
+    this.scan = scan;
+    this.head = head;
+    this.tail = tail;
+    this.stopRow = scan.getStopRow();
+    this.maxQueryEndTime = maxQueryEndTime;
+  }
+
+  Scan getScan() {
+    return scan;
+  }
+
+  long getWaitingSince() {
+    return waitingSince;
+  }
+
+  synchronized boolean isDone() {
+    return headDone;
+  }
+
+  void setPrefetchTask(Future<?> prefetchTask) {
+    this.prefetchTask = prefetchTask;
+  }
+
+  /**
+   * Fetches the first row of the scan ahead of the consumer. This fills the scanner cache with
+   * the first batch of rows, which the region server computes while the rows before the tail are
+   * still being consumed.
+   */
+  void prefetch() throws SQLException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+    }
+    prefetched = fetch();
+    hasPrefetched = true;
+  }
+
+  /**
+   * Prefetches the first row from the given iterator over the rows of the scan instead, e.g. when
+   * the scan has to be planned again as the regions moved.
+   */
+  void prefetch(ResultIterator head) throws SQLException {
+    this.head.close();
+    this.head = head;
+    prefetch();
+  }
+
+  /**
+   * Splits the remaining key range of the scan in half if the scan is waiting on the region
+   * server, and hands the upper half to the given factory.
+   * @return whether the range was split
+   */
+  synchronized boolean steal(TailFactory tailFactory) throws SQLException {
+    if (closed || headDone || waitingSince == 0) {
+      return false;
+    }
+    byte[] lowerRow = scan.getStartRow();
+    if (lastTuple != null) {
+      ImmutableBytesWritable key = new ImmutableBytesWritable();
+      lastTuple.getKey(key);
+      lowerRow = ByteUtil.copyKeyBytesIfNecessary(key);
+    }
+    byte[] splitRow = getSplitRow(lowerRow, stopRow);
+    if (splitRow == null) {
+      return false;
+    }
+    Scan tailScan = ScanUtil.newScan(scan);
+    tailScan.withStartRow(splitRow);
+    tailScan.setAttribute(SCAN_ACTUAL_START_ROW, splitRow);
+    tailScan.withStopRow(stopRow);
+    tail = tailFactory.newTail(tailScan, tail);
+    stopRow = splitRow;
+    return true;
+  }
+
+  /**
+   * @return the key half way between the given rows, or null if there is none or the range is
+   *         unbounded
+   */
+  static byte[] getSplitRow(byte[] lowerRow, byte[] upperRow) {
+    if (lowerRow.length == 0 || upperRow.length == 0) {
+      return null;
+    }
+    byte[][] rows;
+    try {
+      rows = Bytes.split(lowerRow, upperRow, 1);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    if (rows == null || rows.length != 3) {
+      return null;
+    }
+    byte[] splitRow = rows[1];
+    return Bytes.compareTo(lowerRow, splitRow) < 0 && Bytes.compareTo(splitRow, upperRow) < 0
+      ? splitRow
+      : null;
+  }
+
+  @Override
+  public Tuple next() throws SQLException {
+    if (tailIterator != null) {
+      return tailIterator.next();
+    }
+    if (headDone) {
+      return null;
+    }
+    awaitPrefetch();
+    Tuple tuple;
+    if (hasPrefetched) {
+      tuple = prefetched;
+      prefetched = null;
+      hasPrefetched = false;
+    } else {
+      tuple = fetch();
+    }
+    StealableScanIterator next;
+    synchronized (this) {
+      if (tuple != null && isBeforeStopRow(tuple)) {
+        lastTuple = tuple;
+        return tuple;
+      }
+      // Done with the range of the scan, which may have been cut short by a steal
+      headDone = true;
+      next = tail;
+    }
+    head.close();
+    if (next == null) {
+      return null;
+    }
+    tailIterator = next;
+    return next.next();
+  }
+
+  private Tuple fetch() throws SQLException {
+    waitingSince = EnvironmentEdgeManager.currentTimeMillis();
+    try {
+      return head.next();
+    } finally {
+      waitingSince = 0;
+    }
+  }
+
+  private boolean isBeforeStopRow(Tuple tuple) {
+    if (stopRow.length == 0) {
+      return true;
+    }
+    tuple.getKey(ptr);
+    return Bytes.compareTo(ptr.get(), ptr.getOffset(), ptr.getLength(), stopRow, 0,
+      stopRow.length) < 0;
+  }
+
+  private void awaitPrefetch() throws SQLException {
+    Future<?> task = prefetchTask;
+    if (task == null) {
+      return;
+    }
+    try {
+      task.get(Math.max(0, maxQueryEndTime - EnvironmentEdgeManager.currentTimeMillis()),
+        TimeUnit.MILLISECONDS);
+      prefetchTask = null;
+    } catch (TimeoutException e) {
+      throw new SQLExceptionInfo.Builder(SQLExceptionCode.OPERATION_TIMED_OUT)
+        .setMessage(". Query couldn't be completed in the allotted time").setRootCause(e).build()
+        .buildException();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION).setRootCause(e)
+        .build().buildException();
+    } catch (ExecutionException e) {
+      throw ClientUtil.parseServerException(e.getCause());
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    StealableScanIterator next;
+    boolean closeHead;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      closeHead = !headDone;
+      headDone = true;
+      next = tail;
+    }
+    try {
+      // Don't cancel a prefetch that already started, as that leaves the connection in a funky
+      // state, but wait for it to complete instead
+      Future<?> task = prefetchTask;
+      if (task != null && !task.cancel(false)) {
+        try {
+          task.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SQLExceptionInfo.Builder(SQLExceptionCode.INTERRUPTED_EXCEPTION)
+            .setRootCause(e).build().buildException();
+        } catch (ExecutionException e) {
+          LOGGER.info("Failed to prefetch the rows of a split off scan during close", e);
+        }
+      }
+      if (closeHead) {
+        head.close();
+      }
+    } finally {
+      if (next != null) {
+        next.close();
+      }
+    }
+  }
+
+  @Override
+  public void explain(List<String> planSteps) {
+    head.explain(planSteps);
+  }
+
+  @Override
+  public void explain(List<String> planSteps,
+    ExplainPlanAttributesBuilder explainPlanAttributesBuilder) {
+    head.explain(planSteps, explainPlanAttributesBuilder);
+  }
+
+  @Override
+  public String toString() {
+    return "StealableScanIterator [scan=" + scan + "]";
+  }
+}
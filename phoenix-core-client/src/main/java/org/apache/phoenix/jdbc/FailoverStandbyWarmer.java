@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.jdbc;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.phoenix.jdbc.ClusterRoleRecord.ClusterRole;
+import org.apache.phoenix.query.ConnectionQueryServices;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableType;
+import org.apache.phoenix.schema.stats.GuidePostsKey;
+import org.apache.phoenix.util.SchemaUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.phoenix.thirdparty.com.google.common.base.Preconditions;
+
+/**
+ * Keeps the ConnectionQueryServices of the STANDBY cluster of a FAILOVER HA group initialized, with
+ * the tables cached by the ConnectionQueryServices of the ACTIVE cluster resolved in its metadata
+ * cache and their guideposts loaded in its stats cache. Upon failover, FailoverPhoenixConnections
+ * then connect through a warm ConnectionQueryServices instead of cold starting one.
+ */
+class FailoverStandbyWarmer implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(FailoverStandbyWarmer.class);
+
+  private final HighAvailabilityGroup haGroup;
+  private final int maxTables;
+  /**
+   * JDBC urls of the STANDBY ConnectionQueryServices warmed since they were last closed.
+   */
+  private final Set<String> warmUrls = ConcurrentHashMap.newKeySet();
+
+  FailoverStandbyWarmer(HighAvailabilityGroup haGroup, int maxTables) {
+    this.haGroup = haGroup;
+    this.maxTables = maxTables;
+  }
+
+  /**
+   * @return true if the ConnectionQueryServices of the given url has been warmed and not closed
+   *         since
+   */
+  boolean isWarm(String jdbcUrl) {
+    return warmUrls.contains(jdbcUrl);
+  }
+
+  /**
+   * To be called when the ConnectionQueryServices of the given url gets closed.
+   */
+  void invalidate(String jdbcUrl) {
+    warmUrls.remove(jdbcUrl);
+  }
+
+  @Override
+  public void run() {
+    try {
+      warm();
+    } catch (Exception e) {
+      // Retried on the next run, failing over to a cold connection in the meantime
+      LOG.warn("Failed to warm the standby cluster of HA group {}", haGroup.getGroupInfo(), e);
+    }
+  }
+
+  @VisibleForTesting
+  void warm() throws SQLException {
+    ClusterRoleRecord roleRecord = haGroup.getRoleRecord();
+    if (roleRecord == null || roleRecord.getPolicy() != HighAvailabilityPolicy.FAILOVER) {
+      return;
+    }
+    Optional<String> activeUrl = roleRecord.getActiveUrl();
+    if (!activeUrl.isPresent()) {
+      return;
+    }
+    String standbyUrl =
+      activeUrl.get().equals(roleRecord.getUrl1()) ? roleRecord.getUrl2() : roleRecord.getUrl1();
+    if (roleRecord.getRole(standbyUrl) != ClusterRole.STANDBY) {
+      return;
+    }
+    Set<HAURLInfo> haurlInfos = HighAvailabilityGroup.URLS.get(haGroup.getGroupInfo());
+    if (haurlInfos == null) {
+      return;
+    }
+    // Warm the ConnectionQueryServices of every principal connecting to the group
+    for (HAURLInfo haurlInfo : haurlInfos) {
+      warm(
+        HighAvailabilityGroup.getJDBCUrl(activeUrl.get(), haurlInfo, roleRecord.getRegistryType()),
+        HighAvailabilityGroup.getJDBCUrl(standbyUrl, haurlInfo, roleRecord.getRegistryType()));
+    }
+  }
+
+  private void warm(String activeJdbcUrl, String standbyJdbcUrl) throws SQLException {
+    Properties properties = haGroup.getProperties();
+    ConnectionQueryServices activeServices =
+      getDriver(activeJdbcUrl).getConnectionQueryServices(activeJdbcUrl, properties);
+    int numTables = 0;
+    try (PhoenixConnection standbyConnection = connect(standbyJdbcUrl, properties)) {
+      ConnectionQueryServices standbyServices = standbyConnection.getQueryServices();
+      for (PTable table : activeServices.getMetaDataCache()) {
+        if (numTables >= maxTables) {
+          break;
+        }
+        // SYSTEM tables are resolved when initializing the ConnectionQueryServices
+        if (table.getType() == PTableType.SYSTEM) {
+          continue;
+        }
+        try {
+          PTable standbyTable =
+            standbyConnection.getTableNoCache(table.getTenantId(), table.getName().getString());
+          standbyServices.getTableStats(new GuidePostsKey(standbyTable.getPhysicalName().getBytes(),
+            SchemaUtil.getEmptyColumnFamily(standbyTable)));
+          numTables++;
+        } catch (SQLException e) {
+          LOG.debug("Failed to warm table {} on {}", table.getName(), standbyJdbcUrl, e);
+        }
+      }
+    }
+    warmUrls.add(standbyJdbcUrl);
+    LOG.debug("Warmed {} tables on {} for HA group {}", numTables, standbyJdbcUrl,
+      haGroup.getGroupInfo());
+  }
+
+  private static PhoenixConnection connect(String jdbcUrl, Properties properties)
+    throws SQLException {
+    PhoenixEmbeddedDriver driver = getDriver(jdbcUrl);
+    try {
+      return driver.getConnectionQueryServices(jdbcUrl, properties).connect(jdbcUrl, properties);
+    } catch (IllegalStateException e) {
+      // The ConnectionQueryServices was closed when the cluster went from ACTIVE to STANDBY, and
+      // is only invalidated once it becomes ACTIVE again
+      LOG.info("Replacing closed CQS of standby cluster {}", jdbcUrl);
+      PhoenixDriver.INSTANCE.invalidateCache(jdbcUrl, properties);
+      return driver.getConnectionQueryServices(jdbcUrl, properties).connect(jdbcUrl, properties);
+    }
+  }
+
+  private static PhoenixEmbeddedDriver getDriver(String jdbcUrl) throws SQLException {
+    // Get driver instead of using PhoenixDriver.INSTANCE since it can be a test or mocked driver
+    Driver driver = DriverManager.getDriver(jdbcUrl);
+    Preconditions.checkArgument(driver instanceof PhoenixEmbeddedDriver,
+      "No JDBC driver is registered for Phoenix high availability (HA) framework");
+    return (PhoenixEmbeddedDriver) driver;
+  }
+}
@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -122,6 +123,24 @@ public class HighAvailabilityGroup {
     PHOENIX_HA_ATTR_PREFIX + "transition.timeout.ms";
   public static final long PHOENIX_HA_TRANSITION_TIMEOUT_MS_DEFAULT = 5 * 60 * 1000; // 5 mins
 
+  /**
+   * Whether to keep the ConnectionQueryServices of the STANDBY cluster of a FAILOVER HA group warm,
+   * so that connections fail over to a cluster whose metadata and guidepost caches are populated.
+   */
+  public static final String PHOENIX_HA_FAILOVER_WARM_STANDBY_ENABLED_KEY =
+    PHOENIX_HA_ATTR_PREFIX + "failover.warm.standby.enabled";
+  public static final String PHOENIX_HA_FAILOVER_WARM_STANDBY_ENABLED_DEFAULT =
+    String.valueOf(Boolean.FALSE);
+  public static final String PHOENIX_HA_FAILOVER_WARM_STANDBY_INTERVAL_MS_KEY =
+    PHOENIX_HA_ATTR_PREFIX + "failover.warm.standby.interval.ms";
+  public static final long PHOENIX_HA_FAILOVER_WARM_STANDBY_INTERVAL_MS_DEFAULT = 60_000;
+  /**
+   * The maximum number of tables cached on the ACTIVE cluster to resolve on the STANDBY cluster.
+   */
+  public static final String PHOENIX_HA_FAILOVER_WARM_STANDBY_MAX_TABLES_KEY =
+    PHOENIX_HA_ATTR_PREFIX + "failover.warm.standby.max.tables";
+  public static final int PHOENIX_HA_FAILOVER_WARM_STANDBY_MAX_TABLES_DEFAULT = 100;
+
   static final Logger LOG = LoggerFactory.getLogger(HighAvailabilityGroup.class);
 
   /**
@@ -187,6 +206,14 @@ public class HighAvailabilityGroup {
    * State of this HA group.
    */
   private volatile State state = State.UNINITIALIZED;
+  /**
+   * Warmer of the STANDBY cluster, null unless enabled for this HA group.
+   */
+  private volatile FailoverStandbyWarmer standbyWarmer;
+  /**
+   * Executor running the warmer of the STANDBY cluster, null unless enabled for this HA group.
+   */
+  private volatile ScheduledExecutorService standbyWarmerExecutor;
 
   /**
    * Private constructor.
@@ -552,6 +579,55 @@ public class HighAvailabilityGroup {
 
     assert roleRecord != null;
     LOG.info("Initial cluster role for HA group {} is {}", info, roleRecord);
+    startStandbyWarmer();
+  }
+
+  /**
+   * Schedules the warming of the STANDBY cluster if enabled. The warmer is a no-op as long as the
+   * HA group is not under the FAILOVER policy with one ACTIVE and one STANDBY cluster.
+   */
+  private void startStandbyWarmer() {
+    if (
+      !Boolean.parseBoolean(properties.getProperty(PHOENIX_HA_FAILOVER_WARM_STANDBY_ENABLED_KEY,
+        PHOENIX_HA_FAILOVER_WARM_STANDBY_ENABLED_DEFAULT))
+    ) {
+      return;
+    }
+    String intervalMsProp =
+      properties.getProperty(PHOENIX_HA_FAILOVER_WARM_STANDBY_INTERVAL_MS_KEY);
+    long intervalMs = !StringUtils.isEmpty(intervalMsProp)
+      ? Long.parseLong(intervalMsProp)
+      : PHOENIX_HA_FAILOVER_WARM_STANDBY_INTERVAL_MS_DEFAULT;
+    String maxTablesProp = properties.getProperty(PHOENIX_HA_FAILOVER_WARM_STANDBY_MAX_TABLES_KEY);
+    int maxTables = !StringUtils.isEmpty(maxTablesProp)
+      ? Integer.parseInt(maxTablesProp)
+      : PHOENIX_HA_FAILOVER_WARM_STANDBY_MAX_TABLES_DEFAULT;
+    standbyWarmer = new FailoverStandbyWarmer(this, maxTables);
+    standbyWarmerExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setDaemon(true).setNameFormat("phoenixHAStandbyWarmer-" + info.getName() + "-%d").build());
+    standbyWarmerExecutor.scheduleWithFixedDelay(standbyWarmer, 0, intervalMs,
+      TimeUnit.MILLISECONDS);
+    LOG.info("Warming the standby cluster of HA group {} every {}ms", info, intervalMs);
+  }
+
+  /**
+   * @param jdbcUrl the JDBC url of a cluster of this HA group
+   * @return true if the ConnectionQueryServices of the given url is kept warm as STANDBY cluster
+   */
+  boolean isWarmStandby(String jdbcUrl) {
+    FailoverStandbyWarmer warmer = standbyWarmer;
+    return warmer != null && warmer.isWarm(jdbcUrl);
+  }
+
+  /**
+   * To be called when the ConnectionQueryServices of the given url gets closed, so that it is no
+   * longer considered warm.
+   */
+  void onConnectionQueryServicesClosed(String jdbcUrl) {
+    FailoverStandbyWarmer warmer = standbyWarmer;
+    if (warmer != null) {
+      warmer.invalidate(jdbcUrl);
+    }
   }
 
   /**
@@ -713,6 +789,9 @@ public class HighAvailabilityGroup {
    * Someone calling close on this would make it unusable, since the state would become closed.
    */
   void close() {
+    if (standbyWarmerExecutor != null) {
+      standbyWarmerExecutor.shutdownNow();
+    }
     roleManagerExecutor.shutdownNow();
     try {
       // TODO: Parameterize and set in future work item for pluggable
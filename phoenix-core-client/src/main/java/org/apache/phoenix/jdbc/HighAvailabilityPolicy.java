@@ -164,8 +164,17 @@ public enum HighAvailabilityPolicy {
 
     private void transitActive(HighAvailabilityGroup haGroup, String url,
       ClusterRoleRecord.RegistryType registryType) throws SQLException {
-      // Invalidate CQS cache if any that has been closed but has not been cleared
-      invalidateCQSIs(haGroup, url, registryType);
+      // Invalidate CQS cache if any that has been closed but has not been cleared, keeping the
+      // CQSs warmed up while the cluster was STANDBY
+      for (HAURLInfo haurlInfo : HighAvailabilityGroup.URLS.get(haGroup.getGroupInfo())) {
+        String jdbcUrl = HighAvailabilityGroup.getJDBCUrl(url, haurlInfo, registryType);
+        if (haGroup.isWarmStandby(jdbcUrl)) {
+          LOG.info("Failing over to warm cqs for url: {}", jdbcUrl);
+        } else {
+          LOG.info("invalidating cqs cache for url: " + jdbcUrl);
+          PhoenixDriver.INSTANCE.invalidateCache(jdbcUrl, haGroup.getProperties());
+        }
+      }
     }
   },
 
@@ -255,9 +264,9 @@ public enum HighAvailabilityPolicy {
     ConnectionQueryServices cqs = null;
     // Close connections for every HAURLInfo's (different principal) conn for a give HAGroup
     for (HAURLInfo haurlInfo : HighAvailabilityGroup.URLS.get(haGroup.getGroupInfo())) {
+      String jdbcUrl = HighAvailabilityGroup.getJDBCUrl(url, haurlInfo, registryType);
       try {
-        cqs = PhoenixDriver.INSTANCE.getConnectionQueryServices(
-          HighAvailabilityGroup.getJDBCUrl(url, haurlInfo, registryType), haGroup.getProperties());
+        cqs = PhoenixDriver.INSTANCE.getConnectionQueryServices(jdbcUrl, haGroup.getProperties());
         cqs.closeAllConnections(
           new SQLExceptionInfo.Builder(SQLExceptionCode.HA_CLOSED_AFTER_FAILOVER)
             .setMessage("Phoenix connection got closed due to failover")
@@ -272,6 +281,7 @@ public enum HighAvailabilityPolicy {
           // of URL and registryType changes
           LOG.info("Closing CQS after clusterRoleRecord change for '{}'", url);
           cqs.close();
+          haGroup.onConnectionQueryServicesClosed(jdbcUrl);
           LOG.info("Successfully closed CQS after clusterRoleRecord change for '{}'", url);
         }
       }
@@ -17,6 +17,11 @@
  */
 package org.apache.phoenix.jdbc;
 
+import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS;
+import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS;
+import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_HEDGED_READS_ENABLED_ATTRIB;
+import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS_ATTRIB;
+import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS_ATTRIB;
 import static org.apache.phoenix.jdbc.ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_OPERATION_TIMEOUT_ATTRIB;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_HA_PARALLEL_CONNECTION_CREATED_COUNTER;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_HA_PARALLEL_CONNECTION_ERROR_COUNTER;
@@ -62,6 +67,14 @@ public class ParallelPhoenixContext {
   private final HAURLInfo haurlInfo;
   private final long operationTimeoutMs;
 
+  // Hedged reads go to the cluster with the lowest recent latency first and to the other one only
+  // if they haven't completed within the 95th percentile of that latency
+  private static final double HEDGE_DELAY_PERCENTILE = 0.95;
+  private final boolean hedgedReadsEnabled;
+  private final long hedgeMinDelayMs;
+  private final long hedgeMaxDelayMs;
+  private final ParallelPhoenixLatencyTracker latencyTracker;
+
   private volatile boolean isClosed = false;
   private volatile boolean isErrored = false;
 
@@ -86,6 +99,21 @@ public class ParallelPhoenixContext {
 
     this.parallelPhoenixMetrics = new ParallelPhoenixMetrics();
     this.operationTimeoutMs = getOperationTimeoutMs(properties);
+    // Result sets comparing the rows of both clusters need the query to run on both
+    this.hedgedReadsEnabled = Boolean
+      .parseBoolean(properties.getProperty(PHOENIX_HA_PARALLEL_HEDGED_READS_ENABLED_ATTRIB))
+      && ParallelPhoenixResultSetFactory.ParallelPhoenixResultSetType.fromName(
+        properties.getProperty(ParallelPhoenixResultSetFactory.PHOENIX_PARALLEL_RESULTSET_TYPE))
+          == ParallelPhoenixResultSetFactory.ParallelPhoenixResultSetType.PARALLEL_PHOENIX_RESULT_SET;
+    this.hedgeMinDelayMs =
+      Long.parseLong(properties.getProperty(PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS_ATTRIB,
+        Long.toString(DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS)));
+    this.hedgeMaxDelayMs = Math.max(hedgeMinDelayMs,
+      Long.parseLong(properties.getProperty(PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS_ATTRIB,
+        Long.toString(DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS))));
+    this.latencyTracker = haGroup == null || haGroup.getGroupInfo() == null
+      ? new ParallelPhoenixLatencyTracker()
+      : ParallelPhoenixLatencyTracker.getInstance(haGroup.getGroupInfo().getName());
 
     cluster1Context = new ParallelPhoenixClusterContext(1, executors.get(0).getExecutorService(),
       executors.get(0).getCloseExecutorService());
@@ -164,6 +192,31 @@ public class ParallelPhoenixContext {
     cluster2Context.setChainOnConn(future);
   }
 
+  /**
+   * Chains an operation on the connection to the cluster with the given index, 0 for the first
+   * cluster and 1 for the second one.
+   */
+  <T> CompletableFuture<T> chainOnConn(int clusterIndex, Supplier<T> s) {
+    return chainOnConnClusterContext(s, clusterIndex == 0 ? cluster1Context : cluster2Context);
+  }
+
+  /**
+   * Chains an operation on the connection to the cluster with the given index that only runs if
+   * the given trigger completes with true, and completes with null without running otherwise. The
+   * operation keeps its place in the chain while waiting on the trigger, without holding a thread
+   * of the cluster's executor.
+   */
+  <T> CompletableFuture<T> chainOnConnWhen(int clusterIndex, CompletableFuture<Boolean> trigger,
+    Supplier<T> s) {
+    ParallelPhoenixClusterContext context = clusterIndex == 0 ? cluster1Context : cluster2Context;
+    CompletableFuture<?> tail = context.getChainOnConn();
+    CompletableFuture<T> chainedFuture = tail.thenCompose(f -> trigger).thenCompose(run -> run
+      ? CompletableFuture.supplyAsync(s, context.getExecutorForCluster())
+      : CompletableFuture.<T> completedFuture(null));
+    context.setChainOnConn(chainedFuture);
+    return chainedFuture;
+  }
+
   private <T> CompletableFuture<T> chainOnConnClusterContext(Supplier<T> s,
     ParallelPhoenixClusterContext context) {
     CompletableFuture<T> chainedFuture =
@@ -220,6 +273,28 @@ public class ParallelPhoenixContext {
     return this.operationTimeoutMs;
   }
 
+  public boolean isHedgedReadsEnabled() {
+    return hedgedReadsEnabled;
+  }
+
+  /** Returns the index of the cluster hedged reads go to first */
+  int getPreferredClusterIndex() {
+    return latencyTracker.getPreferredClusterIndex();
+  }
+
+  /** Returns how long a hedged read waits for the given cluster before going to the other one */
+  long getHedgeDelayMs(int clusterIndex) {
+    long delayMs = latencyTracker.getPercentile(clusterIndex, HEDGE_DELAY_PERCENTILE);
+    if (delayMs < 0) {
+      return hedgeMaxDelayMs;
+    }
+    return Math.min(hedgeMaxDelayMs, Math.max(hedgeMinDelayMs, delayMs));
+  }
+
+  void recordLatency(int clusterIndex, long latencyMs) {
+    latencyTracker.record(clusterIndex, latencyMs);
+  }
+
   @VisibleForTesting
   public CompletableFuture<?> getChainOnConn1() {
     return this.cluster1Context.getChainOnConn();
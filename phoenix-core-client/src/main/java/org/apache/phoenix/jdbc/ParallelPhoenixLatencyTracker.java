@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.jdbc;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks the latency of the operations ParallelPhoenixConnections run against the two clusters of
+ * an HA group. An exponentially weighted moving average picks the cluster hedged reads go to first,
+ * and a percentile over a window of recent operations decides how long to wait before duplicating
+ * them on the other cluster.
+ */
+class ParallelPhoenixLatencyTracker {
+
+  static final double EWMA_WEIGHT = 0.2;
+  static final int WINDOW_SIZE = 128;
+
+  private static final ConcurrentMap<String, ParallelPhoenixLatencyTracker> TRACKERS =
+    new ConcurrentHashMap<>();
+
+  private final ClusterLatency[] clusters = { new ClusterLatency(), new ClusterLatency() };
+
+  /** Returns the tracker shared by all the connections to the given HA group */
+  static ParallelPhoenixLatencyTracker getInstance(String haGroupName) {
+    return TRACKERS.computeIfAbsent(haGroupName, name -> new ParallelPhoenixLatencyTracker());
+  }
+
+  void record(int clusterIndex, long latencyMs) {
+    clusters[clusterIndex].record(latencyMs);
+  }
+
+  /**
+   * @return the index of the cluster with the lowest average latency, the first cluster if either
+   *         of them has no operation recorded yet
+   */
+  int getPreferredClusterIndex() {
+    double average1 = clusters[0].getAverage();
+    double average2 = clusters[1].getAverage();
+    if (average1 < 0 || average2 < 0) {
+      return 0;
+    }
+    return average2 < average1 ? 1 : 0;
+  }
+
+  /**
+   * Returns the given percentile of the recent latencies of a cluster, or -1 if none was recorded
+   */
+  long getPercentile(int clusterIndex, double percentile) {
+    return clusters[clusterIndex].getPercentile(percentile);
+  }
+
+  private static class ClusterLatency {
+    private final long[] window = new long[WINDOW_SIZE];
+    private long count = 0;
+    private double average = -1;
+
+    synchronized void record(long latencyMs) {
+      window[(int) (count % WINDOW_SIZE)] = latencyMs;
+      count++;
+      average = average < 0 ? latencyMs : average + EWMA_WEIGHT * (latencyMs - average);
+    }
+
+    synchronized double getAverage() {
+      return average;
+    }
+
+    long getPercentile(double percentile) {
+      long[] latencies;
+      synchronized (this) {
+        latencies = Arrays.copyOf(window, (int) Math.min(count, WINDOW_SIZE));
+      }
+      if (latencies.length == 0) {
+        return -1;
+      }
+      Arrays.sort(latencies);
+      int index = (int) Math.ceil(percentile * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+    }
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.phoenix.jdbc;
 
 import static org.apache.phoenix.jdbc.PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_FAILED_OPERATIONS;
+import static org.apache.phoenix.jdbc.PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_HEDGED_OPERATIONS;
 import static org.apache.phoenix.jdbc.PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_OPERATIONS;
 import static org.apache.phoenix.jdbc.PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_USED_OPERATIONS;
 
@@ -28,7 +29,7 @@ import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
 
 public class ParallelPhoenixMetrics extends PhoenixHAGroupMetrics {
   private static List<HAMetricType> TYPES = ImmutableList.of(HA_PARALLEL_COUNT_FAILED_OPERATIONS,
-    HA_PARALLEL_USED_OPERATIONS, HA_PARALLEL_COUNT_OPERATIONS);
+    HA_PARALLEL_USED_OPERATIONS, HA_PARALLEL_COUNT_OPERATIONS, HA_PARALLEL_COUNT_HEDGED_OPERATIONS);
 
   public ParallelPhoenixMetrics() {
     super(TYPES);
@@ -57,4 +58,12 @@ public class ParallelPhoenixMetrics extends PhoenixHAGroupMetrics {
   public Metric getStandbyClusterUsedCount() {
     return this.get(HA_PARALLEL_USED_OPERATIONS, 1);
   }
+
+  public Metric getActiveClusterHedgedCount() {
+    return this.get(HA_PARALLEL_COUNT_HEDGED_OPERATIONS, 0);
+  }
+
+  public Metric getStandbyClusterHedgedCount() {
+    return this.get(HA_PARALLEL_COUNT_HEDGED_OPERATIONS, 1);
+  }
 }
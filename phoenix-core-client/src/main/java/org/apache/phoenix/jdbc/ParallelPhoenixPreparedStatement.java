@@ -76,6 +76,15 @@ public class ParallelPhoenixPreparedStatement implements PhoenixMonitoredPrepare
 
   @Override
   public ResultSet executeQuery() throws SQLException {
+    if (context.isHedgedReadsEnabled()) {
+      return ParallelPhoenixUtil.INSTANCE.runQueryHedged(statement -> {
+        try {
+          return statement.executeQuery();
+        } catch (SQLException exception) {
+          throw new CompletionException(exception);
+        }
+      }, statement1, statement2, context);
+    }
     CompletableFuture<ResultSet> result1 =
       ParallelPhoenixUtil.INSTANCE.getFutureAndChainOnContext(statement -> {
         try {
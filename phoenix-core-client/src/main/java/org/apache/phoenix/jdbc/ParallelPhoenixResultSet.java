@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
 import org.apache.phoenix.thirdparty.com.google.common.base.Preconditions;
+import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
 
 import org.apache.hbase.thirdparty.com.google.gson.JsonObject;
 
@@ -49,6 +50,8 @@ public class ParallelPhoenixResultSet extends DelegateResultSet
 
   private final ParallelPhoenixContext context;
   private final CompletableFuture<ResultSet> rs1, rs2;
+  // Results of the first next(), which hedged reads run along with the query
+  private final CompletableFuture<Boolean> firstNext1, firstNext2;
 
   public ParallelPhoenixResultSet(ParallelPhoenixContext context, CompletableFuture<ResultSet> rs1,
     CompletableFuture<ResultSet> rs2) {
@@ -57,6 +60,23 @@ public class ParallelPhoenixResultSet extends DelegateResultSet
     this.rs = null;
     this.rs1 = rs1;
     this.rs2 = rs2;
+    this.firstNext1 = null;
+    this.firstNext2 = null;
+  }
+
+  /**
+   * @param firstRows results of a hedged read for each cluster
+   */
+  ParallelPhoenixResultSet(ParallelPhoenixContext context,
+    List<CompletableFuture<FirstRow>> firstRows) {
+    super(null);
+    Preconditions.checkState(firstRows.size() == 2);
+    this.context = context;
+    this.rs = null;
+    this.rs1 = firstRows.get(0).thenApply(FirstRow::getResultSet);
+    this.rs2 = firstRows.get(1).thenApply(FirstRow::getResultSet);
+    this.firstNext1 = firstRows.get(0).thenApply(FirstRow::hasNext);
+    this.firstNext2 = firstRows.get(1).thenApply(FirstRow::hasNext);
   }
 
   @Override
@@ -74,8 +94,9 @@ public class ParallelPhoenixResultSet extends DelegateResultSet
         }
       };
 
-      List<CompletableFuture<Boolean>> futures =
-        ParallelPhoenixUtil.INSTANCE.applyFunctionToFutures(function, rs1, rs2, context, false);
+      List<CompletableFuture<Boolean>> futures = firstNext1 != null
+        ? ImmutableList.of(firstNext1, firstNext2)
+        : ParallelPhoenixUtil.INSTANCE.applyFunctionToFutures(function, rs1, rs2, context, false);
 
       Preconditions.checkState(futures.size() == 2);
       CompletableFuture<Boolean> next1 = futures.get(0);
@@ -177,6 +198,28 @@ public class ParallelPhoenixResultSet extends DelegateResultSet
     });
   }
 
+  /**
+   * A result set whose first next() has already been called, as queries are only done with once
+   * they have returned their first row.
+   */
+  static class FirstRow {
+    private final ResultSet resultSet;
+    private final boolean hasNext;
+
+    FirstRow(ResultSet resultSet, boolean hasNext) {
+      this.resultSet = resultSet;
+      this.hasNext = hasNext;
+    }
+
+    ResultSet getResultSet() {
+      return resultSet;
+    }
+
+    boolean hasNext() {
+      return hasNext;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T unwrap(Class<T> iface) throws SQLException {
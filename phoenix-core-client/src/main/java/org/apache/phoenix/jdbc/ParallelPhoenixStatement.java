@@ -68,6 +68,10 @@ public class ParallelPhoenixStatement implements PhoenixMonitoredStatement {
       }
     };
 
+    if (context.isHedgedReadsEnabled()) {
+      return ParallelPhoenixUtil.INSTANCE.runQueryHedged(function, statement1, statement2, context);
+    }
+
     List<CompletableFuture<ResultSet>> futures = ParallelPhoenixUtil.INSTANCE
       .applyFunctionToFutures(function, statement1, statement2, context, true);
 
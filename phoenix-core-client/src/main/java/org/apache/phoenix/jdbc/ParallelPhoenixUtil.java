@@ -19,14 +19,22 @@ package org.apache.phoenix.jdbc;
 
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_HA_PARALLEL_TASK_TIMEOUT_COUNTER;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -39,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
+import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class ParallelPhoenixUtil {
 
@@ -47,10 +56,27 @@ public class ParallelPhoenixUtil {
   public static final String PHOENIX_HA_PARALLEL_OPERATION_TIMEOUT_ATTRIB =
     "phoenix.ha.parallel.operation.timeout.ms";
 
+  // Whether queries go to the cluster with the lowest recent latency first, and to the other
+  // cluster
+  // only once they haven't returned their first row within the recent p95 latency of that cluster
+  public static final String PHOENIX_HA_PARALLEL_HEDGED_READS_ENABLED_ATTRIB =
+    "phoenix.ha.parallel.hedged.reads.enabled";
+  // Bounds of the delay before a hedged read is sent to the other cluster. The maximum is used
+  // until latencies have been recorded for the preferred cluster
+  public static final String PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS_ATTRIB =
+    "phoenix.ha.parallel.hedge.min.delay.ms";
+  public static final String PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS_ATTRIB =
+    "phoenix.ha.parallel.hedge.max.delay.ms";
+  public static final long DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MIN_DELAY_MS = 5;
+  public static final long DEFAULT_PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS = 1000;
+
   public static ParallelPhoenixUtil INSTANCE = new ParallelPhoenixUtil();
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ParallelPhoenixUtil.class);
   private static final long DEFAULT_INTERNAL_OPERATION_TIMEOUT_MS = 1000;
+  private static final ScheduledExecutorService HEDGE_SCHEDULER =
+    Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("parallelPhoenixHedge-%d").build());
 
   private ParallelPhoenixUtil() {
   }
@@ -246,6 +272,149 @@ public class ParallelPhoenixUtil {
     return ImmutableList.of(result1, result2);
   }
 
+  <T, R> List<CompletableFuture<T>> applyFunctionToFuturesHedged(Function<R, T> function,
+    CompletableFuture<R> future1, CompletableFuture<R> future2, ParallelPhoenixContext context) {
+    return applyFunctionToFuturesHedged(function, future1, future2, context, null);
+  }
+
+  /**
+   * Applies the function on the preferred cluster and, only if that hasn't succeeded within the
+   * hedge delay of the cluster or has failed, on the other one. Whichever cluster succeeds first
+   * wins. The result of the other one is handed to the discard callback once it is available, and
+   * its failure is ignored, so that the losing operation doesn't fail the following operations
+   * chained on its connection.
+   * @param discard called with the result of the cluster that lost, to release it. May be null
+   * @return futures position in list indicates the cluster. The future of the cluster that lost,
+   *         or that the function didn't need to be applied on, completes exceptionally with a
+   *         CancellationException
+   */
+  <T, R> List<CompletableFuture<T>> applyFunctionToFuturesHedged(Function<R, T> function,
+    CompletableFuture<R> future1, CompletableFuture<R> future2, ParallelPhoenixContext context,
+    Consumer<T> discard) {
+    List<CompletableFuture<R>> futures = ImmutableList.of(future1, future2);
+    ParallelPhoenixMetrics metrics = context.getParallelPhoenixMetrics();
+    int preferred = context.getPreferredClusterIndex();
+    int other = 1 - preferred;
+    // Index of the cluster the function first succeeded on, -1 until then
+    AtomicInteger winner = new AtomicInteger(-1);
+
+    long startTime = EnvironmentEdgeManager.currentTime();
+    CompletableFuture<T> preferredChain = getFutureAndChainOnContext(
+      input -> applyHedged(function, input, preferred, winner, discard), futures.get(preferred),
+      s -> context.chainOnConn(preferred, s),
+      metrics.get(PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_OPERATIONS, preferred),
+      metrics.get(PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_FAILED_OPERATIONS,
+        preferred));
+    // Completes with whether the function needs to be applied on the other cluster
+    CompletableFuture<Boolean> hedge = new CompletableFuture<>();
+    ScheduledFuture<?> hedgeTimer = HEDGE_SCHEDULER.schedule(() -> hedge.complete(true),
+      context.getHedgeDelayMs(preferred), TimeUnit.MILLISECONDS);
+    preferredChain.whenComplete((t, e) -> {
+      hedgeTimer.cancel(false);
+      if (e == null && winner.get() == preferred) {
+        context.recordLatency(preferred, EnvironmentEdgeManager.currentTime() - startTime);
+      }
+      hedge.complete(e != null);
+    });
+
+    // Chained right away to keep the order of the operations on the connection, but only handed
+    // to the cluster's executor once the hedge fires. A skipped operation completes normally, as
+    // an exceptional one fails all the following ones
+    CompletableFuture<T> otherChain = context.chainOnConnWhen(other, hedge, () -> {
+      metrics.get(PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_HEDGED_OPERATIONS, other)
+        .increment();
+      metrics.get(PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_OPERATIONS, other)
+        .increment();
+      long otherStartTime = EnvironmentEdgeManager.currentTime();
+      try {
+        T result = applyHedged(function, futures.get(other).get(), other, winner, discard);
+        if (winner.get() == other) {
+          context.recordLatency(other, EnvironmentEdgeManager.currentTime() - otherStartTime);
+        }
+        return result;
+      } catch (Exception e) {
+        if (winner.get() == preferred) {
+          return null;
+        }
+        metrics.get(PhoenixHAGroupMetrics.HAMetricType.HA_PARALLEL_COUNT_FAILED_OPERATIONS, other)
+          .increment();
+        throw new CompletionException(e);
+      }
+    });
+    CompletableFuture<T> preferredResult = getWinnerResult(preferredChain, preferred, winner);
+    CompletableFuture<T> otherResult = getWinnerResult(otherChain, other, winner);
+    return preferred == 0
+      ? ImmutableList.of(preferredResult, otherResult)
+      : ImmutableList.of(otherResult, preferredResult);
+  }
+
+  /**
+   * Applies the function of a hedged operation on the given cluster. If the other cluster won in
+   * the meantime, the result is discarded and a failure is ignored.
+   */
+  private static <T, R> T applyHedged(Function<R, T> function, R input, int clusterIndex,
+    AtomicInteger winner, Consumer<T> discard) {
+    T result;
+    try {
+      result = function.apply(input);
+    } catch (RuntimeException e) {
+      if (winner.get() != -1) {
+        LOGGER.debug("Ignoring the failure of the hedged operation on cluster {} that lost: {}",
+          clusterIndex + 1, e.getMessage());
+        return null;
+      }
+      throw e;
+    }
+    if (!winner.compareAndSet(-1, clusterIndex) && discard != null) {
+      discard.accept(result);
+    }
+    return result;
+  }
+
+  private static <T> CompletableFuture<T> getWinnerResult(CompletableFuture<T> chain,
+    int clusterIndex, AtomicInteger winner) {
+    return chain.thenApply(t -> {
+      if (winner.get() != clusterIndex) {
+        throw new CancellationException("Operation completed on cluster " + (winner.get() + 1));
+      }
+      return t;
+    });
+  }
+
+  /**
+   * Runs a query as a hedged read, see
+   * {@link #applyFunctionToFuturesHedged(Function, CompletableFuture, CompletableFuture, ParallelPhoenixContext)}.
+   * The first row is fetched along with the query, as that's what most of its latency goes to.
+   */
+  <R extends Statement> ParallelPhoenixResultSet runQueryHedged(Function<R, ResultSet> query,
+    CompletableFuture<R> statement1, CompletableFuture<R> statement2,
+    ParallelPhoenixContext context) {
+    Function<R, ParallelPhoenixResultSet.FirstRow> function = statement -> {
+      ResultSet rs = query.apply(statement);
+      try {
+        return new ParallelPhoenixResultSet.FirstRow(rs, rs.next());
+      } catch (SQLException exception) {
+        try {
+          rs.close();
+        } catch (SQLException closeException) {
+          exception.addSuppressed(closeException);
+        }
+        throw new CompletionException(exception);
+      }
+    };
+    // The result set of the query that lost to the other cluster is closed once it's available
+    Consumer<ParallelPhoenixResultSet.FirstRow> discard = firstRow -> {
+      try {
+        firstRow.getResultSet().close();
+      } catch (SQLException e) {
+        LOGGER.warn("Failed to close the result set of the query that lost the hedged read: {}",
+          e.getMessage(), e);
+      }
+    };
+    return new ParallelPhoenixResultSet(context,
+      applyFunctionToFuturesHedged(function, statement1, statement2, context, discard));
+  }
+
   /**
    * @param <T>     Type of the future
    * @param futures list of futures to run, for 2 clusters 0 will be the active 1 will be the
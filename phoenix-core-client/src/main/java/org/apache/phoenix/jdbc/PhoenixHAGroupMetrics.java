@@ -19,6 +19,8 @@ package org.apache.phoenix.jdbc;
 
 import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_FAILED_OPERATIONS_ACTIVE_CLUSTER;
 import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_FAILED_OPERATIONS_STANDBY_CLUSTER;
+import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_HEDGED_OPERATIONS_ACTIVE_CLUSTER;
+import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_HEDGED_OPERATIONS_STANDBY_CLUSTER;
 import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_OPERATIONS_ACTIVE_CLUSTER;
 import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_OPERATIONS_STANDBY_CLUSTER;
 import static org.apache.phoenix.monitoring.MetricType.HA_PARALLEL_COUNT_USED_OPERATIONS_ACTIVE_CLUSTER;
@@ -42,7 +44,10 @@ public class PhoenixHAGroupMetrics implements PhoenixMetricsHolder {
     HA_PARALLEL_USED_OPERATIONS(ImmutableList.of(HA_PARALLEL_COUNT_USED_OPERATIONS_ACTIVE_CLUSTER,
       HA_PARALLEL_COUNT_USED_OPERATIONS_STANDBY_CLUSTER)),
     HA_PARALLEL_COUNT_OPERATIONS(ImmutableList.of(HA_PARALLEL_COUNT_OPERATIONS_ACTIVE_CLUSTER,
-      HA_PARALLEL_COUNT_OPERATIONS_STANDBY_CLUSTER));
+      HA_PARALLEL_COUNT_OPERATIONS_STANDBY_CLUSTER)),
+    HA_PARALLEL_COUNT_HEDGED_OPERATIONS(
+      ImmutableList.of(HA_PARALLEL_COUNT_HEDGED_OPERATIONS_ACTIVE_CLUSTER,
+        HA_PARALLEL_COUNT_HEDGED_OPERATIONS_STANDBY_CLUSTER));
 
     private final List<MetricType> metrics;
 
@@ -78,6 +78,7 @@ import org.apache.hadoop.hbase.client.Consistency;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.call.CallRunner;
 import org.apache.phoenix.compile.BaseMutationPlan;
 import org.apache.phoenix.compile.CloseStatementCompiler;
@@ -113,7 +114,9 @@ import org.apache.phoenix.exception.StaleMetadataCacheException;
 import org.apache.phoenix.exception.UpgradeRequiredException;
 import org.apache.phoenix.execute.MutationState;
 import org.apache.phoenix.execute.MutationState.ReturnResult;
+import org.apache.phoenix.execute.QueryProfile;
 import org.apache.phoenix.execute.visitor.QueryPlanVisitor;
+import org.apache.phoenix.execute.visitor.QueryProfileVisitor;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
 import org.apache.phoenix.expression.RowKeyColumnExpression;
 import org.apache.phoenix.iterate.ExplainTable;
@@ -306,6 +309,7 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
   protected final Calendar localCalendar = Calendar.getInstance();
   private boolean validateLastDdlTimestamp;
   private long sqlQueryParsingTime = 0;
+  private QueryProfile queryProfile;
 
   public PhoenixStatement(PhoenixConnection connection) {
     this.connection = connection;
@@ -420,9 +424,23 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
               tableName = plan.getTableRef().getTable().getPhysicalName().toString();
             }
             final long queryResultItrSetStartTime = EnvironmentEdgeManager.currentTimeMillis();
-            // this will create its own trace internally, so we don't wrap this
-            // whole thing in tracing
-            ResultIterator resultIterator = plan.iterator();
+            QueryResultCache resultCache = connection.getQueryServices().getQueryResultCache();
+            QueryResultCache.Key resultCacheKey = stmt instanceof ExecutableSelectStatement
+              ? resultCache.getKey(PhoenixStatement.this, (ExecutableSelectStatement) stmt, plan)
+              : null;
+            List<Tuple> cachedResults =
+              resultCacheKey == null ? null : resultCache.get(resultCacheKey);
+            ResultIterator resultIterator;
+            if (cachedResults != null) {
+              resultIterator = new MaterializedResultIterator(cachedResults);
+            } else {
+              // this will create its own trace internally, so we don't wrap this
+              // whole thing in tracing
+              resultIterator = plan.iterator();
+              if (resultCacheKey != null) {
+                resultIterator = resultCache.newCachingIterator(resultCacheKey, resultIterator);
+              }
+            }
             overallQuerymetrics.setQueryResultItrTimeMS(
               EnvironmentEdgeManager.currentTimeMillis() - queryResultItrSetStartTime);
             if (LOGGER.isDebugEnabled()) {
@@ -674,7 +692,17 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
                 if (singleRowUpdate) {
                   state.setReturnResult(returnResult);
                 }
-                connection.commit();
+                try {
+                  connection.commit();
+                } finally {
+                  // Mutations executed on the server, such as an UPSERT SELECT or DELETE run with
+                  // auto commit, do not go through MutationState.send() where cached results are
+                  // invalidated otherwise
+                  if (plan.getTargetRef() != null && plan.getTargetRef().getTable() != null) {
+                    connection.getQueryServices().getQueryResultCache()
+                      .invalidate(plan.getTargetRef().getTable());
+                  }
+                }
                 if (isAtomicUpsert) {
                   lastUpdateCount = connection.getMutationState().getNumUpdatedRowsForAutoCommit();
                 }
@@ -951,6 +979,11 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
         new KeyValueColumnExpression(EXPLAIN_PLAN_ESTIMATE_INFO_TS_COLUMN), false)),
       0, true);
 
+  /**
+   * Number of slowest scans reported by EXPLAIN ANALYZE when the connection doesn't track any.
+   */
+  private static final int EXPLAIN_ANALYZE_SLOWEST_SCAN_METRICS_COUNT = 3;
+
   private static class ExecutableExplainStatement extends ExplainStatement
     implements CompilableStatement {
 
@@ -994,46 +1027,26 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
           stmt.getConnection().getQueryServices().getOptimizer().optimize(stmt, dataPlan);
       }
       final StatementPlan plan = compilePlan;
-      List<String> planSteps = plan.getExplainPlan().getPlanSteps();
       ExplainType explainType = getExplainType();
-      if (explainType == ExplainType.DEFAULT) {
-        List<String> updatedExplainPlanSteps = new ArrayList<>(planSteps);
-        updatedExplainPlanSteps.removeIf(
-          planStep -> planStep != null && planStep.contains(ExplainTable.REGION_LOCATIONS));
-        planSteps = Collections.unmodifiableList(updatedExplainPlanSteps);
+      if (explainType == ExplainType.ANALYZE && !(plan instanceof QueryPlan)) {
+        throw new SQLFeatureNotSupportedException("EXPLAIN ANALYZE is only supported for queries");
       }
-      List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
-      Long estimatedBytesToScan = plan.getEstimatedBytesToScan();
-      Long estimatedRowsToScan = plan.getEstimatedRowsToScan();
-      Long estimateInfoTimestamp = plan.getEstimateInfoTimestamp();
-      for (String planStep : planSteps) {
-        byte[] row = PVarchar.INSTANCE.toBytes(planStep);
-        List<Cell> cells = Lists.newArrayListWithCapacity(3);
-        cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN,
-          MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
-        if (estimatedBytesToScan != null) {
-          cells.add(
-            PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_BYTES_ESTIMATE,
-              MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimatedBytesToScan)));
-        }
-        if (estimatedRowsToScan != null) {
-          cells.add(
-            PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ROWS_ESTIMATE,
-              MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimatedRowsToScan)));
-        }
-        if (estimateInfoTimestamp != null) {
-          cells.add(
-            PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ESTIMATE_INFO_TS,
-              MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimateInfoTimestamp)));
-        }
-        Collections.sort(cells, CellComparator.getInstance());
-        Tuple tuple = new MultiKeyValueTuple(cells);
-        tuples.add(tuple);
+      final Long estimatedBytes = plan.getEstimatedBytesToScan();
+      final Long estimatedRows = plan.getEstimatedRowsToScan();
+      final Long estimateTs = plan.getEstimateInfoTimestamp();
+      final ResultIterator iterator;
+      if (explainType == ExplainType.ANALYZE) {
+        // The query is only run once the results are asked for, and not when the statement is
+        // compiled to get its metadata
+        iterator = null;
+      } else {
+        List<String> planSteps = plan.getExplainPlan().getPlanSteps();
+        if (explainType == ExplainType.DEFAULT) {
+          planSteps = removeRegionLocations(planSteps);
+        }
+        iterator = new MaterializedResultIterator(
+          toTuples(planSteps, estimatedBytes, estimatedRows, estimateTs));
       }
-      final Long estimatedBytes = estimatedBytesToScan;
-      final Long estimatedRows = estimatedRowsToScan;
-      final Long estimateTs = estimateInfoTimestamp;
-      final ResultIterator iterator = new MaterializedResultIterator(tuples);
       return new QueryPlan() {
 
         @Override
@@ -1048,18 +1061,22 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
 
         @Override
         public ResultIterator iterator() throws SQLException {
-          return iterator;
+          if (iterator != null) {
+            return iterator;
+          }
+          return new MaterializedResultIterator(
+            toTuples(analyze(stmt), estimatedBytes, estimatedRows, estimateTs));
         }
 
         @Override
         public ResultIterator iterator(ParallelScanGrouper scanGrouper) throws SQLException {
-          return iterator;
+          return iterator();
         }
 
         @Override
         public ResultIterator iterator(ParallelScanGrouper scanGrouper, Scan scan)
           throws SQLException {
-          return iterator;
+          return iterator();
         }
 
         @Override
@@ -1178,6 +1195,84 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
         }
       };
     }
+
+    /**
+     * Runs the query on a copy of the connection collecting request level metrics and the slowest
+     * scans by region, and returns its plan steps followed by the statistics of each operator.
+     */
+    private List<String> analyze(PhoenixStatement stmt) throws SQLException {
+      PhoenixConnection connection = stmt.getConnection();
+      Properties props = new Properties(connection.getClientInfo());
+      props.setProperty(PhoenixRuntime.REQUEST_METRIC_ATTRIB, Boolean.TRUE.toString());
+      if (connection.getSlowestScanMetricsCount() <= 0) {
+        props.setProperty(QueryServices.SLOWEST_SCAN_METRICS_COUNT,
+          Integer.toString(EXPLAIN_ANALYZE_SLOWEST_SCAN_METRICS_COUNT));
+      }
+      props.setProperty(QueryServices.SCAN_METRICS_BY_REGION_ENABLED, Boolean.TRUE.toString());
+      try (PhoenixConnection analyzeConnection = new PhoenixConnection(connection, props)) {
+        PhoenixStatement analyzeStmt = new PhoenixStatement(analyzeConnection) {
+          @Override
+          public List<Object> getParameters() {
+            return stmt.getParameters();
+          }
+        };
+        QueryPlan plan =
+          (QueryPlan) getStatement().compilePlan(analyzeStmt, Sequence.ValueOp.VALIDATE_SEQUENCE);
+        plan = analyzeConnection.getQueryServices().getOptimizer().optimize(analyzeStmt, plan);
+        List<String> steps =
+          new ArrayList<>(removeRegionLocations(plan.getExplainPlan().getPlanSteps()));
+        QueryProfile profile = new QueryProfile();
+        analyzeStmt.setQueryProfile(profile);
+        OverAllQueryMetrics overAllQueryMetrics = plan.getContext().getOverallQueryMetrics();
+        overAllQueryMetrics.startQuery();
+        ResultIterator iterator = plan.iterator();
+        try {
+          while (iterator.next() != null) {
+          }
+        } finally {
+          iterator.close();
+          overAllQueryMetrics.endQuery();
+        }
+        steps.addAll(new QueryProfileVisitor(profile).getProfile(plan));
+        return steps;
+      }
+    }
+  }
+
+  private static List<String> removeRegionLocations(List<String> planSteps) {
+    List<String> updatedExplainPlanSteps = new ArrayList<>(planSteps);
+    updatedExplainPlanSteps
+      .removeIf(planStep -> planStep != null && planStep.contains(ExplainTable.REGION_LOCATIONS));
+    return Collections.unmodifiableList(updatedExplainPlanSteps);
+  }
+
+  private static List<Tuple> toTuples(List<String> planSteps, Long estimatedBytesToScan,
+    Long estimatedRowsToScan, Long estimateInfoTimestamp) {
+    List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
+    for (String planStep : planSteps) {
+      byte[] row = PVarchar.INSTANCE.toBytes(planStep);
+      List<Cell> cells = Lists.newArrayListWithCapacity(3);
+      cells.add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN,
+        MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
+      if (estimatedBytesToScan != null) {
+        cells.add(
+          PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_BYTES_ESTIMATE,
+            MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimatedBytesToScan)));
+      }
+      if (estimatedRowsToScan != null) {
+        cells
+          .add(PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ROWS_ESTIMATE,
+            MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimatedRowsToScan)));
+      }
+      if (estimateInfoTimestamp != null) {
+        cells.add(
+          PhoenixKeyValueUtil.newKeyValue(row, EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_ESTIMATE_INFO_TS,
+            MetaDataProtocol.MIN_TABLE_TIMESTAMP, PLong.INSTANCE.toBytes(estimateInfoTimestamp)));
+      }
+      Collections.sort(cells, CellComparator.getInstance());
+      tuples.add(new MultiKeyValueTuple(cells));
+    }
+    return tuples;
   }
 
   private static class ExecutableUpsertStatement extends UpsertStatement
@@ -2553,6 +2648,18 @@ public class PhoenixStatement implements PhoenixMonitoredStatement, SQLCloseable
     return Collections.<Object> emptyList();
   }
 
+  /**
+   * @return the profile the operators of the query run by EXPLAIN ANALYZE record their statistics
+   *         into, or null if the query is not being profiled
+   */
+  public QueryProfile getQueryProfile() {
+    return queryProfile;
+  }
+
+  public void setQueryProfile(QueryProfile queryProfile) {
+    this.queryProfile = queryProfile;
+  }
+
   protected CompilableStatement parseStatement(String sql) throws SQLException {
     long startQueryParsingTime = EnvironmentEdgeManager.currentTimeMillis();
     PhoenixStatementParser parser = null;
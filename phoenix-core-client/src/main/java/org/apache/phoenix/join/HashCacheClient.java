@@ -78,20 +78,23 @@ public class HashCacheClient {
 
   /**
    * Send the results of scanning through the scanner to all region servers for regions of the table
-   * that will use the cache that intersect with the minMaxKeyRange.
+   * that will use the cache that intersect with the minMaxKeyRange. If a Bloom filter builder is
+   * given, the hash key of every cached row is added to it, and the resulting filter is sent along
+   * with the cache unless there were too many keys.
    * @return client-side {@link ServerCache} representing the added hash cache
    * @throws MaxServerCacheSizeExceededException if size of hash cache exceeds max allowed size
    */
   public ServerCache addHashCache(ScanRanges keyRanges, byte[] cacheId, ResultIterator iterator,
     long estimatedSize, List<Expression> onExpressions, boolean singleValueOnly,
     boolean usePersistentCache, PTable cacheUsingTable, Expression keyRangeRhsExpression,
-    List<Expression> keyRangeRhsValues) throws SQLException {
+    List<Expression> keyRangeRhsValues, HashJoinBloomFilter.Builder bloomFilterBuilder)
+    throws SQLException {
     /**
      * Serialize and compress hashCacheTable
      */
     ImmutableBytesWritable ptr = new ImmutableBytesWritable();
     serialize(ptr, iterator, estimatedSize, onExpressions, singleValueOnly, keyRangeRhsExpression,
-      keyRangeRhsValues);
+      keyRangeRhsValues, bloomFilterBuilder);
     ServerCache cache = serverCache.addServerCache(keyRanges, cacheId, ptr,
       ByteUtil.EMPTY_BYTE_ARRAY, new HashCacheFactory(), cacheUsingTable, usePersistentCache, true);
     return cache;
@@ -113,7 +116,8 @@ public class HashCacheClient {
 
   private void serialize(ImmutableBytesWritable ptr, ResultIterator iterator, long estimatedSize,
     List<Expression> onExpressions, boolean singleValueOnly, Expression keyRangeRhsExpression,
-    List<Expression> keyRangeRhsValues) throws SQLException {
+    List<Expression> keyRangeRhsValues, HashJoinBloomFilter.Builder bloomFilterBuilder)
+    throws SQLException {
     long maxSize = serverCache.getConnection().getQueryServices().getProps().getLongBytes(
       QueryServices.MAX_SERVER_CACHE_SIZE_ATTRIB,
       QueryServicesOptions.DEFAULT_MAX_SERVER_CACHE_SIZE);
@@ -146,8 +150,21 @@ public class HashCacheClient {
         if (keyRangeRhsExpression != null) {
           keyRangeRhsValues.add(evaluateKeyExpression(keyRangeRhsExpression, result, tempPtr));
         }
+        if (bloomFilterBuilder != null) {
+          bloomFilterBuilder.add(TupleUtil.getConcatenatedValue(result, onExpressions));
+        }
         nRows++;
       }
+      // Written after the rows, where servers not expecting a Bloom filter stop reading
+      HashJoinBloomFilter bloomFilter =
+        bloomFilterBuilder == null ? null : bloomFilterBuilder.build();
+      if (bloomFilter != null) {
+        bloomFilter.write(out);
+        if (baOut.size() > maxSize) {
+          throw new MaxServerCacheSizeExceededException("Size of hash cache (" + baOut.size()
+            + " bytes) exceeds the maximum allowed size (" + maxSize + " bytes)");
+        }
+      }
       TrustedByteArrayOutputStream sizeOut = new TrustedByteArrayOutputStream(Bytes.SIZEOF_INT);
       DataOutputStream dataOut = new DataOutputStream(sizeOut);
       try {
@@ -86,6 +86,7 @@ public class HashCacheFactory implements ServerCacheFactory {
     private final MemoryChunk memoryChunk;
     private final boolean singleValueOnly;
     private final int clientVersion;
+    private final HashJoinBloomFilter bloomFilter;
 
     private HashCacheImpl(byte[] hashCacheBytes, MemoryChunk memoryChunk, int clientVersion) {
       try {
@@ -138,6 +139,11 @@ public class HashCacheFactory implements ServerCacheFactory {
           offset += resultSize;
         }
         this.hashCache = Collections.unmodifiableMap(hashCacheMap);
+        // Clients sending a Bloom filter of the hash keys write it after the rows
+        this.bloomFilter = offset < hashCacheBytes.length
+          ? HashJoinBloomFilter.read(new DataInputStream(new ByteArrayInputStream(
+            hashCacheByteArray, offset, hashCacheBytes.length - offset)))
+          : null;
       } catch (IOException e) { // Not possible with ByteArrayInputStream
         throw new RuntimeException(e);
       }
@@ -175,5 +181,10 @@ public class HashCacheFactory implements ServerCacheFactory {
     public int getClientVersion() {
       return clientVersion;
     }
+
+    @Override
+    public HashJoinBloomFilter getBloomFilter() {
+      return bloomFilter;
+    }
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.join;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.io.WritableUtils;
+
+import org.apache.phoenix.thirdparty.com.google.common.hash.HashFunction;
+import org.apache.phoenix.thirdparty.com.google.common.hash.Hashing;
+
+/**
+ * Bloom filter of the join keys of a hash join build side. It is sent to the region servers along
+ * with the rows of the hash cache, and is looked up by the scan filter of the probe side through
+ * the hash cache id, see {@link org.apache.phoenix.expression.BloomFilterExpression}.
+ */
+public class HashJoinBloomFilter {
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final long[] bits;
+  private final int numHashFunctions;
+
+  HashJoinBloomFilter(long[] bits, int numHashFunctions) {
+    this.bits = bits;
+    this.numHashFunctions = numHashFunctions;
+  }
+
+  /**
+   * Returns false if the key was definitely not added to the filter.
+   */
+  public boolean mightContain(ImmutableBytesWritable key) {
+    long hash = hash(key);
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    long numBits = (long) bits.length * Long.SIZE;
+    for (int i = 1; i <= numHashFunctions; i++) {
+      int combinedHash = hash1 + i * hash2;
+      if (combinedHash < 0) {
+        combinedHash = ~combinedHash;
+      }
+      long index = combinedHash % numBits;
+      if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long hash(ImmutableBytesWritable key) {
+    return HASH_FUNCTION.hashBytes(key.get(), key.getOffset(), key.getLength()).asLong();
+  }
+
+  /**
+   * Returns the size of the filter in bytes.
+   */
+  public int getSize() {
+    return bits.length * Long.BYTES;
+  }
+
+  public void write(DataOutput output) throws IOException {
+    WritableUtils.writeVInt(output, numHashFunctions);
+    WritableUtils.writeVInt(output, bits.length);
+    for (long word : bits) {
+      output.writeLong(word);
+    }
+  }
+
+  public static HashJoinBloomFilter read(DataInput input) throws IOException {
+    int numHashFunctions = WritableUtils.readVInt(input);
+    long[] bits = new long[WritableUtils.readVInt(input)];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = input.readLong();
+    }
+    return new HashJoinBloomFilter(bits, numHashFunctions);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    HashJoinBloomFilter that = (HashJoinBloomFilter) o;
+    return numHashFunctions == that.numHashFunctions && Arrays.equals(bits, that.bits);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * numHashFunctions + Arrays.hashCode(bits);
+  }
+
+  /**
+   * Collects the hashes of a bounded number of keys and sizes the Bloom filter for them once all
+   * keys have been seen.
+   */
+  public static class Builder {
+    private final int maxKeys;
+    private final double fpp;
+    private long[] hashes = new long[16];
+    private int size;
+    private boolean overflow;
+
+    /**
+     * @param maxKeys maximum number of keys, above which no filter is built
+     * @param fpp     target false positive probability of the filter
+     */
+    public Builder(int maxKeys, double fpp) {
+      this.maxKeys = maxKeys;
+      this.fpp = fpp;
+    }
+
+    /**
+     * Adds a key to the filter, returning false once more than the maximum number of keys has been
+     * added, after which no filter will be built.
+     */
+    public boolean add(ImmutableBytesWritable key) {
+      if (overflow) {
+        return false;
+      }
+      if (size == maxKeys) {
+        overflow = true;
+        hashes = null;
+        return false;
+      }
+      if (size == hashes.length) {
+        hashes = Arrays.copyOf(hashes, Math.min(Math.max(size, 1) * 2, maxKeys));
+      }
+      hashes[size++] = hash(key);
+      return true;
+    }
+
+    /**
+     * Whether more than the maximum number of keys were added, in which case no filter is built.
+     */
+    public boolean isOverflow() {
+      return overflow;
+    }
+
+    /**
+     * Builds a filter over the keys added so far, or returns null if too many keys were added.
+     */
+    public HashJoinBloomFilter build() {
+      if (overflow) {
+        return null;
+      }
+      long numBits = size == 0
+        ? Long.SIZE
+        : Math.max(Long.SIZE, (long) (-size * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+      long[] bits = new long[(int) ((numBits + Long.SIZE - 1) / Long.SIZE)];
+      numBits = (long) bits.length * Long.SIZE;
+      int numHashFunctions =
+        Math.max(1, (int) Math.round((double) numBits / Math.max(size, 1) * Math.log(2)));
+      for (int i = 0; i < size; i++) {
+        int hash1 = (int) hashes[i];
+        int hash2 = (int) (hashes[i] >>> 32);
+        for (int j = 1; j <= numHashFunctions; j++) {
+          int combinedHash = hash1 + j * hash2;
+          if (combinedHash < 0) {
+            combinedHash = ~combinedHash;
+          }
+          long index = combinedHash % numBits;
+          bits[(int) (index >>> 6)] |= 1L << index;
+        }
+      }
+      return new HashJoinBloomFilter(bits, numHashFunctions);
+    }
+  }
+}
@@ -30,6 +30,13 @@ public interface LogWriter {
    */
   void write(RingBufferEvent event) throws SQLException, IOException;
 
+  /**
+   * Called periodically to write the events buffered by the writer for longer than its batch
+   * interval
+   */
+  default void flushExpired() throws SQLException, IOException {
+  }
+
   /**
    * will be called when disruptor is getting shutdown
    */
@@ -19,11 +19,18 @@ package org.apache.phoenix.log;
 
 import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.WorkHandler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.phoenix.monitoring.GlobalClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class QueryLogDetailsWorkHandler implements WorkHandler<RingBufferEvent>, LifecycleAware {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryLogDetailsWorkHandler.class);
 
   private LogWriter logWriter;
+  private final CountDownLatch shutdown = new CountDownLatch(1);
 
   public QueryLogDetailsWorkHandler(Configuration configuration) {
     this.logWriter = new TableLogWriter(configuration);
@@ -31,8 +38,23 @@ public class QueryLogDetailsWorkHandler implements WorkHandler<RingBufferEvent>,
 
   @Override
   public void onEvent(RingBufferEvent ringBufferEvent) throws Exception {
-    logWriter.write(ringBufferEvent);
-    ringBufferEvent.clear();
+    try {
+      logWriter.write(ringBufferEvent);
+    } finally {
+      ringBufferEvent.clear();
+      GlobalClientMetrics.GLOBAL_QUERY_LOG_QUEUE_DEPTH.decrement();
+    }
+  }
+
+  /**
+   * Writes the events buffered by the log writer for longer than its batch interval.
+   */
+  public void flushExpired() {
+    try {
+      logWriter.flushExpired();
+    } catch (Exception e) {
+      LOGGER.warn("Unable to flush query logs", e);
+    }
   }
 
   @Override
@@ -48,6 +70,16 @@ public class QueryLogDetailsWorkHandler implements WorkHandler<RingBufferEvent>,
       }
     } catch (Exception e) {
       // Ignore
+    } finally {
+      shutdown.countDown();
     }
   }
+
+  /**
+   * Waits for the handler to stop processing events once the disruptor is halted.
+   * @return whether the handler stopped in time
+   */
+  public boolean awaitShutdown(long timeout, TimeUnit unit) throws InterruptedException {
+    return shutdown.await(timeout, unit);
+  }
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the large values logged in SYSTEM.LOG, such as the query text and the explain plan.
+ * A compressed value is stored as {@link #COMPRESSED_PREFIX} followed by the Base64 encoding of
+ * its gzipped UTF-8 bytes, and can be read back with {@link #decode(String)}.
+ */
+public final class QueryLogFieldCodec {
+  public static final String COMPRESSED_PREFIX = "gz:";
+
+  private QueryLogFieldCodec() {
+  }
+
+  /**
+   * @param value         value to log
+   * @param minCompressed min length of the values to compress, 0 to never compress
+   * @return the compressed value when it is long enough and compression makes it shorter, or the
+   *         value as is
+   */
+  public static String encode(String value, int minCompressed) throws IOException {
+    if (value == null || minCompressed <= 0 || value.length() < minCompressed) {
+      return value;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() / 4);
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(value.getBytes(StandardCharsets.UTF_8));
+    }
+    String encoded = COMPRESSED_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    return encoded.length() < value.length() ? encoded : value;
+  }
+
+  /**
+   * @param value value read from SYSTEM.LOG
+   * @return the value as logged, decompressed if needed
+   */
+  public static String decode(String value) throws IOException {
+    if (value == null || !value.startsWith(COMPRESSED_PREFIX)) {
+      return value;
+    }
+    byte[] compressed = Base64.getDecoder().decode(value.substring(COMPRESSED_PREFIX.length()));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(compressed.length * 4);
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      byte[] buffer = new byte[4096];
+      int length;
+      while ((length = in.read(buffer)) > 0) {
+        bytes.write(buffer, 0, length);
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.log;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+
+/**
+ * Decides which completed queries get logged in SYSTEM.LOG. When a slow query threshold is set or
+ * failed queries are selected, only queries matching one of these rules are logged, and
+ * {@link QueryServices#LOG_SAMPLE_RATE} is then applied to them. Without any rule, the sample rate
+ * is applied before the query runs, see {@link QueryLogger#getInstance}.
+ */
+public class QueryLogSampler {
+  private final long slowQueryThresholdMs;
+  private final boolean failedQueries;
+
+  public QueryLogSampler(Configuration configuration) {
+    this(
+      configuration.getLong(QueryServices.LOG_SAMPLE_SLOW_QUERY_THRESHOLD_MS,
+        QueryServicesOptions.DEFAULT_LOG_SAMPLE_SLOW_QUERY_THRESHOLD_MS),
+      configuration.getBoolean(QueryServices.LOG_SAMPLE_FAILED_QUERIES,
+        QueryServicesOptions.DEFAULT_LOG_SAMPLE_FAILED_QUERIES));
+  }
+
+  QueryLogSampler(long slowQueryThresholdMs, boolean failedQueries) {
+    this.slowQueryThresholdMs = slowQueryThresholdMs;
+    this.failedQueries = failedQueries;
+  }
+
+  /**
+   * Whether queries are only sampled once completed, according to the slow and failed query rules
+   */
+  public boolean hasRules() {
+    return slowQueryThresholdMs > 0 || failedQueries;
+  }
+
+  /**
+   * @param failed       whether the query failed
+   * @param elapsedMs    time taken by the query
+   * @param samplingRate rate of the queries matching the rules to log
+   * @return true if the query should be logged
+   */
+  public boolean isSampled(boolean failed, long elapsedMs, double samplingRate) {
+    if (hasRules()) {
+      boolean slow = slowQueryThresholdMs > 0 && elapsedMs >= slowQueryThresholdMs;
+      if (!slow && !(failedQueries && failed)) {
+        return false;
+      }
+    }
+    return ThreadLocalRandom.current().nextDouble() < samplingRate;
+  }
+}
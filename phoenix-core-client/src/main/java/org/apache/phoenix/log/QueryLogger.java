@@ -39,14 +39,19 @@ public class QueryLogger {
   private LogLevel logLevel;
   private Builder<QueryLogInfo, Object> queryLogBuilder = ImmutableMap.builder();
   private boolean isSynced;
+  private long startTime;
+  private boolean failed;
+  private double samplingRate;
   private static final Logger LOGGER = LoggerFactory.getLogger(QueryLogger.class);
 
   protected QueryLogger(PhoenixConnection connection) {
     this.queryId = UUID.randomUUID().toString();
     this.queryDisruptor = connection.getQueryServices().getQueryDisruptor();
     logLevel = connection.getLogLevel();
+    samplingRate = connection.getLogSamplingRate();
+    startTime = EnvironmentEdgeManager.currentTimeMillis();
     log(QueryLogInfo.QUERY_ID_I, queryId);
-    log(QueryLogInfo.START_TIME_I, EnvironmentEdgeManager.currentTimeMillis());
+    log(QueryLogInfo.START_TIME_I, startTime);
   }
 
   protected QueryLogger() {
@@ -91,9 +96,14 @@ public class QueryLogger {
   };
 
   public static QueryLogger getInstance(PhoenixConnection connection, boolean isSystemTable) {
+    if (connection.getLogLevel() == LogLevel.OFF || isSystemTable) {
+      return NO_OP_INSTANCE;
+    }
+    // With slow or failed query rules, the sample rate is applied once the query completes
+    QueryLoggerDisruptor queryDisruptor = connection.getQueryServices().getQueryDisruptor();
     if (
-      connection.getLogLevel() == LogLevel.OFF || isSystemTable
-        || ThreadLocalRandom.current().nextDouble() > connection.getLogSamplingRate()
+      (queryDisruptor == null || !queryDisruptor.hasSamplingRules())
+        && ThreadLocalRandom.current().nextDouble() > connection.getLogSamplingRate()
     ) {
       return NO_OP_INSTANCE;
     }
@@ -105,6 +115,9 @@ public class QueryLogger {
    */
   public void log(QueryLogInfo queryLogInfo, Object info) {
     try {
+      if (queryLogInfo == QueryLogInfo.QUERY_STATUS_I) {
+        failed = QueryStatus.FAILED.toString().equals(info);
+      }
       queryLogBuilder.put(queryLogInfo, info);
     } catch (Exception e) {
       LOGGER.warn("Unable to add log info because of " + e.getMessage());
@@ -155,6 +168,14 @@ public class QueryLogger {
 
   public void sync(Map<String, Map<MetricType, Long>> readMetrics,
     Map<MetricType, Long> overAllMetrics) {
+    if (
+      !isSynced && queryDisruptor != null && queryDisruptor.hasSamplingRules()
+        && !queryDisruptor.isSampled(failed, EnvironmentEdgeManager.currentTimeMillis() - startTime,
+          samplingRate)
+    ) {
+      isSynced = true;
+      return;
+    }
     syncBase(readMetrics, overAllMetrics, logLevel);
   }
 
@@ -20,6 +20,7 @@ package org.apache.phoenix.log;
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventTranslator;
 import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
@@ -28,10 +29,13 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.phoenix.monitoring.GlobalClientMetrics;
 import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,12 +44,16 @@ import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFac
 public class QueryLoggerDisruptor implements Closeable {
 
   private volatile Disruptor<RingBufferEvent> disruptor;
+  private final QueryLogDetailsWorkHandler[] workHandlers;
+  private final ScheduledExecutorService flushExecutor;
+  private final QueryLogSampler sampler;
   private boolean isClosed = false;
   // number of elements to create within the ring buffer.
   private static final int RING_BUFFER_SIZE = 8 * 1024;
   private static final Logger LOGGER = LoggerFactory.getLogger(QueryLoggerDisruptor.class);
   private static final String DEFAULT_WAIT_STRATEGY = BlockingWaitStrategy.class.getName();
   private static final int DEFAULT_AUDIT_LOGGER_PROCESS_COUNT = 1;
+  private static final long HANDLER_SHUTDOWN_TIMEOUT_MS = 1000;
 
   public QueryLoggerDisruptor(Configuration configuration) throws SQLException {
     WaitStrategy waitStrategy;
@@ -86,7 +94,7 @@ public class QueryLoggerDisruptor implements Closeable {
       handlerCount = DEFAULT_AUDIT_LOGGER_PROCESS_COUNT;
     }
 
-    QueryLogDetailsWorkHandler[] workHandlers = new QueryLogDetailsWorkHandler[handlerCount];
+    workHandlers = new QueryLogDetailsWorkHandler[handlerCount];
     for (int i = 0; i < handlerCount; i++) {
       workHandlers[i] = new QueryLogDetailsWorkHandler(configuration);
     }
@@ -98,6 +106,17 @@ public class QueryLoggerDisruptor implements Closeable {
       + ", handlerCount=" + handlerCount);
     disruptor.start();
 
+    // Commits the rows buffered by idle handlers
+    long batchIntervalMs = configuration.getLong(QueryServices.LOG_BATCH_INTERVAL_MS,
+      QueryServicesOptions.DEFAULT_LOG_BATCH_INTERVAL_MS);
+    flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("QueryLogger" + "-flusher-%s").setDaemon(true).build());
+    flushExecutor.scheduleWithFixedDelay(() -> {
+      for (QueryLogDetailsWorkHandler workHandler : workHandlers) {
+        workHandler.flushExpired();
+      }
+    }, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    sampler = new QueryLogSampler(configuration);
   }
 
   /**
@@ -108,7 +127,28 @@ public class QueryLoggerDisruptor implements Closeable {
     if (isClosed()) {
       return false;
     }
-    return disruptor.getRingBuffer().tryPublishEvent(translator);
+    // Count the event before publishing it, as a handler may process it right away
+    GlobalClientMetrics.GLOBAL_QUERY_LOG_QUEUE_DEPTH.increment();
+    if (!disruptor.getRingBuffer().tryPublishEvent(translator)) {
+      GlobalClientMetrics.GLOBAL_QUERY_LOG_QUEUE_DEPTH.decrement();
+      GlobalClientMetrics.GLOBAL_QUERY_LOG_DROPPED_EVENTS_COUNTER.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Whether completed queries are sampled according to slow or failed query rules.
+   */
+  public boolean hasSamplingRules() {
+    return sampler.hasRules();
+  }
+
+  /**
+   * Whether a completed query should be logged according to the configured sampling rules.
+   */
+  public boolean isSampled(boolean failed, long elapsedMs, double samplingRate) {
+    return sampler.isSampled(failed, elapsedMs, samplingRate);
   }
 
   public boolean isClosed() {
@@ -119,13 +159,53 @@ public class QueryLoggerDisruptor implements Closeable {
   public void close() throws IOException {
     isClosed = true;
     LOGGER.info("Shutting down QueryLoggerDisruptor..");
+    // The handlers commit their remaining rows when shut down
+    flushExecutor.shutdownNow();
     try {
       // we can wait for 2 seconds, so that backlog can be committed
       disruptor.shutdown(2, TimeUnit.SECONDS);
     } catch (TimeoutException e) {
+      disruptor.halt();
+      discardBacklog();
       throw new IOException(e);
     }
 
   }
 
+  /**
+   * Drops the events the halted handlers left in the ring buffer, so that they are no longer
+   * counted in the queue depth.
+   */
+  private void discardBacklog() throws IOException {
+    try {
+      for (QueryLogDetailsWorkHandler workHandler : workHandlers) {
+        if (!workHandler.awaitShutdown(HANDLER_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          // The handler still processes an event, and counts it down once done
+          LOGGER.warn("Query log handler didn't stop, not discarding the remaining events");
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    // Handlers clear the events they processed
+    RingBuffer<RingBufferEvent> ringBuffer = disruptor.getRingBuffer();
+    long cursor = ringBuffer.getCursor();
+    int discarded = 0;
+    for (long sequence = Math.max(0, cursor - ringBuffer.getBufferSize() + 1); sequence <= cursor;
+      sequence++) {
+      RingBufferEvent event = ringBuffer.get(sequence);
+      if (event.getQueryInfo() != null) {
+        event.clear();
+        discarded++;
+      }
+    }
+    if (discarded > 0) {
+      LOGGER.warn("Discarded " + discarded + " query log events not written during shutdown");
+      GlobalClientMetrics.GLOBAL_QUERY_LOG_QUEUE_DEPTH.update(-discarded);
+      GlobalClientMetrics.GLOBAL_QUERY_LOG_DROPPED_EVENTS_COUNTER.update(discarded);
+    }
+  }
+
 }
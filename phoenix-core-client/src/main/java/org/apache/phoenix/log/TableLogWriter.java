@@ -26,8 +26,11 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.phoenix.monitoring.MetricType;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.util.QueryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +38,8 @@ import org.slf4j.LoggerFactory;
 import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableMap;
 
 /**
- * Writes RingBuffer log event into table
+ * Writes RingBuffer log event into table. Rows are committed in batches, once the batch size is
+ * reached or the oldest uncommitted row is older than the batch interval.
  */
 public class TableLogWriter implements LogWriter {
   private static final Logger LOGGER = LoggerFactory.getLogger(LogWriter.class);
@@ -44,9 +48,21 @@ public class TableLogWriter implements LogWriter {
   private PreparedStatement upsertStatement;
   private Configuration config;
   private Map<MetricType, Integer> metricOrdinals = new HashMap<MetricType, Integer>();
+  private final int batchSize;
+  private final long batchIntervalMs;
+  private final int minCompressedFieldLength;
+  private int numUncommittedRows;
+  private long firstUncommittedRowNanos;
 
   public TableLogWriter(Configuration configuration) {
     this.config = configuration;
+    this.batchSize = configuration.getInt(QueryServices.LOG_BATCH_SIZE,
+      QueryServicesOptions.DEFAULT_LOG_BATCH_SIZE);
+    this.batchIntervalMs = configuration.getLong(QueryServices.LOG_BATCH_INTERVAL_MS,
+      QueryServicesOptions.DEFAULT_LOG_BATCH_INTERVAL_MS);
+    this.minCompressedFieldLength = configuration.getInt(
+      QueryServices.LOG_COMPRESS_MIN_FIELD_LENGTH,
+      QueryServicesOptions.DEFAULT_LOG_COMPRESS_MIN_FIELD_LENGTH);
   }
 
   private PreparedStatement buildUpsertStatement(Connection conn) throws SQLException {
@@ -80,8 +96,18 @@ public class TableLogWriter implements LogWriter {
     return conn.prepareStatement(buf.toString());
   }
 
+  private Object encode(QueryLogInfo info, Object value) throws IOException {
+    if (
+      (info == QueryLogInfo.QUERY_I || info == QueryLogInfo.EXPLAIN_PLAN_I)
+        && value instanceof String
+    ) {
+      return QueryLogFieldCodec.encode((String) value, minCompressedFieldLength);
+    }
+    return value;
+  }
+
   @Override
-  public void write(RingBufferEvent event) throws SQLException, IOException {
+  public synchronized void write(RingBufferEvent event) throws SQLException, IOException {
     if (isClosed()) {
       LOGGER.warn("Unable to commit query log as Log committer is already closed");
       return;
@@ -105,7 +131,7 @@ public class TableLogWriter implements LogWriter {
         queryInfoMap.containsKey(info)
           && info.logLevel.ordinal() <= event.getConnectionLogLevel().ordinal()
       ) {
-        upsertStatement.setObject(info.ordinal() + 1, queryInfoMap.get(info));
+        upsertStatement.setObject(info.ordinal() + 1, encode(info, queryInfoMap.get(info)));
       } else {
         upsertStatement.setObject(info.ordinal() + 1, null);
       }
@@ -134,20 +160,68 @@ public class TableLogWriter implements LogWriter {
             upsertStatement.setObject(metricOrdinals.get(metric), entry.getValue().get(metric));
           }
         }
-        upsertStatement.executeUpdate();
+        upsertRow();
       }
     } else {
-      upsertStatement.executeUpdate();
+      upsertRow();
+    }
+    if (numUncommittedRows > 0 && isBatchExpired()) {
+      commit();
+    }
+  }
+
+  /**
+   * Upserts the row set on the statement, and commits the batch once it holds the batch size of
+   * rows. A query logs a row per table it read from.
+   */
+  private void upsertRow() throws SQLException {
+    upsertStatement.executeUpdate();
+    if (numUncommittedRows++ == 0) {
+      firstUncommittedRowNanos = System.nanoTime();
+    }
+    if (numUncommittedRows >= batchSize) {
+      commit();
+    }
+  }
+
+  private boolean isBatchExpired() {
+    // Wall clock time, as injected environment edges may stop the clock
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstUncommittedRowNanos)
+        >= batchIntervalMs;
+  }
+
+  private void commit() throws SQLException {
+    try {
+      connection.commit();
+    } catch (SQLException e) {
+      // Drop the batch rather than failing all the following commits
+      connection.rollback();
+      throw e;
+    } finally {
+      numUncommittedRows = 0;
+    }
+  }
+
+  @Override
+  public synchronized void flushExpired() throws SQLException {
+    if (!isClosed() && numUncommittedRows > 0 && isBatchExpired()) {
+      commit();
     }
-    connection.commit();
   }
 
   @Override
-  public void close() throws IOException {
+  public synchronized void close() throws IOException {
     if (isClosed()) {
       return;
     }
     isClosed = true;
+    if (connection != null && numUncommittedRows > 0) {
+      try {
+        commit();
+      } catch (SQLException e) {
+        LOGGER.warn("Unable to commit query logs when closing the log writer", e);
+      }
+    }
     try {
       if (connection != null) {
         // It should internally close all the statements
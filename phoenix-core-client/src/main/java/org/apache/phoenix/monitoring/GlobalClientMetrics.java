@@ -67,6 +67,8 @@ import static org.apache.phoenix.monitoring.MetricType.PHOENIX_CONNECTIONS_ATTEM
 import static org.apache.phoenix.monitoring.MetricType.PHOENIX_CONNECTIONS_FAILED_COUNTER;
 import static org.apache.phoenix.monitoring.MetricType.PHOENIX_CONNECTIONS_THROTTLED_COUNTER;
 import static org.apache.phoenix.monitoring.MetricType.QUERY_FAILED_COUNTER;
+import static org.apache.phoenix.monitoring.MetricType.QUERY_LOG_DROPPED_EVENTS_COUNTER;
+import static org.apache.phoenix.monitoring.MetricType.QUERY_LOG_QUEUE_DEPTH;
 import static org.apache.phoenix.monitoring.MetricType.QUERY_SERVICES_COUNTER;
 import static org.apache.phoenix.monitoring.MetricType.QUERY_TIME;
 import static org.apache.phoenix.monitoring.MetricType.QUERY_TIMEOUT_COUNTER;
@@ -169,7 +171,9 @@ public enum GlobalClientMetrics {
   GLOBAL_CLIENT_METADATA_CACHE_REMOVAL_COUNTER(CLIENT_METADATA_CACHE_REMOVAL_COUNTER),
   GLOBAL_CLIENT_METADATA_CACHE_ADD_COUNTER(CLIENT_METADATA_CACHE_ADD_COUNTER),
   GLOBAL_CLIENT_METADATA_CACHE_ESTIMATED_USED_SIZE(CLIENT_METADATA_CACHE_ESTIMATED_USED_SIZE),
-  GLOBAL_CLIENT_STALE_METADATA_CACHE_EXCEPTION_COUNTER(STALE_METADATA_CACHE_EXCEPTION_COUNTER);
+  GLOBAL_CLIENT_STALE_METADATA_CACHE_EXCEPTION_COUNTER(STALE_METADATA_CACHE_EXCEPTION_COUNTER),
+  GLOBAL_QUERY_LOG_DROPPED_EVENTS_COUNTER(QUERY_LOG_DROPPED_EVENTS_COUNTER),
+  GLOBAL_QUERY_LOG_QUEUE_DEPTH(QUERY_LOG_QUEUE_DEPTH);
 
   private static final Logger LOGGER = LoggerFactory.getLogger(GlobalClientMetrics.class);
   private static final boolean isGlobalMetricsEnabled =
@@ -252,6 +252,11 @@ public enum MetricType {
     LogLevel.DEBUG, PLong.INSTANCE),
   STALE_METADATA_CACHE_EXCEPTION_COUNTER("smce",
     "Number of StaleMetadataCacheException encountered.", LogLevel.DEBUG, PLong.INSTANCE),
+  QUERY_LOG_DROPPED_EVENTS_COUNTER("qlde",
+    "Number of query log events dropped because the query log buffer was full", LogLevel.OFF,
+    PLong.INSTANCE),
+  QUERY_LOG_QUEUE_DEPTH("qlqd", "Number of query log events waiting to be written to SYSTEM.LOG",
+    LogLevel.OFF, PLong.INSTANCE),
 
   // hbase metrics
   COUNT_RPC_CALLS("rp", "Number of RPC calls", LogLevel.DEBUG, PLong.INSTANCE,
@@ -315,6 +320,12 @@ public enum MetricType {
     "Number of times active cluster was returned to the caller", LogLevel.DEBUG, PLong.INSTANCE),
   HA_PARALLEL_COUNT_USED_OPERATIONS_STANDBY_CLUSTER("hpusc",
     "Number of times standby cluster was returned to the caller", LogLevel.DEBUG, PLong.INSTANCE),
+  HA_PARALLEL_COUNT_HEDGED_OPERATIONS_ACTIVE_CLUSTER("hphac",
+    "Number of operations sent to the active cluster only after the hedge delay", LogLevel.DEBUG,
+    PLong.INSTANCE),
+  HA_PARALLEL_COUNT_HEDGED_OPERATIONS_STANDBY_CLUSTER("hphsc",
+    "Number of operations sent to the standby cluster only after the hedge delay", LogLevel.DEBUG,
+    PLong.INSTANCE),
   HA_PARALLEL_POOL1_TASK_QUEUE_WAIT_TIME("hpp1tw",
     "Time in milliseconds tasks had to wait in the queue of the thread pool executor",
     LogLevel.DEBUG, PLong.INSTANCE),
@@ -38,6 +38,9 @@ import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.SequenceManager;
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.compile.WhereCompiler;
+import org.apache.phoenix.execute.LateMaterializationPlan;
+import org.apache.phoenix.execute.ScanPlan;
+import org.apache.phoenix.execute.visitor.AvgRowWidthVisitor;
 import org.apache.phoenix.index.IndexMaintainer;
 import org.apache.phoenix.iterate.ParallelIteratorFactory;
 import org.apache.phoenix.jdbc.PhoenixConnection;
@@ -51,7 +54,9 @@ import org.apache.phoenix.parse.HintNode;
 import org.apache.phoenix.parse.HintNode.Hint;
 import org.apache.phoenix.parse.IndexExpressionParseNodeRewriter;
 import org.apache.phoenix.parse.JoinTableNode;
+import org.apache.phoenix.parse.LiteralParseNode;
 import org.apache.phoenix.parse.NamedTableNode;
+import org.apache.phoenix.parse.OrderByNode;
 import org.apache.phoenix.parse.ParseNode;
 import org.apache.phoenix.parse.ParseNodeFactory;
 import org.apache.phoenix.parse.ParseNodeRewriter;
@@ -77,6 +82,7 @@ import org.apache.phoenix.util.CDCUtil;
 import org.apache.phoenix.util.IndexUtil;
 import org.apache.phoenix.util.ParseNodeUtil;
 import org.apache.phoenix.util.ParseNodeUtil.RewriteResult;
+import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.SchemaUtil;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
@@ -128,7 +134,98 @@ public class QueryOptimizer {
     throws SQLException {
     List<QueryPlan> plans =
       getApplicablePlans(dataPlan, statement, targetColumns, parallelIteratorFactory, true);
-    return plans.get(0);
+    QueryPlan plan = plans.get(0);
+    if (targetColumns.isEmpty()) {
+      plan = getLateMaterializationPlan(statement, plan);
+    }
+    return plan;
+  }
+
+  /**
+   * Returns a plan that computes the top rows of an ORDER BY ... LIMIT query over the ORDER BY
+   * expressions and row key only, and then fetches the projected columns of the surviving rows with
+   * a point lookup. The given plan is returned as is if the estimated width of its projected rows
+   * does not make carrying them through the sort worthwhile.
+   */
+  private QueryPlan getLateMaterializationPlan(PhoenixStatement statement, QueryPlan plan)
+    throws SQLException {
+    // Read from the connection so that the feature can be enabled per connection
+    ReadOnlyProps props = statement.getConnection().getQueryServices().getProps();
+    if (
+      !props.getBoolean(QueryServices.LATE_MATERIALIZATION_ENABLED_ATTRIB,
+        QueryServicesOptions.DEFAULT_LATE_MATERIALIZATION_ENABLED)
+        || plan.getClass() != ScanPlan.class
+    ) {
+      return plan;
+    }
+    SelectStatement select = (SelectStatement) plan.getStatement();
+    Integer limit = plan.getLimit();
+    if (
+      limit == null
+        || limit > props.getInt(QueryServices.LATE_MATERIALIZATION_MAX_LIMIT_ATTRIB,
+          QueryServicesOptions.DEFAULT_LATE_MATERIALIZATION_MAX_LIMIT)
+        || select.getOffset() != null
+        || select.getOrderBy().isEmpty() || plan.getOrderBy().getOrderByExpressions().isEmpty()
+        || select.hasSequence() || select.getHint().hasHint(Hint.NO_LATE_MATERIALIZATION)
+        || plan.isDegenerate() || !plan.isApplicable()
+        || plan.getContext().getScanRanges().isPointLookup() || plan.getContext().isUncoveredIndex()
+        || plan.getTableRef().hasDynamicCols()
+    ) {
+      return plan;
+    }
+    PTable table = plan.getTableRef().getTable();
+    if (
+      table.getType() != PTableType.TABLE && table.getType() != PTableType.VIEW
+        && (table.getType() != PTableType.INDEX || table.getIndexType() != IndexType.GLOBAL)
+    ) {
+      return plan;
+    }
+    List<AliasedNode> keySelectNodes =
+      Lists.newArrayListWithExpectedSize(select.getOrderBy().size());
+    for (OrderByNode orderByNode : select.getOrderBy()) {
+      // An ordinal would refer to the original select list
+      if (orderByNode.getNode() instanceof LiteralParseNode) {
+        return plan;
+      }
+      keySelectNodes.add(FACTORY.aliasedNode(null, orderByNode.getNode()));
+    }
+    if (
+      getEstimatedProjectedRowWidth(plan)
+          < props.getInt(QueryServices.LATE_MATERIALIZATION_MIN_ROW_WIDTH_ATTRIB,
+            QueryServicesOptions.DEFAULT_LATE_MATERIALIZATION_MIN_ROW_WIDTH)
+    ) {
+      return plan;
+    }
+    SelectStatement keySelect = FACTORY.select(select, false, keySelectNodes);
+    QueryPlan keyPlan = new QueryCompiler(statement, keySelect,
+      FromCompiler.getResolverForQuery(keySelect, statement.getConnection()),
+      Collections.<PDatum> emptyList(), null, new SequenceManager(statement), true, false, null)
+        .compile();
+    return new LateMaterializationPlan((ScanPlan) plan, keyPlan);
+  }
+
+  /**
+   * Estimates the width of the rows a plan projects from the declared widths of the projected
+   * columns or, if stats are available, from the average width of the scanned rows apportioned to
+   * the projected columns, whichever is larger.
+   */
+  private static double getEstimatedProjectedRowWidth(QueryPlan plan) {
+    List<? extends ColumnProjector> projectors = plan.getProjector().getColumnProjectors();
+    double width = 0;
+    for (ColumnProjector projector : projectors) {
+      PDataType type = projector.getExpression().getDataType();
+      Integer size = type != null && type.isFixedWidth() ? type.getByteSize() : null;
+      if (size == null) {
+        size = projector.getExpression().getMaxLength();
+      }
+      width += size == null ? 0 : size;
+    }
+    Double avgRowWidth = plan.accept(new AvgRowWidthVisitor());
+    int columnCount = plan.getTableRef().getTable().getColumns().size();
+    if (avgRowWidth != null && columnCount > 0) {
+      width = Math.max(width, avgRowWidth * Math.min(projectors.size(), columnCount) / columnCount);
+    }
+    return width;
   }
 
   public List<QueryPlan> getBestPlan(QueryPlan dataPlan, PhoenixStatement statement,
@@ -22,5 +22,9 @@ package org.apache.phoenix.parse;
  */
 public enum ExplainType {
   WITH_REGIONS,
-  DEFAULT
+  DEFAULT,
+  /**
+   * Runs the query and reports the statistics of each of its operators after the plan.
+   */
+  ANALYZE
 }
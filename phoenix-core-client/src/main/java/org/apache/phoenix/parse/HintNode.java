@@ -125,7 +125,21 @@ public class HintNode {
     /**
      * Override the default CDC include scopes.
      */
-    CDC_INCLUDE,;
+    CDC_INCLUDE,
+    /**
+     * Allow region servers to cache the partial results of this aggregate query and serve them
+     * again while the region has not been written to.
+     */
+    CACHE_AGGREGATE_RESULT,
+    /**
+     * Prevents an ORDER BY ... LIMIT query from first finding the surviving row keys and then
+     * fetching the projected columns of only those rows.
+     */
+    NO_LATE_MATERIALIZATION,
+    /**
+     * Have region servers return the projected rows of this query in columnar batches.
+     */
+    COLUMNAR_BATCH,;
   };
 
   private final Map<Hint, String> hints;
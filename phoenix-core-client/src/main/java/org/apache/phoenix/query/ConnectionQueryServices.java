@@ -34,6 +34,7 @@ import org.apache.hadoop.hbase.client.TableDescriptor;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessorclient.InvalidateServerMetadataCacheRequest;
 import org.apache.phoenix.coprocessorclient.MetaDataProtocol.MetaDataMutationResult;
@@ -246,6 +247,11 @@ public interface ConnectionQueryServices extends QueryServices, MetaDataMutated
 
   public GuidePostsInfo getTableStats(GuidePostsKey key) throws SQLException;
 
+  /**
+   * Returns the cache of small query results shared by the connections of these query services.
+   */
+  QueryResultCache getQueryResultCache();
+
   /**
    * Removes cache {@link GuidePostsInfo} for the table with the given name. If no cached guideposts
    * are present, this does nothing.
@@ -144,6 +144,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
@@ -202,6 +203,7 @@ import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.hbase.util.VersionInfo;
 import org.apache.hadoop.hbase.zookeeper.ZKConfig;
 import org.apache.hadoop.ipc.RemoteException;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.compat.hbase.ByteStringer;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessor.generated.ChildLinkMetaDataProtos.ChildLinkMetaDataService;
@@ -330,6 +332,7 @@ import org.apache.phoenix.util.PropertiesUtil;
 import org.apache.phoenix.util.QueryUtil;
 import org.apache.phoenix.util.ReadOnlyProps;
 import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.SequenceUtil;
 import org.apache.phoenix.util.StringUtil;
 import org.apache.phoenix.util.UpgradeUtil;
 import org.slf4j.Logger;
@@ -369,6 +372,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
   private final User user;
   private final ConcurrentHashMap<ImmutableBytesWritable, ConnectionQueryServices> childServices;
   private final GuidePostsCacheWrapper tableStatsCache;
+  private final QueryResultCache queryResultCache;
 
   // Cache the latest meta data here for future connections
   // writes guarded by "latestMetaDataLock"
@@ -387,6 +391,11 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
 
   private final Object connectionCountLock = new Object();
   private final boolean returnSequenceValues;
+  private final float sequencePrefetchWatermark;
+  private final int sequencePrefetchMaxCacheMultiplier;
+  private final long sequencePrefetchTargetIntervalMs;
+  // Only created when sequence prefetching is enabled
+  private ThreadPoolExecutor sequencePrefetchExecutor;
 
   private Connection connection;
   private volatile boolean initialized;
@@ -577,6 +586,24 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
     this.kvBuilder = KeyValueBuilder.get(hbaseVersion);
     this.returnSequenceValues = props.getBoolean(QueryServices.RETURN_SEQUENCE_VALUES_ATTRIB,
       QueryServicesOptions.DEFAULT_RETURN_SEQUENCE_VALUES);
+    this.sequencePrefetchWatermark =
+      props.getFloat(QueryServices.SEQUENCE_PREFETCH_WATERMARK_ATTRIB,
+        QueryServicesOptions.DEFAULT_SEQUENCE_PREFETCH_WATERMARK);
+    this.sequencePrefetchMaxCacheMultiplier =
+      props.getInt(QueryServices.SEQUENCE_PREFETCH_MAX_CACHE_MULTIPLIER_ATTRIB,
+        QueryServicesOptions.DEFAULT_SEQUENCE_PREFETCH_MAX_CACHE_MULTIPLIER);
+    this.sequencePrefetchTargetIntervalMs =
+      props.getLong(QueryServices.SEQUENCE_PREFETCH_TARGET_INTERVAL_MS_ATTRIB,
+        QueryServicesOptions.DEFAULT_SEQUENCE_PREFETCH_TARGET_INTERVAL_MS);
+    if (sequencePrefetchWatermark > 0) {
+      // Prefetches are deduplicated per sequence, so the queue is bounded by their number
+      this.sequencePrefetchExecutor =
+        new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("phoenix-sequence-prefetch-" + threadPoolNumber.getAndIncrement())
+            .build());
+      this.sequencePrefetchExecutor.allowCoreThreadTimeOut(true);
+    }
     this.renewLeaseEnabled = config.getBoolean(RENEW_LEASE_ENABLED, DEFAULT_RENEW_LEASE_ENABLED);
     this.renewLeasePoolSize =
       config.getInt(RENEW_LEASE_THREAD_POOL_SIZE, DEFAULT_RENEW_LEASE_THREAD_POOL_SIZE);
@@ -597,6 +624,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
     this.tableStatsCache =
       GUIDE_POSTS_CACHE_PROVIDER.getGuidePostsCache(props.get(GUIDE_POSTS_CACHE_FACTORY_CLASS,
         QueryServicesOptions.DEFAULT_GUIDE_POSTS_CACHE_FACTORY_CLASS), this, config);
+    this.queryResultCache = new QueryResultCache(props);
 
     this.isAutoUpgradeEnabled =
       config.getBoolean(AUTO_UPGRADE_ENABLED, QueryServicesOptions.DEFAULT_AUTO_UPGRADE_ENABLED);
@@ -825,6 +853,9 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
       }
       SQLException sqlE = null;
       try {
+        if (sequencePrefetchExecutor != null) {
+          sequencePrefetchExecutor.shutdownNow();
+        }
         // Attempt to return any unused sequences.
         if (connection != null) returnAllSequences(this.sequenceMap);
       } catch (SQLException e) {
@@ -6232,6 +6263,96 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
       }
       sequences.add(sequence);
     }
+    boolean latest =
+      op == Sequence.ValueOp.INCREMENT_SEQUENCE && timestamp == HConstants.LATEST_TIMESTAMP;
+    boolean[] allocated = new boolean[sequences.size()];
+    if (latest && allocateCachedSequenceValues(sequenceAllocations, sequences, values, allocated)) {
+      prefetchSequenceValues(sequences);
+      return;
+    }
+    incrementSequenceValues(sequenceAllocations, sequences, timestamp, values, exceptions, op,
+      allocated);
+    if (latest) {
+      prefetchSequenceValues(sequences);
+    }
+  }
+
+  /**
+   * Hands out single values from the blocks cached for the latest timestamp without taking any
+   * lock.
+   * @return true if all sequences got their value, false if some need to go through the locked
+   *         path, which skips the ones marked as allocated
+   */
+  private static boolean allocateCachedSequenceValues(List<SequenceAllocation> sequenceAllocations,
+    List<Sequence> sequences, long[] values, boolean[] allocated) {
+    boolean allAllocated = true;
+    for (int i = 0; i < sequences.size(); i++) {
+      if (SequenceUtil.isBulkAllocation(sequenceAllocations.get(i).getNumAllocations())) {
+        allAllocated = false;
+        continue;
+      }
+      try {
+        values[i] = sequences.get(i).incrementLatestValue();
+        allocated[i] = true;
+      } catch (EmptySequenceCacheException e) {
+        allAllocated = false;
+      }
+    }
+    return allAllocated;
+  }
+
+  private void prefetchSequenceValues(List<Sequence> sequences) {
+    if (sequencePrefetchExecutor == null) {
+      return;
+    }
+    for (Sequence sequence : sequences) {
+      long numToAllocate = sequence.startPrefetch(sequencePrefetchWatermark,
+        sequencePrefetchMaxCacheMultiplier, sequencePrefetchTargetIntervalMs);
+      if (numToAllocate > 0) {
+        try {
+          sequencePrefetchExecutor.execute(() -> prefetchSequenceValue(sequence, numToAllocate));
+        } catch (RejectedExecutionException e) {
+          sequence.abortPrefetch();
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetches the next block of a sequence, which is installed once the cached block runs out
+   */
+  private void prefetchSequenceValue(Sequence sequence, long numToAllocate) {
+    Increment inc = sequence.newIncrement(HConstants.LATEST_TIMESTAMP,
+      Sequence.ValueOp.INCREMENT_SEQUENCE, numToAllocate);
+    Object[] resultObjects = new Object[1];
+    try {
+      Table hTable = this.getTable(SchemaUtil
+        .getPhysicalName(PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_NAME_BYTES, this.getProps())
+        .getName());
+      try {
+        hTable.batch(Collections.singletonList(inc), resultObjects);
+      } finally {
+        hTable.close();
+      }
+      sequence.getLock().lock();
+      try {
+        sequence.setPrefetchedValue((Result) resultObjects[0], numToAllocate);
+      } finally {
+        sequence.getLock().unlock();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      sequence.abortPrefetch();
+    } catch (IOException | SQLException e) {
+      // The next block will be fetched synchronously once the cached one runs out
+      LOGGER.debug("Unable to prefetch values of sequence " + sequence.getKey(), e);
+      sequence.abortPrefetch();
+    }
+  }
+
+  private void incrementSequenceValues(List<SequenceAllocation> sequenceAllocations,
+    List<Sequence> sequences, long timestamp, long[] values, SQLException[] exceptions,
+    Sequence.ValueOp op, boolean[] allocated) throws SQLException {
     try {
       for (Sequence sequence : sequences) {
         sequence.getLock().lock();
@@ -6241,6 +6362,9 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
       List<Sequence> toIncrementList = Lists.newArrayListWithExpectedSize(sequences.size());
       int[] indexes = new int[sequences.size()];
       for (int i = 0; i < sequences.size(); i++) {
+        if (allocated[i]) {
+          continue;
+        }
         Sequence sequence = sequences.get(i);
         try {
           values[i] =
@@ -6616,6 +6740,11 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices
     throw new IllegalStateException("Connection to the cluster is closed");
   }
 
+  @Override
+  public QueryResultCache getQueryResultCache() {
+    return queryResultCache;
+  }
+
   @Override
   public GuidePostsInfo getTableStats(GuidePostsKey key) throws SQLException {
     try {
@@ -47,6 +47,7 @@ import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.Addressing;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessorclient.InvalidateServerMetadataCacheRequest;
 import org.apache.phoenix.coprocessorclient.MetaDataProtocol;
@@ -121,6 +122,7 @@ public class ConnectionlessQueryServicesImpl extends DelegateQueryServices
   private volatile SQLException initializationException;
   private final Map<String, List<HRegionLocation>> tableSplits = Maps.newHashMap();
   private final GuidePostsCacheWrapper guidePostsCache;
+  private final QueryResultCache queryResultCache;
   private final Configuration config;
 
   private User user;
@@ -158,6 +160,7 @@ public class ConnectionlessQueryServicesImpl extends DelegateQueryServices
     this.guidePostsCache =
       GUIDE_POSTS_CACHE_PROVIDER.getGuidePostsCache(props.get(GUIDE_POSTS_CACHE_FACTORY_CLASS,
         QueryServicesOptions.DEFAULT_GUIDE_POSTS_CACHE_FACTORY_CLASS), null, config);
+    this.queryResultCache = new QueryResultCache(props);
   }
 
   private PMetaData newEmptyMetaData() {
@@ -715,6 +718,11 @@ public class ConnectionlessQueryServicesImpl extends DelegateQueryServices
     return userName;
   }
 
+  @Override
+  public QueryResultCache getQueryResultCache() {
+    return queryResultCache;
+  }
+
   @Override
   public GuidePostsInfo getTableStats(GuidePostsKey key) {
     GuidePostsInfo info = null;
@@ -34,6 +34,7 @@ import org.apache.hadoop.hbase.client.TableDescriptor;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.cache.QueryResultCache;
 import org.apache.phoenix.compile.MutationPlan;
 import org.apache.phoenix.coprocessorclient.InvalidateServerMetadataCacheRequest;
 import org.apache.phoenix.coprocessorclient.MetaDataProtocol.MetaDataMutationResult;
@@ -322,6 +323,11 @@ public class DelegateConnectionQueryServices extends DelegateQueryServices
     return getDelegate().getTableStats(key);
   }
 
+  @Override
+  public QueryResultCache getQueryResultCache() {
+    return getDelegate().getQueryResultCache();
+  }
+
   @Override
   public long clearCache() throws SQLException {
     return getDelegate().clearCache();
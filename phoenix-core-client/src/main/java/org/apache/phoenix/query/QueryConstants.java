@@ -241,6 +241,9 @@ public interface QueryConstants {
   byte[] ARRAY_VALUE_COLUMN_FAMILY = RESERVED_COLUMN_FAMILY_BYTES;
   byte[] ARRAY_VALUE_COLUMN_QUALIFIER = QualifierEncodingScheme.FOUR_BYTE_QUALIFIERS.encode(2);
 
+  byte[] COLUMNAR_BATCH_COLUMN_FAMILY = RESERVED_COLUMN_FAMILY_BYTES;
+  byte[] COLUMNAR_BATCH_COLUMN_QUALIFIER = QualifierEncodingScheme.FOUR_BYTE_QUALIFIERS.encode(3);
+
   PName SINGLE_COLUMN_NAME = PNameFactory.newNormalizedName("s");
   PName SINGLE_COLUMN_FAMILY_NAME = PNameFactory.newNormalizedName("s");
   byte[] SINGLE_COLUMN = SINGLE_COLUMN_NAME.getBytes();
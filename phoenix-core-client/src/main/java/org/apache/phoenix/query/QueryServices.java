@@ -124,6 +124,13 @@ public interface QueryServices extends SQLCloseable {
   public static final String GROUPBY_MAX_CACHE_SIZE_ATTRIB = "phoenix.groupby.maxCacheSize";
   public static final String GROUPBY_ESTIMATED_DISTINCT_VALUES_ATTRIB =
     "phoenix.groupby.estimatedDistinctValues";
+  // Whether unordered group by aggregation on the region server groups rows on dictionary codes
+  // of the group by values when grouping by string expressions
+  public static final String GROUPBY_DICTIONARY_ENABLED_ATTRIB =
+    "phoenix.groupby.dictionary.enabled";
+  // Maximum number of distinct values per group by expression before dictionary grouping gives up
+  public static final String GROUPBY_DICTIONARY_MAX_SIZE_ATTRIB =
+    "phoenix.groupby.dictionary.maxSize";
   public static final String AGGREGATE_CHUNK_SIZE_INCREASE_ATTRIB =
     "phoenix.aggregate.chunk_size_increase";
 
@@ -148,6 +155,12 @@ public interface QueryServices extends SQLCloseable {
     "phoenix.coprocessor.maxMetaDataCacheTimeToLiveMs";
   public static final String MAX_SERVER_METADATA_CACHE_SIZE_ATTRIB =
     "phoenix.coprocessor.maxMetaDataCacheSize";
+  public static final String MAX_SERVER_DERIVED_VIEW_CACHE_SIZE_ATTRIB =
+    "phoenix.coprocessor.maxDerivedViewCacheSize";
+  public static final String MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE_ATTRIB =
+    "phoenix.coprocessor.maxAggregateResultCacheSize";
+  public static final String MAX_SERVER_AGGREGATE_RESULT_CACHE_TIME_TO_LIVE_MS_ATTRIB =
+    "phoenix.coprocessor.maxAggregateResultCacheTimeToLiveMs";
   public static final String MAX_CLIENT_METADATA_CACHE_SIZE_ATTRIB =
     "phoenix.client.maxMetaDataCacheSize";
   public static final String HA_GROUP_NAME_ATTRIB = "phoenix.ha.group";
@@ -254,6 +267,12 @@ public interface QueryServices extends SQLCloseable {
   public static final String RUN_UPDATE_STATS_ASYNC = "phoenix.update.stats.command.async";
   public static final String STATS_SERVER_POOL_SIZE = "phoenix.stats.pool.size";
   public static final String COMMIT_STATS_ASYNC = "phoenix.stats.commit.async";
+  // Whether guideposts are maintained incrementally from memstore flushes between major compactions
+  public static final String STATS_COLLECTION_ON_FLUSH_ENABLED =
+    "phoenix.stats.collection.onFlush.enabled";
+  // Upper bound on the guideposts kept for a region when merging the ones collected on flush
+  public static final String STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION =
+    "phoenix.stats.onFlush.maxGuidePostsPerRegion";
   // Maximum size in bytes taken up by cached table stats in the client
   public static final String STATS_MAX_CACHE_SIZE = "phoenix.stats.cache.maxSize";
   // The size of the thread pool used for refreshing cached table stats in stats client cache
@@ -307,6 +326,16 @@ public interface QueryServices extends SQLCloseable {
   public static final String ALLOW_VIEWS_ADD_NEW_CF_BASE_TABLE =
     "phoenix.view.allowNewColumnFamily";
   public static final String RETURN_SEQUENCE_VALUES_ATTRIB = "phoenix.sequence.returnValues";
+  // Fraction of a cached sequence block left when the next block is fetched in the background.
+  // Prefetching is disabled when set to 0.
+  public static final String SEQUENCE_PREFETCH_WATERMARK_ATTRIB =
+    "phoenix.sequence.prefetch.watermark";
+  // Upper bound of the multiple of the sequence cache size a prefetch may request
+  public static final String SEQUENCE_PREFETCH_MAX_CACHE_MULTIPLIER_ATTRIB =
+    "phoenix.sequence.prefetch.maxCacheMultiplier";
+  // Time a cached sequence block should last, used to adapt the size of prefetched blocks
+  public static final String SEQUENCE_PREFETCH_TARGET_INTERVAL_MS_ATTRIB =
+    "phoenix.sequence.prefetch.targetIntervalMs";
   public static final String EXTRA_JDBC_ARGUMENTS_ATTRIB = "phoenix.jdbc.extra.arguments";
 
   public static final String MAX_VERSIONS_TRANSACTIONAL_ATTRIB = "phoenix.transactions.maxVersions";
@@ -369,10 +398,70 @@ public interface QueryServices extends SQLCloseable {
 
   public static final String STATS_COLLECTION_ENABLED = "phoenix.stats.collection.enabled";
   public static final String USE_STATS_FOR_PARALLELIZATION = "phoenix.use.stats.parallelization";
+  // Whether a client thread that is done with its parallel scan task splits off the remaining
+  // key range of a running scan that waits on the server, and starts scanning its upper half
+  public static final String SCAN_WORK_STEALING_ENABLED_ATTRIB =
+    "phoenix.query.scanWorkStealing.enabled";
+  // Maximum number of times the remaining key range of a running scan is split off per query
+  public static final String SCAN_WORK_STEALING_MAX_SPLITS_ATTRIB =
+    "phoenix.query.scanWorkStealing.maxSplits";
+  // Whether hash joins on non row key columns push a Bloom filter of the build side join keys
+  // into the probe side scan filter
+  public static final String HASH_JOIN_BLOOM_FILTER_ENABLED_ATTRIB =
+    "phoenix.query.hashJoin.bloomFilter.enabled";
+  // Maximum number of build side join keys for which a Bloom filter is created
+  public static final String HASH_JOIN_BLOOM_FILTER_MAX_KEYS_ATTRIB =
+    "phoenix.query.hashJoin.bloomFilter.maxKeys";
+  // Target false positive probability of the join key Bloom filter
+  public static final String HASH_JOIN_BLOOM_FILTER_FPP_ATTRIB =
+    "phoenix.query.hashJoin.bloomFilter.fpp";
+  // Whether skip scan filters serialize slots of single keys prefix compressed. Only enable once
+  // all region servers can read the compact format.
+  public static final String SKIP_SCAN_COMPACT_SERIALIZATION_ENABLED_ATTRIB =
+    "phoenix.query.skipScan.compactSerialization.enabled";
+  // Multi-key point lookups with at most this many keys are issued as one scan per region rather
+  // than being split at guideposts. The keys of a region scan are looked up one after the other,
+  // so larger lookups are split to keep their parallelism.
+  public static final String POINT_LOOKUP_MAX_KEYS_PER_REGION_SCAN_ATTRIB =
+    "phoenix.query.pointLookup.maxKeysPerRegionScan";
+
+  // Client side cache of small query results over tables with an UPDATE_CACHE_FREQUENCY
+  public static final String QUERY_RESULT_CACHE_ENABLED_ATTRIB =
+    "phoenix.query.resultCache.enabled";
+  public static final String QUERY_RESULT_CACHE_MAX_ROWS_ATTRIB =
+    "phoenix.query.resultCache.maxRows";
+  public static final String QUERY_RESULT_CACHE_MAX_SIZE_ATTRIB =
+    "phoenix.query.resultCache.maxSize";
+  // Whether ORDER BY ... LIMIT queries over wide rows first find the surviving row keys and then
+  // fetch the projected columns for only those rows
+  public static final String LATE_MATERIALIZATION_ENABLED_ATTRIB =
+    "phoenix.query.lateMaterialization.enabled";
+  // Estimated projected row width in bytes at or above which late materialization is used
+  public static final String LATE_MATERIALIZATION_MIN_ROW_WIDTH_ATTRIB =
+    "phoenix.query.lateMaterialization.minRowWidth";
+  // Largest LIMIT for which the surviving row keys are fetched with a point lookup
+  public static final String LATE_MATERIALIZATION_MAX_LIMIT_ATTRIB =
+    "phoenix.query.lateMaterialization.maxLimit";
+  // Whether region servers pack projected rows of non aggregate scans into columnar batches
+  public static final String COLUMNAR_BATCH_ENABLED_ATTRIB = "phoenix.query.columnarBatch.enabled";
+  // Maximum number of rows packed into a single columnar batch
+  public static final String COLUMNAR_BATCH_MAX_ROWS_ATTRIB = "phoenix.query.columnarBatch.maxRows";
+  // Region server side cap on the number of value bytes packed into a single columnar batch
+  public static final String COLUMNAR_BATCH_MAX_SIZE_ATTRIB = "phoenix.query.columnarBatch.maxSize";
+  // Whether client side hash aggregation is partitioned across the query thread pool
+  public static final String PARALLEL_CLIENT_AGGREGATE_ENABLED_ATTRIB =
+    "phoenix.query.parallelClientAggregate.enabled";
 
   // whether to enable server side RS -> RS calls for upsert select statements
   public static final String ENABLE_SERVER_UPSERT_SELECT =
     "phoenix.client.enable.server.upsert.select";
+  // whether upsert select statements using NEXT VALUE FOR may run on the server, allocating the
+  // sequence values in the region scans, in which case values don't follow the selection order
+  public static final String ENABLE_SERVER_UPSERT_SELECT_SEQUENCES =
+    "phoenix.client.enable.server.upsert.select.sequences";
+  // Number of values a region scan of a server side upsert select reserves at a time
+  public static final String SERVER_UPSERT_SELECT_SEQUENCE_BLOCK_SIZE_ATTRIB =
+    "phoenix.upsert.select.sequence.blockSize";
 
   public static final String PROPERTY_POLICY_PROVIDER_ENABLED =
     "phoenix.property.policy.provider.enabled";
@@ -404,8 +493,21 @@ public interface QueryServices extends SQLCloseable {
   public static final String AUDIT_LOG_LEVEL = "phoenix.audit.log.level";
   public static final String LOG_BUFFER_SIZE = "phoenix.log.buffer.size";
   public static final String LOG_BUFFER_WAIT_STRATEGY = "phoenix.log.wait.strategy";
+  // Rate of the queries to log, applied after the slow and failed query rules
   public static final String LOG_SAMPLE_RATE = "phoenix.log.sample.rate";
   public static final String LOG_HANDLER_COUNT = "phoenix.log.handler.count";
+  // Max number of query log rows buffered by a log handler before they are committed
+  public static final String LOG_BATCH_SIZE = "phoenix.log.batch.size";
+  // Max time in milliseconds query log rows are buffered by a log handler before being committed
+  public static final String LOG_BATCH_INTERVAL_MS = "phoenix.log.batch.interval.ms";
+  // Min length of the query and explain plan compressed in SYSTEM.LOG, 0 to never compress them
+  public static final String LOG_COMPRESS_MIN_FIELD_LENGTH =
+    "phoenix.log.compress.min.field.length";
+  // Only log queries taking at least this long, or failing when LOG_SAMPLE_FAILED_QUERIES is set
+  public static final String LOG_SAMPLE_SLOW_QUERY_THRESHOLD_MS =
+    "phoenix.log.sample.slow.query.threshold.ms";
+  // Only log failed queries, or slow ones when LOG_SAMPLE_SLOW_QUERY_THRESHOLD_MS is set
+  public static final String LOG_SAMPLE_FAILED_QUERIES = "phoenix.log.sample.failed.queries";
 
   public static final String SYSTEM_CATALOG_SPLITTABLE = "phoenix.system.catalog.splittable";
 
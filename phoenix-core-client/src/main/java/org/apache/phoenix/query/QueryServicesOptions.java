@@ -231,8 +231,14 @@ public class QueryServicesOptions {
   public static final long DEFAULT_MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS = 60000 * 30; // 30
                                                                                            // mins
   public static final long DEFAULT_MAX_SERVER_METADATA_CACHE_SIZE = 1024L * 1024L * 20L; // 20 Mb
+  public static final long DEFAULT_MAX_SERVER_DERIVED_VIEW_CACHE_SIZE = 1024L * 1024L * 10L; // 10
+                                                                                             // Mb
+  public static final long DEFAULT_MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE = 1024L * 1024L * 64L;
+  public static final long DEFAULT_MAX_SERVER_AGGREGATE_RESULT_CACHE_TIME_TO_LIVE_MS = 60000 * 10;
   public static final long DEFAULT_MAX_CLIENT_METADATA_CACHE_SIZE = 1024L * 1024L * 10L; // 10 Mb
   public static final int DEFAULT_GROUPBY_ESTIMATED_DISTINCT_VALUES = 1000;
+  public static final boolean DEFAULT_GROUPBY_DICTIONARY_ENABLED = true;
+  public static final int DEFAULT_GROUPBY_DICTIONARY_MAX_SIZE = 4096;
   public static final int DEFAULT_CLOCK_SKEW_INTERVAL = 2000;
   public static final boolean DEFAULT_INDEX_FAILURE_HANDLING_REBUILD = true; // auto rebuild on
   public static final boolean DEFAULT_INDEX_FAILURE_BLOCK_WRITE = false;
@@ -298,6 +304,8 @@ public class QueryServicesOptions {
   public static final boolean DEFAULT_STATS_USE_CURRENT_TIME = true;
   public static final boolean DEFAULT_RUN_UPDATE_STATS_ASYNC = true;
   public static final boolean DEFAULT_COMMIT_STATS_ASYNC = true;
+  public static final boolean DEFAULT_STATS_COLLECTION_ON_FLUSH_ENABLED = false;
+  public static final int DEFAULT_STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION = 256;
   public static final int DEFAULT_STATS_POOL_SIZE = 4;
   // Maximum size (in bytes) that cached table stats should take upm
   public static final long DEFAULT_STATS_MAX_CACHE_SIZE = 256 * 1024 * 1024;
@@ -361,6 +369,9 @@ public class QueryServicesOptions {
   public static final int DEFAULT_MAX_VERSIONS_TRANSACTIONAL = Integer.MAX_VALUE;
 
   public static final boolean DEFAULT_RETURN_SEQUENCE_VALUES = false;
+  public static final float DEFAULT_SEQUENCE_PREFETCH_WATERMARK = 0f;
+  public static final int DEFAULT_SEQUENCE_PREFETCH_MAX_CACHE_MULTIPLIER = 16;
+  public static final long DEFAULT_SEQUENCE_PREFETCH_TARGET_INTERVAL_MS = 1000;
   public static final String DEFAULT_EXTRA_JDBC_ARGUMENTS = "";
 
   public static final long DEFAULT_INDEX_POPULATION_SLEEP_TIME = 5000;
@@ -404,6 +415,23 @@ public class QueryServicesOptions {
   public static final int DEFAULT_CONNECTION_ACTIVITY_LOGGING_INTERVAL_IN_MINS = 15;
   public static final boolean DEFAULT_STATS_COLLECTION_ENABLED = true;
   public static final boolean DEFAULT_USE_STATS_FOR_PARALLELIZATION = true;
+  public static final boolean DEFAULT_SCAN_WORK_STEALING_ENABLED = true;
+  public static final int DEFAULT_SCAN_WORK_STEALING_MAX_SPLITS = 16;
+  public static final boolean DEFAULT_HASH_JOIN_BLOOM_FILTER_ENABLED = false;
+  public static final int DEFAULT_HASH_JOIN_BLOOM_FILTER_MAX_KEYS = 100000;
+  public static final float DEFAULT_HASH_JOIN_BLOOM_FILTER_FPP = 0.01f;
+  public static final boolean DEFAULT_SKIP_SCAN_COMPACT_SERIALIZATION_ENABLED = false;
+  public static final int DEFAULT_POINT_LOOKUP_MAX_KEYS_PER_REGION_SCAN = 100;
+  public static final boolean DEFAULT_QUERY_RESULT_CACHE_ENABLED = false;
+  public static final int DEFAULT_QUERY_RESULT_CACHE_MAX_ROWS = 1000;
+  public static final long DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE = 1024L * 1024L * 10L; // 10 Mb
+  public static final boolean DEFAULT_LATE_MATERIALIZATION_ENABLED = true;
+  public static final int DEFAULT_LATE_MATERIALIZATION_MIN_ROW_WIDTH = 8 * 1024; // 8 Kb
+  public static final int DEFAULT_LATE_MATERIALIZATION_MAX_LIMIT = 1000;
+  public static final boolean DEFAULT_COLUMNAR_BATCH_ENABLED = false;
+  public static final int DEFAULT_COLUMNAR_BATCH_MAX_ROWS = 1000;
+  public static final int DEFAULT_COLUMNAR_BATCH_MAX_SIZE = 1024 * 1024; // 1 Mb
+  public static final boolean DEFAULT_PARALLEL_CLIENT_AGGREGATE_ENABLED = false;
 
   // Security defaults
   public static final boolean DEFAULT_PHOENIX_ACLS_ENABLED = false;
@@ -457,6 +485,8 @@ public class QueryServicesOptions {
                                                                                   // encoded
   // RS -> RS calls for upsert select statements are disabled by default
   public static final boolean DEFAULT_ENABLE_SERVER_UPSERT_SELECT = false;
+  public static final boolean DEFAULT_ENABLE_SERVER_UPSERT_SELECT_SEQUENCES = false;
+  public static final long DEFAULT_SERVER_UPSERT_SELECT_SEQUENCE_BLOCK_SIZE = 1000;
 
   // By default generally allow server trigger mutations
   public static final boolean DEFAULT_ENABLE_SERVER_SIDE_DELETE_MUTATIONS = true;
@@ -467,6 +497,11 @@ public class QueryServicesOptions {
   public static final String DEFAULT_LOGGING_LEVEL = LogLevel.OFF.name();
   public static final String DEFAULT_AUDIT_LOGGING_LEVEL = LogLevel.OFF.name();
   public static final String DEFAULT_LOG_SAMPLE_RATE = "1.0";
+  public static final int DEFAULT_LOG_BATCH_SIZE = 100;
+  public static final long DEFAULT_LOG_BATCH_INTERVAL_MS = 1000;
+  public static final int DEFAULT_LOG_COMPRESS_MIN_FIELD_LENGTH = 0;
+  public static final long DEFAULT_LOG_SAMPLE_SLOW_QUERY_THRESHOLD_MS = 0;
+  public static final boolean DEFAULT_LOG_SAMPLE_FAILED_QUERIES = false;
   public static final int DEFAULT_LOG_SALT_BUCKETS = 32;
   public static final int DEFAULT_SALT_BUCKETS = 0;
 
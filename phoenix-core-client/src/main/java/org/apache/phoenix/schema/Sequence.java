@@ -32,6 +32,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparatorImpl;
@@ -52,6 +54,7 @@ import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.schema.types.PInteger;
 import org.apache.phoenix.schema.types.PLong;
 import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
 import org.apache.phoenix.util.PhoenixKeyValueUtil;
 import org.apache.phoenix.util.SequenceUtil;
 
@@ -109,9 +112,19 @@ public class Sequence {
   private static final EmptySequenceCacheException EMPTY_SEQUENCE_CACHE_EXCEPTION =
     new EmptySequenceCacheException();
 
+  private static final AtomicLongFieldUpdater<SequenceValue> CURRENT_VALUE_UPDATER =
+    AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "currentValue");
+
   private final SequenceKey key;
   private final ReentrantLock lock;
   private List<SequenceValue> values;
+  // Most recent value at the latest timestamp, published for lock free allocation
+  private volatile SequenceValue latestValue;
+  // Block fetched in the background, installed once the latest value is exhausted
+  private volatile SequenceValue prefetchedValue;
+  private final AtomicBoolean prefetching = new AtomicBoolean();
+  private volatile long latestValueInstalledTime;
+  private volatile int cacheMultiplier = 1;
 
   public Sequence(SequenceKey key) {
     if (key == null) throw new NullPointerException();
@@ -139,6 +152,9 @@ public class Sequence {
         values.add(i + 1, value);
       }
     }
+    SequenceValue latest = values.get(values.size() - 1);
+    latestValue = latest.isDeleted ? null : latest;
+    latestValueInstalledTime = EnvironmentEdgeManager.currentTimeMillis();
   }
 
   private SequenceValue findSequenceValue(long timestamp) {
@@ -171,28 +187,39 @@ public class Sequence {
       }
     }
 
-    long returnValue = value.currentValue;
-    if (op == ValueOp.INCREMENT_SEQUENCE) {
+    if (op != ValueOp.INCREMENT_SEQUENCE) {
+      return value.currentValue;
+    }
+    while (true) {
+      long returnValue = value.currentValue;
+      // Values may have been handed out by incrementLatestValue() since the cache was checked
+      if (isSequenceCacheExhausted(returnValue, numToAllocate, value)) {
+        throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+      }
+      long newValue = returnValue;
       boolean overflowOrUnderflow = false;
       // advance currentValue while checking for overflow
       try {
         // advance by numToAllocate * the increment amount
-        value.currentValue =
-          LongMath.checkedAdd(value.currentValue, numToAllocate * value.incrementBy);
+        newValue = LongMath.checkedAdd(returnValue, numToAllocate * value.incrementBy);
       } catch (ArithmeticException e) {
         overflowOrUnderflow = true;
       }
-
+      if (
+        !overflowOrUnderflow && !CURRENT_VALUE_UPDATER.compareAndSet(value, returnValue, newValue)
+      ) {
+        continue;
+      }
       // set the limitReached flag (which will be checked the next time increment is called)
       // if overflow or limit was reached
       if (
-        overflowOrUnderflow || (increasingSeq && value.currentValue > value.maxValue)
-          || (!increasingSeq && value.currentValue < value.minValue)
+        overflowOrUnderflow || (increasingSeq && newValue > value.maxValue)
+          || (!increasingSeq && newValue < value.minValue)
       ) {
         value.limitReached = true;
       }
+      return returnValue;
     }
-    return returnValue;
   }
 
   public long incrementValue(long timestamp, ValueOp op, long numToAllocate) throws SQLException {
@@ -205,11 +232,126 @@ public class Sequence {
       if (op == ValueOp.VALIDATE_SEQUENCE) {
         return value.currentValue;
       }
+      if (timestamp == HConstants.LATEST_TIMESTAMP && installPrefetchedValue()) {
+        return incrementValue(timestamp, op, numToAllocate);
+      }
       throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
     }
     return increment(value, op, numToAllocate);
   }
 
+  /**
+   * Hands out the next value of the block cached at the latest timestamp without taking the lock.
+   * Anything other than a single value from a block with values left (an exhausted block, a reached
+   * limit or an overflow) is left to the locked path.
+   * @throws EmptySequenceCacheException if the caller needs to go through the locked path
+   */
+  public long incrementLatestValue() throws EmptySequenceCacheException {
+    SequenceValue value = latestValue;
+    if (value == null || value.isUnitialized()) {
+      throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+    }
+    while (true) {
+      if (value.limitReached) {
+        throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+      }
+      long returnValue = value.currentValue;
+      if (returnValue == value.nextValue) {
+        throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+      }
+      long newValue;
+      try {
+        newValue = LongMath.checkedAdd(returnValue, value.incrementBy);
+      } catch (ArithmeticException e) {
+        throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+      }
+      if (value.incrementBy > 0 ? newValue > value.maxValue : newValue < value.minValue) {
+        throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+      }
+      if (CURRENT_VALUE_UPDATER.compareAndSet(value, returnValue, newValue)) {
+        return returnValue;
+      }
+    }
+  }
+
+  /**
+   * Decides whether the block following the one cached at the latest timestamp should be fetched in
+   * the background, which is the case once no more than watermark of the block is left. The number
+   * of values requested follows the observed allocation rate: when the latest block reached the
+   * watermark in less than half of targetIntervalMs the multiplier of the cache size is doubled (up
+   * to maxCacheMultiplier) and when it took more than twice as long it is halved. A caller getting
+   * a positive result owns the prefetch and must complete it with either
+   * {@link #setPrefetchedValue(Result, long)} or {@link #abortPrefetch()}.
+   * @return the number of values to allocate for the prefetch, or 0 if none should be started
+   */
+  public long startPrefetch(double watermark, int maxCacheMultiplier, long targetIntervalMs) {
+    SequenceValue value = latestValue;
+    // Cycling sequences don't support bulk allocation and restart from their min/max value
+    if (value == null || value.isUnitialized() || value.cycle || value.limitReached) {
+      return 0;
+    }
+    long remaining = (value.nextValue - value.currentValue) / value.incrementBy;
+    if (remaining > value.blockSize * watermark || prefetchedValue != null) {
+      return 0;
+    }
+    if (!prefetching.compareAndSet(false, true)) {
+      return 0;
+    }
+    long elapsed = EnvironmentEdgeManager.currentTimeMillis() - latestValueInstalledTime;
+    int multiplier = cacheMultiplier;
+    if (elapsed < targetIntervalMs / 2) {
+      multiplier = Math.min(maxCacheMultiplier, multiplier * 2);
+    } else if (elapsed > targetIntervalMs * 2) {
+      multiplier = Math.max(1, multiplier / 2);
+    }
+    cacheMultiplier = multiplier;
+    // A single slot makes the server hand out a block of the configured cache size
+    return multiplier == 1
+      ? SequenceUtil.DEFAULT_NUM_SLOTS_TO_ALLOCATE
+      : multiplier * value.cacheSize;
+  }
+
+  /**
+   * Stores the block returned by a prefetch started with {@link #startPrefetch(double, int, long)}.
+   * Must be called while holding the lock.
+   * @throws SQLException if the sequence could not be incremented, in which case the prefetch is
+   *                      aborted
+   */
+  public void setPrefetchedValue(Result result, long numToAllocate) throws SQLException {
+    try {
+      throwIfIncrementFailed(result);
+    } catch (SQLException e) {
+      abortPrefetch();
+      throw e;
+    }
+    prefetchedValue = new SequenceValue(result, ValueOp.INCREMENT_SEQUENCE, numToAllocate);
+    prefetching.set(false);
+  }
+
+  /**
+   * Gives up on a prefetch started with {@link #startPrefetch(double, int, long)}, going back to
+   * blocks of the configured cache size.
+   */
+  public void abortPrefetch() {
+    cacheMultiplier = 1;
+    prefetching.set(false);
+  }
+
+  private boolean installPrefetchedValue() {
+    SequenceValue value = prefetchedValue;
+    if (value == null) {
+      return false;
+    }
+    prefetchedValue = null;
+    // A block fetched synchronously while the prefetch was in flight supersedes it
+    SequenceValue latest = latestValue;
+    if (latest != null && value.timestamp < latest.timestamp) {
+      return false;
+    }
+    insertSequenceValue(value);
+    return true;
+  }
+
   /**
    * This method first checks whether value.currentValue = value.nextValue, this check is what
    * determines whether we need to refresh the cache when evaluating NEXT VALUE FOR. Once current
@@ -228,6 +370,29 @@ public class Sequence {
       && isSequenceCacheExhaustedForBulkAllocation(numToAllocate, value));
   }
 
+  /**
+   * Same check as {@link #isSequenceCacheExhausted(long, SequenceValue)} against the given current
+   * value, leaving out the validation of bulk allocations which has been done by then.
+   */
+  private static boolean isSequenceCacheExhausted(final long currentValue, final long numToAllocate,
+    final SequenceValue value) {
+    if (currentValue == value.nextValue) {
+      return true;
+    }
+    if (!SequenceUtil.isBulkAllocation(numToAllocate)) {
+      return false;
+    }
+    long targetSequenceValue;
+    try {
+      targetSequenceValue = LongMath.checkedAdd(currentValue, numToAllocate * value.incrementBy);
+    } catch (ArithmeticException e) {
+      return false;
+    }
+    return value.incrementBy > 0
+      ? targetSequenceValue > value.nextValue
+      : targetSequenceValue < value.nextValue;
+  }
+
   /**
    * This method checks whether there are sufficient values in the SequenceValue cached on the
    * client to allocate the requested number of slots. It handles decreasing and increasing
@@ -290,16 +455,26 @@ public class Sequence {
     if (values == null) {
       return Collections.emptyList();
     }
-    List<Append> appends = Lists.newArrayListWithExpectedSize(values.size());
+    List<Append> appends = Lists.newArrayListWithExpectedSize(values.size() + 1);
     for (SequenceValue value : values) {
       if (value.isInitialized() && value.currentValue != value.nextValue) {
         appends.add(newReturn(value));
       }
     }
+    if (prefetchedValue != null) {
+      appends.add(newReturn(prefetchedValue));
+      prefetchedValue = null;
+    }
     return appends;
   }
 
   public Append newReturn(long timestamp) throws EmptySequenceCacheException {
+    // The server only takes back the block it handed out last, which is the prefetched one
+    if (timestamp == HConstants.LATEST_TIMESTAMP && prefetchedValue != null) {
+      Append append = newReturn(prefetchedValue);
+      prefetchedValue = null;
+      return append;
+    }
     SequenceValue value = findSequenceValue(timestamp);
     if (value == null) {
       throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
@@ -346,6 +521,26 @@ public class Sequence {
   }
 
   public long incrementValue(Result result, ValueOp op, long numToAllocate) throws SQLException {
+    throwIfIncrementFailed(result);
+    // If we found the sequence, we update our cache with the new value
+    SequenceValue value = new SequenceValue(result, op, numToAllocate);
+    // Take our values before the block becomes visible to incrementLatestValue()
+    long returnValue = increment(value, op, numToAllocate);
+    insertSequenceValue(value);
+    return returnValue;
+  }
+
+  /**
+   * Caches the block of values reserved by an increment of numToAllocate values without handing any
+   * of them out, leaving them to {@link #incrementLatestValue()} and
+   * {@link #incrementValue(long, ValueOp, long)}.
+   */
+  public void cacheValues(Result result, long numToAllocate) throws SQLException {
+    throwIfIncrementFailed(result);
+    insertSequenceValue(new SequenceValue(result, ValueOp.INCREMENT_SEQUENCE, numToAllocate));
+  }
+
+  private void throwIfIncrementFailed(Result result) throws SQLException {
     // In this case, we don't definitely know the timestamp of the deleted sequence,
     // but we know anything older is likely deleted. Worse case, we remove a sequence
     // from the cache that we shouldn't have which will cause a gap in sequence values.
@@ -364,10 +559,6 @@ public class Sequence {
       throw new SQLExceptionInfo.Builder(code).setSchemaName(key.getSchemaName())
         .setTableName(key.getSequenceName()).build().buildException();
     }
-    // If we found the sequence, we update our cache with the new value
-    SequenceValue value = new SequenceValue(result, op, numToAllocate);
-    insertSequenceValue(value);
-    return increment(value, op, numToAllocate);
   }
 
   public Increment newIncrement(long timestamp, Sequence.ValueOp action, long numToAllocate) {
@@ -492,14 +683,17 @@ public class Sequence {
     public final long incrementBy;
     public final long timestamp;
     public final long cacheSize;
+    // Number of values handed out by the server for this value
+    public final long blockSize;
 
-    public long currentValue;
+    // Advanced with CURRENT_VALUE_UPDATER as it is also updated outside of the lock
+    public volatile long currentValue;
     public long nextValue;
     public long minValue;
     public long maxValue;
     public boolean cycle;
     public boolean isDeleted;
-    public boolean limitReached;
+    public volatile boolean limitReached;
 
     public SequenceValue(long timestamp, long minValue, long maxValue, boolean cycle) {
       this(timestamp, false);
@@ -514,6 +708,7 @@ public class Sequence {
       this.incrementBy = 0;
       this.limitReached = false;
       this.cacheSize = 0;
+      this.blockSize = 0;
     }
 
     public boolean isInitialized() {
@@ -545,14 +740,14 @@ public class Sequence {
       this.cycle = (Boolean) PBoolean.INSTANCE.toObject(cycleKV.getValueArray(),
         cycleKV.getValueOffset(), cycleKV.getValueLength());
       this.limitReached = false;
+      // We can't just take the max of numToAllocate and cacheSize
+      // We need to handle a valid edgecase where a client requests bulk allocation of
+      // a number of slots that are less than cache size of the sequence
+      this.blockSize = SequenceUtil.isBulkAllocation(numToAllocate) ? numToAllocate : cacheSize;
       currentValue = nextValue;
 
       if (op != ValueOp.VALIDATE_SEQUENCE) {
-        // We can't just take the max of numToAllocate and cacheSize
-        // We need to handle a valid edgecase where a client requests bulk allocation of
-        // a number of slots that are less than cache size of the sequence
-        currentValue -=
-          incrementBy * (SequenceUtil.isBulkAllocation(numToAllocate) ? numToAllocate : cacheSize);
+        currentValue -= incrementBy * blockSize;
       }
     }
   }
@@ -624,6 +819,7 @@ public class Sequence {
       statusKV.getValueOffset(), SortOrder.getDefault());
     if (statusCode == 0) { // Success - add sequence value and return timestamp
       SequenceValue value = new SequenceValue(timestamp, minValue, maxValue, cycle);
+      prefetchedValue = null;
       insertSequenceValue(value);
       return timestamp;
     }
@@ -657,6 +853,7 @@ public class Sequence {
     SQLExceptionCode code = statusCode == 0 ? null : SQLExceptionCode.fromErrorCode(statusCode);
     if (code == null) {
       // Insert delete marker so that point-in-time sequences work
+      prefetchedValue = null;
       insertSequenceValue(new SequenceValue(timestamp, true));
       return timestamp;
     }
@@ -17,13 +17,16 @@
  */
 package org.apache.phoenix.schema.stats;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.RegionInfo;
 import org.apache.phoenix.query.QueryServices;
@@ -42,6 +45,9 @@ public class StatisticsCollectionRunTracker {
     Collections.newSetFromMap(new ConcurrentHashMap<ColumnFamilyRegionInfo, Boolean>());
   private final Set<RegionInfo> compactingRegions =
     Collections.newSetFromMap(new ConcurrentHashMap<RegionInfo, Boolean>());
+  // Tasks queued behind the one running for a region and column family
+  private final ConcurrentHashMap<ColumnFamilyRegionInfo, Queue<Runnable>> serialTasks =
+    new ConcurrentHashMap<>();
   private final ExecutorService executor;
 
   // Constants added for testing purposes
@@ -121,6 +127,50 @@ public class StatisticsCollectionRunTracker {
     return executor.submit(c);
   }
 
+  /**
+   * Enqueues the task for execution once the tasks enqueued before it for the same region and
+   * column family are done, e.g. merges of flushed statistics that read and rewrite the same
+   * guideposts. Tasks for other regions or column families still run in parallel.
+   * @param <T>
+   * @param regionInfo for the region the task updates the statistics of
+   * @param family     column family the task updates the statistics of
+   * @param c          task to execute
+   */
+  public <T> Future<T> runSerialTask(RegionInfo regionInfo, byte[] family, Callable<T> c) {
+    final ColumnFamilyRegionInfo key =
+      new ColumnFamilyRegionInfo(regionInfo, Collections.singleton(family));
+    FutureTask<T> task = new FutureTask<T>(c);
+    boolean[] isFirst = new boolean[1];
+    serialTasks.compute(key, (k, tasks) -> {
+      if (tasks == null) {
+        tasks = new ArrayDeque<Runnable>();
+        isFirst[0] = true;
+      }
+      tasks.add(task);
+      return tasks;
+    });
+    if (isFirst[0]) {
+      // Nothing runs for the region and column family yet, so run the queued tasks one at a time
+      // until none is left
+      executor.submit(() -> {
+        for (Runnable next = pollSerialTask(key); next != null; next = pollSerialTask(key)) {
+          next.run();
+        }
+      });
+    }
+    return task;
+  }
+
+  private Runnable pollSerialTask(ColumnFamilyRegionInfo key) {
+    Runnable[] next = new Runnable[1];
+    // Drop the queue once it is empty, so that the next task enqueued runs right away
+    serialTasks.computeIfPresent(key, (k, tasks) -> {
+      next[0] = tasks.poll();
+      return next[0] == null ? null : tasks;
+    });
+    return next[0];
+  }
+
   private static class ColumnFamilyRegionInfo {
     private final RegionInfo regionInfo;
     private final Set<byte[]> familySet;
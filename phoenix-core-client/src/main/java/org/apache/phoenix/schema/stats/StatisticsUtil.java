@@ -21,9 +21,15 @@ import static org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverCons
 import static org.apache.phoenix.schema.types.PDataType.TRUE_BYTES;
 import static org.apache.phoenix.util.SchemaUtil.getVarCharLength;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.HConstants;
@@ -45,6 +51,7 @@ import org.apache.phoenix.schema.types.PInteger;
 import org.apache.phoenix.schema.types.PLong;
 import org.apache.phoenix.util.ByteUtil;
 import org.apache.phoenix.util.MetaDataUtil;
+import org.apache.phoenix.util.PrefixByteDecoder;
 import org.apache.phoenix.util.SchemaUtil;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.Sets;
@@ -156,8 +163,25 @@ public class StatisticsUtil {
     ImmutableBytesWritable ptr = new ImmutableBytesWritable();
     ptr.set(key.getColumnFamily());
     byte[] tableNameBytes = key.getPhysicalName();
-    byte[] startKey = getStartKey(tableNameBytes, ptr);
-    byte[] endKey = getEndKey(tableNameBytes, ptr);
+    return readStatistics(statsHTable, tableNameBytes, getStartKey(tableNameBytes, ptr),
+      getEndKey(tableNameBytes, ptr), clientTimeStamp);
+  }
+
+  /**
+   * Reads the guideposts of a single column family that fall within the given region boundaries,
+   * i.e. the ones written for that region by the last statistics collection.
+   */
+  public static GuidePostsInfo readStatistics(Table statsHTable, byte[] tableNameBytes,
+    ImmutableBytesWritable cf, byte[] regionStartKey, byte[] regionEndKey, long clientTimeStamp)
+    throws IOException {
+    return readStatistics(statsHTable, tableNameBytes,
+      getAdjustedKey(regionStartKey, tableNameBytes, cf, false),
+      getAdjustedKey(regionEndKey, tableNameBytes, cf, true), clientTimeStamp);
+  }
+
+  private static GuidePostsInfo readStatistics(Table statsHTable, byte[] tableNameBytes,
+    byte[] startKey, byte[] endKey, long clientTimeStamp) throws IOException {
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
     Scan s = MetaDataUtil.newTableRowsScan(startKey, endKey, MetaDataProtocol.MIN_TABLE_TIMESTAMP,
       clientTimeStamp);
     s.addColumn(QueryConstants.DEFAULT_COLUMN_FAMILY_BYTES,
@@ -222,6 +246,88 @@ public class StatisticsUtil {
       : guidePostsInfoBuilder.build();
   }
 
+  /**
+   * Merges two sets of guideposts collected over the same column family of a region, e.g. the ones
+   * already persisted for the region and the ones sampled while flushing a memstore. Byte and row
+   * counts of guideposts with equal keys are summed, and adjacent guideposts are then coalesced so
+   * that each one covers at least the given depth and no more than {@code maxGuidePosts} remain.
+   * @param existing       guideposts already known for the region, possibly empty
+   * @param added          newly collected guideposts, possibly empty
+   * @param guidePostDepth minimum number of bytes covered by a merged guidepost
+   * @param maxGuidePosts  upper bound on the number of merged guideposts
+   * @return the merged guideposts, or the empty guidepost if neither input had any key
+   */
+  public static GuidePostsInfo mergeGuidePosts(GuidePostsInfo existing, GuidePostsInfo added,
+    long guidePostDepth, int maxGuidePosts) throws IOException {
+    TreeMap<byte[], long[]> counts = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    long totalByteCount = addGuidePosts(existing, counts) + addGuidePosts(added, counts);
+    if (counts.isEmpty()) {
+      return GuidePostsInfo.createEmptyGuidePost(guidePostDepth, 0);
+    }
+    maxGuidePosts = Math.max(1, maxGuidePosts);
+    long depth = Math.max(guidePostDepth, (totalByteCount + maxGuidePosts - 1) / maxGuidePosts);
+    List<byte[]> keys = new ArrayList<>();
+    List<long[]> mergedCounts = new ArrayList<>();
+    long[] pending = new long[2];
+    for (Map.Entry<byte[], long[]> entry : counts.entrySet()) {
+      pending[0] += entry.getValue()[0];
+      pending[1] += entry.getValue()[1];
+      if (pending[0] >= depth) {
+        keys.add(entry.getKey());
+        mergedCounts.add(pending);
+        pending = new long[2];
+      }
+    }
+    if (pending[0] > 0 || pending[1] > 0 || keys.isEmpty()) {
+      // The trailing guideposts did not add up to the depth. Keep them as a guidepost of their own
+      // unless that would exceed the bound, in which case the last guidepost is extended over them.
+      if (!keys.isEmpty() && keys.size() >= maxGuidePosts) {
+        long[] last = mergedCounts.get(mergedCounts.size() - 1);
+        last[0] += pending[0];
+        last[1] += pending[1];
+        keys.set(keys.size() - 1, counts.lastKey());
+      } else {
+        keys.add(counts.lastKey());
+        mergedCounts.add(pending);
+      }
+    }
+    GuidePostsInfoBuilder builder = new GuidePostsInfoBuilder();
+    for (int i = 0; i < keys.size(); i++) {
+      builder.trackGuidePost(new ImmutableBytesWritable(keys.get(i)), mergedCounts.get(i)[0],
+        mergedCounts.get(i)[1], 0);
+    }
+    return builder.build();
+  }
+
+  private static long addGuidePosts(GuidePostsInfo gps, TreeMap<byte[], long[]> counts)
+    throws IOException {
+    ImmutableBytesWritable keys = gps.getGuidePosts();
+    if (keys.getLength() == 0) {
+      // The empty guidepost only carries an estimate, so it contributes nothing to the merge
+      return 0;
+    }
+    long totalByteCount = 0;
+    long[] byteCounts = gps.getByteCounts();
+    long[] rowCounts = gps.getRowCounts();
+    try (ByteArrayInputStream stream =
+      new ByteArrayInputStream(keys.get(), keys.getOffset(), keys.getLength())) {
+      DataInput input = new DataInputStream(stream);
+      PrefixByteDecoder decoder = new PrefixByteDecoder(gps.getMaxLength());
+      for (int i = 0; i < gps.getGuidePostsCount(); i++) {
+        byte[] key = decoder.decode(input).copyBytes();
+        long[] count = counts.get(key);
+        if (count == null) {
+          count = new long[2];
+          counts.put(key, count);
+        }
+        count[0] += byteCounts[i];
+        count[1] += rowCounts[i];
+        totalByteCount += byteCounts[i];
+      }
+    }
+    return totalByteCount;
+  }
+
   public static long getGuidePostDepth(int guidepostPerRegion, long guidepostWidth,
     TableDescriptor tableDesc) {
     if (guidepostPerRegion > 0) {
@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.tuple;
+
+import static org.apache.phoenix.query.QueryConstants.COLUMNAR_BATCH_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.COLUMNAR_BATCH_COLUMN_QUALIFIER;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_QUALIFIER;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.ValueBitSet;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.apache.phoenix.util.TrustedByteArrayOutputStream;
+
+/**
+ * Columnar encoding of a batch of projected rows, used to ship many rows produced by a
+ * {@link org.apache.phoenix.execute.TupleProjector} from the region server to the client in a
+ * single cell. Each row is split into its {@link KeyValueSchema} positions and the batch is stored
+ * column by column, together with the row keys and timestamps. Every column carries a null bitmap
+ * and is run length encoded, dictionary encoded, stored as a fixed width array or stored as length
+ * prefixed values, whichever the data in the batch suits best.
+ * <p>
+ * The decoded batch only keeps offsets into the block, so values are read in place without
+ * materializing a cell per row. {@link #toProjectedValue(int)} rebuilds the exact projected value
+ * the region server started from for code paths that need it.
+ */
+public final class ColumnarBatch {
+  private static final byte VERSION = 1;
+
+  private static final byte FIXED_WIDTH = 0;
+  private static final byte VARIABLE_WIDTH = 1;
+  private static final byte DICTIONARY = 2;
+  private static final byte RUN_LENGTH = 3;
+
+  private static final int KEY_COLUMN = 0;
+  private static final int TIMESTAMP_COLUMN = 1;
+  private static final int FIRST_POSITION_COLUMN = 2;
+
+  private static final int ABSENT = -1;
+
+  private final KeyValueSchema schema;
+  private final byte[] block;
+  private final int rowCount;
+  private final int positionCount;
+  private final int[][] offsets;
+  private final int[][] lengths;
+  private int pos;
+
+  private ColumnarBatch(KeyValueSchema schema, byte[] block, int offset, int length) {
+    this.schema = schema;
+    this.block = block;
+    this.pos = offset;
+    if (block[pos++] != VERSION) {
+      throw new IllegalStateException("Unknown columnar batch version " + block[offset]);
+    }
+    this.rowCount = readVInt();
+    this.positionCount = readVInt();
+    int columnCount = FIRST_POSITION_COLUMN + positionCount;
+    this.offsets = new int[columnCount][];
+    this.lengths = new int[columnCount][];
+    for (int i = 0; i < columnCount; i++) {
+      readColumn(i);
+    }
+    if (pos != offset + length) {
+      throw new IllegalStateException(
+        "Expected columnar batch of " + length + " bytes, but read " + (pos - offset));
+    }
+  }
+
+  /**
+   * Decodes the batch held by a cell for which {@link #isColumnarBatch(Cell)} is true.
+   * @param schema the schema of the projected values in the batch
+   * @param cell   the cell holding the batch
+   */
+  public static ColumnarBatch decode(KeyValueSchema schema, Cell cell) {
+    return new ColumnarBatch(schema, cell.getValueArray(), cell.getValueOffset(),
+      cell.getValueLength());
+  }
+
+  public static boolean isColumnarBatch(Cell cell) {
+    return CellUtil.matchingColumn(cell, COLUMNAR_BATCH_COLUMN_FAMILY,
+      COLUMNAR_BATCH_COLUMN_QUALIFIER);
+  }
+
+  public KeyValueSchema getSchema() {
+    return schema;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getPositionCount() {
+    return positionCount;
+  }
+
+  public void getKey(int row, ImmutableBytesWritable ptr) {
+    ptr.set(block, offsets[KEY_COLUMN][row], lengths[KEY_COLUMN][row]);
+  }
+
+  public long getTimestamp(int row) {
+    return Bytes.toLong(block, offsets[TIMESTAMP_COLUMN][row]);
+  }
+
+  /**
+   * Points ptr at the value of the given schema position of a row.
+   * @return false if the row has no value at that position, in which case ptr is left untouched
+   */
+  public boolean getValue(int row, int position, ImmutableBytesWritable ptr) {
+    int column = FIRST_POSITION_COLUMN + position;
+    int length = lengths[column][row];
+    if (length == ABSENT) {
+      return false;
+    }
+    ptr.set(block, offsets[column][row], length);
+    return true;
+  }
+
+  /**
+   * Rebuilds the projected value of a row, byte for byte as written by
+   * {@link KeyValueSchema#toBytes}.
+   */
+  public byte[] toProjectedValue(int row) {
+    ValueBitSet bitSet = ValueBitSet.newInstance(schema);
+    int minNullable = schema.getMinNullable();
+    int size = 0;
+    for (int position = 0; position < positionCount; position++) {
+      int length = lengths[FIRST_POSITION_COLUMN + position][row];
+      if (length == ABSENT) {
+        continue;
+      }
+      if (position >= minNullable) {
+        bitSet.set(position - minNullable);
+      }
+      size += isFixedWidth(position) ? length : length + WritableUtils.getVIntSize(length);
+    }
+    byte[] value = new byte[size + bitSet.getEstimatedLength()];
+    int offset = 0;
+    for (int position = 0; position < positionCount; position++) {
+      int column = FIRST_POSITION_COLUMN + position;
+      int length = lengths[column][row];
+      if (length == ABSENT) {
+        continue;
+      }
+      if (!isFixedWidth(position)) {
+        offset += ByteUtil.vintToBytes(value, offset, length);
+      }
+      System.arraycopy(block, offsets[column][row], value, offset, length);
+      offset += length;
+    }
+    bitSet.toBytes(value, offset);
+    return value;
+  }
+
+  private boolean isFixedWidth(int position) {
+    return schema.getField(position).getDataType().isFixedWidth();
+  }
+
+  private int readVInt() {
+    int value = ByteUtil.vintFromBytes(block, pos);
+    pos += WritableUtils.decodeVIntSize(block[pos]);
+    return value;
+  }
+
+  private void readColumn(int column) {
+    int[] columnOffsets = new int[rowCount];
+    int[] columnLengths = new int[rowCount];
+    offsets[column] = columnOffsets;
+    lengths[column] = columnLengths;
+    byte encoding = block[pos++];
+    boolean hasNulls = block[pos++] != 0;
+    int nullBitmapOffset = pos;
+    if (hasNulls) {
+      pos += getNullBitmapLength(rowCount);
+    }
+    int runLength = 0;
+    int runOffset = 0;
+    int runValueLength = 0;
+    int width = 0;
+    int[] dictionaryOffsets = null;
+    int[] dictionaryLengths = null;
+    if (encoding == FIXED_WIDTH) {
+      width = readVInt();
+    } else if (encoding == DICTIONARY) {
+      int dictionarySize = readVInt();
+      dictionaryOffsets = new int[dictionarySize];
+      dictionaryLengths = new int[dictionarySize];
+      for (int i = 0; i < dictionarySize; i++) {
+        dictionaryLengths[i] = readVInt();
+        dictionaryOffsets[i] = pos;
+        pos += dictionaryLengths[i];
+      }
+    } else if (encoding != VARIABLE_WIDTH && encoding != RUN_LENGTH) {
+      throw new IllegalStateException("Unknown columnar batch encoding " + encoding);
+    }
+    for (int row = 0; row < rowCount; row++) {
+      if (hasNulls && (block[nullBitmapOffset + row / Byte.SIZE] & (1 << (row % Byte.SIZE))) == 0) {
+        columnLengths[row] = ABSENT;
+        continue;
+      }
+      switch (encoding) {
+        case FIXED_WIDTH:
+          columnOffsets[row] = pos;
+          columnLengths[row] = width;
+          pos += width;
+          break;
+        case VARIABLE_WIDTH:
+          columnLengths[row] = readVInt();
+          columnOffsets[row] = pos;
+          pos += columnLengths[row];
+          break;
+        case DICTIONARY:
+          int id = readVInt();
+          columnOffsets[row] = dictionaryOffsets[id];
+          columnLengths[row] = dictionaryLengths[id];
+          break;
+        default:
+          if (runLength == 0) {
+            runLength = readVInt();
+            runValueLength = readVInt();
+            runOffset = pos;
+            pos += runValueLength;
+          }
+          columnOffsets[row] = runOffset;
+          columnLengths[row] = runValueLength;
+          runLength--;
+          break;
+      }
+    }
+  }
+
+  private static int getNullBitmapLength(int rowCount) {
+    return (rowCount + Byte.SIZE - 1) / Byte.SIZE;
+  }
+
+  /**
+   * Accumulates projected rows on the region server and encodes them into a single cell. Not thread
+   * safe.
+   */
+  public static class Builder {
+    private final KeyValueSchema schema;
+    private final int positionCount;
+    private final ValueBitSet bitSet;
+    private final ValueBitSet expectedBitSet;
+    private final ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    private final int[] rowOffsets;
+    private final int[] rowLengths;
+    private byte[] bitSetBytes;
+    private byte[] buffer = new byte[1024];
+    private int bufferLength;
+    private int[][] offsets;
+    private int[][] lengths;
+    private int rowCount;
+    private long maxTimestamp;
+
+    public Builder(KeyValueSchema schema) {
+      this.schema = schema;
+      this.positionCount = schema.getFieldCount();
+      this.bitSet = ValueBitSet.newInstance(schema);
+      this.expectedBitSet = ValueBitSet.newInstance(schema);
+      this.rowOffsets = new int[positionCount];
+      this.rowLengths = new int[positionCount];
+      this.bitSetBytes = new byte[0];
+      int columnCount = FIRST_POSITION_COLUMN + positionCount;
+      this.offsets = new int[columnCount][16];
+      this.lengths = new int[columnCount][16];
+    }
+
+    public int getRowCount() {
+      return rowCount;
+    }
+
+    /** Returns the number of value bytes accumulated so far */
+    public int getByteSize() {
+      return bufferLength;
+    }
+
+    /**
+     * Adds a row holding a single projected value cell to the batch. The bytes of the cell are
+     * copied, so the cell may be reused by the caller afterwards.
+     * @return false if the cell is not a projected value this schema can split into its positions,
+     *         in which case the batch is left unchanged
+     */
+    public boolean add(Cell cell) {
+      if (
+        !CellUtil.matchingColumn(cell, VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER) || !split(cell)
+      ) {
+        return false;
+      }
+      ensureRowCapacity();
+      append(KEY_COLUMN, cell.getRowArray(), cell.getRowOffset(), cell.getRowLength());
+      ensureBufferCapacity(Bytes.SIZEOF_LONG);
+      Bytes.putLong(buffer, bufferLength, cell.getTimestamp());
+      offsets[TIMESTAMP_COLUMN][rowCount] = bufferLength;
+      lengths[TIMESTAMP_COLUMN][rowCount] = Bytes.SIZEOF_LONG;
+      bufferLength += Bytes.SIZEOF_LONG;
+      byte[] value = cell.getValueArray();
+      for (int position = 0; position < positionCount; position++) {
+        int column = FIRST_POSITION_COLUMN + position;
+        if (rowLengths[position] == ABSENT) {
+          lengths[column][rowCount] = ABSENT;
+        } else {
+          append(column, value, rowOffsets[position], rowLengths[position]);
+        }
+      }
+      if (rowCount == 0 || cell.getTimestamp() > maxTimestamp) {
+        maxTimestamp = cell.getTimestamp();
+      }
+      rowCount++;
+      return true;
+    }
+
+    /**
+     * Walks the value of the cell position by position. Only values that consist of exactly the
+     * schema positions followed by their null bit set are accepted, so that
+     * {@link ColumnarBatch#toProjectedValue(int)} gives back the same bytes.
+     */
+    private boolean split(Cell cell) {
+      int valueOffset = cell.getValueOffset();
+      int valueLength = cell.getValueLength();
+      try {
+        ptr.set(cell.getValueArray(), valueOffset, valueLength);
+        bitSet.clear();
+        bitSet.or(ptr);
+        int bitSetLength = bitSet.getEstimatedLength();
+        int maxOffset = valueOffset + valueLength - bitSetLength;
+        if (maxOffset < valueOffset) {
+          return false;
+        }
+        expectedBitSet.clear();
+        int minNullable = schema.getMinNullable();
+        ptr.set(cell.getValueArray(), valueOffset, 0);
+        for (int position = 0; position < positionCount; position++) {
+          Boolean hasValue = schema.next(ptr, position, maxOffset, bitSet);
+          if (hasValue == null || schema.isNull(position, bitSet)) {
+            rowLengths[position] = ABSENT;
+          } else {
+            rowOffsets[position] = ptr.getOffset();
+            rowLengths[position] = ptr.getLength();
+            if (position >= minNullable) {
+              expectedBitSet.set(position - minNullable);
+            }
+          }
+        }
+        if (
+          ptr.getOffset() + ptr.getLength() != maxOffset
+            || expectedBitSet.getEstimatedLength() != bitSetLength
+        ) {
+          return false;
+        }
+        if (bitSetBytes.length < bitSetLength) {
+          bitSetBytes = new byte[bitSetLength];
+        }
+        expectedBitSet.toBytes(bitSetBytes, 0);
+        return Bytes.equals(bitSetBytes, 0, bitSetLength, cell.getValueArray(), maxOffset,
+          bitSetLength);
+      } catch (RuntimeException e) {
+        // Not laid out the way the schema expects (e.g. dynamic columns appended to the
+        // value), so the row is sent as is.
+        return false;
+      }
+    }
+
+    private void ensureRowCapacity() {
+      if (rowCount < offsets[0].length) {
+        return;
+      }
+      int capacity = offsets[0].length * 2;
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = Arrays.copyOf(offsets[i], capacity);
+        lengths[i] = Arrays.copyOf(lengths[i], capacity);
+      }
+    }
+
+    private void ensureBufferCapacity(int length) {
+      if (bufferLength + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + length));
+      }
+    }
+
+    private void append(int column, byte[] b, int offset, int length) {
+      ensureBufferCapacity(length);
+      System.arraycopy(b, offset, buffer, bufferLength, length);
+      offsets[column][rowCount] = bufferLength;
+      lengths[column][rowCount] = length;
+      bufferLength += length;
+    }
+
+    /**
+     * Encodes the rows added so far into a cell keyed by the last row of the batch, and resets the
+     * builder.
+     */
+    public Cell build() {
+      TrustedByteArrayOutputStream bytes = new TrustedByteArrayOutputStream(bufferLength + 64);
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+        output.writeByte(VERSION);
+        WritableUtils.writeVInt(output, rowCount);
+        WritableUtils.writeVInt(output, positionCount);
+        for (int column = 0; column < offsets.length; column++) {
+          writeColumn(output, offsets[column], lengths[column]);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e); // Impossible
+      }
+      int lastRow = rowCount - 1;
+      Cell cell = PhoenixKeyValueUtil.newKeyValue(buffer, offsets[KEY_COLUMN][lastRow],
+        lengths[KEY_COLUMN][lastRow], COLUMNAR_BATCH_COLUMN_FAMILY, COLUMNAR_BATCH_COLUMN_QUALIFIER,
+        maxTimestamp, bytes.getBuffer(), 0, bytes.size());
+      rowCount = 0;
+      bufferLength = 0;
+      return cell;
+    }
+
+    private void writeColumn(DataOutputStream output, int[] columnOffsets, int[] columnLengths)
+      throws IOException {
+      int valueCount = 0;
+      int runCount = 0;
+      int width = ABSENT;
+      boolean isFixedWidth = true;
+      int previous = ABSENT;
+      for (int row = 0; row < rowCount; row++) {
+        int length = columnLengths[row];
+        if (length == ABSENT) {
+          continue;
+        }
+        if (
+          previous == ABSENT || !Bytes.equals(buffer, columnOffsets[previous],
+            columnLengths[previous], buffer, columnOffsets[row], length)
+        ) {
+          runCount++;
+        }
+        if (width == ABSENT) {
+          width = length;
+        } else if (width != length) {
+          isFixedWidth = false;
+        }
+        previous = row;
+        valueCount++;
+      }
+      byte encoding;
+      Map<ImmutableBytesPtr, Integer> dictionary = null;
+      if (runCount * 2 <= valueCount) {
+        encoding = RUN_LENGTH;
+      } else if ((dictionary = buildDictionary(columnOffsets, columnLengths, valueCount)) != null) {
+        encoding = DICTIONARY;
+      } else if (isFixedWidth) {
+        encoding = FIXED_WIDTH;
+      } else {
+        encoding = VARIABLE_WIDTH;
+      }
+      output.writeByte(encoding);
+      boolean hasNulls = valueCount < rowCount;
+      output.writeBoolean(hasNulls);
+      if (hasNulls) {
+        byte[] nullBitmap = new byte[getNullBitmapLength(rowCount)];
+        for (int row = 0; row < rowCount; row++) {
+          if (columnLengths[row] != ABSENT) {
+            nullBitmap[row / Byte.SIZE] |= (byte) (1 << (row % Byte.SIZE));
+          }
+        }
+        output.write(nullBitmap);
+      }
+      switch (encoding) {
+        case FIXED_WIDTH:
+          WritableUtils.writeVInt(output, Math.max(0, width));
+          for (int row = 0; row < rowCount; row++) {
+            if (columnLengths[row] != ABSENT) {
+              output.write(buffer, columnOffsets[row], columnLengths[row]);
+            }
+          }
+          break;
+        case VARIABLE_WIDTH:
+          for (int row = 0; row < rowCount; row++) {
+            if (columnLengths[row] != ABSENT) {
+              writeValue(output, columnOffsets[row], columnLengths[row]);
+            }
+          }
+          break;
+        case DICTIONARY:
+          ImmutableBytesPtr[] entries = new ImmutableBytesPtr[dictionary.size()];
+          for (Map.Entry<ImmutableBytesPtr, Integer> entry : dictionary.entrySet()) {
+            entries[entry.getValue()] = entry.getKey();
+          }
+          WritableUtils.writeVInt(output, entries.length);
+          for (ImmutableBytesPtr entry : entries) {
+            writeValue(output, entry.getOffset(), entry.getLength());
+          }
+          for (int row = 0; row < rowCount; row++) {
+            if (columnLengths[row] != ABSENT) {
+              WritableUtils.writeVInt(output, dictionary
+                .get(new ImmutableBytesPtr(buffer, columnOffsets[row], columnLengths[row])));
+            }
+          }
+          break;
+        default:
+          int runStart = ABSENT;
+          int runLength = 0;
+          for (int row = 0; row < rowCount; row++) {
+            int length = columnLengths[row];
+            if (length == ABSENT) {
+              continue;
+            }
+            if (
+              runStart != ABSENT && !Bytes.equals(buffer, columnOffsets[runStart],
+                columnLengths[runStart], buffer, columnOffsets[row], length)
+            ) {
+              writeRun(output, runLength, columnOffsets[runStart], columnLengths[runStart]);
+              runStart = ABSENT;
+            }
+            if (runStart == ABSENT) {
+              runStart = row;
+              runLength = 0;
+            }
+            runLength++;
+          }
+          if (runStart != ABSENT) {
+            writeRun(output, runLength, columnOffsets[runStart], columnLengths[runStart]);
+          }
+          break;
+      }
+    }
+
+    /**
+     * Returns the distinct values of the column numbered in order of appearance, or null if there
+     * are too many of them for a dictionary to pay off.
+     */
+    private Map<ImmutableBytesPtr, Integer> buildDictionary(int[] columnOffsets,
+      int[] columnLengths, int valueCount) {
+      int maxSize = valueCount / 2;
+      Map<ImmutableBytesPtr, Integer> dictionary = new HashMap<>();
+      for (int row = 0; row < rowCount; row++) {
+        if (columnLengths[row] == ABSENT) {
+          continue;
+        }
+        ImmutableBytesPtr value =
+          new ImmutableBytesPtr(buffer, columnOffsets[row], columnLengths[row]);
+        if (!dictionary.containsKey(value)) {
+          if (dictionary.size() == maxSize) {
+            return null;
+          }
+          dictionary.put(value, dictionary.size());
+        }
+      }
+      return dictionary;
+    }
+
+    private void writeRun(DataOutputStream output, int runLength, int offset, int length)
+      throws IOException {
+      WritableUtils.writeVInt(output, runLength);
+      writeValue(output, offset, length);
+    }
+
+    private void writeValue(DataOutputStream output, int offset, int length) throws IOException {
+      WritableUtils.writeVInt(output, length);
+      output.write(buffer, offset, length);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.tuple;
+
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_QUALIFIER;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+
+/**
+ * Tuple for one row of a {@link ColumnarBatch}. Projected columns are read straight out of the
+ * batch; the projected value cell is only materialized when asked for.
+ */
+public class ColumnarBatchTuple extends BaseTuple {
+  private final ColumnarBatch batch;
+  private final int row;
+  private Cell cell;
+
+  public ColumnarBatchTuple(ColumnarBatch batch, int row) {
+    this.batch = batch;
+    this.row = row;
+  }
+
+  public ColumnarBatch getBatch() {
+    return batch;
+  }
+
+  /**
+   * Points ptr at the value of the given schema position of this row.
+   * @return false if the row has no value at that position
+   */
+  public boolean getProjectedValue(int position, ImmutableBytesWritable ptr) {
+    return batch.getValue(row, position, ptr);
+  }
+
+  @Override
+  public void getKey(ImmutableBytesWritable ptr) {
+    batch.getKey(row, ptr);
+  }
+
+  @Override
+  public boolean isImmutable() {
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return 1;
+  }
+
+  @Override
+  public Cell getValue(int index) {
+    if (index != 0) {
+      throw new IndexOutOfBoundsException(Integer.toString(index));
+    }
+    return getCell();
+  }
+
+  @Override
+  public Cell getValue(byte[] family, byte[] qualifier) {
+    if (
+      !Bytes.equals(VALUE_COLUMN_FAMILY, family) || !Bytes.equals(VALUE_COLUMN_QUALIFIER, qualifier)
+    ) {
+      return null;
+    }
+    return getCell();
+  }
+
+  @Override
+  public boolean getValue(byte[] family, byte[] qualifier, ImmutableBytesWritable ptr) {
+    Cell cell = getValue(family, qualifier);
+    if (cell == null) {
+      return false;
+    }
+    ptr.set(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    return true;
+  }
+
+  @Override
+  public long getSerializedSize() {
+    return getCell().getSerializedSize();
+  }
+
+  private Cell getCell() {
+    if (cell == null) {
+      ImmutableBytesWritable key = new ImmutableBytesWritable();
+      batch.getKey(row, key);
+      byte[] value = batch.toProjectedValue(row);
+      cell = PhoenixKeyValueUtil.newKeyValue(key, VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER,
+        batch.getTimestamp(row), value, 0, value.length);
+    }
+    return cell;
+  }
+
+  @Override
+  public String toString() {
+    return "keyvalues={" + getCell() + "}";
+  }
+}
@@ -168,10 +168,24 @@ public class SchemaUtil {
    * @return estimate of size in bytes of a row
    */
   public static long estimateRowSize(PTable table) {
+    return estimateRowSize(table, null);
+  }
+
+  /**
+   * Estimate the size of the part of a row stored in the given column families
+   * @param table    the table
+   * @param families the column families read, sorted by {@link Bytes#BYTES_COMPARATOR}, or null for
+   *                 all of them
+   * @return the estimated size in bytes
+   */
+  public static long estimateRowSize(PTable table, @Nullable Set<byte[]> families) {
     int keyLength = estimateKeyLength(table);
     long rowSize = 0;
     for (PColumn column : table.getColumns()) {
-      if (!SchemaUtil.isPKColumn(column)) {
+      if (
+        !SchemaUtil.isPKColumn(column)
+          && (families == null || families.contains(column.getFamilyName().getBytes()))
+      ) {
         PDataType type = column.getDataType();
         Integer maxLength = column.getMaxLength();
         int valueLength = !type.isFixedWidth() ? VAR_KV_LENGTH_ESTIMATE
@@ -32,6 +32,7 @@ import static org.apache.phoenix.util.PhoenixRuntime.CURRENT_SCN_ATTRIB;
 import static org.apache.phoenix.util.PhoenixRuntime.TENANT_ID_ATTRIB;
 import static org.apache.phoenix.util.SchemaUtil.getVarChars;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
@@ -53,6 +54,7 @@ import org.apache.hadoop.hbase.CompareOperator;
 import org.apache.hadoop.hbase.ExtendedCellBuilder;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
@@ -67,6 +69,7 @@ import org.apache.phoenix.coprocessorclient.MetaDataEndpointImplConstants;
 import org.apache.phoenix.coprocessorclient.MetaDataProtocol;
 import org.apache.phoenix.coprocessorclient.TableInfo;
 import org.apache.phoenix.coprocessorclient.WhereConstantParser;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.index.IndexMaintainer;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
@@ -92,6 +95,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.base.Objects;
 import org.apache.phoenix.thirdparty.com.google.common.base.Preconditions;
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
 import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
 import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
@@ -387,22 +391,43 @@ public class ViewUtil {
           .getTableNameFromFullName(rowKeyMetaData[PhoenixDatabaseMetaData.FAMILY_NAME_INDEX])
           .getBytes(StandardCharsets.UTF_8);
         tableInfoList.add(new TableInfo(viewTenantId, viewSchemaName, viewName));
-        if (scanSysCatForTTLDefinedOnAnyChildPair.getFirst()) {
-          byte[] viewKey = SchemaUtil.getTableKey(viewTenantId, viewSchemaName, viewName);
+      }
+    }
+    if (scanSysCatForTTLDefinedOnAnyChildPair.getFirst() && !tableInfoList.isEmpty()) {
+      if (isTTLDefinedOnAnyView(sysCat, tableInfoList, timestamp)) {
+        scanSysCatForTTLDefinedOnAnyChildPair.setSecond(true);
+        scanSysCatForTTLDefinedOnAnyChildPair.setFirst(false);
+      }
+    }
+    return new TableViewFinderResult(tableInfoList);
+  }
 
-          Scan ttlScan =
-            MetaDataUtil.newTableRowsScan(viewKey, MetaDataProtocol.MIN_TABLE_TIMESTAMP, timestamp);
-          Result ttlResult = sysCat.getScanner(ttlScan).next();
-          if (ttlResult != null) {
-            if (ttlResult.getValue(TABLE_FAMILY_BYTES, TTL_BYTES) != null) {
-              scanSysCatForTTLDefinedOnAnyChildPair.setSecond(true);
-              scanSysCatForTTLDefinedOnAnyChildPair.setFirst(false);
-            }
-          }
-        }
+  /**
+   * Checks whether TTL is defined on the header row of any of the given views. The header rows of
+   * all the views are fetched with a single multi-get instead of one scan per view, so that
+   * checking a level of the view hierarchy costs one round trip per region of SYSTEM.CATALOG.
+   * @param sysCat    Table corresponding to SYSTEM.CATALOG
+   * @param views     views whose header rows are to be checked
+   * @param timestamp client timestamp
+   * @return true if TTL is defined on at least one of the views
+   * @throws IOException thrown if there is an error reading SYSTEM.CATALOG
+   */
+  static boolean isTTLDefinedOnAnyView(Table sysCat, List<TableInfo> views, long timestamp)
+    throws IOException {
+    List<Get> gets = Lists.newArrayListWithExpectedSize(views.size());
+    for (TableInfo viewInfo : views) {
+      Get get = new Get(SchemaUtil.getTableKey(viewInfo.getTenantId(), viewInfo.getSchemaName(),
+        viewInfo.getTableName()));
+      get.setTimeRange(MetaDataProtocol.MIN_TABLE_TIMESTAMP, timestamp);
+      get.addColumn(TABLE_FAMILY_BYTES, TTL_BYTES);
+      gets.add(get);
+    }
+    for (Result ttlResult : sysCat.get(gets)) {
+      if (ttlResult != null && ttlResult.getValue(TABLE_FAMILY_BYTES, TTL_BYTES) != null) {
+        return true;
       }
-      return new TableViewFinderResult(tableInfoList);
     }
+    return false;
   }
 
   public static TableViewFinderResult findChildViews(PhoenixConnection connection, String tenantId,
@@ -596,6 +621,20 @@ public class ViewUtil {
 
   public static PTable addDerivedColumnsAndIndexesFromAncestors(PhoenixConnection connection,
     PTable table) throws SQLException {
+    return addDerivedColumnsAndIndexesFromAncestors(connection, table, null);
+  }
+
+  /**
+   * Inherit all columns and indexes from every ancestor of the given view, reusing the merged
+   * PTable of each level from derivedTableCache when the view and its ancestors have not changed.
+   * @param derivedTableCache cache of merged PTables keyed by
+   *                          {@link #getDerivedTableCacheKey(PTable, PTable)}, or null to always
+   *                          recalculate
+   * @return table with inherited columns and indexes
+   */
+  public static PTable addDerivedColumnsAndIndexesFromAncestors(PhoenixConnection connection,
+    PTable table, @Nullable Cache<ImmutableBytesPtr, PTable> derivedTableCache)
+    throws SQLException {
     List<PTable> ancestorList = Lists.newArrayList(table);
     // First generate a list of tables from child to base table. First element will be the
     // ultimate descendant, last element will be the base table.
@@ -619,7 +658,7 @@ public class ViewUtil {
     if (ancestorList.size() > 1) {
       for (int k = ancestorList.size() - 2; k >= 0; k--) {
         ancestorList.set(k, addDerivedColumnsAndIndexesFromParent(connection, ancestorList.get(k),
-          ancestorList.get(k + 1)));
+          ancestorList.get(k + 1), derivedTableCache));
       }
       return ancestorList.get(0);
     } else {
@@ -627,12 +666,82 @@ public class ViewUtil {
     }
   }
 
+  /**
+   * Returns a key identifying the result of
+   * {@link #addDerivedColumnsAndIndexesFromParent(PhoenixConnection, PTable, PTable)} for the given
+   * view and parent. The parent passed in has already inherited from its own ancestors and carries
+   * the max timestamp of the whole chain, so the key changes whenever the view, any of its
+   * ancestors, or any of the indexes they contribute change.
+   * @param view        PTable of the view or view index
+   * @param parentTable PTable of the parent, with columns and indexes of its ancestors
+   * @return key to be used when caching the merged PTable
+   */
+  public static ImmutableBytesPtr getDerivedTableCacheKey(PTable view, PTable parentTable) {
+    try (TrustedByteArrayOutputStream stream = new TrustedByteArrayOutputStream(256);
+      DataOutputStream output = new DataOutputStream(stream)) {
+      writeTableVersion(output, view);
+      writeTableVersion(output, parentTable);
+      for (PTable index : view.getIndexes()) {
+        writeTableVersion(output, index);
+      }
+      for (PTable index : parentTable.getIndexes()) {
+        writeTableVersion(output, index);
+      }
+      output.flush();
+      return new ImmutableBytesPtr(stream.toByteArray());
+    } catch (IOException e) {
+      throw new RuntimeException(e); // Impossible
+    }
+  }
+
+  private static void writeTableVersion(DataOutputStream output, PTable table) throws IOException {
+    output.writeUTF(table.getTenantId() != null ? table.getTenantId().getString() : "");
+    output.writeUTF(table.getName().getString());
+    output.writeLong(table.getTimeStamp());
+    output.writeLong(table.getSequenceNumber());
+    output.writeLong(table.getLastDDLTimestamp() != null ? table.getLastDDLTimestamp() : 0L);
+    output.writeByte(table.getIndexState() != null ? table.getIndexState().ordinal() : -1);
+  }
+
   /**
    * Inherit all indexes and columns from the parent
    * @return table with inherited columns and indexes
    */
   public static PTable addDerivedColumnsAndIndexesFromParent(PhoenixConnection connection,
     PTable table, PTable parentTable) throws SQLException {
+    return addDerivedColumnsAndIndexesFromParent(connection, table, parentTable, null);
+  }
+
+  /**
+   * Inherit all indexes and columns from the parent, reusing a previously merged PTable from
+   * derivedTableCache if neither the table nor its ancestors have changed since it was merged.
+   * @param derivedTableCache cache of merged PTables keyed by
+   *                          {@link #getDerivedTableCacheKey(PTable, PTable)}, or null to always
+   *                          recalculate
+   * @return table with inherited columns and indexes
+   */
+  public static PTable addDerivedColumnsAndIndexesFromParent(PhoenixConnection connection,
+    PTable table, PTable parentTable, @Nullable Cache<ImmutableBytesPtr, PTable> derivedTableCache)
+    throws SQLException {
+    if (derivedTableCache == null) {
+      return mergeDerivedColumnsAndIndexesFromParent(connection, table, parentTable, null);
+    }
+    ImmutableBytesPtr cacheKey = getDerivedTableCacheKey(table, parentTable);
+    PTable derivedTable = derivedTableCache.getIfPresent(cacheKey);
+    if (derivedTable == null) {
+      derivedTable =
+        mergeDerivedColumnsAndIndexesFromParent(connection, table, parentTable, derivedTableCache);
+      // a null table means a view index that can no longer be used, which we do not cache
+      if (derivedTable != null) {
+        derivedTableCache.put(cacheKey, derivedTable);
+      }
+    }
+    return derivedTable;
+  }
+
+  private static PTable mergeDerivedColumnsAndIndexesFromParent(PhoenixConnection connection,
+    PTable table, PTable parentTable, @Nullable Cache<ImmutableBytesPtr, PTable> derivedTableCache)
+    throws SQLException {
     PTable pTable = addDerivedColumnsFromParent(connection, table, parentTable);
     boolean hasIndexId = table.getViewIndexId() != null;
     // For views :
@@ -642,8 +751,8 @@ public class ViewUtil {
       List<PTable> allIndexes = Lists.newArrayList();
       if (pTable != null && pTable.getIndexes() != null && !pTable.getIndexes().isEmpty()) {
         for (PTable viewIndex : pTable.getIndexes()) {
-          PTable resolvedViewIndex =
-            ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, viewIndex, pTable);
+          PTable resolvedViewIndex = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection,
+            viewIndex, pTable, derivedTableCache);
           if (resolvedViewIndex != null) allIndexes.add(resolvedViewIndex);
         }
       }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.phoenix.util.SizedUtil;
+
+/**
+ * Rows produced by an aggregate scan over a region, along with the MVCC read point of the region
+ * they were computed at. They remain valid for as long as the region read point has not moved past
+ * it, i.e. until the region is written to, bulk loaded or reopened.
+ */
+public class CachedAggregateResult {
+  private final List<List<Cell>> rows;
+  private final long readPoint;
+  private final int estimatedSize;
+
+  public CachedAggregateResult(List<List<Cell>> rows, long readPoint, int estimatedSize) {
+    this.rows = rows;
+    this.readPoint = readPoint;
+    this.estimatedSize = estimatedSize;
+  }
+
+  public List<List<Cell>> getRows() {
+    return rows;
+  }
+
+  public long getReadPoint() {
+    return readPoint;
+  }
+
+  public int getEstimatedSize() {
+    return SizedUtil.OBJECT_SIZE + estimatedSize;
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.phoenix.memory.GlobalMemoryManager;
 import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.PMetaDataEntity;
+import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.schema.metrics.MetricsMetadataSource;
 import org.apache.phoenix.util.SizedUtil;
 import org.slf4j.Logger;
@@ -59,6 +60,10 @@ public class GlobalCache extends TenantCacheImpl {
     new ConcurrentHashMap<ImmutableBytesWritable, TenantCache>();
   // Cache for lastest PTable for a given Phoenix table
   private volatile Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache;
+  // Cache for views and view indexes merged with the columns and indexes of their ancestors,
+  // keyed by the versions of the view and of every ancestor it was merged with
+  private volatile Cache<ImmutableBytesPtr, PTable> derivedViewCache;
+  private volatile Cache<ImmutableBytesPtr, CachedAggregateResult> aggregateResultCache;
   private MetricsMetadataSource metricsSource;
 
   public long clearTenantCache() {
@@ -126,6 +131,71 @@ public class GlobalCache extends TenantCacheImpl {
     return result;
   }
 
+  /**
+   * Returns the cache of views merged with their ancestors. Entries are keyed by
+   * {@link org.apache.phoenix.util.ViewUtil#getDerivedTableCacheKey(PTable, PTable)} so they never
+   * need to be invalidated explicitly: any change to the view or its ancestors results in a new
+   * key, and the stale entry ages out.
+   */
+  public Cache<ImmutableBytesPtr, PTable> getDerivedViewCache() {
+    Cache<ImmutableBytesPtr, PTable> result = derivedViewCache;
+    if (result == null) {
+      synchronized (this) {
+        result = derivedViewCache;
+        if (result == null) {
+          long maxTTL =
+            config.getLong(QueryServices.MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS_ATTRIB,
+              QueryServicesOptions.DEFAULT_MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS);
+          long maxSize =
+            config.getLongBytes(QueryServices.MAX_SERVER_DERIVED_VIEW_CACHE_SIZE_ATTRIB,
+              QueryServicesOptions.DEFAULT_MAX_SERVER_DERIVED_VIEW_CACHE_SIZE);
+          derivedViewCache = result = CacheBuilder.newBuilder().maximumWeight(maxSize)
+            .expireAfterAccess(maxTTL, TimeUnit.MILLISECONDS)
+            .weigher(new Weigher<ImmutableBytesPtr, PTable>() {
+              @Override
+              public int weigh(ImmutableBytesPtr key, PTable table) {
+                return SizedUtil.IMMUTABLE_BYTES_PTR_SIZE + key.getLength()
+                  + table.getEstimatedSize();
+              }
+            }).build();
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the cache of partial aggregate results computed by aggregate scans that requested
+   * caching, keyed by region and scan. Entries carry the region read point they were computed at,
+   * so readers check them against the region before use rather than invalidating them on write.
+   */
+  public Cache<ImmutableBytesPtr, CachedAggregateResult> getAggregateResultCache() {
+    Cache<ImmutableBytesPtr, CachedAggregateResult> result = aggregateResultCache;
+    if (result == null) {
+      synchronized (this) {
+        result = aggregateResultCache;
+        if (result == null) {
+          long maxTTL =
+            config.getLong(QueryServices.MAX_SERVER_AGGREGATE_RESULT_CACHE_TIME_TO_LIVE_MS_ATTRIB,
+              QueryServicesOptions.DEFAULT_MAX_SERVER_AGGREGATE_RESULT_CACHE_TIME_TO_LIVE_MS);
+          long maxSize =
+            config.getLongBytes(QueryServices.MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE_ATTRIB,
+              QueryServicesOptions.DEFAULT_MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE);
+          aggregateResultCache = result = CacheBuilder.newBuilder().maximumWeight(maxSize)
+            .expireAfterWrite(maxTTL, TimeUnit.MILLISECONDS)
+            .weigher(new Weigher<ImmutableBytesPtr, CachedAggregateResult>() {
+              @Override
+              public int weigh(ImmutableBytesPtr key, CachedAggregateResult value) {
+                return SizedUtil.IMMUTABLE_BYTES_PTR_SIZE + key.getLength()
+                  + value.getEstimatedSize();
+              }
+            }).build();
+        }
+      }
+    }
+    return result;
+  }
+
   public static GlobalCache getInstance(RegionCoprocessorEnvironment env) {
     GlobalCache result = INSTANCE;
     if (result == null) {
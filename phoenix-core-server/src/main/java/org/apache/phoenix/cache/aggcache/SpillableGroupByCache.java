@@ -221,6 +221,11 @@ public class SpillableGroupByCache implements GroupByCache {
     };
   }
 
+  @Override
+  public boolean hasSpilled() {
+    return spillManager != null;
+  }
+
   /**
    * Size function returns the current number of cached elements
    */
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.apache.phoenix.util.ScanUtil.isDummy;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.cache.CachedAggregateResult;
+import org.apache.phoenix.cache.GlobalCache;
+import org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverConstants;
+import org.apache.phoenix.coprocessorclient.metrics.MetricsAggregateResultCacheSource;
+import org.apache.phoenix.coprocessorclient.metrics.MetricsPhoenixCoprocessorSourceFactory;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
+
+import org.apache.hadoop.hbase.shaded.protobuf.ProtobufUtil;
+
+/**
+ * Records the rows returned by an aggregate region scanner so that an identical scan over the
+ * region can be served from {@link GlobalCache#getAggregateResultCache()} without re-aggregating,
+ * as long as the region has not been written to in the meantime. The rows are cached against the
+ * MVCC read point of the scan, which only moves when a write, bulk load or region reopen makes new
+ * data visible, and are only cached once the scan has run to completion.
+ */
+public class AggregateResultCachingRegionScanner extends BaseRegionScanner {
+  /**
+   * Scan attributes that request server side mutations, whose scans must run every time
+   */
+  private static final String[] MUTATING_SCAN_ATTRIBUTES =
+    { BaseScannerRegionObserverConstants.UPSERT_SELECT_TABLE,
+      BaseScannerRegionObserverConstants.DELETE_AGG, BaseScannerRegionObserverConstants.DELETE_CQ,
+      BaseScannerRegionObserverConstants.DELETE_CF, BaseScannerRegionObserverConstants.EMPTY_CF,
+      BaseScannerRegionObserverConstants.LOCAL_INDEX_BUILD,
+      BaseScannerRegionObserverConstants.UPGRADE_DESC_ROW_KEY,
+      BaseScannerRegionObserverConstants.TX_STATE };
+
+  private final Cache<ImmutableBytesPtr, CachedAggregateResult> cache;
+  private final ImmutableBytesPtr cacheKey;
+  private final long readPoint;
+  private final long maxSize;
+  private List<List<Cell>> rows = new ArrayList<>();
+  private long estimatedSize;
+
+  /**
+   * @param cacheKey         key returned by {@link #getCacheKey(Region, Scan)}
+   * @param aggregateScanner aggregate scanner whose results are to be cached once it completes
+   */
+  public AggregateResultCachingRegionScanner(RegionCoprocessorEnvironment env,
+    ImmutableBytesPtr cacheKey, RegionScanner aggregateScanner) {
+    super(aggregateScanner);
+    this.cache = GlobalCache.getInstance(env).getAggregateResultCache();
+    this.cacheKey = cacheKey;
+    this.readPoint = aggregateScanner.getMvccReadPoint();
+    this.maxSize = env.getConfiguration().getLongBytes(
+      QueryServices.MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE_ATTRIB,
+      QueryServicesOptions.DEFAULT_MAX_SERVER_AGGREGATE_RESULT_CACHE_SIZE);
+  }
+
+  /**
+   * Returns the key under which the results of the given aggregate scan over the region are cached,
+   * or null if the scan did not request caching or performs mutations.
+   */
+  public static ImmutableBytesPtr getCacheKey(Region region, Scan scan) throws IOException {
+    if (scan.getAttribute(BaseScannerRegionObserverConstants.CACHE_AGGREGATE_RESULT) == null) {
+      return null;
+    }
+    for (String attribute : MUTATING_SCAN_ATTRIBUTES) {
+      if (scan.getAttribute(attribute) != null) {
+        return null;
+      }
+    }
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    digest.update(region.getRegionInfo().getEncodedNameAsBytes());
+    // Attributes are digested separately in a stable order, leaving out the annotations which
+    // only serve to tag log lines and so may differ between otherwise identical scans.
+    digest.update(ProtobufUtil.toScan(scan).toBuilder().clearAttribute().build().toByteArray());
+    Map<String, byte[]> attributes = new TreeMap<>(scan.getAttributesMap());
+    attributes.remove(BaseScannerRegionObserverConstants.CUSTOM_ANNOTATIONS);
+    for (Map.Entry<String, byte[]> attribute : attributes.entrySet()) {
+      digest.update(Bytes.toBytes(attribute.getKey()));
+      digest.update(Bytes.toBytes(attribute.getValue().length));
+      digest.update(attribute.getValue());
+    }
+    return new ImmutableBytesPtr(digest.digest());
+  }
+
+  /**
+   * Returns a scanner over the cached results of the aggregate scan if they are still valid for the
+   * region, or null if the aggregate scan needs to run.
+   * @param cacheKey     key returned by {@link #getCacheKey(Region, Scan)}
+   * @param innerScanner scanner over the region the aggregate scanner would read from
+   */
+  public static RegionScanner getCachedScanner(RegionCoprocessorEnvironment env,
+    ImmutableBytesPtr cacheKey, RegionScanner innerScanner) {
+    Cache<ImmutableBytesPtr, CachedAggregateResult> cache =
+      GlobalCache.getInstance(env).getAggregateResultCache();
+    MetricsAggregateResultCacheSource metricsSource =
+      MetricsPhoenixCoprocessorSourceFactory.getInstance().getAggregateResultCacheSource();
+    String tableName = env.getRegion().getRegionInfo().getTable().getNameAsString();
+    CachedAggregateResult cachedResult = cache.getIfPresent(cacheKey);
+    if (cachedResult != null) {
+      // The same read point means the scan sees exactly the data the results were computed from
+      if (cachedResult.getReadPoint() == innerScanner.getMvccReadPoint()) {
+        metricsSource.incrementAggregateResultCacheHitCount(tableName);
+        return new CachedResultRegionScanner(innerScanner, cachedResult.getRows());
+      }
+      cache.invalidate(cacheKey);
+    }
+    metricsSource.incrementAggregateResultCacheMissCount(tableName);
+    return null;
+  }
+
+  @Override
+  public boolean next(List<Cell> results) throws IOException {
+    boolean hasMore = delegate.next(results);
+    record(results, hasMore);
+    return hasMore;
+  }
+
+  @Override
+  public boolean next(List<Cell> results, ScannerContext scannerContext) throws IOException {
+    boolean hasMore = delegate.next(results, scannerContext);
+    record(results, hasMore);
+    return hasMore;
+  }
+
+  private void record(List<Cell> results, boolean hasMore) {
+    if (rows == null) {
+      return;
+    }
+    if (!results.isEmpty() && !isDummy(results)) {
+      List<Cell> row = new ArrayList<>(results.size());
+      for (Cell cell : results) {
+        KeyValue keyValue = KeyValueUtil.copyToNewKeyValue(cell);
+        estimatedSize += keyValue.heapSize();
+        row.add(keyValue);
+      }
+      rows.add(row);
+      if (estimatedSize > maxSize) {
+        rows = null;
+        return;
+      }
+    }
+    if (!hasMore) {
+      cache.put(cacheKey, new CachedAggregateResult(rows, readPoint, (int) estimatedSize));
+      rows = null;
+    }
+  }
+
+  /**
+   * Replays cached aggregate rows in place of running the aggregate scan.
+   */
+  private static class CachedResultRegionScanner extends BaseRegionScanner {
+    private final Iterator<List<Cell>> iterator;
+
+    private CachedResultRegionScanner(RegionScanner innerScanner, List<List<Cell>> rows) {
+      super(innerScanner);
+      this.iterator = rows.iterator();
+    }
+
+    @Override
+    public boolean next(List<Cell> results) throws IOException {
+      if (iterator.hasNext()) {
+        results.addAll(iterator.next());
+      }
+      return iterator.hasNext();
+    }
+
+    @Override
+    public boolean next(List<Cell> results, ScannerContext scannerContext) throws IOException {
+      return next(results);
+    }
+  }
+}
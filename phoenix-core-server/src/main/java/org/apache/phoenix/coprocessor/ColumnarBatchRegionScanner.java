@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.regionserver.PhoenixScannerContext;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.tuple.ColumnarBatch;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.apache.phoenix.util.ScanUtil;
+
+/**
+ * Packs consecutive projected rows returned by the delegate scanner into a single
+ * {@link ColumnarBatch} cell. A batch is cut short when the page times out, so that paging works as
+ * it does for individual rows. Dummy rows and rows that cannot be batched are returned as is, after
+ * any rows batched before them.
+ */
+public class ColumnarBatchRegionScanner extends BaseRegionScanner {
+  private final ColumnarBatch.Builder builder;
+  private final int maxRows;
+  private final int maxSize;
+  private final long pageSizeMs;
+  private final List<Cell> row = new ArrayList<>();
+  private List<Cell> pendingRow;
+  private boolean hasMore = true;
+
+  public ColumnarBatchRegionScanner(RegionScanner delegate, KeyValueSchema schema, int maxRows,
+    int maxSize, long pageSizeMs) {
+    super(delegate);
+    this.builder = new ColumnarBatch.Builder(schema);
+    this.maxRows = maxRows;
+    this.maxSize = maxSize;
+    this.pageSizeMs = pageSizeMs;
+  }
+
+  @Override
+  public boolean next(List<Cell> results) throws IOException {
+    return next(results, null);
+  }
+
+  @Override
+  public boolean next(List<Cell> results, ScannerContext scannerContext) throws IOException {
+    if (pendingRow != null) {
+      results.addAll(pendingRow);
+      pendingRow = null;
+      return hasMore;
+    }
+    while (hasMore && builder.getRowCount() < maxRows && builder.getByteSize() < maxSize) {
+      row.clear();
+      hasMore = delegate.nextRaw(row, scannerContext);
+      if (!row.isEmpty()) {
+        if (ScanUtil.isDummy(row)) {
+          if (builder.getRowCount() == 0) {
+            results.addAll(row);
+            return hasMore;
+          }
+          // The batch is returned in place of the dummy row, which only asks us to yield
+          break;
+        }
+        if (row.size() != 1 || !builder.add(row.get(0))) {
+          if (builder.getRowCount() == 0) {
+            results.addAll(row);
+            return hasMore;
+          }
+          pendingRow = PhoenixKeyValueUtil.maybeCopyCellList(new ArrayList<>(row));
+          break;
+        }
+      }
+      if (
+        PhoenixScannerContext.isReturnImmediately(scannerContext)
+          || PhoenixScannerContext.isTimedOut(scannerContext, pageSizeMs)
+      ) {
+        break;
+      }
+    }
+    if (builder.getRowCount() > 0) {
+      results.add(builder.build());
+    }
+    return hasMore || pendingRow != null;
+  }
+}
@@ -34,4 +34,10 @@ public interface GroupByCache extends Closeable {
   RegionScanner getScanner(RegionScanner s);
 
   void cacheAggregateRowKey(ImmutableBytesPtr value, ImmutableBytesPtr rowKey);
+
+  /**
+   * Returns true once the cache has moved aggregators out of memory, after which aggregators
+   * returned by {@link #cache(ImmutableBytesPtr)} may no longer be the ones held by the cache.
+   */
+  boolean hasSpilled();
 }
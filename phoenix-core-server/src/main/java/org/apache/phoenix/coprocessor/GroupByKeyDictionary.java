@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.aggregator.Aggregator;
+import org.apache.phoenix.expression.aggregator.ServerAggregators;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.TupleUtil;
+
+/**
+ * Groups rows on dictionary codes of the group by expression values instead of on the concatenated
+ * group by key bytes. Each expression value is mapped to a per scan integer code and the codes are
+ * packed into a long that identifies the group, so repeated groups are found without building,
+ * hashing and comparing the full key. The full key is only built once per group, to register the
+ * group with the {@link GroupByCache}, which remains responsible for emitting the results.
+ * <p>
+ * Once a dictionary outgrows its maximum size or the cache starts spilling, the groups are handed
+ * back to the cache and the caller goes back to aggregating on the full key.
+ */
+class GroupByKeyDictionary {
+  private final List<Expression> expressions;
+  private final GroupByCache groupByCache;
+  private final ServerAggregators aggregators;
+  private final int maxSize;
+  private final int bitsPerExpression;
+  private final List<Map<ImmutableBytesPtr, Integer>> dictionaries;
+  private final List<List<byte[]>> values;
+  private final byte[][] lastValues;
+  private final int[] lastCodes;
+  private final Map<Long, Group> groups = new HashMap<>();
+  private final ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+  private final ImmutableBytesPtr probe = new ImmutableBytesPtr();
+  private boolean isClosed;
+
+  private static class Group {
+    private final ImmutableBytesPtr key;
+    private final Aggregator[] aggregators;
+    private ImmutableBytesPtr lastRowKey;
+
+    private Group(ImmutableBytesPtr key, Aggregator[] aggregators) {
+      this.key = key;
+      this.aggregators = aggregators;
+    }
+  }
+
+  private GroupByKeyDictionary(List<Expression> expressions, GroupByCache groupByCache,
+    ServerAggregators aggregators, int maxSize, int bitsPerExpression) {
+    this.expressions = expressions;
+    this.groupByCache = groupByCache;
+    this.aggregators = aggregators;
+    this.maxSize = maxSize;
+    this.bitsPerExpression = bitsPerExpression;
+    this.dictionaries = new ArrayList<>(expressions.size());
+    this.values = new ArrayList<>(expressions.size());
+    for (int i = 0; i < expressions.size(); i++) {
+      dictionaries.add(new HashMap<>());
+      values.add(new ArrayList<>());
+    }
+    this.lastValues = new byte[expressions.size()][];
+    this.lastCodes = new int[expressions.size()];
+  }
+
+  /**
+   * Returns a dictionary for the group by expressions, or null if dictionary encoding is disabled,
+   * none of the expressions is a string or the codes of all expressions would not fit in a long.
+   */
+  static GroupByKeyDictionary newInstance(Configuration conf, List<Expression> expressions,
+    GroupByCache groupByCache, ServerAggregators aggregators) {
+    if (
+      !conf.getBoolean(QueryServices.GROUPBY_DICTIONARY_ENABLED_ATTRIB,
+        QueryServicesOptions.DEFAULT_GROUPBY_DICTIONARY_ENABLED)
+    ) {
+      return null;
+    }
+    boolean hasString = false;
+    for (Expression expression : expressions) {
+      hasString |= expression.getDataType().isCoercibleTo(PVarchar.INSTANCE);
+    }
+    int maxSize = conf.getInt(QueryServices.GROUPBY_DICTIONARY_MAX_SIZE_ATTRIB,
+      QueryServicesOptions.DEFAULT_GROUPBY_DICTIONARY_MAX_SIZE);
+    int bitsPerExpression = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(1, maxSize - 1));
+    if (!hasString || maxSize <= 0 || bitsPerExpression * expressions.size() >= Long.SIZE) {
+      return null;
+    }
+    return new GroupByKeyDictionary(expressions, groupByCache, aggregators, maxSize,
+      bitsPerExpression);
+  }
+
+  /**
+   * Aggregates a row into its group.
+   * @param result the row
+   * @param rowKey the row key of the row, remembered as the last scanned row key of the group
+   * @return false if the dictionary has given up, in which case all groups have been handed back to
+   *         the cache and the row still needs to be aggregated by the caller
+   */
+  boolean aggregate(Tuple result, ImmutableBytesPtr rowKey) throws IOException {
+    if (isClosed) {
+      return false;
+    }
+    long code = 0;
+    for (int i = 0; i < expressions.size(); i++) {
+      if (!expressions.get(i).evaluate(result, ptr)) {
+        ptr.set(ByteUtil.EMPTY_BYTE_ARRAY);
+      }
+      int valueCode = encode(i);
+      if (valueCode < 0) {
+        close();
+        return false;
+      }
+      code = (code << bitsPerExpression) | valueCode;
+    }
+    Group group = groups.get(code);
+    if (group == null) {
+      ImmutableBytesPtr key = TupleUtil.getConcatenatedValue(result, expressions);
+      Aggregator[] rowAggregators = groupByCache.cache(key);
+      groupByCache.cacheAggregateRowKey(key, rowKey);
+      aggregators.aggregate(rowAggregators, result);
+      if (groupByCache.hasSpilled()) {
+        // Aggregators handed out before may have been evicted, so stop holding on to them
+        close();
+      } else {
+        groups.put(code, new Group(key, rowAggregators));
+      }
+      return true;
+    }
+    group.lastRowKey = rowKey;
+    aggregators.aggregate(group.aggregators, result);
+    return true;
+  }
+
+  private int encode(int index) {
+    byte[] lastValue = lastValues[index];
+    if (
+      lastValue != null
+        && Bytes.equals(lastValue, 0, lastValue.length, ptr.get(), ptr.getOffset(), ptr.getLength())
+    ) {
+      return lastCodes[index];
+    }
+    Map<ImmutableBytesPtr, Integer> dictionary = dictionaries.get(index);
+    probe.set(ptr.get(), ptr.getOffset(), ptr.getLength());
+    Integer code = dictionary.get(probe);
+    if (code == null) {
+      if (dictionary.size() == maxSize) {
+        return -1;
+      }
+      code = dictionary.size();
+      byte[] value = ptr.copyBytes();
+      dictionary.put(new ImmutableBytesPtr(value), code);
+      values.get(index).add(value);
+    }
+    lastValues[index] = values.get(index).get(code);
+    lastCodes[index] = code;
+    return code;
+  }
+
+  /**
+   * Hands the last scanned row key of every group back to the cache and drops the dictionaries.
+   */
+  void close() {
+    if (isClosed) {
+      return;
+    }
+    for (Group group : groups.values()) {
+      if (group.lastRowKey != null) {
+        groupByCache.cacheAggregateRowKey(group.key, group.lastRowKey);
+      }
+    }
+    groups.clear();
+    dictionaries.clear();
+    values.clear();
+    isClosed = true;
+  }
+}
@@ -183,15 +183,31 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
       if (limitBytes != null) {
         limit = PInteger.INSTANCE.getCodec().decodeInt(limitBytes, 0, SortOrder.getDefault());
       }
+      ImmutableBytesPtr aggregateResultCacheKey =
+        j == null && !ScanUtil.isLocalOrUncoveredGlobalIndex(scan)
+          ? AggregateResultCachingRegionScanner.getCacheKey(c.getEnvironment().getRegion(), scan)
+          : null;
+      if (aggregateResultCacheKey != null) {
+        RegionScanner cachedScanner = AggregateResultCachingRegionScanner
+          .getCachedScanner(c.getEnvironment(), aggregateResultCacheKey, innerScanner);
+        if (cachedScanner != null) {
+          return cachedScanner;
+        }
+      }
       long pageSizeMs = getPageSizeMsForRegionScanner(scan);
+      RegionScanner groupByScanner;
       if (keyOrdered) { // Optimize by taking advantage that the rows are
                         // already in the required group by key order
-        return new OrderedGroupByRegionScanner(c, scan, innerScanner, expressions, aggregators,
-          limit, pageSizeMs);
+        groupByScanner = new OrderedGroupByRegionScanner(c, scan, innerScanner, expressions,
+          aggregators, limit, pageSizeMs);
       } else { // Otherwse, collect them all up in an in memory map
-        return new UnorderedGroupByRegionScanner(c, scan, innerScanner, expressions, aggregators,
-          limit, pageSizeMs);
+        groupByScanner = new UnorderedGroupByRegionScanner(c, scan, innerScanner, expressions,
+          aggregators, limit, pageSizeMs);
       }
+      return aggregateResultCacheKey == null
+        ? groupByScanner
+        : new AggregateResultCachingRegionScanner(c.getEnvironment(), aggregateResultCacheKey,
+          groupByScanner);
     }
   }
 
@@ -369,6 +385,11 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
       return aggregateMap.size();
     }
 
+    @Override
+    public boolean hasSpilled() {
+      return false;
+    }
+
   }
 
   private static final class GroupByCacheFactory {
@@ -408,6 +429,7 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
     private final long pageSizeMs;
     private RegionScanner regionScanner = null;
     private final GroupByCache groupByCache;
+    private GroupByKeyDictionary groupByKeyDictionary;
     private final Scan scan;
     private final byte[] scanStartRowKey;
     private final boolean includeStartRowKey;
@@ -455,6 +477,8 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
         ScanUtil.isIncompatibleClientForServerReturnValidRowKey(scan);
       groupByCache = GroupByCacheFactory.INSTANCE.newCache(env, ScanUtil.getTenantId(scan),
         ScanUtil.getCustomAnnotations(scan), aggregators, estDistVals, isIncompatibleClient);
+      groupByKeyDictionary =
+        GroupByKeyDictionary.newInstance(conf, expressions, groupByCache, aggregators);
       if (LOGGER.isDebugEnabled()) {
         LOGGER
           .debug(
@@ -633,13 +657,21 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
                 return getDummyResult(resultsToReturn);
               }
               result.setKeyValues(results);
-              ImmutableBytesPtr key = TupleUtil.getConcatenatedValue(result, expressions);
               ImmutableBytesPtr originalRowKey = new ImmutableBytesPtr();
               result.getKey(originalRowKey);
-              Aggregator[] rowAggregators = groupByCache.cache(key);
-              groupByCache.cacheAggregateRowKey(key, originalRowKey);
-              // Aggregate values here
-              aggregators.aggregate(rowAggregators, result);
+              if (
+                groupByKeyDictionary != null
+                  && !groupByKeyDictionary.aggregate(result, originalRowKey)
+              ) {
+                groupByKeyDictionary = null;
+              }
+              if (groupByKeyDictionary == null) {
+                ImmutableBytesPtr key = TupleUtil.getConcatenatedValue(result, expressions);
+                Aggregator[] rowAggregators = groupByCache.cache(key);
+                groupByCache.cacheAggregateRowKey(key, originalRowKey);
+                // Aggregate values here
+                aggregators.aggregate(rowAggregators, result);
+              }
             }
             if (
               hasMore && groupByCache.size() < limit
@@ -649,6 +681,10 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver
               return getDummyResult(resultsToReturn);
             }
           } while (hasMore && groupByCache.size() < limit);
+          if (groupByKeyDictionary != null) {
+            groupByKeyDictionary.close();
+            groupByKeyDictionary = null;
+          }
           regionScanner = groupByCache.getScanner(delegate);
           // Do not sort here, but sort back on the client instead
           // The reason is that if the scan ever extends beyond a region
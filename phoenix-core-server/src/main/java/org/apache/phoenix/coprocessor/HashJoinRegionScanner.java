@@ -35,6 +35,8 @@ import org.apache.hadoop.hbase.client.RegionInfo;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.regionserver.PhoenixScannerContext;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
@@ -43,10 +45,14 @@ import org.apache.phoenix.cache.GlobalCache;
 import org.apache.phoenix.cache.HashCache;
 import org.apache.phoenix.cache.TenantCache;
 import org.apache.phoenix.coprocessorclient.HashJoinCacheNotFoundException;
+import org.apache.phoenix.coprocessorclient.metrics.MetricsPhoenixCoprocessorSourceFactory;
 import org.apache.phoenix.execute.TupleProjector;
 import org.apache.phoenix.execute.TupleProjector.ProjectedValueTuple;
+import org.apache.phoenix.expression.BloomFilterExpression;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.filter.BooleanExpressionFilter;
+import org.apache.phoenix.filter.PagingFilter;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.iterate.RegionScannerFactory;
 import org.apache.phoenix.join.HashJoinInfo;
@@ -80,6 +86,7 @@ public class HashJoinRegionScanner implements RegionScanner {
   private final boolean useNewValueColumnQualifier;
   private final boolean addArrayCell;
   private final long pageSizeMs;
+  private final List<BloomFilterExpression> bloomFilters;
 
   @SuppressWarnings("unchecked")
   public HashJoinRegionScanner(RegionScanner scanner, Scan scan, TupleProjector projector,
@@ -145,6 +152,49 @@ public class HashJoinRegionScanner implements RegionScanner {
     this.addArrayCell = (arrayFuncRefs != null && arrayFuncRefs.length > 0 && arrayKVRefs != null
       && arrayKVRefs.size() > 0);
     this.pageSizeMs = getPageSizeMsForRegionScanner(scan);
+    this.bloomFilters = bindBloomFilters(scan, cache);
+  }
+
+  /**
+   * Binds the Bloom filters of hash join keys in the scan filter to the filters sent with their
+   * hash caches. The filter of the scan is evaluated by the inner scanner, which is only read once
+   * this scanner is.
+   */
+  private static List<BloomFilterExpression> bindBloomFilters(Scan scan, TenantCache cache)
+    throws IOException {
+    List<BloomFilterExpression> bloomFilters = new ArrayList<>();
+    Filter filter = scan.getFilter();
+    if (filter instanceof PagingFilter) {
+      filter = ((PagingFilter) filter).getDelegateFilter();
+    }
+    if (filter instanceof FilterList) {
+      for (Filter childFilter : ((FilterList) filter).getFilters()) {
+        if (childFilter instanceof BooleanExpressionFilter) {
+          findBloomFilters(((BooleanExpressionFilter) childFilter).getExpression(), bloomFilters);
+        }
+      }
+    } else if (filter instanceof BooleanExpressionFilter) {
+      findBloomFilters(((BooleanExpressionFilter) filter).getExpression(), bloomFilters);
+    }
+    for (BloomFilterExpression bloomFilter : bloomFilters) {
+      HashCache hashCache =
+        (HashCache) cache.getServerCache(new ImmutableBytesPtr(bloomFilter.getCacheId()));
+      if (hashCache != null) {
+        bloomFilter.bind(hashCache.getBloomFilter());
+      }
+    }
+    return bloomFilters;
+  }
+
+  private static void findBloomFilters(Expression expression,
+    List<BloomFilterExpression> bloomFilters) {
+    if (expression instanceof BloomFilterExpression) {
+      bloomFilters.add((BloomFilterExpression) expression);
+      return;
+    }
+    for (Expression child : expression.getChildren()) {
+      findBloomFilters(child, bloomFilters);
+    }
   }
 
   private void processResults(List<Cell> result, boolean hasBatchLimit) throws IOException {
@@ -347,7 +397,21 @@ public class HashJoinRegionScanner implements RegionScanner {
 
   @Override
   public void close() throws IOException {
-    scanner.close();
+    try {
+      scanner.close();
+    } finally {
+      if (!bloomFilters.isEmpty()) {
+        long passed = 0;
+        long rejected = 0;
+        for (BloomFilterExpression bloomFilter : bloomFilters) {
+          passed += bloomFilter.getPassedCount();
+          rejected += bloomFilter.getRejectedCount();
+        }
+        MetricsPhoenixCoprocessorSourceFactory.getInstance().getHashJoinBloomFilterSource()
+          .incrementBloomFilterRowCounts(
+            env.getRegion().getRegionInfo().getTable().getNameAsString(), passed, rejected);
+      }
+    }
   }
 
   @Override
@@ -2952,6 +2952,16 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
     }
   }
 
+  /**
+   * Inherit the columns and indexes of the parent, reusing the merged PTable from the region
+   * server's derived view cache if neither the view nor its ancestors changed since it was built.
+   */
+  private PTable addDerivedColumnsAndIndexesFromParent(PhoenixConnection connection, PTable table,
+    PTable parentTable) throws SQLException {
+    return ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, table, parentTable,
+      GlobalCache.getInstance(env).getDerivedViewCache());
+  }
+
   private void updateCreateTableDdlSuccessMetrics(PTableType tableType) {
     if (tableType == PTableType.TABLE || tableType == PTableType.SYSTEM) {
       metricsSource.incrementCreateTableCount();
@@ -2982,7 +2992,8 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
       // TODO why creating generic connection and not getConnectionOnServer?
       try (PhoenixConnection conn =
         (PhoenixConnection) ConnectionUtil.getInputConnection(env.getConfiguration())) {
-        newTable = ViewUtil.addDerivedColumnsAndIndexesFromAncestors(conn, newTable);
+        newTable = ViewUtil.addDerivedColumnsAndIndexesFromAncestors(conn, newTable,
+          GlobalCache.getInstance(env).getDerivedViewCache());
       }
     }
     Configuration conf = env.getConfiguration();
@@ -3521,7 +3532,7 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
       try (PhoenixConnection connection =
         getServerConnectionForMetaData(env.getConfiguration()).unwrap(PhoenixConnection.class)) {
         PTable pTable = connection.getTableNoCache(table.getParentName().getString());
-        table = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, table, pTable);
+        table = addDerivedColumnsAndIndexesFromParent(connection, table, pTable);
       }
     }
     return new MetaDataMutationResult(MutationCode.TABLE_ALREADY_EXISTS,
@@ -3708,7 +3719,7 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
           try (PhoenixConnection connection =
             getServerConnectionForMetaData(props, env.getConfiguration())
               .unwrap(PhoenixConnection.class)) {
-            table = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, table, parentTable);
+            table = addDerivedColumnsAndIndexesFromParent(connection, table, parentTable);
           }
         }
         if (transformingNewTable != null) {
@@ -3896,7 +3907,7 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
               PhoenixConnection connection = getServerConnectionForMetaData(env.getConfiguration())
                 .unwrap(PhoenixConnection.class)) {
               PTable pTable = connection.getTableNoCache(table.getParentName().getString());
-              table = ViewUtil.addDerivedColumnsAndIndexesFromParent(connection, table, pTable);
+              table = addDerivedColumnsAndIndexesFromParent(connection, table, pTable);
             }
           }
           return new MetaDataMutationResult(MutationCode.TABLE_ALREADY_EXISTS, currentTime, table,
@@ -4364,6 +4375,7 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements RegionCopr
     Cache<ImmutableBytesPtr, PMetaDataEntity> metaDataCache =
       GlobalCache.getInstance(this.env).getMetaDataCache();
     metaDataCache.invalidateAll();
+    cache.getDerivedViewCache().invalidateAll();
     long unfreedBytes = cache.clearTenantCache();
     ClearCacheResponse.Builder builder = ClearCacheResponse.newBuilder();
     builder.setUnfreedBytes(unfreedBytes);
@@ -21,6 +21,8 @@ import static org.apache.phoenix.query.QueryConstants.AGG_TIMESTAMP;
 import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN;
 import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN_FAMILY;
 import static org.apache.phoenix.query.QueryConstants.UNGROUPED_AGG_ROW_KEY;
+import static org.apache.phoenix.query.QueryServices.STATS_COLLECTION_ON_FLUSH_ENABLED;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_STATS_COLLECTION_ON_FLUSH_ENABLED;
 import static org.apache.phoenix.schema.stats.StatisticsCollectionRunTracker.COMPACTION_UPDATE_STATS_ROW_COUNT;
 import static org.apache.phoenix.schema.stats.StatisticsCollectionRunTracker.CONCURRENT_UPDATE_STATS_ROW_COUNT;
 import static org.apache.phoenix.util.ScanUtil.adjustScanFilterForGlobalIndexRegionScanner;
@@ -36,6 +38,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.GuardedBy;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
@@ -59,6 +62,7 @@ import org.apache.hadoop.hbase.coprocessor.RegionObserver;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.ipc.RpcControllerFactory;
 import org.apache.hadoop.hbase.ipc.controller.InterRegionServerIndexRpcControllerFactory;
+import org.apache.hadoop.hbase.regionserver.FlushLifeCycleTracker;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.MiniBatchOperationInProgress;
 import org.apache.hadoop.hbase.regionserver.Region;
@@ -81,6 +85,7 @@ import org.apache.phoenix.expression.ExpressionType;
 import org.apache.phoenix.hbase.index.Indexer;
 import org.apache.phoenix.hbase.index.covered.update.ColumnReference;
 import org.apache.phoenix.hbase.index.exception.IndexWriteException;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.index.GlobalIndexChecker;
 import org.apache.phoenix.index.IndexMaintainer;
 import org.apache.phoenix.index.PhoenixIndexCodec;
@@ -165,6 +170,9 @@ public class UngroupedAggregateRegionObserver extends BaseScannerRegionObserver
   private int scansReferenceCount = 0;
   @GuardedBy("lock")
   private boolean isRegionClosingOrSplitting = false;
+  // Guidepost depth flushes of the region collect statistics with, read from SYSTEM.CATALOG after
+  // each flush rather than on the flush path. Negative until first read.
+  private final AtomicLong flushGuidePostDepth = new AtomicLong(-1);
   private static final Logger LOGGER =
     LoggerFactory.getLogger(UngroupedAggregateRegionObserver.class);
   private Configuration upsertSelectConfig;
@@ -473,6 +481,19 @@ public class UngroupedAggregateRegionObserver extends BaseScannerRegionObserver
       theScanner = new HashJoinRegionScanner(theScanner, scan, p, j, ScanUtil.getTenantId(scan),
         env, useQualifierAsIndex, useNewValueColumnQualifier);
     }
+    ImmutableBytesPtr aggregateResultCacheKey =
+      j == null && !localIndexScan && !uncoveredGlobalIndexScan
+        ? AggregateResultCachingRegionScanner.getCacheKey(region, scan)
+        : null;
+    if (aggregateResultCacheKey != null) {
+      RegionScanner cachedScanner = AggregateResultCachingRegionScanner.getCachedScanner(env,
+        aggregateResultCacheKey, theScanner);
+      if (cachedScanner != null) {
+        return cachedScanner;
+      }
+      return new AggregateResultCachingRegionScanner(env, aggregateResultCacheKey,
+        new UngroupedAggregateRegionScanner(c, theScanner, region, scan, env, this));
+    }
     return new UngroupedAggregateRegionScanner(c, theScanner, region, scan, env, this);
   }
 
@@ -713,6 +734,39 @@ public class UngroupedAggregateRegionObserver extends BaseScannerRegionObserver
     });
   }
 
+  @Override
+  public InternalScanner preFlush(ObserverContext<RegionCoprocessorEnvironment> c, Store store,
+    InternalScanner scanner, FlushLifeCycleTracker tracker) throws IOException {
+    if (
+      !c.getEnvironment().getConfiguration().getBoolean(STATS_COLLECTION_ON_FLUSH_ENABLED,
+        DEFAULT_STATS_COLLECTION_ON_FLUSH_ENABLED)
+    ) {
+      return scanner;
+    }
+    final TableName tableName = c.getEnvironment().getRegion().getRegionInfo().getTable();
+    // Same as for compactions, make sure the stats table is written as the login user
+    return User.runAsLoginUser(new PrivilegedExceptionAction<InternalScanner>() {
+      @Override
+      public InternalScanner run() throws Exception {
+        try {
+          DelegateRegionCoprocessorEnvironment flushConfEnv =
+            new DelegateRegionCoprocessorEnvironment(c.getEnvironment(),
+              ConnectionType.COMPACTION_CONNECTION);
+          StatisticsCollector statisticsCollector =
+            StatisticsCollectorFactory.createStatisticsCollector(flushConfEnv,
+              tableName.getNameAsString(), EnvironmentEdgeManager.currentTimeMillis(),
+              store.getColumnFamilyDescriptor().getName());
+          return statisticsCollector.createFlushScanner(flushConfEnv, store, scanner,
+            flushGuidePostDepth);
+        } catch (Exception e) {
+          // Never fail a flush because of statistics, just log a warning.
+          LOGGER.warn("Unable to collect stats on flush for " + tableName, e);
+          return scanner;
+        }
+      }
+    });
+  }
+
   static PTable deserializeTable(byte[] b) {
     try {
       PTableProtos.PTable ptableProto = PTableProtos.PTable.parseFrom(b);
@@ -164,6 +164,7 @@ public class UngroupedAggregateRegionScanner extends BaseRegionScanner {
   private final long blockingMemStoreSize;
   private long maxBatchSizeBytes = 0L;
   private Table targetHTable = null;
+  private UpsertSelectSequenceAllocator sequenceAllocator = null;
   private boolean incrScanRefCount = false;
   private byte[] indexMaintainersPtr;
   private boolean useIndexProto;
@@ -254,6 +255,13 @@ public class UngroupedAggregateRegionScanner extends BaseRegionScanner {
       values = new byte[projectedTable.getPKColumns().size()][];
       isPKChanging =
         ExpressionUtil.isPkPositionChanging(new TableRef(projectedTable), selectExpressions);
+      byte[] upsertSelectSequences =
+        scan.getAttribute(BaseScannerRegionObserverConstants.UPSERT_SELECT_SEQUENCES);
+      if (upsertSelectSequences != null) {
+        sequenceAllocator = new UpsertSelectSequenceAllocator(upsertSelectSequences,
+          projectedTable.getTenantId() == null ? null : projectedTable.getTenantId().getString(),
+          env);
+      }
     } else {
       byte[] isDeleteAgg = scan.getAttribute(BaseScannerRegionObserverConstants.DELETE_AGG);
       isDelete = isDeleteAgg != null && Bytes.compareTo(PDataType.TRUE_BYTES, isDeleteAgg) == 0;
@@ -354,6 +362,13 @@ public class UngroupedAggregateRegionScanner extends BaseRegionScanner {
           LOGGER.error("Closing table: " + targetHTable + " failed: ", e);
         }
       }
+      if (sequenceAllocator != null) {
+        try {
+          sequenceAllocator.close();
+        } catch (IOException e) {
+          LOGGER.error("Closing sequence allocator failed: ", e);
+        }
+      }
     } finally {
       innerScanner.close();
     }
@@ -516,6 +531,15 @@ public class UngroupedAggregateRegionScanner extends BaseRegionScanner {
     }
   }
 
+  private Tuple newSequenceTuple(Tuple result) throws IOException {
+    try {
+      return sequenceAllocator.newSequenceTuple(result);
+    } catch (SQLException e) {
+      ClientUtil.throwIOException("Allocating sequence values failed", e);
+      return null; // Impossible
+    }
+  }
+
   void upsert(Tuple result, ImmutableBytesWritable ptr,
     UngroupedAggregateRegionObserver.MutationList mutations) {
     Arrays.fill(values, null);
@@ -663,7 +687,8 @@ public class UngroupedAggregateRegionScanner extends BaseRegionScanner {
               } else if (isDelete) {
                 deleteRow(results, mutations);
               } else if (isUpsert) {
-                upsert(result, ptr, mutations);
+                upsert(sequenceAllocator == null ? result : newSequenceTuple(result), ptr,
+                  mutations);
               } else if (deleteCF != null && deleteCQ != null) {
                 deleteCForQ(result, results, mutations);
               }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Append;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
+import org.apache.phoenix.schema.EmptySequenceCacheException;
+import org.apache.phoenix.schema.Sequence;
+import org.apache.phoenix.schema.SequenceKey;
+import org.apache.phoenix.schema.tuple.DelegateTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocates the values of the sequences referenced by NEXT VALUE FOR in a server side UPSERT
+ * SELECT. Values are reserved from SYSTEM.SEQUENCE in blocks, so that a scan over a region only
+ * does one round trip per block instead of one per row, and the values left over when the scan is
+ * closed are returned.
+ */
+class UpsertSelectSequenceAllocator implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpsertSelectSequenceAllocator.class);
+
+  private final Table sequenceTable;
+  private final long blockSize;
+  private final Sequence[] sequences;
+  // Set once reserving a block of a sequence failed, as is the case for cycling sequences and
+  // sequences with less than a block left
+  private final boolean[] useCacheSize;
+  private final long[] values;
+
+  /**
+   * @param tenantId tenant of the table upserted into, the only tenant whose sequences may be used
+   */
+  UpsertSelectSequenceAllocator(byte[] serializedSequences, String tenantId,
+    RegionCoprocessorEnvironment env) throws IOException {
+    // SYSTEM.SEQUENCE is resolved here rather than taken from the scan. The Connection is a
+    // singleton. It MUST NOT be closed.
+    this(serializedSequences, tenantId,
+      ServerUtil.ConnectionFactory
+        .getConnection(ServerUtil.ConnectionType.DEFAULT_SERVER_CONNECTION, env)
+        .getTable(SchemaUtil.getPhysicalTableName(
+          PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_NAME_BYTES, env.getConfiguration())));
+  }
+
+  UpsertSelectSequenceAllocator(byte[] serializedSequences, String tenantId, Table sequenceTable)
+    throws IOException {
+    this.sequenceTable = sequenceTable;
+    try {
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(serializedSequences));
+      // Only picks the salt byte of the row of each sequence, which no other sequence shares
+      int nSaltBuckets = WritableUtils.readVInt(input);
+      blockSize = WritableUtils.readVLong(input);
+      int nSequences = WritableUtils.readVInt(input);
+      sequences = new Sequence[nSequences];
+      for (int i = 0; i < nSequences; i++) {
+        String sequenceTenantId = WritableUtils.readString(input);
+        String schemaName = WritableUtils.readString(input);
+        String sequenceName = WritableUtils.readString(input);
+        // The values are reserved with the server's credentials, so make sure the statement
+        // cannot reach the sequences of another tenant
+        if (!Objects.equals(tenantId, sequenceTenantId)) {
+          throw new DoNotRetryIOException("Sequence "
+            + SchemaUtil.getTableName(schemaName, sequenceName) + " of tenant " + sequenceTenantId
+            + " may not be used to upsert into a table of tenant " + tenantId);
+        }
+        sequences[i] =
+          new Sequence(new SequenceKey(sequenceTenantId, schemaName, sequenceName, nSaltBuckets));
+      }
+    } catch (IOException | RuntimeException e) {
+      sequenceTable.close();
+      throw e;
+    }
+    useCacheSize = new boolean[sequences.length];
+    values = new long[sequences.length];
+  }
+
+  /**
+   * Allocates the next value of every sequence and returns a tuple exposing them to the
+   * SequenceValueExpressions of the UPSERT SELECT.
+   */
+  Tuple newSequenceTuple(Tuple tuple) throws SQLException, IOException {
+    for (int i = 0; i < sequences.length; i++) {
+      values[i] = nextValue(i);
+    }
+    return new DelegateTuple(tuple) {
+      @Override
+      public long getSequenceValue(int index) {
+        return values[index];
+      }
+    };
+  }
+
+  private long nextValue(int index) throws SQLException, IOException {
+    Sequence sequence = sequences[index];
+    try {
+      return sequence.incrementLatestValue();
+    } catch (EmptySequenceCacheException e) {
+      // Exhausted or uninitialized block, or a limit to check under the locked path
+    }
+    try {
+      return sequence.incrementValue(HConstants.LATEST_TIMESTAMP,
+        Sequence.ValueOp.INCREMENT_SEQUENCE, 1);
+    } catch (EmptySequenceCacheException e) {
+      // Reserve a new block below
+    }
+    if (blockSize > 1 && !useCacheSize[index]) {
+      Result result = sequenceTable.increment(sequence.newIncrement(HConstants.LATEST_TIMESTAMP,
+        Sequence.ValueOp.INCREMENT_SEQUENCE, blockSize));
+      try {
+        sequence.cacheValues(result, blockSize);
+        return sequence.incrementValue(HConstants.LATEST_TIMESTAMP,
+          Sequence.ValueOp.INCREMENT_SEQUENCE, 1);
+      } catch (SQLException e) {
+        if (
+          e.getErrorCode() != SQLExceptionCode.NUM_SEQ_TO_ALLOCATE_NOT_SUPPORTED.getErrorCode()
+            && e.getErrorCode() != SQLExceptionCode.SEQUENCE_VAL_REACHED_MAX_VALUE.getErrorCode()
+            && e.getErrorCode() != SQLExceptionCode.SEQUENCE_VAL_REACHED_MIN_VALUE.getErrorCode()
+        ) {
+          throw e;
+        }
+        useCacheSize[index] = true;
+      }
+    }
+    Result result = sequenceTable.increment(
+      sequence.newIncrement(HConstants.LATEST_TIMESTAMP, Sequence.ValueOp.INCREMENT_SEQUENCE, 1));
+    return sequence.incrementValue(result, Sequence.ValueOp.INCREMENT_SEQUENCE, 1);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      for (Sequence sequence : sequences) {
+        List<Append> returns = sequence.newReturns();
+        if (returns.isEmpty()) {
+          continue;
+        }
+        try {
+          sequenceTable.batch(returns, new Object[returns.size()]);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          LOGGER.warn("Interrupted returning unused values of sequence " + sequence.getKey(), e);
+        } catch (IOException e) {
+          // Not returning values only leaves a gap in the sequence
+          LOGGER.warn("Failed to return unused values of sequence " + sequence.getKey(), e);
+        }
+      }
+    } finally {
+      sequenceTable.close();
+    }
+  }
+}
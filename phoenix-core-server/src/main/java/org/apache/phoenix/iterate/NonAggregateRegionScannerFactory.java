@@ -47,9 +47,11 @@ import org.apache.hadoop.io.WritableUtils;
 import org.apache.phoenix.cache.GlobalCache;
 import org.apache.phoenix.cache.TenantCache;
 import org.apache.phoenix.coprocessor.BaseRegionScanner;
+import org.apache.phoenix.coprocessor.ColumnarBatchRegionScanner;
 import org.apache.phoenix.coprocessor.HashJoinRegionScanner;
 import org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverConstants;
 import org.apache.phoenix.coprocessorclient.MetaDataProtocol;
+import org.apache.phoenix.coprocessorclient.ScanRegionObserverConstants;
 import org.apache.phoenix.execute.TupleProjector;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
@@ -202,10 +204,34 @@ public class NonAggregateRegionScannerFactory extends RegionScannerFactory {
       deserializeFromScan(scan, innerScanner, spoolingEnabled, thresholdBytes);
     final OrderedResultIterator iterator = ic.getIterator();
     if (iterator == null) {
-      return innerScanner;
+      return getColumnarBatchScanner(scan, innerScanner,
+        j == null && dataColumns == null ? p : null);
     }
     // TODO:the above wrapped scanner should be used here also
-    return getTopNScanner(env, innerScanner, iterator, tenantId, ic.getScannerContext());
+    return getColumnarBatchScanner(scan,
+      getTopNScanner(env, innerScanner, iterator, tenantId, ic.getScannerContext()),
+      j == null && dataColumns == null ? p : null);
+  }
+
+  /**
+   * Packs the projected rows returned by the scanner into columnar batches if the client asked for
+   * it and the rows are plain projected values.
+   */
+  private RegionScanner getColumnarBatchScanner(Scan scan, RegionScanner scanner,
+    TupleProjector projector) {
+    byte[] maxRowsBytes =
+      scan.getAttribute(BaseScannerRegionObserverConstants.COLUMNAR_BATCH_MAX_ROWS);
+    if (
+      maxRowsBytes == null || projector == null || ScanUtil.isUncoveredGlobalIndex(scan)
+        || scan.getAttribute(ScanRegionObserverConstants.WILDCARD_SCAN_INCLUDES_DYNAMIC_COLUMNS)
+            != null
+    ) {
+      return scanner;
+    }
+    int maxSize = env.getConfiguration().getInt(QueryServices.COLUMNAR_BATCH_MAX_SIZE_ATTRIB,
+      QueryServicesOptions.DEFAULT_COLUMNAR_BATCH_MAX_SIZE);
+    return new ColumnarBatchRegionScanner(scanner, projector.getSchema(), Bytes.toInt(maxRowsBytes),
+      maxSize, getPageSizeMsForRegionScanner(scan));
   }
 
   private List<Expression> getServerParsedExpressions(Scan scan,
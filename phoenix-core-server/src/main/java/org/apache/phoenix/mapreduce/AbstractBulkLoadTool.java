@@ -97,6 +97,10 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
     new Option("k", "skip-header", false, "Skip the first line of CSV files (the header)");
   static final Option ENABLE_CORRUPT_INDEXES = new Option("corruptindexes", "corruptindexes", false,
     "Allow bulk loading into non-empty tables with global secondary indexes");
+  static final Option LOCAL_OPT = new Option("l", "local", false,
+    "Parse the input and write the HFiles in this process instead of running a MapReduce job");
+  static final Option SPLIT_SKEWED_OPT = new Option("ss", "split-skewed-regions", false,
+    "Sample the input and spread the HFiles of heavily loaded regions over multiple reducers");
 
   /**
    * Set configuration values based on parsed command line options.
@@ -122,6 +126,8 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
     options.addOption(HELP_OPT);
     options.addOption(SKIP_HEADER_OPT);
     options.addOption(ENABLE_CORRUPT_INDEXES);
+    options.addOption(LOCAL_OPT);
+    options.addOption(SPLIT_SKEWED_OPT);
     return options;
   }
 
@@ -222,6 +228,9 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
     if (cmdLine.hasOption(SKIP_HEADER_OPT.getOpt())) {
       PhoenixTextInputFormat.setSkipHeader(conf);
     }
+    if (cmdLine.hasOption(SPLIT_SKEWED_OPT.getOpt())) {
+      conf.setBoolean(BulkLoadKeySampler.ENABLED_CONFKEY, true);
+    }
 
     final String inputPaths = cmdLine.getOptionValue(INPUT_PATH_OPT.getOpt());
     final Path outputPath;
@@ -313,7 +322,8 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
       }
     }
 
-    return submitJob(conf, tableName, inputPaths, outputPath, tablesToBeLoaded, hasLocalIndexes);
+    return submitJob(conf, tableName, inputPaths, outputPath, tablesToBeLoaded, hasLocalIndexes,
+      cmdLine.hasOption(LOCAL_OPT.getOpt()));
   }
 
   /**
@@ -322,6 +332,17 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
   public int submitJob(final Configuration conf, final String qualifiedTableName,
     final String inputPaths, final Path outputPath, List<TargetTableRef> tablesToBeLoaded,
     boolean hasLocalIndexes) throws Exception {
+    return submitJob(conf, qualifiedTableName, inputPaths, outputPath, tablesToBeLoaded,
+      hasLocalIndexes, false);
+  }
+
+  /**
+   * Runs the job, either on the cluster or in this process with {@link LocalBulkLoader}. Loads the
+   * HFiles onto the respective tables.
+   */
+  public int submitJob(final Configuration conf, final String qualifiedTableName,
+    final String inputPaths, final Path outputPath, List<TargetTableRef> tablesToBeLoaded,
+    boolean hasLocalIndexes, boolean local) throws Exception {
 
     Job job = Job.getInstance(conf, "Phoenix MapReduce import for " + qualifiedTableName);
     FileInputFormat.addInputPaths(job, inputPaths);
@@ -345,7 +366,13 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
           if (regionLocator != null) regionLocator.close();
         }
       }
-      MultiHfileOutputFormat.configureIncrementalLoad(job, tablesToBeLoaded);
+      Set<TableRowkeyPair> tablesStartKeys;
+      if (local) {
+        tablesStartKeys =
+          MultiHfileOutputFormat.configureTables(job.getConfiguration(), tablesToBeLoaded);
+      } else {
+        tablesStartKeys = MultiHfileOutputFormat.configureIncrementalLoad(job, tablesToBeLoaded);
+      }
 
       final String tableNamesAsJson = TargetTableRefFunctions.NAMES_TO_JSON.apply(tablesToBeLoaded);
       final String logicalNamesAsJson =
@@ -358,8 +385,24 @@ public abstract class AbstractBulkLoadTool extends Configured implements Tool {
       // give subclasses their hook
       setupJob(job);
 
-      LOGGER.info("Running MapReduce import job from {} to {}", inputPaths, outputPath);
-      boolean success = job.waitForCompletion(true);
+      if (job.getConfiguration().getBoolean(BulkLoadKeySampler.ENABLED_CONFKEY, false)) {
+        // The mapper is only known once the subclass has set up the job
+        tablesStartKeys = new BulkLoadKeySampler(job).getPartitionStartKeys(tablesStartKeys);
+        if (!local) {
+          job.setNumReduceTasks(tablesStartKeys.size());
+          MultiHfileOutputFormat.configurePartitioner(job, tablesStartKeys);
+        }
+      }
+
+      boolean success;
+      if (local) {
+        LOGGER.info("Running local import from {} to {}", inputPaths, outputPath);
+        new LocalBulkLoader(job, tablesStartKeys).run();
+        success = true;
+      } else {
+        LOGGER.info("Running MapReduce import job from {} to {}", inputPaths, outputPath);
+        success = job.waitForCompletion(true);
+      }
 
       if (success) {
         if (hasLocalIndexes) {
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.UpsertExecutor;
+import org.apache.phoenix.util.avro.AvroColumnMapper;
+import org.apache.phoenix.util.avro.AvroUpsertExecutor;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.phoenix.thirdparty.com.google.common.base.Preconditions;
+
+/**
+ * MapReduce mapper that converts Avro records into KeyValues that can be written to HFiles. Records
+ * are typed, so no parsing is involved. Where the table allows it, the fields of a record are
+ * mapped straight onto the columns of its row by {@link AvroColumnMapper}, without executing an
+ * UPSERT per record. Other tables fall back to upserting each record through
+ * {@link AvroUpsertExecutor}. Either way the uncommitted KeyValues are extracted and rolled back
+ * once per batch of records rather than once per record.
+ */
+public class AvroToKeyValueMapper
+  extends AbstractFormatToBytesWritableMapper<NullWritable, GenericRecord, GenericRecord> {
+
+  /** Configuration key for the number of records upserted before their KeyValues are written */
+  public static final String BATCH_SIZE_CONFKEY = "phoenix.mapreduce.import.avro.batchsize";
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private List<GenericRecord> batch;
+  private int batchSize;
+  private AvroColumnMapper columnMapper;
+
+  @Override
+  protected void setup(Context context) throws IOException, InterruptedException {
+    super.setup(context);
+    Configuration conf = context.getConfiguration();
+    batchSize = Math.max(1, conf.getInt(BATCH_SIZE_CONFKEY, DEFAULT_BATCH_SIZE));
+    batch = new ArrayList<>(batchSize);
+    try {
+      columnMapper = buildColumnMapper(conf);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the mapper of record fields onto columns, or null if the table has to be loaded through
+   * the upsert executor.
+   */
+  @VisibleForTesting
+  AvroColumnMapper buildColumnMapper(Configuration conf) throws SQLException {
+    List<ColumnInfo> columnInfoList = buildColumnInfoList(conf);
+    PTable table = PhoenixRuntime.getTable(conn, conf.get(TABLE_NAME_CONFKEY));
+    if (!AvroColumnMapper.isSupported(conn, table, columnInfoList)) {
+      LOGGER.info("Loading {} through UPSERT statements", table.getName());
+      return null;
+    }
+    return new AvroColumnMapper(conn, table, columnInfoList, upsertListener);
+  }
+
+  @Override
+  protected void map(NullWritable key, GenericRecord value, Context context)
+    throws IOException, InterruptedException {
+    if (conn == null) {
+      throw new RuntimeException("Connection not initialized.");
+    }
+    batch.add(value);
+    if (batch.size() >= batchSize) {
+      flush(context);
+    }
+  }
+
+  @Override
+  protected void cleanup(Context context) throws IOException, InterruptedException {
+    try {
+      flush(context);
+    } finally {
+      super.cleanup(context);
+    }
+  }
+
+  private void flush(Context context) throws IOException, InterruptedException {
+    if (batch == null || batch.isEmpty()) {
+      return;
+    }
+    try {
+      if (columnMapper != null) {
+        columnMapper.execute(batch);
+        writeUncommittedKeyValues(context);
+      } else {
+        writeKeyValues(batch, context);
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  @VisibleForTesting
+  @Override
+  protected UpsertExecutor<GenericRecord, ?> buildUpsertExecutor(Configuration conf) {
+    String tableName = conf.get(TABLE_NAME_CONFKEY);
+    Preconditions.checkNotNull(tableName, "table name is not configured");
+
+    List<ColumnInfo> columnInfoList = buildColumnInfoList(conf);
+
+    return new AvroUpsertExecutor(conn, tableName, columnInfoList, upsertListener);
+  }
+}
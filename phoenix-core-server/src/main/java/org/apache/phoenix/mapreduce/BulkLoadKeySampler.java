@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.phoenix.mapreduce.bulkload.TableRowkeyPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Samples the output keys of a bulk load to spread the HFiles of heavily loaded regions over more
+ * than one reducer. Partitioning reducers by region alone makes the job as slow as its hottest
+ * region when the input is skewed, e.g. when loading into a new or pre-split table. The sampler
+ * reads input splits picked at random across the whole input, keeps a uniform sample of all of
+ * their records, and runs the job's mapper in process over the sampled records. From the output it
+ * estimates how many bytes of map output every region receives, and adds split points inside the
+ * regions that receive more than {@link #BYTES_PER_REDUCER_CONFKEY} bytes. Each of the resulting
+ * partitions is written by its own reducer, so such regions get several, non overlapping HFiles.
+ */
+public class BulkLoadKeySampler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkLoadKeySampler.class);
+
+  /** Configuration key for whether the input is sampled to split the output of skewed regions */
+  public static final String ENABLED_CONFKEY = "phoenix.mapreduce.import.skew.sampling.enabled";
+
+  /** Configuration key for the maximum number of input splits sampled */
+  public static final String SAMPLE_SPLITS_CONFKEY = "phoenix.mapreduce.import.skew.sample.splits";
+
+  /**
+   * Configuration key for the number of input records sampled per sampled input split. The sample
+   * is drawn from all of the records of these splits rather than from their first records.
+   */
+  public static final String SAMPLE_RECORDS_CONFKEY =
+    "phoenix.mapreduce.import.skew.sample.records";
+
+  /** Configuration key for the estimated bytes of map output a single reducer should write */
+  public static final String BYTES_PER_REDUCER_CONFKEY =
+    "phoenix.mapreduce.import.skew.bytes.per.reducer";
+
+  /** Configuration key for the maximum number of reducers writing the HFiles of one region */
+  public static final String MAX_REDUCERS_PER_REGION_CONFKEY =
+    "phoenix.mapreduce.import.skew.max.reducers.per.region";
+
+  public static final int DEFAULT_SAMPLE_SPLITS = 10;
+  public static final int DEFAULT_SAMPLE_RECORDS = 10000;
+  public static final long DEFAULT_BYTES_PER_REDUCER = 1024L * 1024 * 1024;
+  public static final int DEFAULT_MAX_REDUCERS_PER_REGION = 32;
+
+  private final Job job;
+
+  /**
+   * @param job job configured with the input paths, input format and mapper of the bulk load
+   */
+  public BulkLoadKeySampler(Job job) {
+    this.job = job;
+  }
+
+  /**
+   * Samples the input and returns the partition start keys to use for the job: the given region
+   * start keys, plus split points inside every region estimated to receive more map output than a
+   * single reducer should write.
+   * @param regionStartKeys start keys of the regions of all of the tables to be loaded
+   */
+  public Set<TableRowkeyPair> getPartitionStartKeys(Set<TableRowkeyPair> regionStartKeys)
+    throws Exception {
+    Configuration conf = job.getConfiguration();
+    InputFormat<?, ?> inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+    List<InputSplit> splits = inputFormat.getSplits(job);
+    if (splits.isEmpty()) {
+      return regionStartKeys;
+    }
+    int sampleSplits =
+      Math.min(splits.size(), conf.getInt(SAMPLE_SPLITS_CONFKEY, DEFAULT_SAMPLE_SPLITS));
+    int sampleRecords = conf.getInt(SAMPLE_RECORDS_CONFKEY, DEFAULT_SAMPLE_RECORDS);
+
+    long inputBytes = 0;
+    for (InputSplit split : splits) {
+      inputBytes += split.getLength();
+    }
+    // Pick the sampled splits at random across the whole input, as the order of the splits
+    // follows the order of the input files and of the records within them
+    Random random = new Random();
+    List<InputSplit> sampledSplits = new ArrayList<>(splits);
+    Collections.shuffle(sampledSplits, random);
+    sampledSplits = sampledSplits.subList(0, sampleSplits);
+    Reservoir<SampledRecord> reservoir =
+      new Reservoir<>((int) Math.min(Integer.MAX_VALUE, (long) sampleRecords * sampleSplits),
+        random);
+    long sampledInputBytes = 0;
+    for (int i = 0; i < sampledSplits.size(); i++) {
+      sampleRecords(sampledSplits.get(i), i, reservoir);
+      sampledInputBytes += sampledSplits.get(i).getLength();
+    }
+    KeyCollector collector = new KeyCollector();
+    mapSampledRecords(sampledSplits, reservoir.getSamples(), collector);
+    if (collector.keys.isEmpty()) {
+      return regionStartKeys;
+    }
+    // Every sampled record stands for the same number of records of the sampled splits, and the
+    // sampled splits for their share of the input. Inputs of unknown length count by splits.
+    double scale = (double) reservoir.getSeen() / reservoir.getSamples().size()
+      * (sampledInputBytes > 0
+        ? (double) inputBytes / sampledInputBytes
+        : (double) splits.size() / sampleSplits);
+    double bytesPerSample = collector.bytes * scale / collector.keys.size();
+
+    Collections.sort(collector.keys);
+    Set<TableRowkeyPair> partitionStartKeys = getPartitionStartKeys(regionStartKeys, collector.keys,
+      bytesPerSample, conf.getLong(BYTES_PER_REDUCER_CONFKEY, DEFAULT_BYTES_PER_REDUCER),
+      conf.getInt(MAX_REDUCERS_PER_REGION_CONFKEY, DEFAULT_MAX_REDUCERS_PER_REGION));
+    LOGGER.info(
+      "Sampled {} of {} input records from {} input splits, estimating {} bytes of map output; "
+        + "using {} partitions for {} regions",
+      reservoir.getSamples().size(), reservoir.getSeen(), sampleSplits,
+      (long) (collector.bytes * scale), partitionStartKeys.size(), regionStartKeys.size());
+    return partitionStartKeys;
+  }
+
+  /**
+   * Adds split points to the regions whose share of the sampled keys is estimated to exceed
+   * {@code bytesPerReducer}, cutting them at evenly spaced sampled keys.
+   * @param regionStartKeys start keys of the regions of all of the tables to be loaded
+   * @param samples         sorted sampled map output keys
+   * @param bytesPerSample  estimated bytes of map output each sampled key stands for
+   */
+  @VisibleForTesting
+  static Set<TableRowkeyPair> getPartitionStartKeys(Set<TableRowkeyPair> regionStartKeys,
+    List<TableRowkeyPair> samples, double bytesPerSample, long bytesPerReducer,
+    int maxReducersPerRegion) {
+    TableRowkeyPair[] startKeys =
+      regionStartKeys.toArray(new TableRowkeyPair[regionStartKeys.size()]);
+    Arrays.sort(startKeys);
+    Set<TableRowkeyPair> partitionStartKeys = new TreeSet<>(regionStartKeys);
+    int regionStart = 0;
+    while (regionStart < samples.size()) {
+      int region = getRegion(startKeys, samples.get(regionStart));
+      int regionEnd = regionStart + 1;
+      while (
+        regionEnd < samples.size() && (region + 1 >= startKeys.length
+          || samples.get(regionEnd).compareTo(startKeys[region + 1]) < 0)
+      ) {
+        regionEnd++;
+      }
+      int count = regionEnd - regionStart;
+      int reducers = (int) Math.min(Math.min(maxReducersPerRegion, count),
+        Math.ceil(count * bytesPerSample / bytesPerReducer));
+      TableRowkeyPair previous = samples.get(regionStart);
+      for (int i = 1; i < reducers; i++) {
+        TableRowkeyPair splitPoint = samples.get(regionStart + (int) ((long) i * count / reducers));
+        // A row key may be sampled more than once, but all of its cells must go to one reducer,
+        // and a split point at the first sampled key would leave an empty partition before it
+        if (splitPoint.compareTo(previous) > 0) {
+          partitionStartKeys.add(splitPoint);
+          previous = splitPoint;
+        }
+      }
+      regionStart = regionEnd;
+    }
+    return partitionStartKeys;
+  }
+
+  private static int getRegion(TableRowkeyPair[] startKeys, TableRowkeyPair key) {
+    int index = Arrays.binarySearch(startKeys, key);
+    // The regions of a table start with an empty row key, so every key has a floor
+    return index >= 0 ? index : Math.max(0, -index - 2);
+  }
+
+  /**
+   * Reads all of the records of an input split, and offers copies of them to the reservoir.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private void sampleRecords(InputSplit split, int splitIndex, Reservoir<SampledRecord> reservoir)
+    throws Exception {
+    Configuration conf = job.getConfiguration();
+    TaskAttemptContext taskContext = newTaskAttemptContext(splitIndex);
+    InputFormat inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+    RecordReader reader = inputFormat.createRecordReader(split, taskContext);
+    try {
+      reader.initialize(split, taskContext);
+      while (reader.nextKeyValue()) {
+        int slot = reservoir.offer();
+        if (slot >= 0) {
+          reservoir.set(slot,
+            new SampledRecord(splitIndex, ReflectionUtils.copy(conf, reader.getCurrentKey(), null),
+              ReflectionUtils.copy(conf, reader.getCurrentValue(), null)));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Runs the mapper over the sampled records of every sampled input split, collecting its output
+   * keys.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private void mapSampledRecords(List<InputSplit> splits, List<SampledRecord> records,
+    KeyCollector collector) throws Exception {
+    Configuration conf = job.getConfiguration();
+    List<List<SampledRecord>> recordsBySplit = new ArrayList<>(splits.size());
+    for (int i = 0; i < splits.size(); i++) {
+      recordsBySplit.add(new ArrayList<>());
+    }
+    for (SampledRecord record : records) {
+      recordsBySplit.get(record.splitIndex).add(record);
+    }
+    for (int i = 0; i < splits.size(); i++) {
+      if (recordsBySplit.get(i).isEmpty()) {
+        continue;
+      }
+      TaskAttemptContext taskContext = newTaskAttemptContext(i);
+      Mapper mapper = ReflectionUtils.newInstance(job.getMapperClass(), conf);
+      SampledRecordReader reader = new SampledRecordReader(recordsBySplit.get(i));
+      MapContext mapContext = new MapContextImpl(conf, taskContext.getTaskAttemptID(), reader,
+        collector, null, new LocalBulkLoader.CountersReporter(new Counters()), splits.get(i));
+      mapper.run(new WrappedMapper().getMapContext(mapContext));
+    }
+  }
+
+  private TaskAttemptContext newTaskAttemptContext(int splitIndex) {
+    return new TaskAttemptContextImpl(job.getConfiguration(),
+      new TaskAttemptID("sample", 0, TaskType.MAP, splitIndex, 0));
+  }
+
+  /**
+   * Keeps a uniform random sample of a fixed number of the records offered to it, however many
+   * records are offered (reservoir sampling).
+   */
+  @VisibleForTesting
+  static class Reservoir<T> {
+    private final int capacity;
+    private final Random random;
+    private final List<T> samples = new ArrayList<>();
+    private long seen;
+
+    Reservoir(int capacity, Random random) {
+      this.capacity = capacity;
+      this.random = random;
+    }
+
+    /**
+     * Offers the next record.
+     * @return the slot to store the record in with {@link #set(int, Object)}, or -1 if the record
+     *         isn't sampled
+     */
+    int offer() {
+      seen++;
+      if (samples.size() < capacity) {
+        return samples.size();
+      }
+      long slot = (long) (random.nextDouble() * seen);
+      return slot < capacity ? (int) slot : -1;
+    }
+
+    void set(int slot, T record) {
+      if (slot == samples.size()) {
+        samples.add(record);
+      } else {
+        samples.set(slot, record);
+      }
+    }
+
+    List<T> getSamples() {
+      return samples;
+    }
+
+    long getSeen() {
+      return seen;
+    }
+  }
+
+  /**
+   * A copy of an input record, as record readers reuse their keys and values.
+   */
+  private static class SampledRecord {
+    private final int splitIndex;
+    private final Object key;
+    private final Object value;
+
+    private SampledRecord(int splitIndex, Object key, Object value) {
+      this.splitIndex = splitIndex;
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Collects copies of the keys written by the mapper and the total size of its output.
+   */
+  private static class KeyCollector extends RecordWriter<TableRowkeyPair, ImmutableBytesWritable> {
+    private final List<TableRowkeyPair> keys = new ArrayList<>();
+    private long bytes;
+
+    @Override
+    public void write(TableRowkeyPair key, ImmutableBytesWritable value) {
+      keys.add(new TableRowkeyPair(key.getTableName(),
+        new ImmutableBytesWritable(key.getRowkey().copyBytes())));
+      bytes += key.getRowkey().getLength() + value.getLength();
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) {
+    }
+  }
+
+  /**
+   * Returns the sampled records of an input split.
+   */
+  private static class SampledRecordReader extends RecordReader<Object, Object> {
+    private final List<SampledRecord> records;
+    private int index = -1;
+
+    private SampledRecordReader(List<SampledRecord> records) {
+      this.records = records;
+    }
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) {
+    }
+
+    @Override
+    public boolean nextKeyValue() {
+      return ++index < records.size();
+    }
+
+    @Override
+    public Object getCurrentKey() {
+      return records.get(index).key;
+    }
+
+    @Override
+    public Object getCurrentValue() {
+      return records.get(index).value;
+    }
+
+    @Override
+    public float getProgress() {
+      return records.isEmpty() ? 1.0f : Math.min(1.0f, (float) index / records.size());
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
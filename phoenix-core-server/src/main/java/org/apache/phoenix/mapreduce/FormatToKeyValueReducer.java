@@ -66,8 +66,10 @@ public class FormatToKeyValueReducer
 
   @Override
   protected void setup(Context context) throws IOException, InterruptedException {
-    Configuration conf = context.getConfiguration();
+    setup(context.getConfiguration());
+  }
 
+  void setup(Configuration conf) {
     // pass client configuration into driver
     Properties clientInfos = new Properties();
     for (Map.Entry<String, String> entry : conf) {
@@ -134,6 +136,20 @@ public class FormatToKeyValueReducer
   protected void reduce(TableRowkeyPair key, Iterable<ImmutableBytesWritable> values,
     Reducer<TableRowkeyPair, ImmutableBytesWritable, TableRowkeyPair, KeyValue>.Context context)
     throws IOException, InterruptedException {
+    TreeSet<KeyValue> map = toKeyValues(key, values);
+    context.setStatus("Read " + map.getClass());
+    int index = 0;
+    for (KeyValue kv : map) {
+      context.write(key, kv);
+      if (++index % 100 == 0) context.setStatus("Wrote " + index);
+    }
+  }
+
+  /**
+   * Restores the sorted KeyValues of a row from the column values aggregated by the mapper.
+   */
+  TreeSet<KeyValue> toKeyValues(TableRowkeyPair key, Iterable<ImmutableBytesWritable> values)
+    throws IOException {
     TreeSet<KeyValue> map = new TreeSet<KeyValue>(CellComparatorImpl.COMPARATOR);
     for (ImmutableBytesWritable aggregatedArray : values) {
       DataInputStream input = new DataInputStream(new ByteArrayInputStream(aggregatedArray.get()));
@@ -169,11 +185,6 @@ public class FormatToKeyValueReducer
       }
       Closeables.closeQuietly(input);
     }
-    context.setStatus("Read " + map.getClass());
-    int index = 0;
-    for (KeyValue kv : map) {
-      context.write(key, kv);
-      if (++index % 100 == 0) context.setStatus("Wrote " + index);
-    }
+    return map;
   }
 }
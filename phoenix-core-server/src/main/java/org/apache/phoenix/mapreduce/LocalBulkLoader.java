@@ -0,0 +1,446 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.phoenix.mapreduce.bulkload.TableRowkeyPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs a bulk load job in the current process rather than as a MapReduce job. The input splits are
+ * parsed in parallel by the job's mapper, whose output is sorted in memory and spilled to local
+ * files partitioned by the target region, as the MapReduce shuffle would. The spilled runs of each
+ * region are then merged, turned into KeyValues by {@link FormatToKeyValueReducer} and written to
+ * HFiles by {@link MultiHfileOutputFormat}, one region per thread. This avoids the start up and
+ * shuffle cost of a MapReduce job for loads that fit on a single machine.
+ */
+public class LocalBulkLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LocalBulkLoader.class);
+
+  /** Configuration key for the number of threads used to parse input and write HFiles */
+  public static final String THREADS_CONFKEY = "phoenix.mapreduce.import.local.threads";
+
+  /** Configuration key for the bytes of map output each thread sorts in memory before spilling */
+  public static final String SORT_BUFFER_BYTES_CONFKEY =
+    "phoenix.mapreduce.import.local.sortbuffer.bytes";
+
+  /** Configuration key for the local directory sorted map output is spilled to */
+  public static final String SPILL_DIR_CONFKEY = "phoenix.mapreduce.import.local.spilldir";
+
+  public static final long DEFAULT_SORT_BUFFER_BYTES = 128L * 1024 * 1024;
+
+  // Approximate heap overhead of a buffered map output record
+  private static final int RECORD_OVERHEAD = 96;
+
+  private static final String JOB_TRACKER_ID = "local";
+
+  private final Job job;
+  private final TableRowkeyPair[] regionStartKeys;
+  private final Counters counters = new Counters();
+
+  /**
+   * @param job             job configured with the input paths, input format, mapper and output
+   *                        path of the bulk load
+   * @param regionStartKeys start keys of the regions of all of the tables to be loaded
+   */
+  public LocalBulkLoader(Job job, Set<TableRowkeyPair> regionStartKeys) {
+    this.job = job;
+    this.regionStartKeys = regionStartKeys.toArray(new TableRowkeyPair[regionStartKeys.size()]);
+    Arrays.sort(this.regionStartKeys);
+  }
+
+  /**
+   * Parses the input and writes the HFiles of every target table under the job's output path.
+   */
+  public void run() throws Exception {
+    Configuration conf = job.getConfiguration();
+    int threads = conf.getInt(THREADS_CONFKEY, Runtime.getRuntime().availableProcessors());
+    File spillDir = Files.createTempDirectory(
+      new File(conf.get(SPILL_DIR_CONFKEY, System.getProperty("java.io.tmpdir"))).toPath(),
+      "phoenix-bulkload").toFile();
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("phoenix-bulkload-%d").build());
+    try {
+      InputFormat<?, ?> inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+      List<InputSplit> splits = inputFormat.getSplits(job);
+      LOGGER.info("Parsing {} input splits with {} threads", splits.size(), threads);
+      List<Future<List<SpillFile>>> mapFutures = new ArrayList<>(splits.size());
+      for (int i = 0; i < splits.size(); i++) {
+        final InputSplit split = splits.get(i);
+        final int taskId = i;
+        mapFutures.add(executor.submit(() -> map(split, taskId, spillDir)));
+      }
+      List<SpillFile> spills = new ArrayList<>();
+      for (Future<List<SpillFile>> future : mapFutures) {
+        spills.addAll(getResult(future));
+      }
+      logCounters();
+
+      TaskAttemptContext jobContext = newTaskAttemptContext(TaskType.JOB_SETUP, 0);
+      OutputCommitter committer = new MultiHfileOutputFormat().getOutputCommitter(jobContext);
+      committer.setupJob(jobContext);
+      List<Future<Void>> reduceFutures = new ArrayList<>(regionStartKeys.length);
+      for (int i = 0; i < regionStartKeys.length; i++) {
+        final int partition = i;
+        reduceFutures.add(executor.submit(() -> {
+          reduce(partition, spills);
+          return null;
+        }));
+      }
+      for (Future<Void> future : reduceFutures) {
+        getResult(future);
+      }
+      committer.commitJob(jobContext);
+    } finally {
+      executor.shutdownNow();
+      FileUtils.deleteQuietly(spillDir);
+    }
+  }
+
+  private static <T> T getResult(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw e;
+    }
+  }
+
+  private TaskAttemptContext newTaskAttemptContext(TaskType type, int taskId) {
+    return new TaskAttemptContextImpl(job.getConfiguration(),
+      new TaskAttemptID(JOB_TRACKER_ID, 0, type, taskId, 0));
+  }
+
+  /**
+   * Runs the mapper over an input split, spilling its sorted output whenever the sort buffer fills
+   * up.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private List<SpillFile> map(InputSplit split, int taskId, File spillDir) throws Exception {
+    Configuration conf = job.getConfiguration();
+    TaskAttemptContext taskContext = newTaskAttemptContext(TaskType.MAP, taskId);
+    Mapper mapper = ReflectionUtils.newInstance(job.getMapperClass(), conf);
+    InputFormat inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+    Counters taskCounters = new Counters();
+    SortBuffer buffer = new SortBuffer(spillDir, taskId,
+      conf.getLong(SORT_BUFFER_BYTES_CONFKEY, DEFAULT_SORT_BUFFER_BYTES));
+    RecordReader reader = inputFormat.createRecordReader(split, taskContext);
+    try {
+      MapContext mapContext = new MapContextImpl(conf, taskContext.getTaskAttemptID(), reader,
+        buffer, null, new CountersReporter(taskCounters), split);
+      reader.initialize(split, mapContext);
+      mapper.run(new WrappedMapper().getMapContext(mapContext));
+      buffer.spill();
+    } finally {
+      reader.close();
+    }
+    synchronized (counters) {
+      counters.incrAllCounters(taskCounters);
+    }
+    return buffer.spills;
+  }
+
+  /**
+   * Merges the spilled runs of a region and writes its HFiles.
+   */
+  private void reduce(int partition, List<SpillFile> spills) throws Exception {
+    TaskAttemptContext taskContext = newTaskAttemptContext(TaskType.REDUCE, partition);
+    PriorityQueue<SpillReader> queue = new PriorityQueue<>();
+    try {
+      for (SpillFile spill : spills) {
+        SpillReader spillReader = spill.open(partition);
+        if (spillReader != null) {
+          spillReader.next();
+          queue.add(spillReader);
+        }
+      }
+      if (queue.isEmpty()) {
+        return;
+      }
+      MultiHfileOutputFormat outputFormat = new MultiHfileOutputFormat();
+      OutputCommitter committer = outputFormat.getOutputCommitter(taskContext);
+      committer.setupTask(taskContext);
+      FormatToKeyValueReducer reducer = new FormatToKeyValueReducer();
+      reducer.setup(job.getConfiguration());
+      RecordWriter<TableRowkeyPair, Cell> writer = outputFormat.getRecordWriter(taskContext);
+      try {
+        List<ImmutableBytesWritable> values = new ArrayList<>();
+        while (!queue.isEmpty()) {
+          TableRowkeyPair key = queue.peek().key;
+          values.clear();
+          while (!queue.isEmpty() && queue.peek().key.compareTo(key) == 0) {
+            SpillReader spillReader = queue.poll();
+            values.add(spillReader.value);
+            if (spillReader.next()) {
+              queue.add(spillReader);
+            } else {
+              spillReader.close();
+            }
+          }
+          for (KeyValue kv : reducer.toKeyValues(key, values)) {
+            writer.write(key, kv);
+          }
+        }
+      } finally {
+        writer.close(taskContext);
+      }
+      committer.commitTask(taskContext);
+    } finally {
+      for (SpillReader spillReader : queue) {
+        spillReader.close();
+      }
+    }
+  }
+
+  private int getPartition(TableRowkeyPair key) {
+    int index = Arrays.binarySearch(regionStartKeys, key);
+    // The regions of a table start with an empty row key, so every key has a floor
+    return index >= 0 ? index : Math.max(0, -index - 2);
+  }
+
+  private void logCounters() {
+    for (CounterGroup group : counters) {
+      for (Counter counter : group) {
+        LOGGER.info("{}: {}={}", group.getDisplayName(), counter.getDisplayName(),
+          counter.getValue());
+      }
+    }
+  }
+
+  /**
+   * Collects the output of a mapper, sorting it by region and row key when spilled.
+   */
+  private class SortBuffer extends RecordWriter<TableRowkeyPair, ImmutableBytesWritable> {
+    private final File spillDir;
+    private final int taskId;
+    private final long maxBytes;
+    private final List<Record> records = new ArrayList<>();
+    private final List<SpillFile> spills = new ArrayList<>();
+    private long bytes;
+
+    private SortBuffer(File spillDir, int taskId, long maxBytes) {
+      this.spillDir = spillDir;
+      this.taskId = taskId;
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void write(TableRowkeyPair key, ImmutableBytesWritable value) throws IOException {
+      // The row key may point into the array of a whole KeyValue, so only keep a copy of it
+      key = new TableRowkeyPair(key.getTableName(),
+        new ImmutableBytesWritable(key.getRowkey().copyBytes()));
+      records.add(new Record(getPartition(key), key, value));
+      bytes += key.getTableName().length() + key.getRowkey().getLength() + value.getLength()
+        + RECORD_OVERHEAD;
+      if (bytes >= maxBytes) {
+        spill();
+      }
+    }
+
+    private void spill() throws IOException {
+      if (records.isEmpty()) {
+        return;
+      }
+      Collections.sort(records);
+      File file = new File(spillDir, "spill_" + taskId + "_" + spills.size());
+      long[] offsets = new long[regionStartKeys.length];
+      int[] counts = new int[regionStartKeys.length];
+      try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+        for (Record record : records) {
+          if (counts[record.partition]++ == 0) {
+            offsets[record.partition] = out.size();
+          }
+          record.key.write(out);
+          record.value.write(out);
+        }
+      }
+      spills.add(new SpillFile(file, offsets, counts));
+      records.clear();
+      bytes = 0;
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) {
+    }
+  }
+
+  private static class Record implements Comparable<Record> {
+    private final int partition;
+    private final TableRowkeyPair key;
+    private final ImmutableBytesWritable value;
+
+    private Record(int partition, TableRowkeyPair key, ImmutableBytesWritable value) {
+      this.partition = partition;
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public int compareTo(Record other) {
+      int cmp = Integer.compare(partition, other.partition);
+      return cmp != 0 ? cmp : key.compareTo(other.key);
+    }
+  }
+
+  /**
+   * Sorted run of map output, with the offset and number of the records of each region.
+   */
+  private static class SpillFile {
+    private final File file;
+    private final long[] offsets;
+    private final int[] counts;
+
+    private SpillFile(File file, long[] offsets, int[] counts) {
+      this.file = file;
+      this.offsets = offsets;
+      this.counts = counts;
+    }
+
+    private SpillReader open(int partition) throws IOException {
+      if (counts[partition] == 0) {
+        return null;
+      }
+      FileInputStream in = new FileInputStream(file);
+      try {
+        in.getChannel().position(offsets[partition]);
+        return new SpillReader(new DataInputStream(new BufferedInputStream(in, 64 * 1024)),
+          counts[partition]);
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+    }
+  }
+
+  private static class SpillReader implements Comparable<SpillReader> {
+    private final DataInputStream in;
+    private int remaining;
+    private TableRowkeyPair key;
+    private ImmutableBytesWritable value;
+
+    private SpillReader(DataInputStream in, int count) {
+      this.in = in;
+      this.remaining = count;
+    }
+
+    private boolean next() throws IOException {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      key = new TableRowkeyPair();
+      key.readFields(in);
+      value = new ImmutableBytesWritable();
+      value.readFields(in);
+      return true;
+    }
+
+    private void close() throws IOException {
+      in.close();
+    }
+
+    @Override
+    public int compareTo(SpillReader other) {
+      return key.compareTo(other.key);
+    }
+  }
+
+  /**
+   * Reports counters of the mapper to the bulk load, as the task would to the job.
+   */
+  static class CountersReporter extends StatusReporter {
+    private final Counters counters;
+
+    CountersReporter(Counters counters) {
+      this.counters = counters;
+    }
+
+    @Override
+    public Counter getCounter(Enum<?> name) {
+      return counters.findCounter(name);
+    }
+
+    @Override
+    public Counter getCounter(String group, String name) {
+      return counters.findCounter(group, name);
+    }
+
+    @Override
+    public void progress() {
+    }
+
+    @Override
+    public float getProgress() {
+      return 0;
+    }
+
+    @Override
+    public void setStatus(String status) {
+    }
+  }
+}
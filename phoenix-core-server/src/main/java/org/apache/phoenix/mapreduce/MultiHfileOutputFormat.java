@@ -632,10 +632,11 @@ public class MultiHfileOutputFormat extends FileOutputFormat<TableRowkeyPair, Ce
 
   /**
    * Configures the job for MultiHfileOutputFormat.
+   * @return the start keys of the regions of all of the tables to be loaded
    */
   @SuppressWarnings("deprecation")
-  public static void configureIncrementalLoad(Job job, List<TargetTableRef> tablesToBeLoaded)
-    throws IOException {
+  public static Set<TableRowkeyPair> configureIncrementalLoad(Job job,
+    List<TargetTableRef> tablesToBeLoaded) throws IOException {
 
     Configuration conf = job.getConfiguration();
     job.setOutputFormatClass(MultiHfileOutputFormat.class);
@@ -643,6 +644,25 @@ public class MultiHfileOutputFormat extends FileOutputFormat<TableRowkeyPair, Ce
       MutationSerialization.class.getName(), ResultSerialization.class.getName(),
       CellSerialization.class.getName());
 
+    Set<TableRowkeyPair> tablesStartKeys = configureTables(conf, tablesToBeLoaded);
+
+    LOGGER.info(
+      "Configuring " + tablesStartKeys.size() + " reduce partitions to match current region count");
+    job.setNumReduceTasks(tablesStartKeys.size());
+
+    configurePartitioner(job, tablesStartKeys);
+    TableMapReduceUtil.addDependencyJars(job);
+    PhoenixMapReduceUtil.addPhoenixDependencyJars(job.getConfiguration());
+    TableMapReduceUtil.initCredentials(job);
+    return tablesStartKeys;
+  }
+
+  /**
+   * Sets the table definitions used by the RecordWriter in the configuration.
+   * @return the start keys of the regions of all of the tables to be loaded
+   */
+  static Set<TableRowkeyPair> configureTables(Configuration conf,
+    List<TargetTableRef> tablesToBeLoaded) throws IOException {
     // tableStartKeys for all tables.
     Set<TableRowkeyPair> tablesStartKeys = Sets.newTreeSet();
     for (TargetTableRef table : tablesToBeLoaded) {
@@ -679,16 +699,7 @@ public class MultiHfileOutputFormat extends FileOutputFormat<TableRowkeyPair, Ce
         LOGGER.info(" the table logical name is " + tbl.getLogicalName());
       }
     }
-
-    LOGGER.info(
-      "Configuring " + tablesStartKeys.size() + " reduce partitions to match current region count");
-    job.setNumReduceTasks(tablesStartKeys.size());
-
-    configurePartitioner(job, tablesStartKeys);
-    TableMapReduceUtil.addDependencyJars(job);
-    PhoenixMapReduceUtil.addPhoenixDependencyJars(job.getConfiguration());
-    TableMapReduceUtil.initCredentials(job);
-
+    return tablesStartKeys;
   }
 
   /**
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBuilder;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ClientUtil;
+
+import org.apache.phoenix.thirdparty.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads a number of result iterators concurrently, returning their rows in the order they arrive.
+ * Used by {@link PhoenixRecordReader} to scan the regions of a split in parallel when the rows of a
+ * split need not be ordered, which matters for snapshot reads where the mapper itself reads the
+ * HFiles rather than a region server.
+ */
+class ParallelScanResultIterator implements ResultIterator {
+
+  // Queued by a producer once its iterator is exhausted
+  private static final Object END_OF_SCAN = new Object();
+
+  private final List<? extends ResultIterator> iterators;
+  private final int parallelism;
+  private final BlockingQueue<Object> queue;
+  private ExecutorService executor;
+  private int remaining;
+  private volatile boolean closed;
+
+  /**
+   * @param iterators   iterators to read
+   * @param parallelism maximum number of iterators read at the same time
+   * @param queueSize   maximum number of rows read ahead of the caller
+   */
+  ParallelScanResultIterator(List<? extends ResultIterator> iterators, int parallelism,
+    int queueSize) {
+    this.iterators = iterators;
+    this.parallelism = Math.min(parallelism, iterators.size());
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.remaining = iterators.size();
+  }
+
+  private void start() {
+    executor = Executors.newFixedThreadPool(parallelism,
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("phoenix-split-scan-%d").build());
+    for (final ResultIterator iterator : iterators) {
+      executor.submit(() -> {
+        try {
+          Tuple tuple;
+          while (!closed && (tuple = iterator.next()) != null) {
+            queue.put(tuple);
+          }
+          queue.put(END_OF_SCAN);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+          try {
+            queue.put(t);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+  }
+
+  @Override
+  public Tuple next() throws SQLException {
+    if (closed) {
+      return null;
+    }
+    if (executor == null) {
+      start();
+    }
+    try {
+      while (remaining > 0) {
+        Object item = queue.take();
+        if (item == END_OF_SCAN) {
+          remaining--;
+        } else if (item instanceof SQLException) {
+          throw (SQLException) item;
+        } else if (item instanceof Throwable) {
+          throw ClientUtil.parseServerException((Throwable) item);
+        } else {
+          return (Tuple) item;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw ClientUtil.parseServerException(e);
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (executor != null) {
+      executor.shutdownNow();
+      try {
+        // The iterators can't be closed while they are being read from
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    SQLException toThrow = null;
+    for (ResultIterator iterator : iterators) {
+      try {
+        iterator.close();
+      } catch (SQLException e) {
+        if (toThrow == null) {
+          toThrow = e;
+        } else {
+          toThrow.setNextException(e);
+        }
+      }
+    }
+    if (toThrow != null) {
+      throw toThrow;
+    }
+  }
+
+  @Override
+  public void explain(List<String> planSteps) {
+  }
+
+  @Override
+  public void explain(List<String> planSteps,
+    ExplainPlanAttributesBuilder explainPlanAttributesBuilder) {
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.IOException;
+import org.apache.avro.Conversions;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.FileReader;
+import org.apache.avro.file.SeekableInput;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * Input format over Avro object container files, producing one {@link GenericRecord} per record in
+ * the file. Files are split on their sync markers, and logical types (decimals, dates, times and
+ * timestamps) are decoded to their Java representations so they can be bound to an upsert statement
+ * without any further conversion.
+ */
+public class PhoenixAvroInputFormat extends FileInputFormat<NullWritable, GenericRecord> {
+
+  @Override
+  public RecordReader<NullWritable, GenericRecord> createRecordReader(InputSplit split,
+    TaskAttemptContext context) {
+    return new AvroRecordReader();
+  }
+
+  static GenericData newGenericData() {
+    GenericData model = new GenericData();
+    model.addLogicalTypeConversion(new Conversions.DecimalConversion());
+    model.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    model.addLogicalTypeConversion(new TimeConversions.TimeMillisConversion());
+    model.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    model.addLogicalTypeConversion(new TimeConversions.TimestampMicrosConversion());
+    return model;
+  }
+
+  public static class AvroRecordReader extends RecordReader<NullWritable, GenericRecord> {
+    private FileReader<GenericRecord> reader;
+    private long start;
+    private long end;
+    private GenericRecord value;
+
+    @Override
+    public void initialize(InputSplit genericSplit, TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      FileSplit split = (FileSplit) genericSplit;
+      Path path = split.getPath();
+      FSDataInputStream in = path.getFileSystem(context.getConfiguration()).open(path);
+      long length = path.getFileSystem(context.getConfiguration()).getFileStatus(path).getLen();
+      GenericData model = newGenericData();
+      reader = DataFileReader.openReader(new FsSeekableInput(in, length),
+        new GenericDatumReader<GenericRecord>(null, null, model));
+      start = split.getStart();
+      end = start + split.getLength();
+      // Skip to the first block starting in this split; the previous split owns any earlier one
+      reader.sync(start);
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      if (!reader.hasNext() || reader.pastSync(end)) {
+        value = null;
+        return false;
+      }
+      // Records are not reused, as mappers may hold on to them across calls
+      value = reader.next();
+      return true;
+    }
+
+    @Override
+    public NullWritable getCurrentKey() {
+      return NullWritable.get();
+    }
+
+    @Override
+    public GenericRecord getCurrentValue() {
+      return value;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+      if (end == start) {
+        return 0.0f;
+      }
+      return Math.min(1.0f, (reader.tell() - start) / (float) (end - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
+
+  private static class FsSeekableInput implements SeekableInput {
+    private final FSDataInputStream in;
+    private final long length;
+
+    private FsSeekableInput(FSDataInputStream in, long length) {
+      this.in = in;
+      this.length = length;
+    }
+
+    @Override
+    public void seek(long p) throws IOException {
+      in.seek(p);
+    }
+
+    @Override
+    public long tell() throws IOException {
+      return in.getPos();
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return in.read(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -21,8 +21,10 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.hadoop.conf.Configuration;
@@ -125,6 +127,8 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
         new RegionSizeCalculator(regionLocator, connection.getAdmin());
 
       final List<InputSplit> psplits = Lists.newArrayListWithExpectedSize(splits.size());
+      long targetBytes = PhoenixConfigurationUtil.getSplitTargetBytes(config);
+      SplitCombiner combiner = targetBytes > 0 ? new SplitCombiner(psplits, targetBytes) : null;
       for (List<Scan> scans : qplan.getScans()) {
         // Get the region location
         HRegionLocation location =
@@ -138,7 +142,18 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
         // Generate splits based off statistics, or just region splits?
         boolean splitByStats = PhoenixConfigurationUtil.getSplitByStats(config);
 
-        if (splitByStats) {
+        if (combiner != null) {
+          if (splitByStats) {
+            // Guideposts are placed every guidepost width bytes, so the scans of a region are of
+            // about the same size
+            long scanSize = regionSize / scans.size();
+            for (Scan aScan : scans) {
+              combiner.add(Collections.singletonList(aScan), scanSize, regionLocation);
+            }
+          } else {
+            combiner.add(scans, regionSize, regionLocation);
+          }
+        } else if (splitByStats) {
           for (Scan aScan : scans) {
             if (LOGGER.isDebugEnabled()) {
               LOGGER.debug("Split for  scan : " + aScan + "with scanAttribute : "
@@ -172,6 +187,12 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
         }
       }
 
+      if (combiner != null) {
+        combiner.flush();
+        LOGGER.info("Combined the scans of {} regions into {} splits of up to {} bytes",
+          qplan.getScans().size(), psplits.size(), targetBytes);
+      }
+
       if (PhoenixConfigurationUtil.isMRRandomizeMapperExecutionOrder(config)) {
         randomizeSplitLength(psplits);
       }
@@ -180,6 +201,43 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
     }
   }
 
+  /**
+   * Combines adjacent scans on the same region server into splits of up to a target size, so that
+   * small regions and guideposts don't each get a mapper of their own while large regions are still
+   * divided at their guideposts.
+   */
+  static class SplitCombiner {
+    private final List<InputSplit> splits;
+    private final long targetBytes;
+    private List<Scan> scans = new ArrayList<>();
+    private long bytes;
+    private String location;
+
+    SplitCombiner(List<InputSplit> splits, long targetBytes) {
+      this.splits = splits;
+      this.targetBytes = targetBytes;
+    }
+
+    void add(List<Scan> newScans, long size, String newLocation) {
+      if (
+        !scans.isEmpty() && (!Objects.equals(location, newLocation) || bytes + size > targetBytes)
+      ) {
+        flush();
+      }
+      scans.addAll(newScans);
+      bytes += size;
+      location = newLocation;
+    }
+
+    void flush() {
+      if (!scans.isEmpty()) {
+        splits.add(new PhoenixInputSplit(scans, bytes, location));
+        scans = new ArrayList<>();
+        bytes = 0;
+      }
+    }
+  }
+
   /**
    * Returns the query plan associated with the select query.
    */
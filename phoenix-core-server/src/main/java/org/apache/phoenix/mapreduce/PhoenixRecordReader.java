@@ -61,6 +61,8 @@ import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
 public class PhoenixRecordReader<T extends DBWritable> extends RecordReader<NullWritable, T> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PhoenixRecordReader.class);
+  // Rows read ahead of the mapper when scanning snapshot regions in parallel
+  private static final int PARALLEL_SCAN_QUEUE_SIZE = 1000;
   protected final Configuration configuration;
   protected final QueryPlan queryPlan;
   private final ParallelScanGrouper scanGrouper;
@@ -158,9 +160,21 @@ public class PhoenixRecordReader<T extends DBWritable> extends RecordReader<Null
         }
         iterators.add(peekingResultIterator);
       }
-      ResultIterator iterator = queryPlan.useRoundRobinIterator()
-        ? RoundRobinResultIterator.newIterator(iterators, queryPlan)
-        : ConcatResultIterator.newIterator(iterators);
+      int parallelScans = PhoenixConfigurationUtil.getSnapshotParallelScans(configuration);
+      ResultIterator iterator;
+      if (
+        snapshotName != null && parallelScans > 1 && iterators.size() > 1
+          && queryPlan.useRoundRobinIterator()
+      ) {
+        // Snapshot regions are read by this task rather than by region servers, so read several
+        // of them at once when their rows need not come back in order
+        iterator =
+          new ParallelScanResultIterator(iterators, parallelScans, PARALLEL_SCAN_QUEUE_SIZE);
+      } else if (queryPlan.useRoundRobinIterator()) {
+        iterator = RoundRobinResultIterator.newIterator(iterators, queryPlan);
+      } else {
+        iterator = ConcatResultIterator.newIterator(iterators);
+      }
       if (queryPlan.getContext().getSequenceManager().getSequenceCount() > 0) {
         iterator =
           new SequenceResultIterator(iterator, queryPlan.getContext().getSequenceManager());
@@ -159,6 +159,19 @@ public final class PhoenixConfigurationUtil {
 
   public static final boolean DEFAULT_SPLIT_BY_STATS = true;
 
+  // Target size of the splits generated from the scans of a query. Adjacent scans on the same
+  // region server are combined up to this size; 0 keeps one split per region, or per guidepost
+  // when splitting by stats
+  public static final String MAPREDUCE_SPLIT_TARGET_BYTES = "phoenix.mapreduce.split.target.bytes";
+
+  public static final long DEFAULT_SPLIT_TARGET_BYTES = 0;
+
+  // Number of scans of a split read in parallel when reading from a snapshot
+  public static final String MAPREDUCE_SNAPSHOT_PARALLEL_SCANS =
+    "phoenix.mapreduce.snapshot.parallel.scans";
+
+  public static final int DEFAULT_SNAPSHOT_PARALLEL_SCANS = 1;
+
   public static final String SNAPSHOT_NAME_KEY = "phoenix.mapreduce.snapshot.name";
 
   public static final String RESTORE_DIR_KEY = "phoenix.tableSnapshot.restore.dir";
@@ -865,6 +878,26 @@ public final class PhoenixConfigurationUtil {
     return split;
   }
 
+  public static void setSplitTargetBytes(final Configuration configuration, long bytes) {
+    Preconditions.checkNotNull(configuration);
+    configuration.setLong(MAPREDUCE_SPLIT_TARGET_BYTES, bytes);
+  }
+
+  public static long getSplitTargetBytes(final Configuration configuration) {
+    Preconditions.checkNotNull(configuration);
+    return configuration.getLong(MAPREDUCE_SPLIT_TARGET_BYTES, DEFAULT_SPLIT_TARGET_BYTES);
+  }
+
+  public static void setSnapshotParallelScans(final Configuration configuration, int scans) {
+    Preconditions.checkNotNull(configuration);
+    configuration.setInt(MAPREDUCE_SNAPSHOT_PARALLEL_SCANS, scans);
+  }
+
+  public static int getSnapshotParallelScans(final Configuration configuration) {
+    Preconditions.checkNotNull(configuration);
+    return configuration.getInt(MAPREDUCE_SNAPSHOT_PARALLEL_SCANS, DEFAULT_SNAPSHOT_PARALLEL_SCANS);
+  }
+
   public static void setTenantId(Configuration configuration, String tenantId) {
     Preconditions.checkNotNull(configuration);
     configuration.set(MAPREDUCE_TENANT_ID, tenantId);
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.KeyValue;
@@ -125,7 +126,7 @@ public class DefaultStatisticsCollector implements StatisticsCollector {
     } catch (SQLException e) {
       throw new IOException(e);
     }
-    LOGGER.info("Initialization complete for " + this.getClass()
+    LOGGER.debug("Initialization complete for " + this.getClass()
       + " statistics collector for table " + tableName);
   }
 
@@ -142,25 +143,29 @@ public class DefaultStatisticsCollector implements StatisticsCollector {
   private void initGuidepostDepth() throws IOException, SQLException {
     if (guidePostPerRegionBytes != null || guidePostWidthBytes != null) {
       getGuidePostDepthFromStatement();
-      LOGGER.info("Guide post depth determined from SQL statement: " + guidePostDepth);
+      LOGGER.debug("Guide post depth determined from SQL statement: " + guidePostDepth);
     } else {
       long guidepostWidth = getGuidePostDepthFromSystemCatalog();
       if (guidepostWidth >= 0) {
         this.guidePostDepth = guidepostWidth;
-        LOGGER.info("Guide post depth determined from SYSTEM.CATALOG: " + guidePostDepth);
+        LOGGER.debug("Guide post depth determined from SYSTEM.CATALOG: " + guidePostDepth);
       } else {
-        this.guidePostDepth = StatisticsUtil.getGuidePostDepth(
-          configuration.getInt(QueryServices.STATS_GUIDEPOST_PER_REGION_ATTRIB,
-            QueryServicesOptions.DEFAULT_STATS_GUIDEPOST_PER_REGION),
-          configuration.getLongBytes(QueryServices.STATS_GUIDEPOST_WIDTH_BYTES_ATTRIB,
-            QueryServicesOptions.DEFAULT_STATS_GUIDEPOST_WIDTH_BYTES),
-          region.getTableDescriptor());
-        LOGGER.info("Guide post depth determined from global configuration: " + guidePostDepth);
+        this.guidePostDepth = getGuidePostDepthFromConfiguration();
+        LOGGER.debug("Guide post depth determined from global configuration: " + guidePostDepth);
       }
     }
 
   }
 
+  private long getGuidePostDepthFromConfiguration() {
+    return StatisticsUtil.getGuidePostDepth(
+      configuration.getInt(QueryServices.STATS_GUIDEPOST_PER_REGION_ATTRIB,
+        QueryServicesOptions.DEFAULT_STATS_GUIDEPOST_PER_REGION),
+      configuration.getLongBytes(QueryServices.STATS_GUIDEPOST_WIDTH_BYTES_ATTRIB,
+        QueryServicesOptions.DEFAULT_STATS_GUIDEPOST_WIDTH_BYTES),
+      region.getTableDescriptor());
+  }
+
   private long getGuidePostDepthFromSystemCatalog() throws IOException, SQLException {
     try {
       long guidepostWidth = -1;
@@ -236,6 +241,10 @@ public class DefaultStatisticsCollector implements StatisticsCollector {
     if (statsWriter != null) {
       this.statsWriter.close();
     }
+    // Only closed by init(), which flushes may never get to
+    if (htable != null) {
+      htable.close();
+    }
   }
 
   @Override
@@ -386,4 +395,17 @@ public class DefaultStatisticsCollector implements StatisticsCollector {
     return new StatisticsScanner(this, statsWriter, env, delegate, cfKey);
   }
 
+  @Override
+  public InternalScanner createFlushScanner(RegionCoprocessorEnvironment env, Store store,
+    InternalScanner delegate, AtomicLong regionGuidePostDepth) {
+    // Unlike init(), never read SYSTEM.CATALOG on the flush path
+    long depth = regionGuidePostDepth.get();
+    this.guidePostDepth = depth >= 0 ? depth : getGuidePostDepthFromConfiguration();
+    ImmutableBytesPtr cfKey = new ImmutableBytesPtr(store.getColumnFamilyDescriptor().getName());
+    LOGGER.debug("FlushStatisticsScanner created for table: " + tableName + " CF: "
+      + store.getColumnFamilyName() + " guide post depth: " + guidePostDepth);
+    return new FlushStatisticsScanner(this, statsWriter, env, delegate, cfKey,
+      regionGuidePostDepth);
+  }
+
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.stats;
+
+import static org.apache.phoenix.query.QueryServices.COMMIT_STATS_ASYNC;
+import static org.apache.phoenix.query.QueryServices.STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_COMMIT_STATS_ASYNC;
+import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The scanner that samples the cells written by a memstore flush and merges the guideposts
+ * collected from them into the ones already stored for the region, so that statistics follow the
+ * data between major compactions without recollecting the whole region. See
+ * {@link StatisticsWriter#mergeStats}.
+ */
+public class FlushStatisticsScanner implements InternalScanner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FlushStatisticsScanner.class);
+  private final InternalScanner delegate;
+  private final StatisticsWriter statsWriter;
+  private final Region region;
+  private final StatisticsCollector tracker;
+  private final ImmutableBytesPtr family;
+  private final Configuration config;
+  private final RegionCoprocessorEnvironment env;
+  private final AtomicLong regionGuidePostDepth;
+
+  public FlushStatisticsScanner(StatisticsCollector tracker, StatisticsWriter stats,
+    RegionCoprocessorEnvironment env, InternalScanner delegate, ImmutableBytesPtr family,
+    AtomicLong regionGuidePostDepth) {
+    this.tracker = tracker;
+    this.regionGuidePostDepth = regionGuidePostDepth;
+    this.statsWriter = stats;
+    this.delegate = delegate;
+    this.region = env.getRegion();
+    this.env = env;
+    this.family = family;
+    this.config = env.getConfiguration();
+  }
+
+  @Override
+  public boolean next(List<Cell> result) throws IOException {
+    boolean ret = delegate.next(result);
+    if (!result.isEmpty()) {
+      tracker.collectStatistics(result);
+    }
+    return ret;
+  }
+
+  @Override
+  public boolean next(List<Cell> result, ScannerContext scannerContext) throws IOException {
+    return next(result);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // The flush must not wait on the stats table, so release the memstore snapshot first
+    delegate.close();
+    StatisticsCollectionRunTracker collectionTracker =
+      StatisticsCollectionRunTracker.getInstance(config);
+    FlushStatisticsCallable callable = new FlushStatisticsCallable();
+    if (isConnectionClosed()) {
+      LOGGER.debug("Not updating table statistics because the server is stopping/stopped");
+      callable.closeQuietly();
+      return;
+    }
+    if (collectionTracker.areStatsBeingCollectedOnCompaction(region.getRegionInfo())) {
+      // The major compaction in progress rewrites the guideposts of the whole region
+      callable.closeQuietly();
+      return;
+    }
+    if (config.getBoolean(COMMIT_STATS_ASYNC, DEFAULT_COMMIT_STATS_ASYNC)) {
+      // A merge reads and rewrites the guideposts of the region, so concurrent merges of flushes
+      // of the same column family would lose each other's updates
+      collectionTracker.runSerialTask(region.getRegionInfo(), family.copyBytesIfNecessary(),
+        callable);
+    } else {
+      callable.call();
+    }
+  }
+
+  private boolean isConnectionClosed() {
+    Connection connection = env.getConnection();
+    return connection == null || connection.isClosed() || connection.isAborted();
+  }
+
+  class FlushStatisticsCallable implements Callable<Void> {
+    @Override
+    public Void call() throws IOException {
+      try {
+        // Read the guidepost width from SYSTEM.CATALOG here rather than on the flush path, the
+        // merge coalesces the collected guideposts to it and the next flushes collect with it
+        tracker.init();
+        regionGuidePostDepth.set(tracker.getGuidePostDepth());
+        if (tracker.getGuidePostDepth() == 0) {
+          // Statistics are disabled for the table
+          return null;
+        }
+        List<Mutation> mutations = new ArrayList<Mutation>();
+        statsWriter.mergeStats(region, tracker, family, mutations,
+          config.getInt(STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION,
+            DEFAULT_STATS_ON_FLUSH_MAX_GUIDEPOSTS_PER_REGION));
+        if (!mutations.isEmpty()) {
+          statsWriter.commitStats(mutations, tracker);
+        }
+      } catch (IOException e) {
+        if (isConnectionClosed()) {
+          LOGGER.debug("Ignoring error updating statistics because region is closing/closed");
+        } else {
+          // Stats are best effort, the next flush or major compaction will catch up
+          LOGGER.warn("Failed to merge flushed statistics for region "
+            + region.getRegionInfo().getRegionNameAsString(), e);
+        }
+      } finally {
+        closeQuietly();
+      }
+      return null;
+    }
+
+    void closeQuietly() {
+      try {
+        statsWriter.close();
+        tracker.close();
+      } catch (IOException e) {
+        LOGGER.error("Error while closing the stats table", e);
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.phoenix.schema.stats;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
@@ -78,4 +79,10 @@ public class NoOpStatisticsCollector implements StatisticsCollector {
     InternalScanner delegate) {
     return delegate;
   }
+
+  @Override
+  public InternalScanner createFlushScanner(RegionCoprocessorEnvironment env, Store store,
+    InternalScanner delegate, AtomicLong regionGuidePostDepth) {
+    return delegate;
+  }
 }
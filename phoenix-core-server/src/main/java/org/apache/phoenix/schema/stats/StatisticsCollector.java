@@ -20,6 +20,7 @@ package org.apache.phoenix.schema.stats;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
@@ -78,4 +79,13 @@ public interface StatisticsCollector extends Closeable {
   InternalScanner createCompactionScanner(RegionCoprocessorEnvironment env, Store store,
     InternalScanner delegate);
 
+  /**
+   * Wrap a flush scanner with a scanner that will collect statistics using this instance and merge
+   * them into the ones already stored for the region. Called instead of {@link #init()}: the
+   * guidepost depth last read for the region is used, or the one from the global configuration if
+   * it is negative, and is read again from SYSTEM.CATALOG off the flush path once the flush is done.
+   */
+  InternalScanner createFlushScanner(RegionCoprocessorEnvironment env, Store store,
+    InternalScanner delegate, AtomicLong regionGuidePostDepth);
+
 }
@@ -38,6 +38,7 @@ import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionInfo;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
@@ -161,15 +162,48 @@ public class StatisticsWriter implements Closeable {
     if (tracker == null) {
       return;
     }
+    addStats(tracker, cfKey, tracker.getGuidePosts(cfKey), mutations, guidePostDepth);
+  }
+
+  /**
+   * Merge the guideposts collected by the tracker over part of the region, e.g. the cells written
+   * by a memstore flush, into the ones already stored for the region, and replace the latter with
+   * the result. The merged guideposts are coalesced to at most {@code maxGuidePosts}; they are an
+   * approximation until the next major compaction recollects the region. Merges for the same
+   * region and column family must not run concurrently, see
+   * {@link StatisticsCollectionRunTracker#runSerialTask}.
+   */
+  public void mergeStats(Region region, StatisticsCollector tracker, ImmutableBytesPtr cfKey,
+    List<Mutation> mutations, int maxGuidePosts) throws IOException {
+    GuidePostsInfo collected = tracker.getGuidePosts(cfKey);
+    if (collected == null || collected.getGuidePostsCount() == 0) {
+      // Too little data was sampled to move any guidepost, keep the current ones
+      return;
+    }
+    RegionInfo regionInfo = region.getRegionInfo();
+    GuidePostsInfo existing = StatisticsUtil.readStatistics(statsReaderTable, tableName, cfKey,
+      regionInfo.getStartKey(), regionInfo.getEndKey(), HConstants.LATEST_TIMESTAMP);
+    GuidePostsInfo merged = StatisticsUtil.mergeGuidePosts(existing, collected,
+      tracker.getGuidePostDepth(), maxGuidePosts);
+    deleteStatsForRegion(region, tracker, cfKey, mutations);
+    addStats(tracker, cfKey, merged, mutations, tracker.getGuidePostDepth());
+  }
+
+  private void addStats(StatisticsCollector tracker, ImmutableBytesPtr cfKey, GuidePostsInfo gps,
+    List<Mutation> mutations, long guidePostDepth) throws IOException {
     boolean useMaxTimeStamp = clientTimeStamp == DefaultStatisticsCollector.NO_TIMESTAMP;
     long timeStamp = clientTimeStamp;
     if (useMaxTimeStamp) { // When using max timestamp, we write the update time later because we
-                           // only know the ts
-                           // now
+                           // only know the ts now
       timeStamp = tracker.getMaxTimeStamp();
       mutations.add(getLastStatsUpdatedTimePut(timeStamp));
     }
-    GuidePostsInfo gps = tracker.getGuidePosts(cfKey);
+    addGuidePosts(gps, cfKey, mutations, guidePostDepth, timeStamp);
+  }
+
+  @SuppressWarnings("deprecation")
+  private void addGuidePosts(GuidePostsInfo gps, ImmutableBytesPtr cfKey, List<Mutation> mutations,
+    long guidePostDepth, long timeStamp) throws IOException {
     if (gps != null) {
       long[] byteCounts = gps.getByteCounts();
       long[] rowCounts = gps.getRowCounts();
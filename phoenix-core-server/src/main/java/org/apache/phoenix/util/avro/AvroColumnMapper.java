@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.avro;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.phoenix.compile.UpsertCompiler;
+import org.apache.phoenix.exception.DataExceedsCapacityException;
+import org.apache.phoenix.execute.MutationState;
+import org.apache.phoenix.execute.MutationState.MultiRowMutationState;
+import org.apache.phoenix.execute.MutationState.RowMutationState;
+import org.apache.phoenix.execute.MutationState.RowTimestampColInfo;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.IllegalDataException;
+import org.apache.phoenix.schema.MaxPhoenixColumnSizeExceededException;
+import org.apache.phoenix.schema.PColumn;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableType;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.TableRef;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.schema.types.PVarbinaryEncoded;
+import org.apache.phoenix.util.ByteUtil;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.UpsertExecutor;
+
+import org.apache.phoenix.thirdparty.com.google.common.base.Function;
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+/**
+ * Maps the fields of Avro records straight onto the columns of a table. Each value is converted to
+ * the bytes of its column, and the rows are added to the {@link MutationState} of the connection
+ * the same way UPSERT SELECT adds them, without binding and executing an UPSERT per record. Index
+ * rows, column encoding and the storage scheme are then handled by the MutationState.
+ * <p>
+ * Only tables for which a record gives the whole row are supported, see
+ * {@link #isSupported(PhoenixConnection, PTable, List)}. Other tables are loaded through
+ * {@link AvroUpsertExecutor}.
+ */
+public class AvroColumnMapper {
+
+  private final PhoenixConnection conn;
+  private final PTable table;
+  private final TableRef tableRef;
+  private final List<ColumnInfo> columnInfos;
+  private final PColumn[] columns;
+  private final int[] pkSlots;
+  private final Function<Object, Object>[] conversionFunctions;
+  private final UpsertExecutor.UpsertListener<GenericRecord> upsertListener;
+  private final int maxHBaseClientKeyValueSize;
+  private final boolean isOneCellPerColumn;
+  private final ImmutableBytesPtr ptr = new ImmutableBytesPtr();
+  private Schema schema;
+  private int[] fieldPositions;
+  private long upsertCount = 0;
+
+  @SuppressWarnings("unchecked")
+  public AvroColumnMapper(PhoenixConnection conn, PTable table, List<ColumnInfo> columnInfos,
+    UpsertExecutor.UpsertListener<GenericRecord> upsertListener) throws SQLException {
+    this.conn = conn;
+    this.table = table;
+    this.tableRef = new TableRef(table);
+    this.columnInfos = columnInfos;
+    this.upsertListener = upsertListener;
+    this.columns = new PColumn[columnInfos.size()];
+    this.pkSlots = new int[columnInfos.size()];
+    this.conversionFunctions = new Function[columnInfos.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = getColumn(table, columnInfos.get(i).getColumnName());
+      pkSlots[i] = SchemaUtil.getPKPosition(table, columns[i]);
+      conversionFunctions[i] =
+        AvroUpsertExecutor.newConversionFunction(conn, columns[i].getDataType());
+    }
+    this.maxHBaseClientKeyValueSize =
+      conn.getQueryServices().getProps().getInt(QueryServices.HBASE_CLIENT_KEYVALUE_MAXSIZE,
+        QueryServicesOptions.DEFAULT_HBASE_CLIENT_KEYVALUE_MAXSIZE);
+    this.isOneCellPerColumn =
+      table.getImmutableStorageScheme() == PTable.ImmutableStorageScheme.ONE_CELL_PER_COLUMN;
+  }
+
+  /**
+   * Returns true if the rows of a table can be built from the given columns alone. That excludes
+   * views, transactional tables, tenant specific connections, and tables for which the upsert
+   * would fill in a value that is not loaded: a column DEFAULT or a server set ROW_TIMESTAMP.
+   */
+  public static boolean isSupported(PhoenixConnection conn, PTable table,
+    List<ColumnInfo> columnInfos) throws SQLException {
+    if (
+      table.getType() != PTableType.TABLE || table.isTransactional()
+        || conn.getTenantId() != null || table.getViewIndexId() != null
+    ) {
+      return false;
+    }
+    boolean[] loaded = new boolean[table.getColumns().size()];
+    for (ColumnInfo columnInfo : columnInfos) {
+      loaded[getColumn(table, columnInfo.getColumnName()).getPosition()] = true;
+    }
+    for (PColumn column : table.getColumns()) {
+      if (loaded[column.getPosition()]) {
+        continue;
+      }
+      if (
+        column.getExpressionStr() != null || (table.getRowTimestampColPos() != -1
+          && SchemaUtil.getPKPosition(table, column) == table.getRowTimestampColPos())
+      ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static PColumn getColumn(PTable table, String columnName) throws SQLException {
+    String name = SchemaUtil.getUnEscapedFullName(columnName);
+    int familySeparator = name.indexOf(QueryConstants.NAME_SEPARATOR);
+    if (familySeparator < 0) {
+      return table.getColumnForColumnName(name);
+    }
+    return table.getColumnFamily(name.substring(0, familySeparator))
+      .getPColumnForColumnName(name.substring(familySeparator + 1));
+  }
+
+  /**
+   * Adds the rows of the given records to the mutation state of the connection. Records that cannot
+   * be converted are reported to the listener and left out.
+   */
+  public void execute(List<GenericRecord> records) throws SQLException {
+    MultiRowMutationState mutations = new MultiRowMutationState(records.size());
+    for (GenericRecord record : records) {
+      try {
+        addRow(record, mutations);
+        upsertListener.upsertDone(++upsertCount);
+      } catch (Exception e) {
+        upsertListener.errorOnRecord(record, e);
+      }
+    }
+    if (!mutations.isEmpty()) {
+      MutationState state = conn.getMutationState();
+      state.join(new MutationState(tableRef, mutations, 0, state.getMaxSize(),
+        state.getMaxSizeBytes(), conn));
+    }
+  }
+
+  private void addRow(GenericRecord record, MultiRowMutationState mutations) throws SQLException {
+    if (record.getSchema() != schema) {
+      fieldPositions = AvroUpsertExecutor.resolveFieldPositions(record.getSchema(), columnInfos);
+      schema = record.getSchema();
+    }
+    Map<PColumn, byte[]> columnValues = Maps.newHashMapWithExpectedSize(columns.length);
+    long columnValueSize = 0;
+    byte[][] pkValues = new byte[table.getPKColumns().size()][];
+    // The salt byte is filled in by PRowImpl
+    if (table.getBucketNum() != null) {
+      pkValues[0] = new byte[] { 0 };
+    }
+    RowTimestampColInfo rowTsColInfo = new RowTimestampColInfo(false, null);
+    for (int i = 0; i < columns.length; i++) {
+      PColumn column = columns[i];
+      byte[] value = toBytes(column, conversionFunctions[i].apply(record.get(fieldPositions[i])));
+      if (pkSlots[i] >= 0) {
+        pkValues[pkSlots[i]] = value;
+        if (pkSlots[i] == table.getRowTimestampColPos()) {
+          long rowTimestamp = PLong.INSTANCE.getCodec().decodeLong(value, 0, column.getSortOrder());
+          if (rowTimestamp < 0) {
+            throw new IllegalDataException(
+              "Value of a column designated as ROW_TIMESTAMP cannot be less than zero");
+          }
+          rowTsColInfo = new RowTimestampColInfo(false, rowTimestamp);
+        }
+      } else {
+        if (value.length >= maxHBaseClientKeyValueSize && isOneCellPerColumn) {
+          throw new MaxPhoenixColumnSizeExceededException(
+            UpsertCompiler.getExceedMaxHBaseClientKeyValueAllowanceColumnInfo(table,
+              column.getName().getString()),
+            maxHBaseClientKeyValueSize, value.length);
+        }
+        columnValues.put(column, value);
+        columnValueSize += column.getEstimatedSize() + value.length;
+      }
+    }
+    ImmutableBytesPtr key = new ImmutableBytesPtr();
+    table.newKey(key, pkValues);
+    mutations.put(key, new RowMutationState(columnValues, columnValueSize,
+      conn.getStatementExecutionCounter(), rowTsColInfo, null));
+  }
+
+  /**
+   * Converts the Java value of a column to the bytes stored for it, checking that it fits the
+   * column as an UPSERT would. Null is stored as an empty value.
+   */
+  private byte[] toBytes(PColumn column, Object value) {
+    if (value == null) {
+      return ByteUtil.EMPTY_BYTE_ARRAY;
+    }
+    PDataType dataType = column.getDataType();
+    if (dataType == PVarbinaryEncoded.INSTANCE) {
+      return dataType.toBytes(value, column.getSortOrder());
+    }
+    ptr.set(dataType.toBytes(value));
+    if (
+      !dataType.isSizeCompatible(ptr, value, dataType, SortOrder.getDefault(), null, null,
+        column.getMaxLength(), column.getScale())
+    ) {
+      throw new DataExceedsCapacityException(dataType, column.getMaxLength(), column.getScale(),
+        column.getName().getString());
+    }
+    dataType.coerceBytes(ptr, value, dataType, null, null, SortOrder.getDefault(),
+      column.getMaxLength(), column.getScale(), column.getSortOrder(),
+      table.rowKeyOrderOptimizable());
+    return ByteUtil.copyKeyBytesIfNecessary(ptr);
+  }
+}
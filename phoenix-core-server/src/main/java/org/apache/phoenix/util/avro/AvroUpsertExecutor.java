@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.avro;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PTimestamp;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.UpsertExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.phoenix.thirdparty.com.google.common.annotations.VisibleForTesting;
+import org.apache.phoenix.thirdparty.com.google.common.base.Function;
+
+/**
+ * {@link UpsertExecutor} over Avro {@link GenericRecord}s. Avro values are already typed, so they
+ * are handed to the upsert statement as the corresponding Java objects instead of being formatted
+ * to and re-parsed from strings. Only string fields destined for non-string columns are parsed.
+ * <p>
+ * Like the CSV and JSON executors, every record is bound to the prepared UPSERT and executed on its
+ * own. Bulk loads only use it for tables {@link AvroColumnMapper} does not support.
+ */
+public class AvroUpsertExecutor extends UpsertExecutor<GenericRecord, Object> {
+
+  protected static final Logger LOGGER = LoggerFactory.getLogger(AvroUpsertExecutor.class);
+
+  // Field positions of the configured columns in the schema of the last seen record. All records
+  // of a file share a schema, so this is resolved once per file rather than once per value.
+  private Schema schema;
+  private int[] fieldPositions;
+
+  /** Testing constructor. Do not use in prod. */
+  @VisibleForTesting
+  protected AvroUpsertExecutor(Connection conn, List<ColumnInfo> columnInfoList,
+    PreparedStatement stmt, UpsertListener<GenericRecord> upsertListener) {
+    super(conn, columnInfoList, stmt, upsertListener);
+    finishInit();
+  }
+
+  public AvroUpsertExecutor(Connection conn, String tableName, List<ColumnInfo> columnInfoList,
+    UpsertExecutor.UpsertListener<GenericRecord> upsertListener) {
+    super(conn, tableName, columnInfoList, upsertListener);
+    finishInit();
+  }
+
+  @Override
+  protected void execute(GenericRecord record) {
+    int fieldIndex = 0;
+    try {
+      int[] positions = getFieldPositions(record.getSchema());
+      for (fieldIndex = 0; fieldIndex < conversionFunctions.size(); fieldIndex++) {
+        Object sqlValue =
+          conversionFunctions.get(fieldIndex).apply(record.get(positions[fieldIndex]));
+        if (sqlValue != null) {
+          preparedStatement.setObject(fieldIndex + 1, sqlValue);
+        } else {
+          preparedStatement.setNull(fieldIndex + 1, dataTypes.get(fieldIndex).getSqlType());
+        }
+      }
+      preparedStatement.execute();
+      upsertListener.upsertDone(++upsertCount);
+    } catch (Exception e) {
+      String colName =
+        columnInfos.get(Math.min(fieldIndex, columnInfos.size() - 1)).getColumnName();
+      if (LOGGER.isDebugEnabled()) {
+        // Even though this is an error we only log it with debug logging because we're notifying
+        // the listener, and it can do its own logging if needed
+        LOGGER.debug(
+          "Error on record " + record + ", fieldIndex " + fieldIndex + ", colName " + colName, e);
+      }
+      upsertListener.errorOnRecord(record,
+        new Exception("fieldIndex: " + fieldIndex + ", colName " + colName, e));
+    }
+  }
+
+  private int[] getFieldPositions(Schema recordSchema) {
+    if (recordSchema != schema) {
+      fieldPositions = resolveFieldPositions(recordSchema, columnInfos);
+      schema = recordSchema;
+    }
+    return fieldPositions;
+  }
+
+  /**
+   * Returns the position in the given record schema of the field each column is loaded from.
+   * Fields are matched to columns by name, ignoring case.
+   */
+  static int[] resolveFieldPositions(Schema recordSchema, List<ColumnInfo> columnInfos) {
+    int[] positions = new int[columnInfos.size()];
+    for (int i = 0; i < positions.length; i++) {
+      String colName = getFieldName(columnInfos.get(i).getColumnName());
+      Schema.Field field = null;
+      for (Schema.Field f : recordSchema.getFields()) {
+        if (f.name().equalsIgnoreCase(colName)) {
+          field = f;
+          break;
+        }
+      }
+      if (field == null) {
+        throw new IllegalArgumentException(
+          "Avro schema " + recordSchema.getFullName() + " has no field for column " + colName);
+      }
+      positions[i] = field.pos();
+    }
+    return positions;
+  }
+
+  /**
+   * Strips the column family and any quoting from a column name, leaving the name of the Avro field
+   * the column is loaded from.
+   */
+  private static String getFieldName(String columnName) {
+    // assume a leading part is the column family name; omit it
+    int familySeparator = columnName.indexOf('.');
+    String colName = familySeparator < 0 ? columnName : columnName.substring(familySeparator + 1);
+    return colName.replace("\"", "");
+  }
+
+  @Override
+  protected Function<Object, Object> createConversionFunction(PDataType dataType) {
+    return newConversionFunction(conn, dataType);
+  }
+
+  /**
+   * Returns a function that converts Avro values into the Java representation of a column type.
+   */
+  static Function<Object, Object> newConversionFunction(Connection conn, PDataType dataType) {
+    if (dataType.isArrayType()) {
+      return new ArrayDatatypeConversionFunction(conn,
+        PDataType.fromTypeId(dataType.getSqlType() - PDataType.ARRAY_TYPE_BASE));
+    } else {
+      return new SimpleDatatypeConversionFunction(dataType);
+    }
+  }
+
+  /**
+   * Converts Avro values into the Java representation of a given column value type.
+   */
+  static class SimpleDatatypeConversionFunction implements Function<Object, Object> {
+
+    private final PDataType dataType;
+    private final boolean isStringType;
+    // Values of a column nearly always arrive as the same Java class, so remember the Phoenix type
+    // of the last one instead of looking it up for every value.
+    private Class<?> lastInputClass;
+    private PDataType lastInputType;
+
+    SimpleDatatypeConversionFunction(PDataType dataType) {
+      this.dataType = dataType;
+      this.isStringType = dataType.isCoercibleTo(PVarchar.INSTANCE);
+    }
+
+    @Nullable
+    @Override
+    public Object apply(@Nullable Object input) {
+      if (input == null) {
+        return null;
+      }
+      Object value = toJavaObject(input);
+      if (value instanceof String) {
+        return isStringType ? value : dataType.toObject((String) value);
+      }
+      if (isStringType) {
+        return value.toString();
+      }
+      if (value instanceof Number && dataType.isCoercibleTo(PTimestamp.INSTANCE)) {
+        // Temporal values without a logical type are epoch millis
+        value = new Timestamp(((Number) value).longValue());
+      }
+      if (value.getClass() != lastInputClass) {
+        lastInputType = PDataType.fromLiteral(value);
+        lastInputClass = value.getClass();
+      }
+      return dataType.toObject(value, lastInputType);
+    }
+
+    private static Object toJavaObject(Object input) {
+      if (input instanceof CharSequence) {
+        return input.toString();
+      } else if (input instanceof ByteBuffer) {
+        ByteBuffer buffer = ((ByteBuffer) input).duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+      } else if (input instanceof GenericFixed) {
+        return ((GenericFixed) input).bytes();
+      } else if (input instanceof GenericEnumSymbol) {
+        return input.toString();
+      } else if (input instanceof Instant) {
+        return Timestamp.from((Instant) input);
+      } else if (input instanceof LocalDate) {
+        return new Date(TimeUnit.DAYS.toMillis(((LocalDate) input).toEpochDay()));
+      } else if (input instanceof LocalTime) {
+        return new Time(TimeUnit.NANOSECONDS.toMillis(((LocalTime) input).toNanoOfDay()));
+      }
+      return input;
+    }
+  }
+
+  /**
+   * Converts Avro arrays into Phoenix arrays of the correct type.
+   */
+  private static class ArrayDatatypeConversionFunction implements Function<Object, Object> {
+
+    private final Connection conn;
+    private final PDataType elementDataType;
+    private final SimpleDatatypeConversionFunction elementConvertFunction;
+
+    private ArrayDatatypeConversionFunction(Connection conn, PDataType elementDataType) {
+      this.conn = conn;
+      this.elementDataType = elementDataType;
+      this.elementConvertFunction = new SimpleDatatypeConversionFunction(elementDataType);
+    }
+
+    @Nullable
+    @Override
+    public Object apply(@Nullable Object input) {
+      if (input == null) {
+        return null;
+      }
+      List<?> list = (List<?>) input;
+      Object[] elements = new Object[list.size()];
+      for (int i = 0; i < elements.length; i++) {
+        elements[i] = elementConvertFunction.apply(list.get(i));
+      }
+      try {
+        return conn.createArrayOf(elementDataType.getSqlTypeName(), elements);
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
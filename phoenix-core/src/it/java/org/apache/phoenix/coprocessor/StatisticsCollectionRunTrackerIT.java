@@ -28,6 +28,10 @@ import java.sql.PreparedStatement;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Admin;
@@ -146,6 +150,34 @@ public class StatisticsCollectionRunTrackerIT extends ParallelStatsEnabledIT {
     assertTrue(tracker.removeUpdateStatsCommandRegion(regionInfo, familyMap));
   }
 
+  @Test
+  public void testSerialTasksOfRegionAndFamilyRunOneAfterTheOther() throws Exception {
+    RegionInfo regionInfo = createTableAndGetRegion(fullTableName);
+    byte[] family = Bytes.toBytes("0");
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    AtomicBoolean firstDone = new AtomicBoolean();
+    Future<Void> first = tracker.runSerialTask(regionInfo, family, () -> {
+      firstStarted.countDown();
+      releaseFirst.await();
+      firstDone.set(true);
+      return null;
+    });
+    Future<Boolean> second =
+      tracker.runSerialTask(regionInfo, Bytes.toBytes("0"), () -> firstDone.get());
+    // Another column family of the region isn't held up by the running task
+    Future<Boolean> otherFamily =
+      tracker.runSerialTask(regionInfo, Bytes.toBytes("L#0"), () -> firstDone.get());
+    assertTrue(firstStarted.await(30, TimeUnit.SECONDS));
+    assertFalse(otherFamily.get(30, TimeUnit.SECONDS));
+    assertFalse(second.isDone());
+    releaseFirst.countDown();
+    first.get(30, TimeUnit.SECONDS);
+    assertTrue(second.get(30, TimeUnit.SECONDS));
+    // Once the queue drained, a new task runs right away
+    assertTrue(tracker.runSerialTask(regionInfo, family, () -> true).get(30, TimeUnit.SECONDS));
+  }
+
   private void markRegionAsCompacting(RegionInfo regionInfo) {
     StatisticsCollectionRunTracker tracker =
       StatisticsCollectionRunTracker.getInstance(new Configuration());
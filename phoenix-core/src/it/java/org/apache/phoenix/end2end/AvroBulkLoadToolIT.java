@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Arrays;
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.phoenix.mapreduce.AvroBulkLoadTool;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.apache.phoenix.util.TestUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(NeedsOwnMiniClusterTest.class)
+public class AvroBulkLoadToolIT extends BaseOwnClusterIT {
+
+  private static final Schema DECIMAL_SCHEMA =
+    LogicalTypes.decimal(10, 2).addToSchema(Schema.create(Schema.Type.BYTES));
+  private static final Schema TIMESTAMP_SCHEMA =
+    LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+  private static final Schema SCHEMA =
+    SchemaBuilder.record("Row").fields().requiredInt("id").optionalString("name").name("amount")
+      .type(DECIMAL_SCHEMA).noDefault().name("ts").type(TIMESTAMP_SCHEMA).noDefault().name("names")
+      .type().array().items().stringType().noDefault().endRecord();
+
+  private static Connection conn;
+  private static String zkQuorum;
+
+  @BeforeClass
+  public static synchronized void doSetup() throws Exception {
+    setUpTestDriver(ReadOnlyProps.EMPTY_PROPS);
+    zkQuorum = TestUtil.LOCALHOST + PhoenixRuntime.JDBC_PROTOCOL_SEPARATOR
+      + getUtility().getZkCluster().getClientPort();
+    conn = DriverManager.getConnection(getUrl());
+  }
+
+  private static void writeInput(String path, int rows) throws Exception {
+    FileSystem fs = FileSystem.get(getUtility().getConfiguration());
+    GenericData model = new GenericData();
+    model.addLogicalTypeConversion(new Conversions.DecimalConversion());
+    model.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    try (DataFileWriter<GenericRecord> writer =
+      new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA, model))) {
+      writer.create(SCHEMA, fs.create(new Path(path)));
+      for (int i = 1; i <= rows; i++) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("id", i);
+        record.put("name", i % 2 == 0 ? null : "Name " + i);
+        record.put("amount", new BigDecimal(i + ".25"));
+        record.put("ts", Instant.ofEpochMilli(i * 1000L));
+        record.put("names", Arrays.asList("a" + i, "b" + i));
+        writer.append(record);
+      }
+    }
+  }
+
+  private void testImport(String tableName, String... extraArgs) throws Exception {
+    Statement stmt = conn.createStatement();
+    stmt.execute("CREATE TABLE " + tableName + " (ID INTEGER NOT NULL PRIMARY KEY, "
+      + "NAME VARCHAR, AMOUNT DECIMAL(10,2), TS TIMESTAMP, NAMES VARCHAR ARRAY) SPLIT ON (50)");
+    String input = "/tmp/" + tableName + ".avro";
+    writeInput(input, 100);
+
+    AvroBulkLoadTool tool = new AvroBulkLoadTool();
+    tool.setConf(getUtility().getConfiguration());
+    String[] args =
+      new String[] { "--input", input, "--table", tableName, "--zookeeper", zkQuorum };
+    args = Arrays.copyOf(args, args.length + extraArgs.length);
+    System.arraycopy(extraArgs, 0, args, args.length - extraArgs.length, extraArgs.length);
+    assertEquals(0, tool.run(args));
+
+    ResultSet rs =
+      stmt.executeQuery("SELECT id, name, amount, ts, names FROM " + tableName + " ORDER BY id");
+    for (int i = 1; i <= 100; i++) {
+      assertTrue(rs.next());
+      assertEquals(i, rs.getInt(1));
+      assertEquals(i % 2 == 0 ? null : "Name " + i, rs.getString(2));
+      assertEquals(new BigDecimal(i + ".25"), rs.getBigDecimal(3));
+      assertEquals(i * 1000L, rs.getTimestamp(4).getTime());
+      assertArrayEquals(new Object[] { "a" + i, "b" + i }, (Object[]) rs.getArray(5).getArray());
+    }
+    assertFalse(rs.next());
+    rs.close();
+    stmt.close();
+  }
+
+  @Test
+  public void testBasicImport() throws Exception {
+    testImport("AVRO_TABLE1");
+  }
+
+  @Test
+  public void testLocalImport() throws Exception {
+    testImport("AVRO_TABLE2", "--local");
+  }
+}
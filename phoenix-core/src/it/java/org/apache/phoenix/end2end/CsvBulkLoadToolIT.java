@@ -29,6 +29,7 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Map;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -38,7 +39,9 @@ import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Admin;
 import org.apache.phoenix.end2end.index.IndexTestUtil;
 import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.mapreduce.BulkLoadKeySampler;
 import org.apache.phoenix.mapreduce.CsvBulkLoadTool;
+import org.apache.phoenix.mapreduce.LocalBulkLoader;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.PTable;
@@ -52,12 +55,16 @@ import org.apache.phoenix.util.TestUtil;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
 
 @Category(NeedsOwnMiniClusterTest.class)
 public class CsvBulkLoadToolIT extends BaseOwnClusterIT {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(CsvBulkLoadToolIT.class);
+
   private static Connection conn;
   private static String zkQuorum;
 
@@ -108,6 +115,110 @@ public class CsvBulkLoadToolIT extends BaseOwnClusterIT {
     stmt.close();
   }
 
+  @Test
+  public void testLocalImportMatchesMapReduce() throws Exception {
+    Statement stmt = conn.createStatement();
+    for (String tableName : new String[] { "S.MR_TABLE", "S.LOCAL_TABLE" }) {
+      stmt.execute("CREATE TABLE " + tableName
+        + " (ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR, T DATE) SPLIT ON (100,200,300)");
+      stmt.execute(
+        "CREATE INDEX " + tableName.substring(2) + "_IDX ON " + tableName + " (NAME) INCLUDE (T)");
+    }
+
+    FileSystem fs = FileSystem.get(getUtility().getConfiguration());
+    for (int file = 0; file < 2; file++) {
+      FSDataOutputStream outputStream = fs.create(new Path("/tmp/local_input" + file + ".csv"));
+      PrintWriter printWriter = new PrintWriter(outputStream);
+      for (int i = file; i < 400; i += 2) {
+        printWriter.println(i + ",Name " + (i % 37) + ",1970/01/0" + (1 + i % 9));
+      }
+      printWriter.close();
+    }
+
+    long[] elapsed = new long[2];
+    String[] tableNames = new String[] { "mr_table", "local_table" };
+    for (int i = 0; i < tableNames.length; i++) {
+      CsvBulkLoadTool csvBulkLoadTool = new CsvBulkLoadTool();
+      csvBulkLoadTool.setConf(new Configuration(getUtility().getConfiguration()));
+      csvBulkLoadTool.getConf().set(DATE_FORMAT_ATTRIB, "yyyy/MM/dd");
+      csvBulkLoadTool.getConf().setLong(LocalBulkLoader.SORT_BUFFER_BYTES_CONFKEY, 4096);
+      String[] args = new String[] { "--input", "/tmp/local_input0.csv,/tmp/local_input1.csv",
+        "--table", tableNames[i], "--schema", "s", "--zookeeper", zkQuorum };
+      if (i == 1) {
+        args = Arrays.copyOf(args, args.length + 1);
+        args[args.length - 1] = "--local";
+      }
+      long start = System.currentTimeMillis();
+      assertEquals(0, csvBulkLoadTool.run(args));
+      elapsed[i] = System.currentTimeMillis() - start;
+    }
+    LOGGER.info("MapReduce import took {} ms, local import took {} ms", elapsed[0], elapsed[1]);
+
+    for (String query : new String[] { "SELECT id, name, t FROM s.%s ORDER BY id",
+      "SELECT /*+ INDEX(s.%1$s %1$s_idx) */ name, id, t FROM s.%1$s ORDER BY name, id" }) {
+      ResultSet mrRs = stmt.executeQuery(String.format(query, "mr_table"));
+      ResultSet localRs = conn.createStatement().executeQuery(String.format(query, "local_table"));
+      int rows = 0;
+      while (mrRs.next()) {
+        assertTrue(localRs.next());
+        assertEquals(mrRs.getObject(1), localRs.getObject(1));
+        assertEquals(mrRs.getObject(2), localRs.getObject(2));
+        assertEquals(mrRs.getObject(3), localRs.getObject(3));
+        rows++;
+      }
+      assertFalse(localRs.next());
+      assertEquals(400, rows);
+    }
+    stmt.close();
+  }
+
+  @Test
+  public void testSplitSkewedRegions() throws Exception {
+    Statement stmt = conn.createStatement();
+    stmt.execute("CREATE TABLE S.SKEWED_TABLE"
+      + " (ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR, T DATE) SPLIT ON (1000)");
+    stmt.execute("CREATE INDEX SKEWED_TABLE_IDX ON S.SKEWED_TABLE (NAME) INCLUDE (T)");
+
+    // All of the rows go to the first region of the table
+    FileSystem fs = FileSystem.get(getUtility().getConfiguration());
+    FSDataOutputStream outputStream = fs.create(new Path("/tmp/skewed_input.csv"));
+    PrintWriter printWriter = new PrintWriter(outputStream);
+    for (int i = 0; i < 400; i++) {
+      printWriter.println(i + ",Name " + (i % 37) + ",1970/01/0" + (1 + i % 9));
+    }
+    printWriter.close();
+
+    for (boolean local : new boolean[] { false, true }) {
+      stmt.execute("DELETE FROM S.SKEWED_TABLE");
+      conn.commit();
+      CsvBulkLoadTool csvBulkLoadTool = new CsvBulkLoadTool();
+      csvBulkLoadTool.setConf(new Configuration(getUtility().getConfiguration()));
+      csvBulkLoadTool.getConf().set(DATE_FORMAT_ATTRIB, "yyyy/MM/dd");
+      csvBulkLoadTool.getConf().setLong(BulkLoadKeySampler.BYTES_PER_REDUCER_CONFKEY, 2048);
+      String[] args = new String[] { "--input", "/tmp/skewed_input.csv", "--table", "skewed_table",
+        "--schema", "s", "--zookeeper", zkQuorum, "--split-skewed-regions", "--corruptindexes" };
+      if (local) {
+        args = Arrays.copyOf(args, args.length + 1);
+        args[args.length - 1] = "--local";
+      }
+      assertEquals(0, csvBulkLoadTool.run(args));
+
+      ResultSet rs = stmt.executeQuery("SELECT id, name FROM s.skewed_table ORDER BY id");
+      for (int i = 0; i < 400; i++) {
+        assertTrue(rs.next());
+        assertEquals(i, rs.getInt(1));
+        assertEquals("Name " + (i % 37), rs.getString(2));
+      }
+      assertFalse(rs.next());
+      rs = stmt.executeQuery(
+        "SELECT /*+ INDEX(s.skewed_table skewed_table_idx) */ COUNT(*) FROM s.skewed_table"
+          + " WHERE name >= 'Name'");
+      assertTrue(rs.next());
+      assertEquals(400, rs.getInt(1));
+    }
+    stmt.close();
+  }
+
   @Test
   public void testImportWithGlobalIndex() throws Exception {
 
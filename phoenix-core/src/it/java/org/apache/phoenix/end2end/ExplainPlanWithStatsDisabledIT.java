@@ -21,10 +21,13 @@ import static org.apache.phoenix.end2end.ExplainPlanWithStatsEnabledIT.getByteRo
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.List;
 import java.util.Properties;
 import org.apache.phoenix.compile.ExplainPlan;
@@ -540,6 +543,43 @@ public class ExplainPlanWithStatsDisabledIT extends ParallelStatsDisabledIT {
     }
   }
 
+  @Test
+  public void testExplainAnalyze() throws Exception {
+    String tableA = generateUniqueName();
+    String tableB = generateUniqueName();
+    String sql = "EXPLAIN ANALYZE SELECT ta.c1.a FROM " + tableA + " ta JOIN " + tableB
+      + " tb ON ta.k = tb.k WHERE ta.k >= ?";
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      initData(conn, tableA);
+      initData(conn, tableB);
+      PreparedStatement stmt = conn.prepareStatement(sql);
+      stmt.setInt(1, 105);
+      String plan = QueryUtil.getExplainPlan(stmt.executeQuery());
+      assertTrue(plan, plan.startsWith("CLIENT PARALLEL 1-WAY RANGE SCAN OVER " + tableA));
+      assertTrue(plan, plan.contains("\nHashJoinPlan " + tableA + ": rows=5, time="));
+      assertTrue(plan, plan.contains("\n    ScanPlan " + tableA + ": rows=5, time="));
+      assertTrue(plan, plan.contains("\n    ScanPlan " + tableB + ": rows=10, time="));
+      assertTrue(plan, plan.contains(", cache bytes="));
+      assertTrue(plan, plan.contains("\n        READ METRICS " + tableA + ": "));
+      assertTrue(plan, plan.contains("COUNT_ROWS_SCANNED=10"));
+      assertTrue(plan, plan.contains("\nQUERY METRICS: "));
+      assertTrue(plan, plan.contains("\nSLOWEST SCAN 1: "));
+    }
+  }
+
+  @Test
+  public void testExplainAnalyzeUpsertNotSupported() throws Exception {
+    String tableA = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      initData(conn, tableA);
+      conn.createStatement()
+        .executeQuery("EXPLAIN ANALYZE UPSERT INTO " + tableA + " VALUES (110, 1, 1)");
+      fail();
+    } catch (SQLFeatureNotSupportedException e) {
+      // expected
+    }
+  }
+
   private Connection getTenantConnection(final String tenantId) throws Exception {
     Properties tenantProps = new Properties();
     tenantProps.setProperty(PhoenixRuntime.TENANT_ID_ATTRIB, tenantId);
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.apache.phoenix.execute.LateMaterializationPlan;
+import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
+import org.apache.phoenix.query.QueryServices;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ParallelStatsDisabledTest.class)
+public class LateMaterializationIT extends ParallelStatsDisabledIT {
+  private static final int NUM_ROWS = 200;
+
+  private static Connection getConnection(boolean lateMaterialization) throws Exception {
+    Properties props = new Properties();
+    props.setProperty(QueryServices.LATE_MATERIALIZATION_ENABLED_ATTRIB,
+      Boolean.toString(lateMaterialization));
+    return DriverManager.getConnection(getUrl(), props);
+  }
+
+  private static String createTable() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = getConnection(false)) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName
+          + " (k1 INTEGER NOT NULL, k2 INTEGER NOT NULL, v INTEGER, w1 CHAR(5000), w2 CHAR(5000)"
+          + " CONSTRAINT pk PRIMARY KEY (k1, k2)) SPLIT ON (1, 2, 3)");
+      PreparedStatement stmt =
+        conn.prepareStatement("UPSERT INTO " + tableName + " VALUES (?, ?, ?, ?, ?)");
+      for (int i = 0; i < NUM_ROWS; i++) {
+        stmt.setInt(1, i % 4);
+        stmt.setInt(2, i);
+        // Repeated sort values so that ties are broken by the row key
+        stmt.setInt(3, (i * 7) % 50);
+        stmt.setString(4, "w1-" + i);
+        stmt.setString(5, "w2-" + i);
+        stmt.execute();
+      }
+      conn.commit();
+    }
+    return tableName;
+  }
+
+  private static List<List<Object>> getRows(ResultSet rs) throws Exception {
+    ResultSetMetaData metaData = rs.getMetaData();
+    List<List<Object>> rows = new ArrayList<>();
+    while (rs.next()) {
+      List<Object> row = new ArrayList<>(metaData.getColumnCount());
+      for (int i = 1; i <= metaData.getColumnCount(); i++) {
+        row.add(rs.getObject(i));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testSameResultsAsSingleScan() throws Exception {
+    String tableName = createTable();
+    String[] queries = new String[] {
+      "SELECT * FROM " + tableName + " ORDER BY v DESC, k1, k2 LIMIT 10",
+      "SELECT k2, w1, w2 FROM " + tableName + " ORDER BY v, k2 DESC LIMIT 25",
+      "SELECT * FROM " + tableName + " WHERE k1 IN (1, 3) AND k2 > 20 ORDER BY v, k2 LIMIT 15",
+      "SELECT v AS x, w1, w2 FROM " + tableName + " WHERE w1 LIKE 'w1-1%' ORDER BY x, k2 LIMIT 7",
+      "SELECT * FROM " + tableName + " WHERE v > 1000 ORDER BY v LIMIT 5" };
+    try (Connection lateConn = getConnection(true); Connection scanConn = getConnection(false)) {
+      for (String query : queries) {
+        PreparedStatement lateStmt = lateConn.prepareStatement(query);
+        assertTrue(query, lateStmt.unwrap(PhoenixPreparedStatement.class)
+          .optimizeQuery() instanceof LateMaterializationPlan);
+        PreparedStatement scanStmt = scanConn.prepareStatement(query);
+        assertFalse(query, scanStmt.unwrap(PhoenixPreparedStatement.class)
+          .optimizeQuery() instanceof LateMaterializationPlan);
+
+        List<List<Object>> expected = getRows(scanStmt.executeQuery());
+        assertEquals(expected, getRows(lateStmt.executeQuery()));
+        // Executing the same statement again must not reuse the point lookup of the first run
+        assertEquals(expected, getRows(lateStmt.executeQuery()));
+      }
+    }
+  }
+
+  @Test
+  public void testReexecutionSeesChanges() throws Exception {
+    String tableName = createTable();
+    String query = "SELECT * FROM " + tableName + " ORDER BY v DESC, k1, k2 LIMIT 10";
+    try (Connection lateConn = getConnection(true); Connection scanConn = getConnection(false)) {
+      PreparedStatement lateStmt = lateConn.prepareStatement(query);
+      List<List<Object>> before = getRows(lateStmt.executeQuery());
+      assertEquals(10, before.size());
+
+      // Remove the current top rows and update others so that a different set of rows survives
+      scanConn.createStatement().execute("DELETE FROM " + tableName + " WHERE v >= 45");
+      scanConn.createStatement()
+        .execute("UPSERT INTO " + tableName + " (k1, k2, v) SELECT k1, k2, 100 FROM " + tableName
+          + " WHERE v = 0");
+      scanConn.commit();
+
+      List<List<Object>> expected = getRows(scanConn.prepareStatement(query).executeQuery());
+      assertEquals(10, expected.size());
+      assertEquals(expected, getRows(lateStmt.executeQuery()));
+    }
+  }
+}
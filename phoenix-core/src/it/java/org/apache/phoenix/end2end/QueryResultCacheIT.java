@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+/**
+ * Tests that results cached by {@link org.apache.phoenix.cache.QueryResultCache} are not served
+ * once the rows they were read from have been written to.
+ */
+@Category(NeedsOwnMiniClusterTest.class)
+public class QueryResultCacheIT extends ParallelStatsDisabledIT {
+
+  @BeforeClass
+  public static synchronized void doSetup() throws Exception {
+    Map<String, String> props = Maps.newHashMapWithExpectedSize(1);
+    props.put(QueryServices.QUERY_RESULT_CACHE_ENABLED_ATTRIB, Boolean.TRUE.toString());
+    setUpTestDriver(new ReadOnlyProps(props.entrySet().iterator()));
+  }
+
+  private static String createTable(Connection conn) throws Exception {
+    String tableName = generateUniqueName();
+    conn.createStatement().execute("CREATE TABLE " + tableName
+      + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=600000");
+    conn.createStatement()
+      .execute("CREATE INDEX " + generateUniqueName() + " ON " + tableName + " (V)");
+    return tableName;
+  }
+
+  private static List<String> getKeys(Connection conn, String query) throws Exception {
+    List<String> keys = new ArrayList<>();
+    ResultSet rs = conn.createStatement().executeQuery(query);
+    while (rs.next()) {
+      keys.add(rs.getString(1));
+    }
+    Collections.sort(keys);
+    return keys;
+  }
+
+  @Test
+  public void testIndexResultsInvalidatedOnCommit() throws Exception {
+    try (Connection conn = DriverManager.getConnection(getUrl());
+      Connection readConn = DriverManager.getConnection(getUrl())) {
+      String tableName = createTable(conn);
+      String query = "SELECT K FROM " + tableName + " WHERE V = 'x'";
+      String plan = QueryUtil.getExplainPlan(readConn.createStatement().executeQuery(
+        "EXPLAIN " + query));
+      assertTrue(plan, !plan.contains(" " + tableName + " "));
+
+      conn.setAutoCommit(false);
+      conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('a', 'x')");
+      conn.commit();
+      assertEquals(Arrays.asList("a"), getKeys(readConn, query));
+
+      // The uncommitted row is not visible, and the results read before the commit are cached
+      conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('b', 'x')");
+      assertEquals(Arrays.asList("a"), getKeys(readConn, query));
+      conn.commit();
+      assertEquals(Arrays.asList("a", "b"), getKeys(readConn, query));
+    }
+  }
+
+  @Test
+  public void testIndexResultsInvalidatedByServerSideDelete() throws Exception {
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      String tableName = createTable(conn);
+      conn.setAutoCommit(true);
+      conn.createStatement().execute("UPSERT INTO " + tableName + " VALUES ('a', 'x')");
+      String query = "SELECT K FROM " + tableName + " WHERE V = 'x'";
+      assertEquals(Arrays.asList("a"), getKeys(conn, query));
+
+      conn.createStatement().execute("DELETE FROM " + tableName + " WHERE V = 'x'");
+      assertEquals(Collections.emptyList(), getKeys(conn, query));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.apache.phoenix.query.QueryServices;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ParallelStatsDisabledTest.class)
+public class ScanWorkStealingIT extends ParallelStatsDisabledIT {
+  private static final int NUM_ROWS = 400;
+
+  private static Connection getConnection(boolean workStealing) throws Exception {
+    Properties props = new Properties();
+    props.setProperty(QueryServices.SCAN_WORK_STEALING_ENABLED_ATTRIB,
+      Boolean.toString(workStealing));
+    return DriverManager.getConnection(getUrl(), props);
+  }
+
+  private static String createTable() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = getConnection(false)) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName
+          + " (k VARCHAR NOT NULL PRIMARY KEY, v INTEGER, w VARCHAR)"
+          + " SPLIT ON ('k100', 'k200', 'k300')");
+      PreparedStatement stmt =
+        conn.prepareStatement("UPSERT INTO " + tableName + " VALUES (?, ?, ?)");
+      for (int i = 0; i < NUM_ROWS; i++) {
+        stmt.setString(1, String.format("k%03d", i));
+        stmt.setInt(2, (i * 7) % 50);
+        stmt.setString(3, "w-" + i);
+        stmt.execute();
+      }
+      conn.commit();
+    }
+    return tableName;
+  }
+
+  private static List<List<Object>> getRows(ResultSet rs) throws Exception {
+    ResultSetMetaData metaData = rs.getMetaData();
+    List<List<Object>> rows = new ArrayList<>();
+    while (rs.next()) {
+      List<Object> row = new ArrayList<>(metaData.getColumnCount());
+      for (int i = 1; i <= metaData.getColumnCount(); i++) {
+        row.add(rs.getObject(i));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testSameResultsOrderAndLimitWithoutWorkStealing() throws Exception {
+    String tableName = createTable();
+    String[] queries = new String[] { "SELECT * FROM " + tableName,
+      "SELECT * FROM " + tableName + " ORDER BY k",
+      "SELECT * FROM " + tableName + " LIMIT 150",
+      "SELECT * FROM " + tableName + " WHERE k >= 'k010' AND k < 'k390' LIMIT 250",
+      "SELECT k, w FROM " + tableName + " WHERE k > 'k150' AND v < 20 ORDER BY k LIMIT 40",
+      "SELECT * FROM " + tableName + " ORDER BY k LIMIT 30 OFFSET 120",
+      "SELECT COUNT(*), SUM(v) FROM " + tableName + " WHERE k BETWEEN 'k050' AND 'k350'",
+      "SELECT SUBSTR(k, 1, 2), COUNT(*) FROM " + tableName + " GROUP BY SUBSTR(k, 1, 2)",
+      "SELECT v, COUNT(*) FROM " + tableName + " GROUP BY v ORDER BY v" };
+    try (Connection stealingConn = getConnection(true); Connection conn = getConnection(false)) {
+      for (String query : queries) {
+        List<List<Object>> expected = getRows(conn.createStatement().executeQuery(query));
+        assertEquals(query, expected, getRows(stealingConn.createStatement().executeQuery(query)));
+      }
+    }
+  }
+}
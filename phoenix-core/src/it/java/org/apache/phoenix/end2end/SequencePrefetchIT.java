@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.phoenix.query.BaseTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+@Category(NeedsOwnMiniClusterTest.class)
+public class SequencePrefetchIT extends BaseTest {
+
+  @BeforeClass
+  public static synchronized void doSetup() throws Exception {
+    Map<String, String> props = Maps.newHashMapWithExpectedSize(2);
+    props.put(QueryServices.SEQUENCE_PREFETCH_WATERMARK_ATTRIB, Float.toString(0.5f));
+    // Keep prefetched blocks at the cache size
+    props.put(QueryServices.SEQUENCE_PREFETCH_TARGET_INTERVAL_MS_ATTRIB, Long.toString(0));
+    setUpTestDriver(new ReadOnlyProps(props.entrySet().iterator()));
+  }
+
+  @Test
+  public void testNextBlockPrefetched() throws Exception {
+    String sequenceName = generateUniqueSequenceName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement()
+        .execute("CREATE SEQUENCE " + sequenceName + " START WITH 1 INCREMENT BY 1 CACHE 10");
+      for (int i = 1; i <= 5; i++) {
+        assertEquals(i, nextValue(conn, sequenceName));
+      }
+      // Half of the block is left, so the next one gets reserved in the background
+      long end = System.currentTimeMillis() + 30000;
+      while (currentServerValue(conn, sequenceName) != 21 && System.currentTimeMillis() < end) {
+        Thread.sleep(100);
+      }
+      assertEquals(21, currentServerValue(conn, sequenceName));
+      for (int i = 6; i <= 20; i++) {
+        assertEquals(i, nextValue(conn, sequenceName));
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentNextValues() throws Exception {
+    String sequenceName = generateUniqueSequenceName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE SEQUENCE " + sequenceName + " CACHE 10");
+    }
+    Set<Long> values = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          boolean unique = true;
+          try (Connection conn = DriverManager.getConnection(getUrl())) {
+            for (int j = 0; j < 250; j++) {
+              unique &= values.add(nextValue(conn, sequenceName));
+            }
+          }
+          return unique;
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        assertTrue(future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1000, values.size());
+  }
+
+  private static long nextValue(Connection conn, String sequenceName) throws Exception {
+    ResultSet rs = conn.createStatement().executeQuery("SELECT NEXT VALUE FOR " + sequenceName);
+    assertTrue(rs.next());
+    return rs.getLong(1);
+  }
+
+  private static long currentServerValue(Connection conn, String sequenceName) throws Exception {
+    ResultSet rs = conn.createStatement()
+      .executeQuery("SELECT CURRENT_VALUE FROM \"SYSTEM\".\"SEQUENCE\" WHERE SEQUENCE_NAME = '"
+        + sequenceName + "'");
+    assertTrue(rs.next());
+    return rs.getLong(1);
+  }
+}
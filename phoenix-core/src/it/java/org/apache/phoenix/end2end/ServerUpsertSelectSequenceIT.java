@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.phoenix.query.BaseTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+@Category(NeedsOwnMiniClusterTest.class)
+public class ServerUpsertSelectSequenceIT extends BaseTest {
+  private static final int NUM_ROWS = 100;
+
+  @BeforeClass
+  public static synchronized void doSetup() throws Exception {
+    Map<String, String> props = Maps.newHashMapWithExpectedSize(2);
+    props.put(QueryServices.ENABLE_SERVER_UPSERT_SELECT_SEQUENCES, Boolean.TRUE.toString());
+    // Make every region reserve several blocks
+    props.put(QueryServices.SERVER_UPSERT_SELECT_SEQUENCE_BLOCK_SIZE_ATTRIB, Long.toString(7));
+    setUpTestDriver(new ReadOnlyProps(props.entrySet().iterator()));
+  }
+
+  @Test
+  public void testNextValueForRunsOnServer() throws Exception {
+    String tableName = generateUniqueName();
+    String sequenceName = generateUniqueSequenceName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      createTable(conn, tableName);
+      conn.createStatement().execute("CREATE SEQUENCE " + sequenceName + " CACHE 3");
+      conn.setAutoCommit(true);
+      String upsert = "UPSERT INTO " + tableName + " (K, V) SELECT K, NEXT VALUE FOR "
+        + sequenceName + " FROM " + tableName;
+      String plan =
+        QueryUtil.getExplainPlan(conn.createStatement().executeQuery("EXPLAIN " + upsert));
+      assertTrue(plan, plan.contains("SERVER RESERVE 1 SEQUENCES"));
+      assertEquals(NUM_ROWS, conn.createStatement().executeUpdate(upsert));
+      assertUniqueValues(conn, tableName, 1, Long.MAX_VALUE);
+    }
+  }
+
+  @Test
+  public void testCycleSequenceFallsBackToCacheSize() throws Exception {
+    String tableName = generateUniqueName();
+    String sequenceName = generateUniqueSequenceName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      createTable(conn, tableName);
+      conn.createStatement()
+        .execute("CREATE SEQUENCE " + sequenceName + " MINVALUE 1 MAXVALUE 1000 CYCLE CACHE 3");
+      conn.setAutoCommit(true);
+      assertEquals(NUM_ROWS, conn.createStatement().executeUpdate("UPSERT INTO " + tableName
+        + " (K, V) SELECT K, NEXT VALUE FOR " + sequenceName + " FROM " + tableName));
+      assertUniqueValues(conn, tableName, 1, 1000);
+    }
+  }
+
+  private static void createTable(Connection conn, String tableName) throws Exception {
+    conn.createStatement()
+      .execute("CREATE TABLE " + tableName + " (K INTEGER PRIMARY KEY, V BIGINT) SPLIT ON ("
+        + NUM_ROWS / 3 + ", " + 2 * NUM_ROWS / 3 + ")");
+    PreparedStatement stmt = conn.prepareStatement("UPSERT INTO " + tableName + " (K) VALUES (?)");
+    for (int i = 0; i < NUM_ROWS; i++) {
+      stmt.setInt(1, i);
+      stmt.execute();
+    }
+    conn.commit();
+  }
+
+  private static void assertUniqueValues(Connection conn, String tableName, long min, long max)
+    throws Exception {
+    Set<Long> values = new HashSet<>();
+    ResultSet rs = conn.createStatement().executeQuery("SELECT V FROM " + tableName);
+    while (rs.next()) {
+      long value = rs.getLong(1);
+      assertTrue(value >= min && value <= max);
+      assertTrue(values.add(value));
+    }
+    assertEquals(NUM_ROWS, values.size());
+  }
+}
@@ -158,6 +158,15 @@ public class TableSnapshotReadsMapReduceIT extends BaseTest {
     configureJob(job, tableName, null, null, true);
   }
 
+  @Test
+  public void testMapReduceSnapshotsCombinedSplitsWithParallelScans() throws Exception {
+    PhoenixMapReduceUtil.setInput(job, PhoenixIndexDBWritable.class, snapshotName, tableName,
+      tmpDir, null, FIELD1, FIELD2, FIELD3);
+    PhoenixConfigurationUtil.setSplitTargetBytes(job.getConfiguration(), Long.MAX_VALUE);
+    PhoenixConfigurationUtil.setSnapshotParallelScans(job.getConfiguration(), 4);
+    configureJob(job, tableName, null, null, true);
+  }
+
   @Test
   public void testMapReduceSnapshotsWithCondition() throws Exception {
     PhoenixMapReduceUtil.setInput(job, PhoenixIndexDBWritable.class, snapshotName, tableName,
@@ -63,6 +63,7 @@ import org.apache.phoenix.jdbc.ClusterRoleRecord.ClusterRole;
 import org.apache.phoenix.monitoring.MetricType;
 import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.ConnectionQueryServicesImpl;
+import org.apache.phoenix.schema.PTableKey;
 import org.apache.phoenix.util.PhoenixRuntime;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -318,6 +319,50 @@ public class FailoverPhoenixConnectionIT {
     assertFalse(wrappedConn2.isClosed());
   }
 
+  /**
+   * Tests that with warm standby enabled, connections fail over to the CQS of the STANDBY cluster
+   * that has been kept warm with the tables cached on the ACTIVE cluster.
+   */
+  @Test(timeout = 300000)
+  public void testFailoverToWarmStandby() throws Exception {
+    String haGroupName2 = haGroup.getGroupInfo().getName() + "Warm";
+    initClusterRoleRecord(haGroupName2);
+    Properties clientProperties2 = new Properties(clientProperties);
+    clientProperties2.setProperty(PHOENIX_HA_GROUP_ATTR, haGroupName2);
+    clientProperties2.setProperty(
+      HighAvailabilityGroup.PHOENIX_HA_FAILOVER_WARM_STANDBY_ENABLED_KEY, String.valueOf(true));
+    clientProperties2.setProperty(
+      HighAvailabilityGroup.PHOENIX_HA_FAILOVER_WARM_STANDBY_INTERVAL_MS_KEY, String.valueOf(500));
+    HighAvailabilityGroup haGroup2 =
+      getHighAvailibilityGroup(CLUSTERS.getJdbcHAUrl(), clientProperties2);
+    try {
+      try (
+        Connection conn = DriverManager.getConnection(CLUSTERS.getJdbcHAUrl(), clientProperties2)) {
+        // Caches the table on the ACTIVE cluster
+        conn.createStatement().executeQuery("SELECT * FROM " + tableName).next();
+      }
+      String standbyUrl = CLUSTERS.getJdbcUrl2(haGroup2);
+      waitFor(() -> haGroup2.isWarmStandby(standbyUrl), 100, 60_000);
+      ConnectionQueryServices standbyCqs =
+        PhoenixDriver.INSTANCE.getConnectionQueryServices(standbyUrl, clientProperties2);
+      assertNotNull(standbyCqs.getMetaDataCache().getTableRef(new PTableKey(null, tableName)));
+
+      CLUSTERS.transitClusterRole(haGroup2, ClusterRole.STANDBY, ClusterRole.ACTIVE);
+
+      try (
+        Connection conn = DriverManager.getConnection(CLUSTERS.getJdbcHAUrl(), clientProperties2)) {
+        PhoenixConnection wrappedConn = ((FailoverPhoenixConnection) conn).getWrappedConnection();
+        assertEquals(standbyUrl, wrappedConn.getURL());
+        Assert.assertSame(standbyCqs, wrappedConn.getQueryServices());
+        conn.createStatement().executeQuery("SELECT * FROM " + tableName).next();
+      }
+      // The CQS of the cluster that became STANDBY got closed and is replaced by a warm one
+      waitFor(() -> haGroup2.isWarmStandby(CLUSTERS.getJdbcUrl1(haGroup2)), 100, 60_000);
+    } finally {
+      haGroup2.close();
+    }
+  }
+
   /**
    * Test that failover can finish even if one connection can not be closed. When once cluster
    * becomes STANDBY from ACTIVE, all its connections and the associated CQS will get closed
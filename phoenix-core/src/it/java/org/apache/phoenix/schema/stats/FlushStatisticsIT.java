@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.phoenix.end2end.NeedsOwnMiniClusterTest;
+import org.apache.phoenix.end2end.ParallelStatsDisabledIT;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Maps;
+
+/**
+ * Tests the guideposts merged into SYSTEM.STATS by {@link FlushStatisticsScanner} when memstores
+ * are flushed.
+ */
+@Category(NeedsOwnMiniClusterTest.class)
+public class FlushStatisticsIT extends ParallelStatsDisabledIT {
+
+  @BeforeClass
+  public static synchronized void doSetup() throws Exception {
+    Map<String, String> props = Maps.newHashMapWithExpectedSize(3);
+    props.put(QueryServices.STATS_COLLECTION_ON_FLUSH_ENABLED, Boolean.TRUE.toString());
+    // Write the stats before the flush completes so that the test does not have to wait for them
+    props.put(QueryServices.COMMIT_STATS_ASYNC, Boolean.FALSE.toString());
+    props.put(QueryServices.STATS_GUIDEPOST_WIDTH_BYTES_ATTRIB, Long.toString(20));
+    setUpTestDriver(new ReadOnlyProps(props.entrySet().iterator()));
+  }
+
+  private static void upsertRows(Connection conn, String tableName, int start, int end)
+    throws Exception {
+    PreparedStatement stmt = conn.prepareStatement("UPSERT INTO " + tableName + " VALUES (?, ?)");
+    for (int i = start; i < end; i++) {
+      stmt.setString(1, String.format("k%03d", i));
+      stmt.setString(2, "v" + i);
+      stmt.execute();
+    }
+    conn.commit();
+  }
+
+  private static long[] getGuidePostStats(Connection conn, String tableName) throws Exception {
+    ResultSet rs = conn.createStatement()
+      .executeQuery("SELECT COUNT(*), SUM(GUIDE_POSTS_ROW_COUNT) FROM SYSTEM.STATS"
+        + " WHERE PHYSICAL_NAME = '" + tableName + "' AND GUIDE_POST_KEY IS NOT NULL");
+    assertTrue(rs.next());
+    return new long[] { rs.getLong(1), rs.getLong(2) };
+  }
+
+  @Test
+  public void testGuidePostsMergedAfterEachFlush() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (k VARCHAR PRIMARY KEY, v VARCHAR) GUIDE_POSTS_WIDTH = 20");
+      upsertRows(conn, tableName, 0, 20);
+      getUtility().flush(TableName.valueOf(tableName));
+
+      long[] stats = getGuidePostStats(conn, tableName);
+      assertTrue(stats[0] > 1);
+      assertEquals(20, stats[1]);
+
+      // The second flush only sees the new rows, which are merged into the stored guideposts
+      upsertRows(conn, tableName, 20, 50);
+      getUtility().flush(TableName.valueOf(tableName));
+
+      long[] mergedStats = getGuidePostStats(conn, tableName);
+      assertTrue(mergedStats[0] >= stats[0]);
+      assertEquals(50, mergedStats[1]);
+    }
+  }
+
+  @Test
+  public void testNoGuidePostsWhenDisabledForTable() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      // The width is read from SYSTEM.CATALOG after the flush, not on the flush path
+      conn.createStatement().execute(
+        "CREATE TABLE " + tableName + " (k VARCHAR PRIMARY KEY, v VARCHAR) GUIDE_POSTS_WIDTH = 0");
+      upsertRows(conn, tableName, 0, 20);
+      getUtility().flush(TableName.valueOf(tableName));
+
+      assertEquals(0, getGuidePostStats(conn, tableName)[0]);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.iterate.MaterializedResultIterator;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.parse.SQLParser;
+import org.apache.phoenix.parse.SelectStatement;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableMap;
+
+public class QueryResultCacheTest extends BaseConnectionlessQueryTest {
+
+  private static final ReadOnlyProps ENABLED =
+    new ReadOnlyProps(ImmutableMap.of(QueryServices.QUERY_RESULT_CACHE_ENABLED_ATTRIB, "true",
+      QueryServices.QUERY_RESULT_CACHE_MAX_ROWS_ATTRIB, "2"));
+
+  private static QueryResultCache.Key getKey(QueryResultCache cache, Connection conn, String sql)
+    throws Exception {
+    PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+    QueryPlan plan = stmt.optimizeQuery(sql);
+    return cache.getKey(stmt, (SelectStatement) new SQLParser(sql).parseStatement(), plan);
+  }
+
+  @Test
+  public void testKeyTracksTableVersionAndWrites() throws Exception {
+    String cachedTable = generateUniqueName();
+    String uncachedTable = generateUniqueName();
+    QueryResultCache cache = new QueryResultCache(ENABLED);
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + cachedTable
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=60000");
+      conn.createStatement()
+        .execute("CREATE TABLE " + uncachedTable + " (K VARCHAR PRIMARY KEY, V VARCHAR)");
+      String sql = "SELECT * FROM " + cachedTable + " WHERE K = 'a'";
+      QueryResultCache.Key key = getKey(cache, conn, sql);
+      assertNotNull(key);
+      assertEquals(key, getKey(cache, conn, sql));
+      assertNotEquals(key, getKey(cache, conn, sql + " AND V = 'b'"));
+
+      cache.invalidate(
+        conn.unwrap(PhoenixConnection.class).getTable(cachedTable).getPhysicalName().getString());
+      assertNotEquals(key, getKey(cache, conn, sql));
+
+      assertNull(getKey(cache, conn, "SELECT * FROM " + uncachedTable));
+      assertNull(
+        getKey(cache, conn, "SELECT * FROM " + cachedTable + " WHERE V < TO_CHAR(CURRENT_DATE())"));
+      assertNull(getKey(new QueryResultCache(ReadOnlyProps.EMPTY_PROPS), conn, sql));
+    }
+  }
+
+  @Test
+  public void testIndexQueryKeyTracksDataTableWrites() throws Exception {
+    String tableName = generateUniqueName();
+    String indexName = generateUniqueName();
+    QueryResultCache cache = new QueryResultCache(ENABLED);
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=60000");
+      conn.createStatement().execute("CREATE INDEX " + indexName + " ON " + tableName + " (V)");
+      String sql = "SELECT K FROM " + tableName + " WHERE V = 'b'";
+      QueryResultCache.Key key = getKey(cache, conn, sql);
+      assertNotNull(key);
+
+      // The index is maintained on the server, so a write is only ever seen on the data table
+      cache.invalidate(conn.unwrap(PhoenixConnection.class).getTable(tableName));
+      assertNotEquals(key, getKey(cache, conn, sql));
+    }
+  }
+
+  @Test
+  public void testOnlyFullyReadSmallResultsAreCached() throws Exception {
+    String tableName = generateUniqueName();
+    QueryResultCache cache = new QueryResultCache(ENABLED);
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=60000");
+      QueryResultCache.Key smallKey = getKey(cache, conn, "SELECT * FROM " + tableName);
+      QueryResultCache.Key largeKey =
+        getKey(cache, conn, "SELECT * FROM " + tableName + " WHERE V = 'x'");
+
+      ResultIterator iterator = cache.newCachingIterator(smallKey,
+        new MaterializedResultIterator(Arrays.asList(newTuple("a"), newTuple("b"))));
+      iterator.next();
+      assertNull(cache.get(smallKey));
+      iterator.next();
+      assertNull(iterator.next());
+      List<Tuple> cachedRows = cache.get(smallKey);
+      assertEquals(2, cachedRows.size());
+      assertEquals(newTuple("b").getValue(0), cachedRows.get(1).getValue(0));
+
+      iterator = cache.newCachingIterator(largeKey,
+        new MaterializedResultIterator(Arrays.asList(newTuple("a"), newTuple("b"), newTuple("c"))));
+      while (iterator.next() != null) {
+      }
+      assertNull(cache.get(largeKey));
+    }
+  }
+
+  @Test
+  public void testNeverRefreshedTableResultsDoNotExpireImmediately() throws Exception {
+    String tableName = generateUniqueName();
+    QueryResultCache cache = new QueryResultCache(ENABLED);
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=NEVER");
+      QueryResultCache.Key key = getKey(cache, conn, "SELECT * FROM " + tableName);
+      assertNotNull(key);
+
+      ResultIterator iterator = cache.newCachingIterator(key,
+        new MaterializedResultIterator(Arrays.asList(newTuple("a"))));
+      while (iterator.next() != null) {
+      }
+      List<Tuple> cachedRows = cache.get(key);
+      assertNotNull(cachedRows);
+      assertEquals(1, cachedRows.size());
+    }
+  }
+
+  @Test
+  public void testSubPlansReadingCurrentTimeAreNotCached() throws Exception {
+    String table1 = generateUniqueName();
+    String table2 = generateUniqueName();
+    QueryResultCache cache = new QueryResultCache(ENABLED);
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + table1
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=60000");
+      conn.createStatement().execute("CREATE TABLE " + table2
+        + " (K VARCHAR PRIMARY KEY, V VARCHAR) UPDATE_CACHE_FREQUENCY=60000");
+      String now = "TO_CHAR(CURRENT_DATE())";
+
+      assertNotNull(getKey(cache, conn,
+        "SELECT * FROM " + table1 + " t1 JOIN " + table2 + " t2 ON t1.K = t2.K"));
+      assertNull(getKey(cache, conn, "SELECT * FROM " + table1 + " t1 JOIN (SELECT K FROM "
+        + table2 + " WHERE V < " + now + ") t2 ON t1.K = t2.K"));
+      assertNull(getKey(cache, conn, "SELECT * FROM " + table1 + " WHERE K IN (SELECT K FROM "
+        + table2 + " WHERE V < " + now + ")"));
+      assertNull(getKey(cache, conn, "SELECT K FROM " + table1 + " UNION ALL SELECT K FROM "
+        + table2 + " WHERE V < " + now));
+      assertNull(getKey(cache, conn,
+        "SELECT * FROM (SELECT K, V FROM " + table2 + " WHERE V < " + now + " LIMIT 5)"));
+    }
+  }
+
+  private static Tuple newTuple(String row) {
+    return new SingleKeyValueTuple(
+      new KeyValue(Bytes.toBytes(row), Bytes.toBytes("0"), Bytes.toBytes("V"), Bytes.toBytes(row)));
+  }
+}
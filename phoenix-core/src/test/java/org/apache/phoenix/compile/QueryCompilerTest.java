@@ -63,6 +63,7 @@ import org.apache.phoenix.execute.HashJoinPlan;
 import org.apache.phoenix.execute.HashJoinPlan.HashSubPlan;
 import org.apache.phoenix.execute.HashJoinPlan.SubPlan;
 import org.apache.phoenix.execute.HashJoinPlan.WhereClauseSubPlan;
+import org.apache.phoenix.execute.LateMaterializationPlan;
 import org.apache.phoenix.execute.LiteralResultIterationPlan;
 import org.apache.phoenix.execute.ScanPlan;
 import org.apache.phoenix.execute.SortMergeJoinPlan;
@@ -5417,6 +5418,11 @@ public class QueryCompilerTest extends BaseConnectionlessQueryTest {
       return Collections.emptyList();
     }
 
+    @Override
+    public List<QueryPlan> visit(LateMaterializationPlan plan) {
+      return Collections.emptyList();
+    }
+
     @Override
     public List<QueryPlan> visit(ListJarsQueryPlan plan) {
       return Collections.emptyList();
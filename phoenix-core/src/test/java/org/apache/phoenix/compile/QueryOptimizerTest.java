@@ -41,6 +41,7 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
+import org.apache.phoenix.execute.LateMaterializationPlan;
 import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
 import org.apache.phoenix.jdbc.PhoenixResultSet;
 import org.apache.phoenix.jdbc.PhoenixStatement;
@@ -49,6 +50,7 @@ import org.apache.phoenix.parse.HintNode.Hint;
 import org.apache.phoenix.parse.SQLParser;
 import org.apache.phoenix.query.BaseConnectionlessQueryTest;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.PColumn;
 import org.apache.phoenix.schema.PTableType;
 import org.apache.phoenix.util.PhoenixRuntime;
@@ -896,6 +898,55 @@ public class QueryOptimizerTest extends BaseConnectionlessQueryTest {
     assertQualifierRanges(rs, ENCODED_EMPTY_COLUMN_NAME, ENCODED_CQ_COUNTER_INITIAL_VALUE);
   }
 
+  @Test
+  public void testLateMaterializationOfWideOrderByLimit() throws Exception {
+    String tableName = generateUniqueName();
+    Properties props = new Properties();
+    props.setProperty(QueryServices.LATE_MATERIALIZATION_ENABLED_ATTRIB, Boolean.TRUE.toString());
+    try (Connection conn = DriverManager.getConnection(getUrl(), props)) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName
+          + " (k1 INTEGER NOT NULL, k2 INTEGER NOT NULL, v INTEGER, w1 CHAR(5000), w2 CHAR(5000)"
+          + " CONSTRAINT pk PRIMARY KEY (k1, k2))");
+      PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+      QueryPlan plan = stmt.optimizeQuery(
+        "SELECT * FROM " + tableName + " WHERE k1 IN (1, 2) AND k2 > 3 ORDER BY v DESC LIMIT 10");
+      assertTrue(plan instanceof LateMaterializationPlan);
+      QueryPlan keyPlan = ((LateMaterializationPlan) plan).getKeyPlan();
+      assertEquals(1, keyPlan.getProjector().getColumnCount());
+      assertEquals(Integer.valueOf(10), keyPlan.getLimit());
+      assertEquals(5, plan.getProjector().getColumnCount());
+      List<String> planSteps = plan.getExplainPlan().getPlanSteps();
+      assertEquals("CLIENT LATE MATERIALIZATION BY POINT LOOKUP ON 10 ROW KEYS OVER " + tableName,
+        planSteps.get(planSteps.size() - 1));
+
+      plan = stmt.optimizeQuery("SELECT v AS x, w1, w2 FROM " + tableName + " ORDER BY x LIMIT 10");
+      assertTrue(plan instanceof LateMaterializationPlan);
+
+      // Narrow projections, ordinals, large limits and the hint keep the single scan
+      assertFalse(stmt.optimizeQuery("SELECT k1, v FROM " + tableName
+        + " ORDER BY v LIMIT 10") instanceof LateMaterializationPlan);
+      assertFalse(stmt.optimizeQuery(
+        "SELECT * FROM " + tableName + " ORDER BY 3 LIMIT 10") instanceof LateMaterializationPlan);
+      assertFalse(stmt.optimizeQuery("SELECT * FROM " + tableName
+        + " ORDER BY v LIMIT 100000") instanceof LateMaterializationPlan);
+      assertFalse(stmt.optimizeQuery("SELECT /*+ " + Hint.NO_LATE_MATERIALIZATION + " */ * FROM "
+        + tableName + " ORDER BY v LIMIT 10") instanceof LateMaterializationPlan);
+    }
+    // On by default, and off when disabled
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+      assertTrue(stmt.optimizeQuery("SELECT * FROM " + tableName
+        + " ORDER BY v LIMIT 10") instanceof LateMaterializationPlan);
+    }
+    props.setProperty(QueryServices.LATE_MATERIALIZATION_ENABLED_ATTRIB, Boolean.FALSE.toString());
+    try (Connection conn = DriverManager.getConnection(getUrl(), props)) {
+      PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+      assertFalse(stmt.optimizeQuery("SELECT * FROM " + tableName
+        + " ORDER BY v LIMIT 10") instanceof LateMaterializationPlan);
+    }
+  }
+
   private static void assertQualifierRanges(ResultSet rs, int minQualifier, int maxQualifier)
     throws SQLException {
     Scan scan =
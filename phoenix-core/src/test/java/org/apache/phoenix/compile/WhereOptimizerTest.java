@@ -2636,6 +2636,34 @@ public class WhereOptimizerTest extends BaseConnectionlessQueryTest {
     }
   }
 
+  @Test
+  public void testLargeCompoundInListKeepsSlotsFactored() throws SQLException {
+    String tableName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (A INTEGER NOT NULL, B INTEGER NOT NULL, V VARCHAR CONSTRAINT PK PRIMARY KEY (A, B))");
+      StringBuilder inList = new StringBuilder();
+      for (int i = 0; i < 300; i++) {
+        inList.append(i == 0 ? "" : ",").append(i);
+      }
+      // 300 x 300 keys exceed the default limit of 50000, so the slots are not exploded
+      String query =
+        "SELECT * FROM " + tableName + " WHERE A IN (" + inList + ") AND B IN (" + inList + ")";
+      ScanRanges scanRanges =
+        TestUtil.getOptimizeQueryPlan(conn, query).getContext().getScanRanges();
+      assertFalse(scanRanges.isPointLookup());
+      assertTrue(scanRanges.useSkipScanFilter());
+      assertEquals(2, scanRanges.getRanges().size());
+      assertEquals(300, scanRanges.getRanges().get(0).size());
+      assertEquals(300, scanRanges.getRanges().get(1).size());
+
+      query = "SELECT * FROM " + tableName + " WHERE A IN (1,2,3) AND B IN (" + inList + ")";
+      scanRanges = TestUtil.getOptimizeQueryPlan(conn, query).getContext().getScanRanges();
+      assertTrue(scanRanges.isPointLookup());
+      assertEquals(900, scanRanges.getPointLookupCount());
+    }
+  }
+
   private static void validateScanRangesForPointLookup(QueryPlan optimizedPlan, byte[] startRow,
     byte[] stopRow) {
     StatementContext context = optimizedPlan.getContext();
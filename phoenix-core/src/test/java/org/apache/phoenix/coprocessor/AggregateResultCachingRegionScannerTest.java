@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessorclient.BaseScannerRegionObserverConstants;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.query.QueryConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AggregateResultCachingRegionScannerTest {
+
+  private Region region;
+  private RegionCoprocessorEnvironment env;
+
+  @Before
+  public void setUp() {
+    RegionInfo regionInfo =
+      RegionInfoBuilder.newBuilder(TableName.valueOf("T" + System.nanoTime())).build();
+    region = mock(Region.class);
+    when(region.getRegionInfo()).thenReturn(regionInfo);
+    env = mock(RegionCoprocessorEnvironment.class);
+    when(env.getRegion()).thenReturn(region);
+    when(env.getConfiguration()).thenReturn(HBaseConfiguration.create());
+  }
+
+  private static Scan newAggregateScan(String startRow) {
+    Scan scan = new Scan().withStartRow(Bytes.toBytes(startRow));
+    scan.setAttribute(BaseScannerRegionObserverConstants.UNGROUPED_AGG, QueryConstants.TRUE);
+    scan.setAttribute(BaseScannerRegionObserverConstants.CACHE_AGGREGATE_RESULT,
+      QueryConstants.TRUE);
+    return scan;
+  }
+
+  @Test
+  public void testCacheKey() throws Exception {
+    Scan scan = newAggregateScan("a");
+    ImmutableBytesPtr key = AggregateResultCachingRegionScanner.getCacheKey(region, scan);
+    assertNotNull(key);
+
+    Scan annotatedScan = newAggregateScan("a");
+    annotatedScan.setAttribute(BaseScannerRegionObserverConstants.CUSTOM_ANNOTATIONS,
+      Bytes.toBytes("request=1"));
+    assertEquals(key, AggregateResultCachingRegionScanner.getCacheKey(region, annotatedScan));
+    assertNotEquals(key,
+      AggregateResultCachingRegionScanner.getCacheKey(region, newAggregateScan("b")));
+
+    Scan deleteScan = newAggregateScan("a");
+    deleteScan.setAttribute(BaseScannerRegionObserverConstants.DELETE_AGG, QueryConstants.TRUE);
+    assertNull(AggregateResultCachingRegionScanner.getCacheKey(region, deleteScan));
+    scan.setAttribute(BaseScannerRegionObserverConstants.CACHE_AGGREGATE_RESULT, null);
+    assertNull(AggregateResultCachingRegionScanner.getCacheKey(region, scan));
+  }
+
+  @Test
+  public void testResultsServedUntilReadPointMoves() throws Exception {
+    ImmutableBytesPtr key =
+      AggregateResultCachingRegionScanner.getCacheKey(region, newAggregateScan("a"));
+    RegionScanner innerScanner = mock(RegionScanner.class);
+    when(innerScanner.getMvccReadPoint()).thenReturn(10L);
+    assertNull(AggregateResultCachingRegionScanner.getCachedScanner(env, key, innerScanner));
+
+    KeyValue aggregate = new KeyValue(Bytes.toBytes("a"), QueryConstants.SINGLE_COLUMN_FAMILY,
+      QueryConstants.SINGLE_COLUMN, Bytes.toBytes(42L));
+    RegionScanner aggregateScanner = mock(RegionScanner.class);
+    when(aggregateScanner.getMvccReadPoint()).thenReturn(10L);
+    doAnswer(invocation -> {
+      List<Cell> results = invocation.getArgument(0);
+      results.add(aggregate);
+      return false;
+    }).when(aggregateScanner).next(anyList());
+    RegionScanner cachingScanner =
+      new AggregateResultCachingRegionScanner(env, key, aggregateScanner);
+    List<Cell> results = new ArrayList<>();
+    assertFalse(cachingScanner.next(results));
+    assertEquals(1, results.size());
+
+    RegionScanner cachedScanner =
+      AggregateResultCachingRegionScanner.getCachedScanner(env, key, innerScanner);
+    assertNotNull(cachedScanner);
+    results.clear();
+    assertFalse(cachedScanner.next(results));
+    assertEquals(aggregate, results.get(0));
+
+    // A write moves the read point of newly opened scanners past the cached one
+    when(innerScanner.getMvccReadPoint()).thenReturn(11L);
+    assertNull(AggregateResultCachingRegionScanner.getCachedScanner(env, key, innerScanner));
+    when(innerScanner.getMvccReadPoint()).thenReturn(10L);
+    assertNull(AggregateResultCachingRegionScanner.getCachedScanner(env, key, innerScanner));
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_QUALIFIER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.regionserver.PhoenixScannerContext;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.KeyValueSchema.KeyValueSchemaBuilder;
+import org.apache.phoenix.schema.ValueBitSet;
+import org.apache.phoenix.schema.tuple.ColumnarBatch;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.ManualEnvironmentEdge;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.apache.phoenix.util.ScanUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarBatchRegionScannerTest {
+  private static final int MAX_ROWS = 100;
+  private static final int MAX_SIZE = 1024 * 1024;
+  private static final long PAGE_SIZE_MS = 10;
+
+  private KeyValueSchema schema;
+  private ManualEnvironmentEdge edge;
+
+  @Before
+  public void setUp() {
+    schema = new KeyValueSchemaBuilder(1)
+      .addField(LiteralExpression.newConstant(0, PInteger.INSTANCE))
+      .addField(LiteralExpression.newConstant("a", PVarchar.INSTANCE)).build();
+    edge = new ManualEnvironmentEdge();
+    edge.setValue(1000);
+    EnvironmentEdgeManager.injectEdge(edge);
+  }
+
+  @After
+  public void resetEdge() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  private List<Cell> newRow(int i) throws Exception {
+    Expression[] values = new Expression[] { LiteralExpression.newConstant(i, PInteger.INSTANCE),
+      LiteralExpression.newConstant("value" + i, PVarchar.INSTANCE) };
+    byte[] value =
+      schema.toBytes(values, ValueBitSet.newInstance(schema), new ImmutableBytesWritable());
+    return Collections.singletonList(PhoenixKeyValueUtil.newKeyValue(getRowKey(i),
+      VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER, 100, value));
+  }
+
+  private static List<Cell> newDummyRow(int i) {
+    List<Cell> row = new ArrayList<>(1);
+    ScanUtil.getDummyResult(getRowKey(i), row);
+    return row;
+  }
+
+  private static List<Cell> newUnbatchableRow(int i) {
+    return Collections.singletonList(PhoenixKeyValueUtil.newKeyValue(getRowKey(i),
+      VALUE_COLUMN_FAMILY, Bytes.toBytes("q"), 100, Bytes.toBytes("v")));
+  }
+
+  private static byte[] getRowKey(int i) {
+    return Bytes.toBytes("row" + (1000 + i));
+  }
+
+  /**
+   * Returns a scanner over the given rows. The manual clock moves forward past the page size after
+   * the row at timeOutAfterRow is returned, unless it is negative.
+   */
+  private RegionScanner newScanner(List<List<Cell>> rows, int timeOutAfterRow) throws Exception {
+    RegionScanner delegate = mock(RegionScanner.class);
+    Iterator<List<Cell>> iterator = rows.iterator();
+    int[] rowCount = new int[1];
+    doAnswer(invocation -> {
+      List<Cell> results = invocation.getArgument(0);
+      results.addAll(iterator.next());
+      if (rowCount[0]++ == timeOutAfterRow) {
+        edge.incrementValue(PAGE_SIZE_MS + 1);
+      }
+      return iterator.hasNext();
+    }).when(delegate).nextRaw(anyList(), any());
+    return new ColumnarBatchRegionScanner(delegate, schema, MAX_ROWS, MAX_SIZE, PAGE_SIZE_MS);
+  }
+
+  private void assertBatch(List<Cell> results, int... rows) {
+    assertEquals(1, results.size());
+    assertTrue(ColumnarBatch.isColumnarBatch(results.get(0)));
+    ColumnarBatch batch = ColumnarBatch.decode(schema, results.get(0));
+    assertEquals(rows.length, batch.getRowCount());
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    for (int i = 0; i < rows.length; i++) {
+      batch.getKey(i, ptr);
+      assertEquals("row" + (1000 + rows[i]), Bytes.toString(ptr.copyBytes()));
+      assertTrue(batch.getValue(i, 0, ptr));
+      assertEquals(rows[i], PInteger.INSTANCE.toObject(ptr));
+    }
+  }
+
+  @Test
+  public void testDummyRowReturnedWhenBatchIsEmpty() throws Exception {
+    List<Cell> dummyRow = newDummyRow(0);
+    RegionScanner scanner = newScanner(Arrays.asList(dummyRow, newRow(1), newRow(2)), -1);
+    List<Cell> results = new ArrayList<>();
+    assertTrue(scanner.next(results));
+    assertEquals(1, results.size());
+    assertSame(dummyRow.get(0), results.get(0));
+
+    results.clear();
+    assertFalse(scanner.next(results));
+    assertBatch(results, 1, 2);
+  }
+
+  @Test
+  public void testDummyRowCutsBatch() throws Exception {
+    RegionScanner scanner =
+      newScanner(Arrays.asList(newRow(0), newRow(1), newDummyRow(2), newRow(3)), -1);
+    List<Cell> results = new ArrayList<>();
+    // The batch is returned in place of the dummy row
+    assertTrue(scanner.next(results));
+    assertBatch(results, 0, 1);
+
+    results.clear();
+    assertFalse(scanner.next(results));
+    assertBatch(results, 3);
+  }
+
+  @Test
+  public void testUnbatchableRowReturnedAfterBatch() throws Exception {
+    List<Cell> unbatchableRow = newUnbatchableRow(2);
+    RegionScanner scanner =
+      newScanner(Arrays.asList(newRow(0), newRow(1), unbatchableRow, newRow(3)), -1);
+    List<Cell> results = new ArrayList<>();
+    assertTrue(scanner.next(results));
+    assertBatch(results, 0, 1);
+
+    results.clear();
+    assertTrue(scanner.next(results));
+    assertEquals(unbatchableRow, results);
+
+    results.clear();
+    assertFalse(scanner.next(results));
+    assertBatch(results, 3);
+  }
+
+  @Test
+  public void testPendingRowReturnedWhenDelegateIsDone() throws Exception {
+    List<Cell> unbatchableRow = newUnbatchableRow(1);
+    RegionScanner scanner = newScanner(Arrays.asList(newRow(0), unbatchableRow), -1);
+    List<Cell> results = new ArrayList<>();
+    // There is more to return even though the delegate has no more rows
+    assertTrue(scanner.next(results));
+    assertBatch(results, 0);
+
+    results.clear();
+    assertFalse(scanner.next(results));
+    assertEquals(unbatchableRow, results);
+  }
+
+  @Test
+  public void testBatchCutWhenPageTimesOut() throws Exception {
+    List<List<Cell>> rows = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      rows.add(newRow(i));
+    }
+    RegionScanner scanner = newScanner(rows, 2);
+    List<Cell> results = new ArrayList<>();
+    ScannerContext scannerContext = new PhoenixScannerContext(false);
+    assertTrue(scanner.next(results, scannerContext));
+    assertBatch(results, 0, 1, 2);
+
+    // A new scan rpc starts a new page
+    results.clear();
+    assertFalse(scanner.next(results, new PhoenixScannerContext(false)));
+    assertBatch(results, 3, 4);
+  }
+
+  @Test
+  public void testBatchCutAtMaxRows() throws Exception {
+    List<List<Cell>> rows = new ArrayList<>();
+    for (int i = 0; i < MAX_ROWS + 1; i++) {
+      rows.add(newRow(i));
+    }
+    RegionScanner scanner = newScanner(rows, -1);
+    List<Cell> results = new ArrayList<>();
+    assertTrue(scanner.next(results));
+    assertEquals(MAX_ROWS, ColumnarBatch.decode(schema, results.get(0)).getRowCount());
+
+    results.clear();
+    assertFalse(scanner.next(results));
+    assertBatch(results, MAX_ROWS);
+  }
+}
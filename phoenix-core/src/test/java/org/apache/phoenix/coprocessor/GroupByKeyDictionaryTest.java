@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.expression.aggregator.Aggregator;
+import org.apache.phoenix.expression.aggregator.ServerAggregators;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.TupleUtil;
+import org.junit.Test;
+
+public class GroupByKeyDictionaryTest {
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] A = Bytes.toBytes("a");
+  private static final byte[] B = Bytes.toBytes("b");
+
+  private static class MapGroupByCache implements GroupByCache {
+    private final Map<ImmutableBytesPtr, Aggregator[]> groups = new HashMap<>();
+    private final Map<ImmutableBytesPtr, ImmutableBytesPtr> lastRowKeys = new HashMap<>();
+    private int cacheCalls;
+
+    @Override
+    public long size() {
+      return groups.size();
+    }
+
+    @Override
+    public Aggregator[] cache(ImmutableBytesPtr key) {
+      cacheCalls++;
+      return groups.computeIfAbsent(new ImmutableBytesPtr(key), k -> new Aggregator[0]);
+    }
+
+    @Override
+    public RegionScanner getScanner(RegionScanner s) {
+      return s;
+    }
+
+    @Override
+    public void cacheAggregateRowKey(ImmutableBytesPtr value, ImmutableBytesPtr rowKey) {
+      lastRowKeys.put(value, rowKey);
+    }
+
+    @Override
+    public boolean hasSpilled() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static List<Expression> newExpressions() throws Exception {
+    LiteralExpression datum = LiteralExpression.newConstant("x", PVarchar.INSTANCE);
+    return Arrays.<Expression> asList(new KeyValueColumnExpression(datum, FAMILY, A),
+      new KeyValueColumnExpression(datum, FAMILY, B));
+  }
+
+  private static Tuple newRow(String rowKey, String a, String b) {
+    List<Cell> cells = new ArrayList<>();
+    cells.add(new KeyValue(Bytes.toBytes(rowKey), FAMILY, A, Bytes.toBytes(a)));
+    cells.add(new KeyValue(Bytes.toBytes(rowKey), FAMILY, B, Bytes.toBytes(b)));
+    return new MultiKeyValueTuple(cells);
+  }
+
+  private static ImmutableBytesPtr getRowKey(Tuple row) {
+    ImmutableBytesPtr rowKey = new ImmutableBytesPtr();
+    row.getKey(rowKey);
+    return rowKey;
+  }
+
+  @Test
+  public void testGroupsOnCodes() throws Exception {
+    List<Expression> expressions = newExpressions();
+    MapGroupByCache cache = new MapGroupByCache();
+    ServerAggregators aggregators = mock(ServerAggregators.class);
+    GroupByKeyDictionary dictionary = GroupByKeyDictionary.newInstance(HBaseConfiguration.create(),
+      expressions, cache, aggregators);
+    assertNotNull(dictionary);
+    for (int i = 0; i < 20; i++) {
+      Tuple row = newRow("r" + (10 + i), i % 2 == 0 ? "x" : "y", i % 4 < 2 ? "p" : "q");
+      assertTrue(dictionary.aggregate(row, getRowKey(row)));
+    }
+    assertEquals(4, cache.size());
+    assertEquals(4, cache.cacheCalls);
+    verify(aggregators, times(20)).aggregate(any(Aggregator[].class), any(Tuple.class));
+
+    dictionary.close();
+    assertFalse(dictionary.aggregate(newRow("r", "x", "p"), new ImmutableBytesPtr()));
+    ImmutableBytesPtr key = TupleUtil.getConcatenatedValue(newRow("r", "y", "q"), expressions);
+    assertEquals("r29", Bytes.toString(cache.lastRowKeys.get(key).copyBytes()));
+  }
+
+  @Test
+  public void testFallsBackOnHighCardinality() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setInt(QueryServices.GROUPBY_DICTIONARY_MAX_SIZE_ATTRIB, 2);
+    List<Expression> expressions = newExpressions();
+    MapGroupByCache cache = new MapGroupByCache();
+    GroupByKeyDictionary dictionary =
+      GroupByKeyDictionary.newInstance(conf, expressions, cache, mock(ServerAggregators.class));
+    Tuple row = newRow("r1", "x", "p");
+    assertTrue(dictionary.aggregate(row, getRowKey(row)));
+    row = newRow("r2", "x", "p");
+    assertTrue(dictionary.aggregate(row, getRowKey(row)));
+    row = newRow("r3", "y", "p");
+    assertTrue(dictionary.aggregate(row, getRowKey(row)));
+    assertFalse(dictionary.aggregate(newRow("r4", "z", "p"), new ImmutableBytesPtr()));
+    assertEquals(2, cache.size());
+    ImmutableBytesPtr key = TupleUtil.getConcatenatedValue(newRow("r", "x", "p"), expressions);
+    assertEquals("r2", Bytes.toString(cache.lastRowKeys.get(key).copyBytes()));
+
+    conf.setBoolean(QueryServices.GROUPBY_DICTIONARY_ENABLED_ATTRIB, false);
+    assertNull(
+      GroupByKeyDictionary.newInstance(conf, expressions, cache, mock(ServerAggregators.class)));
+  }
+}
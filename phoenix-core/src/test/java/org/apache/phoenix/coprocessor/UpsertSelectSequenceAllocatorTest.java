@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparatorImpl;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Append;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.coprocessorclient.SequenceRegionObserverConstants;
+import org.apache.phoenix.coprocessorclient.UngroupedAggregateRegionObserverHelper;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
+import org.apache.phoenix.schema.SequenceKey;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PLong;
+import org.junit.Test;
+
+public class UpsertSelectSequenceAllocatorTest {
+  private static final byte[] FAMILY = PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_FAMILY_BYTES;
+  private static final Tuple ROW = new SingleKeyValueTuple(
+    new KeyValue(Bytes.toBytes("r"), Bytes.toBytes("0"), Bytes.toBytes("V"), Bytes.toBytes("v")));
+
+  /**
+   * Stands for a sequence row of SYSTEM.SEQUENCE and the increments SequenceRegionObserver does on
+   * it, with an increment by of 1.
+   */
+  private static class SequenceRow {
+    private final long cacheSize;
+    private final long maxValue;
+    private final boolean cycle;
+    private long currentValue = 1;
+    private final List<Long> numsToAllocate = new ArrayList<>();
+    private final List<Append> returns = new ArrayList<>();
+
+    private SequenceRow(long cacheSize, long maxValue, boolean cycle) {
+      this.cacheSize = cacheSize;
+      this.maxValue = maxValue;
+      this.cycle = cycle;
+    }
+
+    private Result increment(Increment increment) {
+      byte[] row = increment.getRow();
+      long numToAllocate =
+        Bytes.toLong(increment.getAttribute(SequenceRegionObserverConstants.NUM_TO_ALLOCATE));
+      numsToAllocate.add(numToAllocate);
+      boolean isBulk = numToAllocate > 1;
+      if (cycle && isBulk) {
+        return newErrorResult(row, SQLExceptionCode.NUM_SEQ_TO_ALLOCATE_NOT_SUPPORTED);
+      }
+      if (isBulk && currentValue + numToAllocate - 1 > maxValue) {
+        return newErrorResult(row, SQLExceptionCode.SEQUENCE_VAL_REACHED_MAX_VALUE);
+      }
+      currentValue += isBulk ? numToAllocate : cacheSize;
+      List<Cell> cells = new ArrayList<>(Arrays.asList(
+        newCell(row, PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES, PLong.INSTANCE.toBytes(
+          currentValue)),
+        newCell(row, PhoenixDatabaseMetaData.INCREMENT_BY_BYTES, PLong.INSTANCE.toBytes(1L)),
+        newCell(row, PhoenixDatabaseMetaData.CACHE_SIZE_BYTES, PLong.INSTANCE.toBytes(cacheSize)),
+        newCell(row, PhoenixDatabaseMetaData.MIN_VALUE_BYTES, PLong.INSTANCE.toBytes(1L)),
+        newCell(row, PhoenixDatabaseMetaData.MAX_VALUE_BYTES, PLong.INSTANCE.toBytes(maxValue)),
+        newCell(row, PhoenixDatabaseMetaData.CYCLE_FLAG_BYTES, PBoolean.INSTANCE.toBytes(cycle)),
+        newCell(row, PhoenixDatabaseMetaData.LIMIT_REACHED_FLAG_BYTES,
+          PBoolean.INSTANCE.toBytes(false))));
+      Collections.sort(cells, CellComparatorImpl.COMPARATOR);
+      return Result.create(cells);
+    }
+
+    private static Result newErrorResult(byte[] row, SQLExceptionCode code) {
+      return Result.create(Collections.singletonList(
+        newCell(row, Bytes.toBytes("ERROR"), PInteger.INSTANCE.toBytes(code.getErrorCode()))));
+    }
+
+    private static Cell newCell(byte[] row, byte[] qualifier, byte[] value) {
+      return new KeyValue(row, FAMILY, qualifier, 1, value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Table newSequenceTable(SequenceRow sequenceRow) throws Exception {
+    Table table = mock(Table.class);
+    when(table.increment(any(Increment.class)))
+      .thenAnswer(invocation -> sequenceRow.increment(invocation.getArgument(0)));
+    doAnswer(invocation -> {
+      for (Row row : (List<Row>) invocation.getArgument(0)) {
+        sequenceRow.returns.add((Append) row);
+      }
+      return null;
+    }).when(table).batch(anyList(), any(Object[].class));
+    return table;
+  }
+
+  private static byte[] serialize(long blockSize, String tenantId) {
+    return UngroupedAggregateRegionObserverHelper.serialize(0, blockSize,
+      Collections.singletonList(new SequenceKey(tenantId, "S", "SEQ", 0)));
+  }
+
+  private static long getCurrentValue(Append append) {
+    for (Cell cell : append.getFamilyCellMap().get(FAMILY)) {
+      if (
+        Bytes.equals(cell.getQualifierArray(), cell.getQualifierOffset(),
+          cell.getQualifierLength(), PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES, 0,
+          PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES.length)
+      ) {
+        return PLong.INSTANCE.getCodec().decodeLong(cell.getValueArray(), cell.getValueOffset(),
+          SortOrder.getDefault());
+      }
+    }
+    throw new AssertionError("No CURRENT_VALUE in " + append);
+  }
+
+  @Test
+  public void testValuesReservedInBlocksAndLeftOverReturned() throws Exception {
+    SequenceRow sequenceRow = new SequenceRow(10, Long.MAX_VALUE, false);
+    Table table = newSequenceTable(sequenceRow);
+    UpsertSelectSequenceAllocator allocator =
+      new UpsertSelectSequenceAllocator(serialize(100, null), null, table);
+    for (long i = 1; i <= 150; i++) {
+      assertEquals(i, allocator.newSequenceTuple(ROW).getSequenceValue(0));
+    }
+    assertEquals(Arrays.asList(100L, 100L), sequenceRow.numsToAllocate);
+
+    allocator.close();
+    assertEquals(1, sequenceRow.returns.size());
+    // The 50 values left of the second block are given back
+    assertEquals(151, getCurrentValue(sequenceRow.returns.get(0)));
+    verify(table).close();
+  }
+
+  @Test
+  public void testNothingReturnedWhenBlockUsedUp() throws Exception {
+    SequenceRow sequenceRow = new SequenceRow(10, Long.MAX_VALUE, false);
+    Table table = newSequenceTable(sequenceRow);
+    UpsertSelectSequenceAllocator allocator =
+      new UpsertSelectSequenceAllocator(serialize(20, null), null, table);
+    for (long i = 1; i <= 20; i++) {
+      assertEquals(i, allocator.newSequenceTuple(ROW).getSequenceValue(0));
+    }
+    allocator.close();
+    verify(table, never()).batch(anyList(), any(Object[].class));
+    verify(table).close();
+  }
+
+  @Test
+  public void testCyclingSequenceFallsBackToCacheSize() throws Exception {
+    SequenceRow sequenceRow = new SequenceRow(10, Long.MAX_VALUE, true);
+    UpsertSelectSequenceAllocator allocator =
+      new UpsertSelectSequenceAllocator(serialize(100, null), null, newSequenceTable(sequenceRow));
+    for (long i = 1; i <= 25; i++) {
+      assertEquals(i, allocator.newSequenceTuple(ROW).getSequenceValue(0));
+    }
+    // Once a block could not be reserved, the sequence is only incremented by its cache size
+    assertEquals(Arrays.asList(100L, 1L, 1L, 1L), sequenceRow.numsToAllocate);
+    allocator.close();
+  }
+
+  @Test
+  public void testSequenceNearMaxValueFallsBackToCacheSize() throws Exception {
+    SequenceRow sequenceRow = new SequenceRow(10, 50, false);
+    UpsertSelectSequenceAllocator allocator =
+      new UpsertSelectSequenceAllocator(serialize(100, null), null, newSequenceTable(sequenceRow));
+    for (long i = 1; i <= 50; i++) {
+      assertEquals(i, allocator.newSequenceTuple(ROW).getSequenceValue(0));
+    }
+    assertEquals(Arrays.asList(100L, 1L, 1L, 1L, 1L, 1L), sequenceRow.numsToAllocate);
+    allocator.close();
+  }
+
+  @Test
+  public void testSequenceOfOtherTenantRejected() throws Exception {
+    SequenceRow sequenceRow = new SequenceRow(10, Long.MAX_VALUE, false);
+    Table table = newSequenceTable(sequenceRow);
+    try {
+      new UpsertSelectSequenceAllocator(serialize(100, "tenant1"), "tenant2", table);
+      fail();
+    } catch (DoNotRetryIOException e) {
+      // Expected
+    }
+    try {
+      new UpsertSelectSequenceAllocator(serialize(100, "tenant1"), null, table);
+      fail();
+    } catch (DoNotRetryIOException e) {
+      // Expected
+    }
+    verify(table, never()).increment(any(Increment.class));
+
+    UpsertSelectSequenceAllocator allocator =
+      new UpsertSelectSequenceAllocator(serialize(100, "tenant1"), "tenant1", table);
+    assertEquals(1, allocator.newSequenceTuple(ROW).getSequenceValue(0));
+    allocator.close();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.expression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.join.HashJoinBloomFilter;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.junit.Test;
+
+public class BloomFilterExpressionTest {
+  private static final byte[] CACHE_ID = Bytes.toBytes(42L);
+
+  private static boolean evaluate(Expression expression) {
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    assertTrue(expression.evaluate(null, ptr));
+    return (Boolean) PBoolean.INSTANCE.toObject(ptr);
+  }
+
+  @Test
+  public void testEvaluate() {
+    HashJoinBloomFilter.Builder builder = new HashJoinBloomFilter.Builder(10, 0.01);
+    builder.add(new ImmutableBytesWritable(Bytes.toBytes("a")));
+    HashJoinBloomFilter filter = builder.build();
+    BloomFilterExpression match =
+      new BloomFilterExpression(LiteralExpression.newConstant("a", PVarchar.INSTANCE), CACHE_ID);
+    BloomFilterExpression noMatch =
+      new BloomFilterExpression(LiteralExpression.newConstant("b", PVarchar.INSTANCE), CACHE_ID);
+
+    // Every row passes until the expression is bound to the filter of its hash cache
+    assertTrue(evaluate(noMatch));
+    assertEquals(0, noMatch.getPassedCount() + noMatch.getRejectedCount());
+
+    match.bind(filter);
+    noMatch.bind(filter);
+    assertTrue(evaluate(match));
+    assertFalse(evaluate(noMatch));
+    assertFalse(evaluate(noMatch));
+    assertEquals(1, match.getPassedCount());
+    assertEquals(0, match.getRejectedCount());
+    assertEquals(0, noMatch.getPassedCount());
+    assertEquals(2, noMatch.getRejectedCount());
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    BloomFilterExpression expression =
+      new BloomFilterExpression(LiteralExpression.newConstant("k1", PVarchar.INSTANCE), CACHE_ID);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream dOut = new DataOutputStream(baos);
+    expression.write(dOut);
+    dOut.flush();
+
+    BloomFilterExpression expression2 = new BloomFilterExpression();
+    byte[] bytes = baos.toByteArray();
+    expression2.readFields(new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length)));
+    assertEquals(expression, expression2);
+    assertArrayEquals(CACHE_ID, expression2.getCacheId());
+    // Only the cache id is serialized, not the filter
+    assertTrue(bytes.length < 32);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.schema.PDatum;
+import org.apache.phoenix.schema.RowKeySchema;
+import org.apache.phoenix.schema.RowKeySchema.RowKeySchemaBuilder;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.types.PDataType;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.Lists;
+
+public class SkipScanFilterSerializationTest {
+
+  private static RowKeySchema newSchema(int nFields) {
+    RowKeySchemaBuilder builder = new RowKeySchemaBuilder(nFields);
+    for (int i = 0; i < nFields; i++) {
+      builder.addField(new PDatum() {
+        @Override
+        public boolean isNullable() {
+          return false;
+        }
+
+        @Override
+        public PDataType getDataType() {
+          return PVarchar.INSTANCE;
+        }
+
+        @Override
+        public Integer getMaxLength() {
+          return null;
+        }
+
+        @Override
+        public Integer getScale() {
+          return null;
+        }
+
+        @Override
+        public SortOrder getSortOrder() {
+          return SortOrder.getDefault();
+        }
+      }, false, SortOrder.getDefault());
+    }
+    return builder.build();
+  }
+
+  private static List<KeyRange> newPointKeys(int count, String suffix) {
+    List<KeyRange> keys = Lists.newArrayListWithExpectedSize(count);
+    for (int i = 0; i < count; i++) {
+      keys.add(KeyRange.getKeyRange(Bytes.toBytes(String.format("customer-%08d", i) + suffix)));
+    }
+    return keys;
+  }
+
+  @Test
+  public void testPrefixCompressedSlotRoundTrip() throws Exception {
+    List<KeyRange> points = newPointKeys(1000, "");
+    List<KeyRange> ranges =
+      Arrays.asList(KeyRange.getKeyRange(Bytes.toBytes("a"), true, Bytes.toBytes("c"), false),
+        KeyRange.getKeyRange(Bytes.toBytes("x"), true, Bytes.toBytes("z"), true));
+    List<List<KeyRange>> slots = Arrays.asList(points, ranges);
+    SkipScanFilter filter =
+      new SkipScanFilter(slots, newSchema(2), false).withCompactSerialization();
+
+    byte[] bytes = filter.toByteArray();
+    SkipScanFilter parsed = SkipScanFilter.parseFrom(bytes);
+    assertEquals(slots, parsed.getSlots());
+    assertTrue(parsed.isCompactSerialization());
+    // Each key shares most of its bytes with the previous one and is written only once
+    assertTrue("Serialized size " + bytes.length, bytes.length < points.size() * 8);
+  }
+
+  @Test
+  public void testCompactSerializationIsOptIn() throws Exception {
+    List<List<KeyRange>> slots = Collections.singletonList(newPointKeys(1000, ""));
+    SkipScanFilter filter = new SkipScanFilter(slots, newSchema(1), true);
+    assertFalse(filter.isCompactSerialization());
+
+    byte[] bytes = filter.toByteArray();
+    SkipScanFilter parsed = SkipScanFilter.parseFrom(bytes);
+    assertEquals(slots, parsed.getSlots());
+    assertFalse(parsed.isCompactSerialization());
+    // Without the compact format every key is written in full as both of its bounds
+    assertTrue("Serialized size " + bytes.length, bytes.length > 1000 * 2 * 16);
+    assertTrue(filter.withCompactSerialization().toByteArray().length < bytes.length);
+  }
+
+  @Test
+  public void testCompactSerializationKeptByIntersect() throws Exception {
+    List<List<KeyRange>> slots = Collections.singletonList(newPointKeys(1000, ""));
+    SkipScanFilter filter =
+      new SkipScanFilter(slots, newSchema(1), true).withCompactSerialization();
+    SkipScanFilter intersected =
+      filter.intersect(Bytes.toBytes("customer-00000100"), Bytes.toBytes("customer-00000200"));
+    assertTrue(intersected.isCompactSerialization());
+    assertEquals(100, intersected.getSlots().get(0).size());
+    assertEquals(intersected.getSlots(),
+      SkipScanFilter.parseFrom(intersected.toByteArray()).getSlots());
+  }
+}
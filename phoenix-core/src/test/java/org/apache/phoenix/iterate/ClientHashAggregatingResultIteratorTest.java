@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN;
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN_FAMILY;
+import static org.apache.phoenix.util.TestUtil.TEST_PROPERTIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
+import org.apache.phoenix.compile.SequenceManager;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.expression.RowKeyColumnExpression;
+import org.apache.phoenix.expression.aggregator.Aggregators;
+import org.apache.phoenix.expression.aggregator.ClientAggregators;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.RowKeyValueAccessor;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.PropertiesUtil;
+import org.apache.phoenix.util.TestUtil;
+import org.junit.Test;
+
+public class ClientHashAggregatingResultIteratorTest extends BaseConnectionlessQueryTest {
+  private static final int NUM_KEYS = 500;
+  private static final int NUM_ROWS = 20000;
+
+  @Test
+  public void testParallelAggregationMatchesSerial() throws Exception {
+    Map<String, Long> expected = aggregate(0, OrderBy.EMPTY_ORDER_BY, null);
+    assertEquals(NUM_KEYS, expected.size());
+    assertEquals(expected, aggregate(4, OrderBy.EMPTY_ORDER_BY, null));
+  }
+
+  @Test
+  public void testParallelAggregationSortsKeys() throws Exception {
+    List<String> keys = new ArrayList<>();
+    Map<String, Long> forward = aggregate(4, OrderBy.FWD_ROW_KEY_ORDER_BY, keys);
+    assertEquals(NUM_KEYS, keys.size());
+    for (int i = 1; i < keys.size(); i++) {
+      assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+    }
+
+    keys.clear();
+    assertEquals(forward, aggregate(3, OrderBy.REV_ROW_KEY_ORDER_BY, keys));
+    for (int i = 1; i < keys.size(); i++) {
+      assertTrue(keys.get(i - 1).compareTo(keys.get(i)) > 0);
+    }
+  }
+
+  private Map<String, Long> aggregate(int partitions, OrderBy orderBy, List<String> keys)
+    throws Exception {
+    List<Tuple> tuples = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      tuples.add(new SingleKeyValueTuple(new KeyValue(Bytes.toBytes("k" + (i * 7919) % NUM_KEYS),
+        SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, PLong.INSTANCE.toBytes((long) i))));
+    }
+    LiteralExpression key = LiteralExpression.newConstant(null, PVarchar.INSTANCE);
+    List<Expression> groupByExpressions = Arrays.<Expression> asList(
+      new RowKeyColumnExpression(key, new RowKeyValueAccessor(Arrays.asList(key), 0)));
+    List<Aggregators> partitionAggregators = new ArrayList<>();
+    for (int i = 0; i < partitions; i++) {
+      partitionAggregators.add(newSumAggregators());
+    }
+    ClientAggregators aggregators = newSumAggregators();
+
+    Map<String, Long> results = new HashMap<>();
+    try (PhoenixConnection pconn =
+      DriverManager.getConnection(getUrl(), TEST_PROPERTIES).unwrap(PhoenixConnection.class)) {
+      PhoenixStatement statement = new PhoenixStatement(pconn);
+      StatementContext context =
+        new StatementContext(statement, null, new Scan(), new SequenceManager(statement));
+      ResultIterator iterator =
+        new ClientHashAggregatingResultIterator(context, new MaterializedResultIterator(tuples),
+          aggregators, partitionAggregators, groupByExpressions, orderBy);
+      try {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        for (Tuple tuple = iterator.next(); tuple != null; tuple = iterator.next()) {
+          tuple.getKey(ptr);
+          String groupKey = Bytes.toString(ptr.get(), ptr.getOffset(), ptr.getLength());
+          tuple.getValue(SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, ptr);
+          results.put(groupKey, (Long) PLong.INSTANCE.toObject(ptr));
+          if (keys != null) {
+            keys.add(groupKey);
+          }
+        }
+      } finally {
+        iterator.close();
+      }
+    }
+    return results;
+  }
+
+  private ClientAggregators newSumAggregators() throws Exception {
+    return TestUtil.getSingleSumAggregator(getUrl(), PropertiesUtil.deepCopy(TEST_PROPERTIES));
+  }
+}
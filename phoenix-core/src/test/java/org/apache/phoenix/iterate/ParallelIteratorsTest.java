@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.query.ConnectionlessQueryServicesImpl;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.stats.GuidePostsInfoBuilder;
+import org.apache.phoenix.schema.stats.GuidePostsKey;
+import org.junit.Test;
+
+public class ParallelIteratorsTest extends BaseConnectionlessQueryTest {
+
+  @Test
+  public void testEstimatedBytesOnlyCountProjectedColumnFamilies() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement().execute("CREATE TABLE " + tableName
+        + " (K VARCHAR PRIMARY KEY, A.V1 VARCHAR, B.V2 VARCHAR) COLUMN_ENCODED_BYTES=0");
+      PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+      PTable table = pconn.getTable(tableName);
+      addTableStats(pconn, table, "A", 100);
+      addTableStats(pconn, table, "B", 1000);
+
+      PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+      Long smallFamilyBytes =
+        stmt.optimizeQuery("SELECT V1 FROM " + tableName).getEstimatedBytesToScan();
+      Long allFamiliesBytes =
+        stmt.optimizeQuery("SELECT * FROM " + tableName).getEstimatedBytesToScan();
+      assertEquals(200L, smallFamilyBytes.longValue());
+      assertEquals(2200L, allFamiliesBytes.longValue());
+    }
+  }
+
+  @Test
+  public void testMultiKeyPointLookupIsNotSplitAtGuidePosts() throws Exception {
+    String tableName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName + " (K VARCHAR PRIMARY KEY, V1 VARCHAR)");
+      PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+      PTable table = pconn.getTable(tableName);
+      addTableStats(pconn, table, "0", 100);
+
+      PhoenixStatement stmt = conn.createStatement().unwrap(PhoenixStatement.class);
+      QueryPlan rangePlan = stmt.optimizeQuery("SELECT * FROM " + tableName + " WHERE K >= 'a'");
+      rangePlan.iterator().close();
+      assertEquals(3, rangePlan.getScans().get(0).size());
+      QueryPlan pointLookupPlan =
+        stmt.optimizeQuery("SELECT * FROM " + tableName + " WHERE K IN ('a', 'c', 'e')");
+      pointLookupPlan.iterator().close();
+      assertEquals(1, pointLookupPlan.getScans().size());
+      assertEquals(1, pointLookupPlan.getScans().get(0).size());
+
+      // Beyond the number of keys looked up by one region scan, the keys are split at guideposts
+      int numKeys = QueryServicesOptions.DEFAULT_POINT_LOOKUP_MAX_KEYS_PER_REGION_SCAN + 1;
+      StringBuilder keys = new StringBuilder();
+      for (int i = 0; i < numKeys; i++) {
+        keys.append(i == 0 ? "" : ", ").append("'").append("ace".charAt(i % 3)).append(i)
+          .append("'");
+      }
+      QueryPlan largePointLookupPlan =
+        stmt.optimizeQuery("SELECT * FROM " + tableName + " WHERE K IN (" + keys + ")");
+      largePointLookupPlan.iterator().close();
+      assertEquals(3, largePointLookupPlan.getScans().get(0).size());
+    }
+  }
+
+  private static void addTableStats(PhoenixConnection conn, PTable table, String family,
+    long byteCountPerGuidePost) {
+    GuidePostsInfoBuilder builder = new GuidePostsInfoBuilder();
+    builder.trackGuidePost(new ImmutableBytesWritable(Bytes.toBytes("b")), byteCountPerGuidePost, 1,
+      0);
+    builder.trackGuidePost(new ImmutableBytesWritable(Bytes.toBytes("d")), byteCountPerGuidePost, 1,
+      0);
+    ((ConnectionlessQueryServicesImpl) conn.getQueryServices()).addTableStats(
+      new GuidePostsKey(table.getPhysicalName().getBytes(), Bytes.toBytes(family)),
+      builder.build());
+  }
+}
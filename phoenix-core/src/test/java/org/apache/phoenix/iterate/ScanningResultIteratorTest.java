@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_QUALIFIER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Collections;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.execute.TupleProjector;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.expression.ProjectedColumnExpression;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.ValueBitSet;
+import org.apache.phoenix.schema.tuple.ColumnarBatch;
+import org.apache.phoenix.schema.tuple.ColumnarBatchTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.junit.Test;
+
+public class ScanningResultIteratorTest extends BaseConnectionlessQueryTest {
+  private static final int ROW_COUNT = 10;
+
+  private static ProjectedColumnExpression[] newProjectedColumns(Connection conn, String types)
+    throws Exception {
+    String tableName = generateUniqueName();
+    conn.createStatement()
+      .execute("CREATE TABLE " + tableName + " (K VARCHAR PRIMARY KEY, " + types + ")");
+    PTable table = conn.unwrap(PhoenixConnection.class).getTable(tableName);
+    return new ProjectedColumnExpression[] {
+      new ProjectedColumnExpression(table.getColumnForColumnName("V1"), table, "V1"),
+      new ProjectedColumnExpression(table.getColumnForColumnName("V2"), table, "V2") };
+  }
+
+  private static Cell newBatch(KeyValueSchema schema) throws Exception {
+    ColumnarBatch.Builder builder = new ColumnarBatch.Builder(schema);
+    for (int i = 0; i < ROW_COUNT; i++) {
+      Expression[] values = new Expression[] { LiteralExpression.newConstant(i, PInteger.INSTANCE),
+        LiteralExpression.newConstant("value" + i, PVarchar.INSTANCE) };
+      byte[] value =
+        schema.toBytes(values, ValueBitSet.newInstance(schema), new ImmutableBytesWritable());
+      assertTrue(builder.add(PhoenixKeyValueUtil.newKeyValue(Bytes.toBytes("row" + (1000 + i)),
+        VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER, 100, value)));
+    }
+    return builder.build();
+  }
+
+  private static ScanningResultIterator newIterator(Connection conn, KeyValueSchema schema,
+    Expression[] expressions, Cell batch) throws Exception {
+    Scan scan = new Scan();
+    TupleProjector.serializeProjectorIntoScan(scan, new TupleProjector(schema, expressions), false);
+    ResultScanner scanner = mock(ResultScanner.class);
+    when(scanner.next()).thenReturn(Result.create(Collections.singletonList(batch)), (Result) null);
+    StatementContext context =
+      new StatementContext(conn.createStatement().unwrap(PhoenixStatement.class));
+    return new ScanningResultIterator(scanner, scan, null, context, false, Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testColumnarBatchDecodedIntoRows() throws Exception {
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      ProjectedColumnExpression[] columns = newProjectedColumns(conn, "V1 INTEGER, V2 VARCHAR");
+      KeyValueSchema schema = columns[0].getSchema();
+      ScanningResultIterator iterator = newIterator(conn, schema, columns, newBatch(schema));
+      ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+      for (int i = 0; i < ROW_COUNT; i++) {
+        Tuple tuple = spy(iterator.next());
+        assertTrue(tuple instanceof ColumnarBatchTuple);
+        tuple.getKey(ptr);
+        assertEquals("row" + (1000 + i), Bytes.toString(ptr.copyBytes()));
+        // The schema deserialized from the scan is equal to, but not the same as, the column's
+        assertTrue(columns[0].evaluate(tuple, ptr));
+        assertEquals(i, PInteger.INSTANCE.toObject(ptr));
+        assertTrue(columns[1].evaluate(tuple, ptr));
+        assertEquals("value" + i, PVarchar.INSTANCE.toObject(ptr));
+        verify((ColumnarBatchTuple) tuple).getProjectedValue(1, ptr);
+      }
+      assertNull(iterator.next());
+    }
+  }
+
+  @Test
+  public void testColumnWithOtherSchemaDoesNotReadBatchPositions() throws Exception {
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      ProjectedColumnExpression[] columns = newProjectedColumns(conn, "V1 INTEGER, V2 VARCHAR");
+      KeyValueSchema schema = columns[0].getSchema();
+      // Same number of fields, but the first one is of another type
+      ProjectedColumnExpression[] otherColumns =
+        newProjectedColumns(conn, "V1 UNSIGNED_INT, V2 VARCHAR");
+      ScanningResultIterator iterator = newIterator(conn, schema, columns, newBatch(schema));
+      ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+      ColumnarBatchTuple tuple = (ColumnarBatchTuple) spy(iterator.next());
+      // The value is decoded from the projected row with the column's own schema instead
+      assertTrue(otherColumns[1].evaluate(tuple, ptr));
+      assertEquals("value0", PVarchar.INSTANCE.toObject(ptr));
+      verify(tuple, never()).getProjectedValue(anyInt(), any());
+      iterator.close();
+    }
+  }
+}
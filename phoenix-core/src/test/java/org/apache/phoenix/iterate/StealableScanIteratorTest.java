@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.ExplainPlanAttributes.ExplainPlanAttributesBuilder;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.junit.Test;
+
+public class StealableScanIteratorTest {
+  private static final byte[] START_ROW = Bytes.toBytes("a");
+  private static final byte[] STOP_ROW = Bytes.toBytes("z");
+
+  /**
+   * Iterates over the rows of a key range, and runs a hook while the iterator waits on the call
+   * that returns the row at the given position, as a client thread stealing work would.
+   */
+  private static class RowIterator implements ResultIterator {
+    private final List<String> rows;
+    private final int hookPosition;
+    private final Runnable hook;
+    private int position;
+    private boolean closed;
+
+    RowIterator(List<String> rows, int hookPosition, Runnable hook) {
+      this.rows = rows;
+      this.hookPosition = hookPosition;
+      this.hook = hook;
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+      if (position == hookPosition) {
+        hook.run();
+      }
+      if (position == rows.size()) {
+        return null;
+      }
+      byte[] row = Bytes.toBytes(rows.get(position++));
+      return new SingleKeyValueTuple(new KeyValue(row, row, row, row));
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public void explain(List<String> planSteps) {
+    }
+
+    @Override
+    public void explain(List<String> planSteps,
+      ExplainPlanAttributesBuilder explainPlanAttributesBuilder) {
+    }
+  }
+
+  private static List<String> getRows(byte[] startRow, byte[] stopRow) {
+    List<String> rows = new ArrayList<>();
+    for (char c = 'a'; c < 'z'; c++) {
+      for (char d = 'a'; d <= 'z'; d += 5) {
+        String row = new String(new char[] { c, d });
+        if (
+          Bytes.compareTo(Bytes.toBytes(row), startRow) >= 0
+            && Bytes.compareTo(Bytes.toBytes(row), stopRow) < 0
+        ) {
+          rows.add(row);
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static List<String> drain(ResultIterator iterator) throws SQLException {
+    List<String> rows = new ArrayList<>();
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    for (Tuple tuple = iterator.next(); tuple != null; tuple = iterator.next()) {
+      tuple.getKey(ptr);
+      rows.add(Bytes.toString(ptr.copyBytes()));
+    }
+    return rows;
+  }
+
+  @Test
+  public void testGetSplitRow() {
+    byte[] splitRow = StealableScanIterator.getSplitRow(START_ROW, STOP_ROW);
+    assertNotNull(splitRow);
+    assertTrue(Bytes.compareTo(START_ROW, splitRow) < 0);
+    assertTrue(Bytes.compareTo(splitRow, STOP_ROW) < 0);
+    assertNull(StealableScanIterator.getSplitRow(new byte[0], STOP_ROW));
+    assertNull(StealableScanIterator.getSplitRow(START_ROW, new byte[0]));
+    assertNull(StealableScanIterator.getSplitRow(STOP_ROW, START_ROW));
+  }
+
+  @Test
+  public void testRowsInOrderAfterSteals() throws Exception {
+    Scan scan = new Scan().withStartRow(START_ROW).withStopRow(STOP_ROW);
+    List<String> allRows = getRows(START_ROW, STOP_ROW);
+    List<StealableScanIterator> tails = new ArrayList<>();
+    List<RowIterator> heads = new ArrayList<>();
+    StealableScanIterator.TailFactory tailFactory = (tailScan, next) -> {
+      RowIterator tailHead = new RowIterator(
+        getRows(tailScan.getStartRow(), tailScan.getStopRow()), -1, null);
+      heads.add(tailHead);
+      StealableScanIterator tail =
+        new StealableScanIterator(tailScan, tailHead, next, Long.MAX_VALUE);
+      tails.add(tail);
+      return tail;
+    };
+    StealableScanIterator[] iterator = new StealableScanIterator[1];
+    // Stolen from twice while waiting on the tenth row: the second steal splits the range that
+    // is left to the scan after the first one
+    RowIterator head = new RowIterator(allRows, 10, () -> {
+      try {
+        assertTrue(iterator[0].getWaitingSince() > 0);
+        assertTrue(iterator[0].steal(tailFactory));
+        assertTrue(iterator[0].steal(tailFactory));
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    heads.add(head);
+    iterator[0] = new StealableScanIterator(scan, head, null, Long.MAX_VALUE);
+
+    assertEquals(allRows, drain(iterator[0]));
+    assertEquals(2, tails.size());
+    // The second tail covers the range between the rows returned and the first tail
+    assertTrue(Bytes.compareTo(tails.get(1).getScan().getStopRow(),
+      tails.get(0).getScan().getStartRow()) == 0);
+    assertTrue(Bytes.compareTo(Bytes.toBytes(allRows.get(9)),
+      tails.get(1).getScan().getStartRow()) < 0);
+    // The scan is closed once it reached the row its range was cut at
+    assertTrue(head.closed);
+    assertTrue(iterator[0].isDone());
+    assertEquals(0, iterator[0].getWaitingSince());
+    assertFalse(iterator[0].steal(tailFactory));
+
+    iterator[0].close();
+    for (RowIterator rowIterator : heads) {
+      assertTrue(rowIterator.closed);
+    }
+  }
+
+  @Test
+  public void testNotStolenFromUnlessWaiting() throws Exception {
+    Scan scan = new Scan().withStartRow(START_ROW).withStopRow(STOP_ROW);
+    List<String> allRows = getRows(START_ROW, STOP_ROW);
+    StealableScanIterator iterator =
+      new StealableScanIterator(scan, new RowIterator(allRows, -1, null), null, Long.MAX_VALUE);
+    assertNotNull(iterator.next());
+    assertFalse(iterator.steal((tailScan, next) -> {
+      throw new AssertionError("Shouldn't split a scan that doesn't wait on the server");
+    }));
+    List<String> rows = drain(iterator);
+    assertEquals(allRows.subList(1, allRows.size()), rows);
+    iterator.close();
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.phoenix.jdbc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,9 +28,11 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
@@ -38,6 +41,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 
+import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
+
 public class ParallelPhoenixUtilTest {
 
   ParallelPhoenixUtil util = ParallelPhoenixUtil.INSTANCE;
@@ -156,6 +161,179 @@ public class ParallelPhoenixUtilTest {
     assertEquals("3", result);
   }
 
+  @Test
+  public void applyFunctionToFuturesHedgedSkipsOtherClusterTest() throws Exception {
+    ParallelPhoenixContext ctx = getHedgedContext(5000);
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> s + "!",
+      CompletableFuture.completedFuture("1"), CompletableFuture.completedFuture("2"), ctx);
+
+    assertEquals("1!", futures.get(0).get());
+    try {
+      futures.get(1).get();
+      fail("Operation shouldn't have run on the second cluster");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CancellationException);
+    }
+    // The skipped operation doesn't fail the following ones
+    ctx.getChainOnConn2().get();
+    assertFalse(ctx.getChainOnConn2().isCompletedExceptionally());
+    assertEquals(0, ctx.getParallelPhoenixMetrics().getStandbyClusterOperationCount().getValue());
+    assertEquals(0, ctx.getParallelPhoenixMetrics().getStandbyClusterHedgedCount().getValue());
+  }
+
+  @Test
+  public void applyFunctionToFuturesHedgedAfterDelayTest() throws Exception {
+    ParallelPhoenixContext ctx = getHedgedContext(100);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> {
+      if (s.equals("1")) {
+        try {
+          latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new CompletionException(e);
+        }
+      }
+      return s + "!";
+    }, CompletableFuture.completedFuture("1"), CompletableFuture.completedFuture("2"), ctx);
+
+    assertEquals("2!", futures.get(1).get(5, TimeUnit.SECONDS));
+    assertFalse(futures.get(0).isDone());
+    latch.countDown();
+    // The result of the first cluster lost, and is not used
+    try {
+      futures.get(0).get();
+      fail("The first cluster lost the hedged operation");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CancellationException);
+    }
+    assertEquals(1, ctx.getParallelPhoenixMetrics().getStandbyClusterHedgedCount().getValue());
+    // The second cluster answered faster, so it is tried first from now on
+    assertEquals(1, ctx.getPreferredClusterIndex());
+  }
+
+  @Test
+  public void applyFunctionToFuturesHedgedOnFailureTest() throws Exception {
+    ParallelPhoenixContext ctx = getHedgedContext(5000);
+    CompletableFuture<String> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new SQLException("Cluster down"));
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> s + "!",
+      failed, CompletableFuture.completedFuture("2"), ctx);
+
+    // Doesn't wait for the hedge delay once the preferred cluster failed
+    assertEquals("2!", futures.get(1).get(2, TimeUnit.SECONDS));
+    assertTrue(futures.get(0).isCompletedExceptionally());
+  }
+
+  @Test
+  public void applyFunctionToFuturesHedgedDoesNotHoldOtherClusterThreadTest() throws Exception {
+    List<PhoenixHAExecutorServiceProvider.PhoenixHAClusterExecutorServices> executors =
+      HighAvailabilityTestingUtility.getListOfSingleThreadExecutorServices();
+    ParallelPhoenixContext hedgedCtx = getHedgedContext(5000, executors);
+    ParallelPhoenixContext otherCtx = getHedgedContext(5000, executors);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> {
+      try {
+        latch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new CompletionException(e);
+      }
+      return s + "!";
+    }, CompletableFuture.completedFuture("1"), CompletableFuture.completedFuture("2"), hedgedCtx);
+
+    // While the hedge is pending, the single thread of the second cluster is free for the
+    // operations of other connections sharing it
+    assertEquals("other", otherCtx.chainOnConn2(() -> "other").get(2, TimeUnit.SECONDS));
+    assertFalse(futures.get(1).isDone());
+    latch.countDown();
+    assertEquals("1!", futures.get(0).get());
+  }
+
+  @Test
+  public void applyFunctionToFuturesHedgedDiscardsLoserTest() throws Exception {
+    ParallelPhoenixContext ctx = getHedgedContext(100);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<String> discarded = new ArrayList<>();
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> {
+      if (s.equals("1")) {
+        try {
+          latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new CompletionException(e);
+        }
+      }
+      return s + "!";
+    }, CompletableFuture.completedFuture("1"), CompletableFuture.completedFuture("2"), ctx,
+      discarded::add);
+
+    assertEquals("2!", futures.get(1).get(5, TimeUnit.SECONDS));
+    assertTrue(discarded.isEmpty());
+    latch.countDown();
+    ctx.getChainOnConn1().get(5, TimeUnit.SECONDS);
+    assertEquals(ImmutableList.of("1!"), discarded);
+  }
+
+  @Test
+  public void applyFunctionToFuturesHedgedIgnoresLoserFailureTest() throws Exception {
+    ParallelPhoenixContext ctx = getHedgedContext(100);
+    CountDownLatch latch = new CountDownLatch(1);
+    List<CompletableFuture<String>> futures = util.applyFunctionToFuturesHedged(s -> {
+      if (s.equals("1")) {
+        try {
+          latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new CompletionException(e);
+        }
+        throw new CompletionException(new SQLException("Query failed"));
+      }
+      return s + "!";
+    }, CompletableFuture.completedFuture("1"), CompletableFuture.completedFuture("2"), ctx);
+
+    assertEquals("2!", futures.get(1).get(5, TimeUnit.SECONDS));
+    latch.countDown();
+    // The failure of the query that lost doesn't fail the following operations on the first
+    // cluster's connection
+    ctx.getChainOnConn1().get(5, TimeUnit.SECONDS);
+    assertFalse(ctx.getChainOnConn1().isCompletedExceptionally());
+    assertEquals("next", ctx.chainOnConn1(() -> "next").get(5, TimeUnit.SECONDS));
+    assertEquals(0,
+      ctx.getParallelPhoenixMetrics().getActiveClusterFailedOperationCount().getValue());
+  }
+
+  @Test
+  public void latencyTrackerTest() {
+    ParallelPhoenixLatencyTracker tracker = new ParallelPhoenixLatencyTracker();
+    assertEquals(0, tracker.getPreferredClusterIndex());
+    assertEquals(-1, tracker.getPercentile(0, 0.95));
+    for (int i = 1; i <= 100; i++) {
+      tracker.record(0, i);
+      tracker.record(1, 10);
+    }
+    assertEquals(95, tracker.getPercentile(0, 0.95));
+    assertEquals(10, tracker.getPercentile(1, 0.95));
+    assertEquals(1, tracker.getPreferredClusterIndex());
+    for (int i = 0; i < 100; i++) {
+      tracker.record(0, 1);
+    }
+    assertEquals(0, tracker.getPreferredClusterIndex());
+  }
+
+  private static ParallelPhoenixContext getHedgedContext(long maxDelayMs) {
+    return getHedgedContext(maxDelayMs,
+      HighAvailabilityTestingUtility.getListOfSingleThreadExecutorServices());
+  }
+
+  private static ParallelPhoenixContext getHedgedContext(long maxDelayMs,
+    List<PhoenixHAExecutorServiceProvider.PhoenixHAClusterExecutorServices> executors) {
+    Properties props = new Properties();
+    props.setProperty(ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_HEDGED_READS_ENABLED_ATTRIB, "true");
+    props.setProperty(ParallelPhoenixUtil.PHOENIX_HA_PARALLEL_HEDGE_MAX_DELAY_MS_ATTRIB,
+      Long.toString(maxDelayMs));
+    ParallelPhoenixContext ctx =
+      new ParallelPhoenixContext(props, null, executors, null, Mockito.mock(HAURLInfo.class));
+    assertTrue(ctx.isHedgedReadsEnabled());
+    return ctx;
+  }
+
   private Executor getLatchedMockExecutor(CountDownLatch latch) {
     Executor delayedExecutor = Mockito.mock(Executor.class);
 
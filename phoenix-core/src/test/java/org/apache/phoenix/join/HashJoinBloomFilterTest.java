@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.cache.HashCache;
+import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.iq80.snappy.Snappy;
+import org.junit.Test;
+
+public class HashJoinBloomFilterTest {
+
+  private static ImmutableBytesWritable key(String value) {
+    return new ImmutableBytesWritable(Bytes.toBytes(value));
+  }
+
+  @Test
+  public void testNoFalseNegatives() {
+    HashJoinBloomFilter.Builder builder = new HashJoinBloomFilter.Builder(10000, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(builder.add(key("k" + i)));
+    }
+    HashJoinBloomFilter filter = builder.build();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(filter.mightContain(key("k" + i)));
+    }
+    int falsePositives = 0;
+    for (int i = 1000; i < 11000; i++) {
+      if (filter.mightContain(key("k" + i))) {
+        falsePositives++;
+      }
+    }
+    assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+  }
+
+  @Test
+  public void testTooManyKeys() {
+    HashJoinBloomFilter.Builder builder = new HashJoinBloomFilter.Builder(2, 0.01);
+    assertTrue(builder.add(key("a")));
+    assertTrue(builder.add(key("b")));
+    assertFalse(builder.isOverflow());
+    assertFalse(builder.add(key("c")));
+    assertTrue(builder.isOverflow());
+    assertNull(builder.build());
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    HashJoinBloomFilter.Builder builder = new HashJoinBloomFilter.Builder(100, 0.01);
+    for (int i = 0; i < 100; i++) {
+      builder.add(key("k" + i));
+    }
+    HashJoinBloomFilter filter = builder.build();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream dOut = new DataOutputStream(baos);
+    filter.write(dOut);
+    dOut.flush();
+    assertEquals(filter, HashJoinBloomFilter
+      .read(new DataInputStream(new ByteArrayInputStream(baos.toByteArray()))));
+  }
+
+  private static HashCache newHashCache(HashJoinBloomFilter filter) throws Exception {
+    // Hash cache without join expressions nor rows, laid out as HashCacheClient serializes it
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream dOut = new DataOutputStream(baos);
+    dOut.writeInt(0);
+    dOut.writeInt(baos.size() + Bytes.SIZEOF_INT);
+    dOut.writeInt(0);
+    if (filter != null) {
+      filter.write(dOut);
+    }
+    dOut.flush();
+    byte[] bytes = baos.toByteArray();
+    byte[] compressed = new byte[Snappy.maxCompressedLength(bytes.length)];
+    int compressedSize = Snappy.compress(bytes, 0, bytes.length, compressed, 0);
+    return (HashCache) new HashCacheFactory().newCache(
+      new ImmutableBytesWritable(compressed, 0, compressedSize), null, mock(MemoryChunk.class),
+      false, 0);
+  }
+
+  @Test
+  public void testSentWithHashCache() throws Exception {
+    HashJoinBloomFilter.Builder builder = new HashJoinBloomFilter.Builder(100, 0.01);
+    builder.add(key("a"));
+    HashJoinBloomFilter filter = builder.build();
+    assertEquals(filter, newHashCache(filter).getBloomFilter());
+    // Caches sent by clients that do not build a filter
+    assertNull(newHashCache(null).getBloomFilter());
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QueryLogFieldCodecTest {
+
+  @Test
+  public void testLongValuesCompressed() throws Exception {
+    StringBuilder buf = new StringBuilder("SELECT * FROM T WHERE K IN (");
+    for (int i = 0; i < 500; i++) {
+      buf.append("'key").append(i).append("',");
+    }
+    String query = buf.append("'key')").toString();
+    String encoded = QueryLogFieldCodec.encode(query, 1024);
+    assertTrue(encoded.startsWith(QueryLogFieldCodec.COMPRESSED_PREFIX));
+    assertTrue(encoded.length() < query.length());
+    assertEquals(query, QueryLogFieldCodec.decode(encoded));
+  }
+
+  @Test
+  public void testShortValuesKeptAsIs() throws Exception {
+    String query = "SELECT * FROM T";
+    assertSame(query, QueryLogFieldCodec.encode(query, 1024));
+    assertSame(query, QueryLogFieldCodec.encode(query, 0));
+    // Compressing a short value would make it longer
+    assertSame(query, QueryLogFieldCodec.encode(query, 1));
+    assertSame(query, QueryLogFieldCodec.decode(query));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.log;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QueryLogSamplerTest {
+
+  @Test
+  public void testNoRules() {
+    QueryLogSampler sampler = new QueryLogSampler(0, false);
+    assertFalse(sampler.hasRules());
+    assertTrue(sampler.isSampled(false, 0, 1.0));
+    assertTrue(sampler.isSampled(true, 0, 1.0));
+  }
+
+  @Test
+  public void testSlowAndFailedQueries() {
+    QueryLogSampler slowSampler = new QueryLogSampler(100, false);
+    assertTrue(slowSampler.hasRules());
+    assertFalse(slowSampler.isSampled(false, 99, 1.0));
+    assertFalse(slowSampler.isSampled(true, 99, 1.0));
+    assertTrue(slowSampler.isSampled(false, 100, 1.0));
+
+    QueryLogSampler failedSampler = new QueryLogSampler(0, true);
+    assertTrue(failedSampler.hasRules());
+    assertFalse(failedSampler.isSampled(false, 1000, 1.0));
+    assertTrue(failedSampler.isSampled(true, 0, 1.0));
+
+    QueryLogSampler slowOrFailedSampler = new QueryLogSampler(100, true);
+    assertFalse(slowOrFailedSampler.isSampled(false, 99, 1.0));
+    assertTrue(slowOrFailedSampler.isSampled(true, 99, 1.0));
+    assertTrue(slowOrFailedSampler.isSampled(false, 100, 1.0));
+  }
+
+  @Test
+  public void testSampleRateAppliedAfterRules() {
+    QueryLogSampler sampler = new QueryLogSampler(100, false);
+    int sampled = 0;
+    for (int i = 0; i < 1000; i++) {
+      // Queries filtered out by the rules are never logged
+      assertFalse(sampler.isSampled(false, 0, 0.5));
+      if (sampler.isSampled(false, 100, 0.5)) {
+        sampled++;
+      }
+    }
+    assertTrue(sampled > 0 && sampled < 1000);
+    assertFalse(sampler.isSampled(false, 100, 0.0));
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.mapreduce.bulkload.TableRowkeyPair;
+import org.junit.Test;
+
+public class BulkLoadKeySamplerTest {
+
+  private static TableRowkeyPair key(String rowKey) {
+    return new TableRowkeyPair("T", new ImmutableBytesWritable(Bytes.toBytes(rowKey)));
+  }
+
+  private static Set<TableRowkeyPair> keys(String... rowKeys) {
+    Set<TableRowkeyPair> keys = new TreeSet<>();
+    for (String rowKey : rowKeys) {
+      keys.add(key(rowKey));
+    }
+    return keys;
+  }
+
+  private static List<TableRowkeyPair> samples(String prefix, int count) {
+    List<TableRowkeyPair> samples = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      samples.add(key(String.format("%s%03d", prefix, i)));
+    }
+    return samples;
+  }
+
+  @Test
+  public void testSplitsHeavyRegionOnly() {
+    Set<TableRowkeyPair> regions = keys("", "m");
+    // 100 samples in the first region, 10 in the second, each standing for 10 bytes
+    List<TableRowkeyPair> samples = samples("a", 100);
+    samples.addAll(samples("x", 10));
+
+    Set<TableRowkeyPair> partitions =
+      BulkLoadKeySampler.getPartitionStartKeys(regions, samples, 10, 250, 32);
+    assertEquals(keys("", "a025", "a050", "a075", "m"), partitions);
+  }
+
+  @Test
+  public void testMaxReducersPerRegion() {
+    Set<TableRowkeyPair> partitions =
+      BulkLoadKeySampler.getPartitionStartKeys(keys(""), samples("a", 100), 10, 10, 2);
+    assertEquals(keys("", "a050"), partitions);
+  }
+
+  @Test
+  public void testRepeatedKeysStayInOnePartition() {
+    List<TableRowkeyPair> samples = new ArrayList<>();
+    for (int i = 0; i < 90; i++) {
+      samples.add(key("hot"));
+    }
+    samples.addAll(samples("z", 10));
+
+    Set<TableRowkeyPair> partitions =
+      BulkLoadKeySampler.getPartitionStartKeys(keys(""), samples, 10, 100, 32);
+    assertEquals(keys("", "z000"), partitions);
+  }
+
+  @Test
+  public void testNoSplitsBelowThreshold() {
+    Set<TableRowkeyPair> regions = keys("", "m");
+    Set<TableRowkeyPair> partitions = BulkLoadKeySampler.getPartitionStartKeys(regions,
+      new ArrayList<>(Arrays.asList(key("a"), key("b"), key("x"))), 10, 1000, 32);
+    assertEquals(regions, partitions);
+  }
+
+  @Test
+  public void testReservoirSamplesTheWholeInput() {
+    BulkLoadKeySampler.Reservoir<Integer> reservoir =
+      new BulkLoadKeySampler.Reservoir<>(1000, new Random(42));
+    int records = 100000;
+    for (int i = 0; i < records; i++) {
+      int slot = reservoir.offer();
+      if (slot >= 0) {
+        reservoir.set(slot, i);
+      }
+    }
+    assertEquals(records, reservoir.getSeen());
+    assertEquals(1000, reservoir.getSamples().size());
+    // Each tenth of the input holds about a tenth of the sample, not just the first records
+    int[] samplesPerTenth = new int[10];
+    for (int record : reservoir.getSamples()) {
+      samplesPerTenth[record * 10 / records]++;
+    }
+    for (int samples : samplesPerTenth) {
+      assertTrue("Samples per tenth of the input " + Arrays.toString(samplesPerTenth),
+        samples > 50 && samples < 150);
+    }
+  }
+}
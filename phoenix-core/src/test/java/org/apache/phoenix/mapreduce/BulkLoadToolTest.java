@@ -18,6 +18,8 @@
 package org.apache.phoenix.mapreduce;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -48,6 +50,15 @@ public class BulkLoadToolTest {
     assertEquals("/input", cmdLine.getOptionValue(CsvBulkLoadTool.INPUT_PATH_OPT.getOpt()));
   }
 
+  @Test
+  public void testParseOptions_Local() {
+    CommandLine cmdLine = bulkLoadTool
+      .parseOptions(new String[] { "--input", "/input", "--table", "mytable", "--local" });
+    assertTrue(cmdLine.hasOption(AbstractBulkLoadTool.LOCAL_OPT.getOpt()));
+    cmdLine = bulkLoadTool.parseOptions(new String[] { "--input", "/input", "--table", "mytable" });
+    assertFalse(cmdLine.hasOption(AbstractBulkLoadTool.LOCAL_OPT.getOpt()));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testParseOptions_ExtraArguments() {
     bulkLoadTool.parseOptions(new String[] { "--input", "/input", "--table", "mytable", "these",
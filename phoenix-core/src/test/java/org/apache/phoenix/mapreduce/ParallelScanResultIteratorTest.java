@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.iterate.MaterializedResultIterator;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.junit.Test;
+
+public class ParallelScanResultIteratorTest {
+
+  private static ResultIterator rows(String... keys) {
+    List<Tuple> tuples = new ArrayList<>();
+    for (String key : keys) {
+      tuples.add(new SingleKeyValueTuple(new KeyValue(Bytes.toBytes(key), Bytes.toBytes("f"),
+        Bytes.toBytes("q"), Bytes.toBytes(key))));
+    }
+    return new MaterializedResultIterator(tuples);
+  }
+
+  @Test
+  public void testReturnsAllRows() throws Exception {
+    List<ResultIterator> iterators =
+      Arrays.asList(rows("a", "b", "c"), rows(), rows("d"), rows("e", "f"));
+    ParallelScanResultIterator iterator = new ParallelScanResultIterator(iterators, 2, 1);
+    List<String> keys = new ArrayList<>();
+    Tuple tuple;
+    while ((tuple = iterator.next()) != null) {
+      keys.add(Bytes.toString(tuple.getValue(0).getRowArray(), tuple.getValue(0).getRowOffset(),
+        tuple.getValue(0).getRowLength()));
+    }
+    iterator.close();
+    Collections.sort(keys);
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f"), keys);
+    assertNull(iterator.next());
+  }
+
+  @Test
+  public void testPropagatesFailure() throws Exception {
+    ResultIterator failing = new MaterializedResultIterator(Collections.<Tuple> emptyList()) {
+      @Override
+      public Tuple next() throws SQLException {
+        throw new SQLException("scan failed");
+      }
+    };
+    ParallelScanResultIterator iterator =
+      new ParallelScanResultIterator(Arrays.asList(rows("a"), failing), 2, 10);
+    try {
+      while (iterator.next() != null) {
+      }
+      fail();
+    } catch (SQLException e) {
+      assertEquals("scan failed", e.getMessage());
+    } finally {
+      iterator.close();
+    }
+  }
+}
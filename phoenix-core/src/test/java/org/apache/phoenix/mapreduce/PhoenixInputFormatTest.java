@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.junit.Test;
+
+public class PhoenixInputFormatTest {
+
+  private static List<Scan> scan(String start, String stop) {
+    return Collections.singletonList(
+      new Scan().withStartRow(Bytes.toBytes(start)).withStopRow(Bytes.toBytes(stop)));
+  }
+
+  @Test
+  public void testSplitCombinerCombinesUpToTargetSize() throws Exception {
+    List<InputSplit> splits = new ArrayList<>();
+    PhoenixInputFormat.SplitCombiner combiner = new PhoenixInputFormat.SplitCombiner(splits, 100);
+    combiner.add(scan("a", "b"), 40, "rs1");
+    combiner.add(scan("b", "c"), 40, "rs1");
+    combiner.add(scan("c", "d"), 40, "rs1");
+    // A scan larger than the target still gets a split of its own
+    combiner.add(scan("d", "e"), 500, "rs1");
+    combiner.add(scan("e", "f"), 10, "rs1");
+    combiner.flush();
+
+    assertEquals(4, splits.size());
+    assertEquals(2, ((PhoenixInputSplit) splits.get(0)).getScans().size());
+    assertEquals(80, splits.get(0).getLength());
+    assertEquals(40, splits.get(1).getLength());
+    assertEquals(500, splits.get(2).getLength());
+    assertEquals(10, splits.get(3).getLength());
+    assertArrayEquals(new String[] { "rs1" }, splits.get(0).getLocations());
+  }
+
+  @Test
+  public void testSplitCombinerKeepsLocality() throws Exception {
+    List<InputSplit> splits = new ArrayList<>();
+    PhoenixInputFormat.SplitCombiner combiner = new PhoenixInputFormat.SplitCombiner(splits, 100);
+    combiner.add(scan("a", "b"), 10, "rs1");
+    combiner.add(scan("b", "c"), 10, "rs2");
+    combiner.add(scan("c", "d"), 10, "rs2");
+    combiner.flush();
+
+    assertEquals(2, splits.size());
+    assertEquals(Arrays.asList("rs1"), Arrays.asList(splits.get(0).getLocations()));
+    assertEquals(Arrays.asList("rs2"), Arrays.asList(splits.get(1).getLocations()));
+    assertEquals(2, ((PhoenixInputSplit) splits.get(1)).getScans().size());
+  }
+}
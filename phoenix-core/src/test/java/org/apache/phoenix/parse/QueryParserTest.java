@@ -1070,4 +1070,30 @@ public class QueryParserTest {
     parseQueryThatShouldFail(
       "SELECT b, x from x WHERE x = " + "b'0 10 ' --comment \n /* comment */ '00 000' \n \n ''");
   }
+
+  @Test
+  public void testParseExplainAnalyze() throws Exception {
+    BindableStatement stmt =
+      new SQLParser(new StringReader("EXPLAIN ANALYZE SELECT a FROM t WHERE k = ?"))
+        .parseStatement();
+    assertTrue(stmt instanceof ExplainStatement);
+    assertEquals(ExplainType.ANALYZE, ((ExplainStatement) stmt).getExplainType());
+    assertEquals(1, stmt.getBindCount());
+    parseQueryThatShouldFail("EXPLAIN ANALYZE WITH REGIONS SELECT a FROM t");
+    parseQueryThatShouldFail("EXPLAIN ANALYSE SELECT a FROM t");
+    stmt = new SQLParser(new StringReader("explain analyze select a from t")).parseStatement();
+    assertEquals(ExplainType.ANALYZE, ((ExplainStatement) stmt).getExplainType());
+  }
+
+  @Test
+  public void testAnalyzeIsNotReserved() throws Exception {
+    parseQuery("SELECT analyze FROM t");
+    parseQuery("SELECT a AS analyze FROM analyze WHERE analyze.analyze > 1");
+    BindableStatement stmt =
+      new SQLParser(new StringReader("CREATE TABLE analyze (analyze INTEGER PRIMARY KEY)"))
+        .parseStatement();
+    assertTrue(stmt instanceof CreateTableStatement);
+    stmt = new SQLParser(new StringReader("EXPLAIN SELECT analyze FROM t")).parseStatement();
+    assertEquals(ExplainType.DEFAULT, ((ExplainStatement) stmt).getExplainType());
+  }
 }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparatorImpl;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.apache.phoenix.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SequenceTest {
+
+  private static final SequenceKey KEY = new SequenceKey(null, "S", "SEQ", 0);
+  private static final long CACHE_SIZE = 10;
+
+  private ManualEnvironmentEdge edge;
+
+  @Before
+  public void injectEdge() {
+    edge = new ManualEnvironmentEdge();
+    EnvironmentEdgeManager.injectEdge(edge);
+  }
+
+  @After
+  public void resetEdge() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  @Test
+  public void testIncrementLatestValueConcurrently() throws Exception {
+    Sequence sequence = new Sequence(KEY);
+    assertEquals(0,
+      sequence.incrementValue(newResult(1000, 1000, 1), Sequence.ValueOp.INCREMENT_SEQUENCE, 1));
+    Set<Long> values = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          while (true) {
+            try {
+              if (!values.add(sequence.incrementLatestValue())) {
+                fail("Duplicate sequence value");
+              }
+            } catch (EmptySequenceCacheException e) {
+              return null;
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(999, values.size());
+    for (long i = 1; i < 1000; i++) {
+      assertTrue(values.contains(i));
+    }
+  }
+
+  @Test
+  public void testPrefetchedValueInstalledOnceExhausted() throws Exception {
+    Sequence sequence = new Sequence(KEY);
+    assertEquals(0, sequence.incrementValue(newResult(CACHE_SIZE, CACHE_SIZE, 1),
+      Sequence.ValueOp.INCREMENT_SEQUENCE, 1));
+    for (int i = 1; i < 5; i++) {
+      assertEquals(0, sequence.startPrefetch(0.5, 4, 1000));
+      assertEquals(i, sequence.incrementLatestValue());
+    }
+    // Half of the block is left after about the target interval, so the cache size is kept
+    edge.incrementValue(1000);
+    assertEquals(1, sequence.startPrefetch(0.5, 4, 1000));
+    assertEquals(0, sequence.startPrefetch(0.5, 4, 1000));
+    sequence.setPrefetchedValue(newResult(100, CACHE_SIZE, 2), 1);
+    for (int i = 5; i < CACHE_SIZE; i++) {
+      assertEquals(i, sequence.incrementLatestValue());
+    }
+    try {
+      sequence.incrementLatestValue();
+      fail();
+    } catch (EmptySequenceCacheException e) {
+    }
+    assertEquals(90,
+      sequence.incrementValue(HConstants.LATEST_TIMESTAMP, Sequence.ValueOp.INCREMENT_SEQUENCE, 1));
+    assertEquals(91, sequence.incrementLatestValue());
+  }
+
+  @Test
+  public void testPrefetchSizeFollowsAllocationRate() throws Exception {
+    Sequence sequence = new Sequence(KEY);
+    sequence.incrementValue(newResult(CACHE_SIZE, CACHE_SIZE, 1),
+      Sequence.ValueOp.INCREMENT_SEQUENCE, CACHE_SIZE);
+    // Block consumed right away: ask for twice the cache size
+    assertEquals(2 * CACHE_SIZE, sequence.startPrefetch(1, 4, 1000));
+    sequence.setPrefetchedValue(newResult(30, CACHE_SIZE, 2), 2 * CACHE_SIZE);
+    sequence.incrementValue(HConstants.LATEST_TIMESTAMP, Sequence.ValueOp.INCREMENT_SEQUENCE,
+      2 * CACHE_SIZE);
+    assertEquals(4 * CACHE_SIZE, sequence.startPrefetch(1, 4, 1000));
+    sequence.setPrefetchedValue(newResult(70, CACHE_SIZE, 3), 4 * CACHE_SIZE);
+    sequence.incrementValue(HConstants.LATEST_TIMESTAMP, Sequence.ValueOp.INCREMENT_SEQUENCE,
+      4 * CACHE_SIZE);
+    // Capped at the max multiplier
+    assertEquals(4 * CACHE_SIZE, sequence.startPrefetch(1, 4, 1000));
+    sequence.abortPrefetch();
+    // A failed prefetch goes back to the cache size, then slow consumption keeps it there
+    edge.incrementValue(5000);
+    assertEquals(1, sequence.startPrefetch(1, 4, 1000));
+  }
+
+  private static Result newResult(long nextValue, long cacheSize, long timestamp) {
+    List<Cell> cells = new ArrayList<>();
+    cells.add(newCell(PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES,
+      PLong.INSTANCE.toBytes(nextValue), timestamp));
+    cells.add(
+      newCell(PhoenixDatabaseMetaData.INCREMENT_BY_BYTES, PLong.INSTANCE.toBytes(1L), timestamp));
+    cells.add(newCell(PhoenixDatabaseMetaData.CACHE_SIZE_BYTES, PLong.INSTANCE.toBytes(cacheSize),
+      timestamp));
+    cells.add(newCell(PhoenixDatabaseMetaData.MIN_VALUE_BYTES,
+      PLong.INSTANCE.toBytes(Long.MIN_VALUE), timestamp));
+    cells.add(newCell(PhoenixDatabaseMetaData.MAX_VALUE_BYTES,
+      PLong.INSTANCE.toBytes(Long.MAX_VALUE), timestamp));
+    cells.add(newCell(PhoenixDatabaseMetaData.CYCLE_FLAG_BYTES, PBoolean.INSTANCE.toBytes(false),
+      timestamp));
+    cells.add(newCell(PhoenixDatabaseMetaData.LIMIT_REACHED_FLAG_BYTES,
+      PBoolean.INSTANCE.toBytes(false), timestamp));
+    Collections.sort(cells, CellComparatorImpl.COMPARATOR);
+    return Result.create(cells);
+  }
+
+  private static Cell newCell(byte[] qualifier, byte[] value, long timestamp) {
+    return new KeyValue(KEY.getKey(), PhoenixDatabaseMetaData.SYSTEM_SEQUENCE_FAMILY_BYTES,
+      qualifier, timestamp, value);
+  }
+}
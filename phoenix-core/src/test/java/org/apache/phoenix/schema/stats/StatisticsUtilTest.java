@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.stats;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.util.PrefixByteDecoder;
+import org.junit.Test;
+
+public class StatisticsUtilTest {
+
+  private static GuidePostsInfo guidePosts(String... keysAndCounts) {
+    GuidePostsInfoBuilder builder = new GuidePostsInfoBuilder();
+    for (int i = 0; i < keysAndCounts.length; i += 2) {
+      long byteCount = Long.parseLong(keysAndCounts[i + 1]);
+      builder.addGuidePostOnCollection(new ImmutableBytesWritable(Bytes.toBytes(keysAndCounts[i])),
+        byteCount, byteCount / 10);
+    }
+    return builder.build();
+  }
+
+  private static List<String> keys(GuidePostsInfo gps) throws IOException {
+    List<String> keys = new ArrayList<>();
+    ImmutableBytesWritable ptr = gps.getGuidePosts();
+    DataInputStream input =
+      new DataInputStream(new ByteArrayInputStream(ptr.get(), ptr.getOffset(), ptr.getLength()));
+    PrefixByteDecoder decoder = new PrefixByteDecoder(gps.getMaxLength());
+    for (int i = 0; i < gps.getGuidePostsCount(); i++) {
+      keys.add(Bytes.toString(decoder.decode(input).copyBytes()));
+    }
+    return keys;
+  }
+
+  @Test
+  public void testMergeGuidePostsInterleavesAndCoalesces() throws IOException {
+    GuidePostsInfo existing = guidePosts("b", "100", "d", "100", "f", "100");
+    GuidePostsInfo flushed = guidePosts("a", "40", "c", "40", "d", "20", "g", "30");
+    GuidePostsInfo merged = StatisticsUtil.mergeGuidePosts(existing, flushed, 100, 256);
+
+    assertEquals(4, merged.getGuidePostsCount());
+    assertEquals(Arrays.asList("b", "d", "f", "g"), keys(merged));
+    assertArrayEquals(new long[] { 140, 160, 100, 30 }, merged.getByteCounts());
+    assertArrayEquals(new long[] { 14, 16, 10, 3 }, merged.getRowCounts());
+  }
+
+  @Test
+  public void testMergeGuidePostsBoundsGuidePostCount() throws IOException {
+    GuidePostsInfo existing = guidePosts("a", "10", "c", "10", "e", "10", "g", "10");
+    GuidePostsInfo flushed = guidePosts("b", "10", "d", "10", "f", "10", "h", "5");
+    GuidePostsInfo merged = StatisticsUtil.mergeGuidePosts(existing, flushed, 1, 3);
+
+    assertEquals(3, merged.getGuidePostsCount());
+    assertEquals(Arrays.asList("c", "f", "h"), keys(merged));
+    long total = 0;
+    for (long byteCount : merged.getByteCounts()) {
+      total += byteCount;
+    }
+    assertEquals(75, total);
+  }
+
+  @Test
+  public void testMergeGuidePostsWithoutExistingStats() throws IOException {
+    GuidePostsInfo flushed = guidePosts("a", "60", "b", "60");
+    GuidePostsInfo merged =
+      StatisticsUtil.mergeGuidePosts(GuidePostsInfo.NO_GUIDEPOST, flushed, 100, 256);
+    assertEquals(Arrays.asList("b"), keys(merged));
+    assertArrayEquals(new long[] { 120 }, merged.getByteCounts());
+
+    merged = StatisticsUtil.mergeGuidePosts(GuidePostsInfo.createEmptyGuidePost(100, 0),
+      new GuidePostsInfoBuilder().build(), 100, 256);
+    assertTrue(merged.isEmptyGuidePost());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema.tuple;
+
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_FAMILY;
+import static org.apache.phoenix.query.QueryConstants.VALUE_COLUMN_QUALIFIER;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.LiteralExpression;
+import org.apache.phoenix.schema.KeyValueSchema;
+import org.apache.phoenix.schema.KeyValueSchema.KeyValueSchemaBuilder;
+import org.apache.phoenix.schema.ValueBitSet;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PLong;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.util.PhoenixKeyValueUtil;
+import org.junit.Test;
+
+public class ColumnarBatchTest {
+
+  private static KeyValueSchema newSchema() throws SQLException {
+    return new KeyValueSchemaBuilder(1)
+      .addField(LiteralExpression.newConstant(0, PInteger.INSTANCE))
+      .addField(LiteralExpression.newConstant("a", PVarchar.INSTANCE))
+      .addField(LiteralExpression.newConstant(0L, PLong.INSTANCE))
+      .addField(LiteralExpression.newConstant("a", PVarchar.INSTANCE)).build();
+  }
+
+  private static Cell newRow(KeyValueSchema schema, int i) throws SQLException {
+    Expression[] values = new Expression[] { LiteralExpression.newConstant(i, PInteger.INSTANCE),
+      LiteralExpression.newConstant(i % 3 == 0 ? null : "value" + i, PVarchar.INSTANCE),
+      LiteralExpression.newConstant(i < 50 ? 7L : 8L, PLong.INSTANCE),
+      LiteralExpression.newConstant("category" + (i % 4), PVarchar.INSTANCE) };
+    byte[] value =
+      schema.toBytes(values, ValueBitSet.newInstance(schema), new ImmutableBytesWritable());
+    return PhoenixKeyValueUtil.newKeyValue(Bytes.toBytes("row" + (1000 + i)), VALUE_COLUMN_FAMILY,
+      VALUE_COLUMN_QUALIFIER, 100 + i % 2, value);
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    KeyValueSchema schema = newSchema();
+    ColumnarBatch.Builder builder = new ColumnarBatch.Builder(schema);
+    List<Cell> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Cell row = newRow(schema, i);
+      rows.add(row);
+      assertTrue(builder.add(row));
+    }
+    Cell cell = builder.build();
+    assertEquals(0, builder.getRowCount());
+    assertTrue(ColumnarBatch.isColumnarBatch(cell));
+    assertEquals("row1099",
+      Bytes.toString(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength()));
+    assertEquals(101, cell.getTimestamp());
+
+    ColumnarBatch batch = ColumnarBatch.decode(schema, cell);
+    assertEquals(100, batch.getRowCount());
+    assertEquals(4, batch.getPositionCount());
+    ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+    for (int i = 0; i < 100; i++) {
+      Cell row = rows.get(i);
+      batch.getKey(i, ptr);
+      assertEquals("row" + (1000 + i), Bytes.toString(ptr.copyBytes()));
+      assertEquals(row.getTimestamp(), batch.getTimestamp(i));
+      assertArrayEquals(Bytes.copy(row.getValueArray(), row.getValueOffset(), row.getValueLength()),
+        batch.toProjectedValue(i));
+      assertTrue(batch.getValue(i, 0, ptr));
+      assertEquals(i, PInteger.INSTANCE.toObject(ptr));
+      assertEquals(i % 3 != 0, batch.getValue(i, 1, ptr));
+      assertTrue(batch.getValue(i, 3, ptr));
+      assertEquals("category" + (i % 4), PVarchar.INSTANCE.toObject(ptr));
+
+      ColumnarBatchTuple tuple = new ColumnarBatchTuple(batch, i);
+      assertTrue(tuple.getValue(VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER, ptr));
+      assertArrayEquals(Bytes.copy(row.getValueArray(), row.getValueOffset(), row.getValueLength()),
+        ptr.copyBytes());
+    }
+  }
+
+  @Test
+  public void testRejectsUnexpectedValues() throws Exception {
+    KeyValueSchema schema = newSchema();
+    ColumnarBatch.Builder builder = new ColumnarBatch.Builder(schema);
+    Cell row = newRow(schema, 1);
+    byte[] value =
+      Bytes.add(Bytes.copy(row.getValueArray(), row.getValueOffset(), row.getValueLength()),
+        Bytes.toBytes("dynamic"));
+    assertFalse(builder.add(PhoenixKeyValueUtil.newKeyValue(Bytes.toBytes("row"),
+      VALUE_COLUMN_FAMILY, VALUE_COLUMN_QUALIFIER, 0, value)));
+    assertFalse(builder.add(PhoenixKeyValueUtil.newKeyValue(Bytes.toBytes("row"),
+      VALUE_COLUMN_FAMILY, Bytes.toBytes("q"), 0, Bytes.toBytes("v"))));
+    assertEquals(0, builder.getRowCount());
+    assertTrue(builder.add(row));
+    assertEquals(1, builder.getRowCount());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util;
+
+import static org.apache.phoenix.schema.PTableImpl.getColumnsToClone;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableImpl;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.cache.Cache;
+import org.apache.phoenix.thirdparty.com.google.common.cache.CacheBuilder;
+
+public class ViewUtilTest extends BaseConnectionlessQueryTest {
+
+  @Test
+  public void testDerivedTableCacheKeyTracksAncestorVersion() throws Exception {
+    String tableName = generateUniqueName();
+    String viewName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName + " (K VARCHAR PRIMARY KEY, V1 VARCHAR)");
+      conn.createStatement()
+        .execute("CREATE VIEW " + viewName + " (V2 VARCHAR) AS SELECT * FROM " + tableName);
+      PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+      PTable table = pconn.getTable(tableName);
+      PTable view = pconn.getTable(viewName);
+
+      ImmutableBytesPtr key = ViewUtil.getDerivedTableCacheKey(view, table);
+      assertEquals(key, ViewUtil.getDerivedTableCacheKey(view, table));
+
+      PTable newerTable = PTableImpl.builderWithColumns(table, getColumnsToClone(table))
+        .setTimeStamp(table.getTimeStamp() + 1).build();
+      assertNotEquals(key, ViewUtil.getDerivedTableCacheKey(view, newerTable));
+      PTable newerView = PTableImpl.builderWithColumns(view, getColumnsToClone(view))
+        .setSequenceNumber(view.getSequenceNumber() + 1).build();
+      assertNotEquals(key, ViewUtil.getDerivedTableCacheKey(newerView, table));
+    }
+  }
+
+  @Test
+  public void testAddDerivedColumnsAndIndexesFromParentUsesCache() throws Exception {
+    String tableName = generateUniqueName();
+    String viewName = generateUniqueName();
+    try (Connection conn = DriverManager.getConnection(getUrl())) {
+      conn.createStatement()
+        .execute("CREATE TABLE " + tableName + " (K VARCHAR PRIMARY KEY, V1 VARCHAR)");
+      conn.createStatement()
+        .execute("CREATE VIEW " + viewName + " (V2 VARCHAR) AS SELECT * FROM " + tableName);
+      PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+      PTable table = pconn.getTable(tableName);
+      PTable view = pconn.getTable(viewName);
+      Cache<ImmutableBytesPtr, PTable> cache = CacheBuilder.newBuilder().build();
+
+      PTable derived = ViewUtil.addDerivedColumnsAndIndexesFromParent(pconn, view, table, cache);
+      assertEquals(1, cache.size());
+      assertEquals(
+        ViewUtil.addDerivedColumnsAndIndexesFromParent(pconn, view, table).getColumns().size(),
+        derived.getColumns().size());
+      assertSame(derived,
+        ViewUtil.addDerivedColumnsAndIndexesFromParent(pconn, view, table, cache));
+
+      PTable newerTable = PTableImpl.builderWithColumns(table, getColumnsToClone(table))
+        .setTimeStamp(table.getTimeStamp() + 1).build();
+      assertNotSame(derived,
+        ViewUtil.addDerivedColumnsAndIndexesFromParent(pconn, view, newerTable, cache));
+      assertEquals(2, cache.size());
+    }
+  }
+}
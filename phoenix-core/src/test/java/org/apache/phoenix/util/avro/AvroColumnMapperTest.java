@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+import java.sql.DriverManager;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.types.PIntegerArray;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.UpsertExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
+
+public class AvroColumnMapperTest extends BaseConnectionlessQueryTest {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Person").fields().requiredLong("id")
+    .requiredString("name").optionalInt("age").name("values").type().array().items().intType()
+    .noDefault().requiredBoolean("beard").requiredBytes("pic").name("t")
+    .type(LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG))).noDefault()
+    .requiredString("amount").endRecord();
+
+  private static final List<ColumnInfo> COLUMN_INFOS = ImmutableList.of(
+    new ColumnInfo("ID", Types.BIGINT), new ColumnInfo("NAME", Types.VARCHAR),
+    new ColumnInfo("AGE", Types.INTEGER),
+    new ColumnInfo("\"VALUES\"", PIntegerArray.INSTANCE.getSqlType()),
+    new ColumnInfo("CF.BEARD", Types.BOOLEAN), new ColumnInfo("PIC", Types.BINARY),
+    new ColumnInfo("T", Types.TIMESTAMP), new ColumnInfo("AMOUNT", Types.DECIMAL));
+
+  private PhoenixConnection conn;
+
+  @Before
+  public void setUp() throws Exception {
+    conn = DriverManager.getConnection(getUrl()).unwrap(PhoenixConnection.class);
+    conn.setAutoCommit(false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+  }
+
+  private String createTable(String options) throws Exception {
+    String tableName = generateUniqueName();
+    conn.createStatement()
+      .execute("CREATE TABLE " + tableName + " (ID BIGINT NOT NULL PRIMARY KEY,"
+        + " NAME VARCHAR(20), AGE INTEGER, \"VALUES\" INTEGER ARRAY, CF.BEARD BOOLEAN,"
+        + " PIC VARBINARY, T TIMESTAMP, AMOUNT DECIMAL(10, 2)" + options);
+    return tableName;
+  }
+
+  private static GenericRecord createRecord(long id, Object age, String name, String amount) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("name", new Utf8(name));
+    record.put("age", age);
+    record.put("values", Arrays.asList(1, 2, (int) id));
+    record.put("beard", id % 2 == 0);
+    record.put("pic", ByteBuffer.wrap(new byte[] { 1, 2, (byte) id }));
+    record.put("t", Instant.ofEpochMilli(1000L + id));
+    record.put("amount", amount);
+    return record;
+  }
+
+  private static List<GenericRecord> createRecords() {
+    List<GenericRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(createRecord(i, i % 3 == 0 ? null : i, "name" + i, i + ".5"));
+    }
+    return records;
+  }
+
+  /**
+   * Returns the pending cells of the connection in sorted order, without their timestamps, and rolls
+   * them back.
+   */
+  private List<String> getUncommittedCells() throws Exception {
+    List<String> cells = new ArrayList<>();
+    Iterator<Pair<byte[], List<Cell>>> iterator =
+      PhoenixRuntime.getUncommittedDataIterator(conn, true);
+    while (iterator.hasNext()) {
+      Pair<byte[], List<Cell>> pair = iterator.next();
+      for (Cell cell : pair.getSecond()) {
+        cells.add(Bytes.toString(pair.getFirst()) + "/"
+          + Bytes.toStringBinary(CellUtil.cloneRow(cell)) + "/"
+          + Bytes.toStringBinary(CellUtil.cloneFamily(cell)) + ":"
+          + Bytes.toStringBinary(CellUtil.cloneQualifier(cell)) + "/" + cell.getType() + "="
+          + Bytes.toStringBinary(CellUtil.cloneValue(cell)));
+      }
+    }
+    conn.rollback();
+    Collections.sort(cells);
+    return cells;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void assertSameCellsAsUpsert(String tableName) throws Exception {
+    List<GenericRecord> records = createRecords();
+    new AvroUpsertExecutor(conn, tableName, COLUMN_INFOS, mock(UpsertExecutor.UpsertListener.class))
+      .execute(records);
+    List<String> upsertCells = getUncommittedCells();
+    assertFalse(upsertCells.isEmpty());
+
+    PTable table = PhoenixRuntime.getTable(conn, tableName);
+    assertTrue(AvroColumnMapper.isSupported(conn, table, COLUMN_INFOS));
+    UpsertExecutor.UpsertListener<GenericRecord> listener =
+      mock(UpsertExecutor.UpsertListener.class);
+    new AvroColumnMapper(conn, table, COLUMN_INFOS, listener).execute(records);
+    verify(listener).upsertDone(records.size());
+    verify(listener, never()).errorOnRecord(any(), any());
+    assertEquals(upsertCells, getUncommittedCells());
+  }
+
+  @Test
+  public void testSameCellsAsUpsert() throws Exception {
+    assertSameCellsAsUpsert(createTable(")"));
+  }
+
+  @Test
+  public void testSameCellsAsUpsertWithSaltingAndIndex() throws Exception {
+    String tableName = createTable(") SALT_BUCKETS=4");
+    conn.createStatement().execute(
+      "CREATE INDEX " + generateUniqueName() + " ON " + tableName + " (NAME) INCLUDE (AMOUNT)");
+    assertSameCellsAsUpsert(tableName);
+  }
+
+  @Test
+  public void testSameCellsAsUpsertWithSingleCellStorage() throws Exception {
+    assertSameCellsAsUpsert(createTable(") IMMUTABLE_ROWS=true,"
+      + " IMMUTABLE_STORAGE_SCHEME=SINGLE_CELL_ARRAY_WITH_OFFSETS, COLUMN_ENCODED_BYTES=2"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testInvalidRecordsReported() throws Exception {
+    PTable table = PhoenixRuntime.getTable(conn, createTable(")"));
+    UpsertExecutor.UpsertListener<GenericRecord> listener =
+      mock(UpsertExecutor.UpsertListener.class);
+    GenericRecord notANumber = createRecord(1, 1, "name", "ThisIsNotANumber");
+    GenericRecord tooLong = createRecord(2, 2, "ThisNameIsLongerThanTwenty", "1");
+    GenericRecord tooPrecise = createRecord(3, 3, "name", "123456789.5");
+    new AvroColumnMapper(conn, table, COLUMN_INFOS, listener)
+      .execute(Arrays.asList(notANumber, tooLong, tooPrecise, createRecord(4, 4, "name", "1")));
+    verify(listener).errorOnRecord(eq(notANumber), any(Throwable.class));
+    verify(listener).errorOnRecord(eq(tooLong), any(Throwable.class));
+    verify(listener).errorOnRecord(eq(tooPrecise), any(Throwable.class));
+    verify(listener).upsertDone(anyLong());
+    assertFalse(getUncommittedCells().isEmpty());
+  }
+
+  @Test
+  public void testTablesNeedingTheUpsertNotSupported() throws Exception {
+    String tableName = createTable(", D VARCHAR DEFAULT 'd')");
+    assertFalse(AvroColumnMapper.isSupported(conn, PhoenixRuntime.getTable(conn, tableName),
+      COLUMN_INFOS));
+
+    String viewName = generateUniqueName();
+    conn.createStatement()
+      .execute("CREATE VIEW " + viewName + " AS SELECT * FROM " + createTable(")"));
+    assertFalse(AvroColumnMapper.isSupported(conn, PhoenixRuntime.getTable(conn, viewName),
+      COLUMN_INFOS));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.util.avro;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.types.PArrayDataType;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PIntegerArray;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.UpsertExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.phoenix.thirdparty.com.google.common.collect.ImmutableList;
+
+public class AvroUpsertExecutorTest extends BaseConnectionlessQueryTest {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Person").fields().requiredLong("id")
+    .requiredString("name").optionalInt("age").name("values").type().array().items().intType()
+    .noDefault().requiredBoolean("beard").requiredBytes("pic").name("t")
+    .type(LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG))).noDefault()
+    .requiredString("amount").endRecord();
+
+  private Connection conn;
+  private List<ColumnInfo> columnInfoList;
+  private PreparedStatement preparedStatement;
+  private UpsertExecutor.UpsertListener<GenericRecord> upsertListener;
+  private AvroUpsertExecutor upsertExecutor;
+
+  @Before
+  public void setUp() throws SQLException {
+    columnInfoList = ImmutableList.of(new ColumnInfo("ID", Types.BIGINT),
+      new ColumnInfo("NAME", Types.VARCHAR), new ColumnInfo("AGE", Types.INTEGER),
+      new ColumnInfo("\"VALUES\"", PIntegerArray.INSTANCE.getSqlType()),
+      new ColumnInfo("CF.BEARD", Types.BOOLEAN), new ColumnInfo("PIC", Types.BINARY),
+      new ColumnInfo("T", Types.TIMESTAMP), new ColumnInfo("AMOUNT", Types.DECIMAL));
+    preparedStatement = mock(PreparedStatement.class);
+    upsertListener = mock(UpsertExecutor.UpsertListener.class);
+    conn = DriverManager.getConnection(getUrl());
+    upsertExecutor =
+      new AvroUpsertExecutor(conn, columnInfoList, preparedStatement, upsertListener);
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  private GenericRecord createRecord(Object age, String amount) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", 123L);
+    record.put("name", new Utf8("NameValue"));
+    record.put("age", age);
+    record.put("values", Arrays.asList(1, 2, 3));
+    record.put("beard", true);
+    record.put("pic", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+    record.put("t", Instant.ofEpochMilli(1000L));
+    record.put("amount", amount);
+    return record;
+  }
+
+  @Test
+  public void testExecute() throws Exception {
+    upsertExecutor.execute(ImmutableList.of(createRecord(42, "12.50")));
+
+    verify(upsertListener).upsertDone(1L);
+    verifyNoMoreInteractions(upsertListener);
+
+    verify(preparedStatement).setObject(1, Long.valueOf(123L));
+    verify(preparedStatement).setObject(2, "NameValue");
+    verify(preparedStatement).setObject(3, Integer.valueOf(42));
+    verify(preparedStatement).setObject(4,
+      PArrayDataType.instantiatePhoenixArray(PInteger.INSTANCE, new Object[] { 1, 2, 3 }));
+    verify(preparedStatement).setObject(5, Boolean.TRUE);
+    verify(preparedStatement).setObject(6, new byte[] { 1, 2, 3 });
+    verify(preparedStatement).setObject(7, new Timestamp(1000L));
+    verify(preparedStatement).setObject(8, new BigDecimal("12.50"));
+    verify(preparedStatement).execute();
+    verifyNoMoreInteractions(preparedStatement);
+  }
+
+  @Test
+  public void testExecute_NullField() throws Exception {
+    upsertExecutor.execute(ImmutableList.of(createRecord(null, "1")));
+
+    verify(upsertListener).upsertDone(1L);
+    verify(preparedStatement).setNull(3, Types.INTEGER);
+  }
+
+  @Test
+  public void testExecute_InvalidString() throws Exception {
+    GenericRecord record = createRecord(42, "ThisIsNotANumber");
+    upsertExecutor.execute(ImmutableList.of(record));
+
+    verify(upsertListener).errorOnRecord(eq(record), any(Throwable.class));
+    verifyNoMoreInteractions(upsertListener);
+  }
+
+  @Test
+  public void testExecute_MissingField() throws Exception {
+    Schema schema = SchemaBuilder.record("Person").fields().requiredLong("id").endRecord();
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("id", 123L);
+    upsertExecutor.execute(ImmutableList.of(record));
+
+    verify(upsertListener).errorOnRecord(eq(record), any(Throwable.class));
+    verifyNoMoreInteractions(upsertListener);
+  }
+}